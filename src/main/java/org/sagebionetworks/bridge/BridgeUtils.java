@@ -107,6 +107,10 @@ public class BridgeUtils {
     
     private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final String TEMPLATE_VAR_PREFIX = "${";
+    private static final char TEMPLATE_VAR_SUFFIX = '}';
+    // Extra capacity for a resolved template, since values are usually longer than their variables
+    private static final int TEMPLATE_RESOLUTION_PADDING = 256;
     private static final StudyAssociations NO_ASSOCIATIONS = new StudyAssociations(ImmutableSet.of(),
             ImmutableMap.of());
 
@@ -296,7 +300,8 @@ public class BridgeUtils {
     /**
      * A simple means of providing template variables in template strings, in the format <code>${variableName}</code>.
      * This value will be replaced with the value of the variable name. The variable name/value pairs are passed to the
-     * method as a map. Variables that are not found in the map will be left in the string as is.
+     * method as a map. Variables that are not found in the map will be left in the string as is. The template is
+     * resolved in a single pass, so variables that appear in the values themselves are not resolved.
      *
      * @see <a href="https://sagebionetworks.jira.com/wiki/display/BRIDGE/EmailTemplate"></a>
      * 
@@ -308,13 +313,29 @@ public class BridgeUtils {
         checkNotNull(template);
         checkNotNull(values);
         
-        for (Map.Entry<String,String> entry : values.entrySet()) {
-            if (entry.getValue() != null) {
-                String var = "${"+entry.getKey()+"}";
-                template = template.replace(var, entry.getValue());
+        int varStart = template.indexOf(TEMPLATE_VAR_PREFIX);
+        if (varStart < 0) {
+            return template;
+        }
+        StringBuilder sb = new StringBuilder(template.length() + TEMPLATE_RESOLUTION_PADDING);
+        int copiedUntil = 0;
+        while (varStart >= 0) {
+            int varEnd = template.indexOf(TEMPLATE_VAR_SUFFIX, varStart + TEMPLATE_VAR_PREFIX.length());
+            if (varEnd < 0) {
+                break;
+            }
+            String value = values.get(template.substring(varStart + TEMPLATE_VAR_PREFIX.length(), varEnd));
+            if (value != null) {
+                sb.append(template, copiedUntil, varStart).append(value);
+                copiedUntil = varEnd + 1;
+                varStart = template.indexOf(TEMPLATE_VAR_PREFIX, copiedUntil);
+            } else {
+                // Leave the variable, but a variable may start inside it (e.g. "${a${b}")
+                varStart = template.indexOf(TEMPLATE_VAR_PREFIX, varStart + TEMPLATE_VAR_PREFIX.length());
             }
         }
-        return template;
+        sb.append(template, copiedUntil, template.length());
+        return sb.toString();
     }
     
     public static String generateGuid() {
@@ -39,6 +39,17 @@ public class RequestContext {
     public static void set(RequestContext context) {
         REQUEST_CONTEXT_THREAD_LOCAL.set(context);
     }
+    
+    /**
+     * Counts a cache hit or miss in the metrics of the current thread's request. Does nothing if there are no 
+     * metrics (for example, outside of a request). See {@link Metrics#recordCacheResult}.
+     */
+    public static void recordCacheResult(String region, boolean hit) {
+        Metrics metrics = get().getMetrics();
+        if (metrics != null) {
+            metrics.recordCacheResult(region, hit);
+        }
+    }
 
     public static RequestContext updateFromSession(UserSession session, SponsorService sponsorService) {
         RequestContext.Builder builder = get().toBuilder();
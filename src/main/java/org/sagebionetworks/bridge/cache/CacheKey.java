@@ -7,6 +7,7 @@ import org.sagebionetworks.bridge.models.ThrottleRequestType;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+import org.sagebionetworks.bridge.models.templates.TemplateType;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
@@ -19,7 +20,8 @@ import com.google.common.collect.Lists;
 public final class CacheKey {
     
     private static final String[] PUBLIC_KEYS = new String[] { "emailVerificationStatus", "AppConfigList",
-            "channel-throttling", "lock", "App", "Subpopulation", "SubpopulationList", "view" };
+            "channel-throttling", "lock", "App", "Subpopulation", "SubpopulationList", "view", "Study", "StudyIdList",
+            "Organization" };
     
     public final static boolean isPublic(String key) {
         for (String suffix : PUBLIC_KEYS) {
@@ -90,12 +92,107 @@ public final class CacheKey {
     public static final CacheKey app(String appId) {
         return new CacheKey(appId, "App");
     }    
+    /**
+     * The resolved (most recently published) version of a survey referenced in a schedule. Removed when a survey
+     * is published or deleted.
+     */
+    public static final CacheKey resolvedSurveyReference(String appId, String surveyGuid) {
+        return new CacheKey(surveyGuid, appId, "ResolvedSurveyReference");
+    }
+    /**
+     * A published survey version with its elements. Apart from the deleted flag, published versions cannot change,
+     * so this is only removed when the version is deleted, undeleted, or physically removed.
+     */
+    public static final CacheKey publishedSurvey(String appId, String surveyGuid, long createdOn) {
+        return new CacheKey(surveyGuid, Long.toString(createdOn), appId, "PublishedSurvey");
+    }
+    /**
+     * The list of the most recently published version of every survey in an app. Removed when any survey in the
+     * app is published, deleted, or undeleted.
+     */
+    public static final CacheKey mostRecentlyPublishedSurveys(String appId, boolean includeDeleted) {
+        return new CacheKey(appId, Boolean.toString(includeDeleted), "MostRecentlyPublishedSurveys");
+    }
+    /**
+     * The resolved schema revision for a schema referenced in a schedule. Schema resolution depends on the 
+     * client's OS and app version, so these keys are collected in a set (see resolvedSchemaReferenceSet) 
+     * that is removed when any revision of the schema changes.
+     */
+    public static final CacheKey resolvedSchemaReference(String appId, String schemaId, String osName,
+            Integer appVersion) {
+        return new CacheKey(schemaId, String.valueOf(osName), String.valueOf(appVersion), appId,
+                "ResolvedSchemaReference");
+    }
+    public static final CacheKey resolvedSchemaReferenceSet(String appId, String schemaId) {
+        return new CacheKey(schemaId, appId, "ResolvedSchemaReferenceSet");
+    }
+    /** The compound activity of a compound activity definition, referenced by task ID in a schedule. */
+    public static final CacheKey compoundActivityDefinition(String appId, String taskId) {
+        return new CacheKey(taskId, appId, "CompoundActivityDefinition");
+    }
+    /**
+     * The participant's sharing scope, data groups, study memberships and study start time, as copied into 
+     * their health data records. Removed when the account is updated or a global enrollment or 
+     * activities_retrieved event is recorded.
+     */
+    public static final CacheKey participantUploadMetadata(String appId, String healthCode) {
+        return new CacheKey(healthCode, appId, "ParticipantUploadMetadata");
+    }
     public static final CacheKey subpop(SubpopulationGuid subpopGuid, String appId) {
         return new CacheKey(subpopGuid.getGuid(), appId, "Subpopulation");
     }
     public static final CacheKey subpopList(String appId) {
         return new CacheKey(appId, "SubpopulationList");
     }
+    /**
+     * Marks that an upload with this MD5 was registered for this health code in the upload dedupe table, so that
+     * uploads that are not dupes don't need to query that table.
+     */
+    public static final CacheKey uploadDedupe(String healthCode, String uploadMd5) {
+        return new CacheKey(healthCode, uploadMd5, "UploadDedupe");
+    }
+    /** The time since which every registered upload in an app has an uploadDedupe marker. */
+    public static final CacheKey uploadDedupeCoverage(String appId) {
+        return new CacheKey(appId, "UploadDedupeCoverage");
+    }
+    /**
+     * The undeleted templates of one type in an app, with their criteria, from which a template is selected for a 
+     * user. Removed when a template of that type is created, updated or deleted, or a revision of it is published.
+     */
+    public static final CacheKey templateList(String appId, TemplateType type) {
+        return new CacheKey(type.name(), appId, "TemplateList");
+    }
+    /** A template revision. Revisions cannot be changed once created, so this is only removed when it expires. */
+    public static final CacheKey templateRevision(String templateGuid, long createdOn) {
+        return new CacheKey(templateGuid, Long.toString(createdOn), "TemplateRevision");
+    }
+    /** A study. Removed when the study is updated or deleted. */
+    public static final CacheKey study(String appId, String studyId) {
+        return new CacheKey(studyId, appId, "Study");
+    }
+    /** The IDs of the undeleted studies in an app. Removed when a study is created, updated or deleted. */
+    public static final CacheKey studyIdList(String appId) {
+        return new CacheKey(appId, "StudyIdList");
+    }
+    /** An organization. Removed when the organization is updated or deleted. */
+    public static final CacheKey organization(String appId, String orgId) {
+        return new CacheKey(orgId, appId, "Organization");
+    }
+    /**
+     * A token that changes whenever the activity events or scheduled activities of a user change. A user's computed 
+     * schedule is only reused while this token is the one it was computed under.
+     */
+    public static final CacheKey scheduledActivitiesVersion(String healthCode) {
+        return new CacheKey(healthCode, "ScheduledActivitiesVersion");
+    }
+    /** A token that changes whenever a schedule plan in the app is created, updated or deleted. */
+    public static final CacheKey schedulePlansVersion(String appId) {
+        return new CacheKey(appId, "SchedulePlansVersion");
+    }
+    /** The progress of a background job deleting a user. Kept after the job completes until it expires. */
+    public static final CacheKey userDeletionJob(String appId, String userId) {
+        return new CacheKey(userId, appId, "UserDeletionJob");
+    }
     public static final CacheKey userIdToSession(String userId) {
         return new CacheKey(userId, "session2", "user");
     }
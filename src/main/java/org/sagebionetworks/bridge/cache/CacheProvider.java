@@ -352,6 +352,27 @@ public class CacheProvider {
         }
     }
     
+    /**
+     * Set an object in the cache with an expiration in seconds, only if there is no object under that key. Returns 
+     * true if the object was set.
+     */
+    public boolean setObjectIfAbsent(CacheKey cacheKey, Object object, int expireInSeconds) {
+        checkNotNull(cacheKey);
+        checkNotNull(object);
+        try {
+            String ser = BridgeObjectMapper.get().writeValueAsString(object);
+            Long result = jedisOps.setnx(cacheKey.toString(), ser);
+            if (result == null || result != 1L) {
+                return false;
+            }
+            jedisOps.expire(cacheKey.toString(), expireInSeconds);
+            return true;
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
     /**
      * Remove object from cache, if it exists.
      */
@@ -13,8 +13,11 @@ import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.servlet.Filter;
@@ -31,6 +34,8 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClient;
 import com.amazonaws.services.simpleemail.AmazonSimpleEmailServiceClient;
 import com.amazonaws.services.sns.AmazonSNSClient;
@@ -42,7 +47,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.mchange.v2.c3p0.DriverManagerDataSource;
 
-import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
@@ -71,6 +80,7 @@ import org.sagebionetworks.bridge.dynamodb.AnnotationBasedTableCreator;
 import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent;
 import org.sagebionetworks.bridge.dynamodb.DynamoAppConfig;
 import org.sagebionetworks.bridge.dynamodb.DynamoAppConfigElement;
+import org.sagebionetworks.bridge.dynamodb.DynamoBulkDeleter;
 import org.sagebionetworks.bridge.dynamodb.DynamoCompoundActivityDefinition;
 import org.sagebionetworks.bridge.dynamodb.DynamoCriteria;
 import org.sagebionetworks.bridge.dynamodb.DynamoExternalIdentifier;
@@ -95,6 +105,7 @@ import org.sagebionetworks.bridge.dynamodb.DynamoStudyConsent1;
 import org.sagebionetworks.bridge.dynamodb.DynamoSubpopulation;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurveyElement;
+import org.sagebionetworks.bridge.dynamodb.DynamoThrottleController;
 import org.sagebionetworks.bridge.dynamodb.DynamoTopicSubscription;
 import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
 import org.sagebionetworks.bridge.dynamodb.DynamoUploadDedupe;
@@ -139,6 +150,7 @@ import org.sagebionetworks.bridge.upload.UnzipHandler;
 import org.sagebionetworks.bridge.upload.UploadArtifactsHandler;
 import org.sagebionetworks.bridge.upload.UploadFormatHandler;
 import org.sagebionetworks.bridge.upload.UploadRawZipHandler;
+import org.sagebionetworks.bridge.upload.UploadUtil;
 import org.sagebionetworks.bridge.upload.UploadValidationHandler;
 import org.sagebionetworks.client.SynapseAdminClientImpl;
 import org.sagebionetworks.client.SynapseClient;
@@ -217,7 +229,26 @@ public class SpringConfig {
         int maxRetries = bridgeConfig().getPropertyAsInt("ddb.max.retries");
         ClientConfiguration awsClientConfig = PredefinedClientConfigurations.dynamoDefault()
                 .withMaxErrorRetry(maxRetries);
-        return new AmazonDynamoDBClient(awsCredentials(), awsClientConfig);
+        AmazonDynamoDBClient client = new AmazonDynamoDBClient(awsCredentials(), awsClientConfig);
+        client.addRequestHandler(dynamoThrottleController());
+        return client;
+    }
+
+    @Bean(name = "dynamoThrottleController")
+    @Resource(name = "bridgeConfig")
+    public DynamoThrottleController dynamoThrottleController() {
+        BridgeConfig bridgeConfig = bridgeConfig();
+        return new DynamoThrottleController(
+                bridgeConfig.getPropertyAsInt("ddb.table.min.items.per.second"),
+                bridgeConfig.getPropertyAsInt("ddb.table.max.items.per.second"),
+                bridgeConfig.getPropertyAsInt("ddb.table.items.per.second.increase"));
+    }
+
+    @Bean(name = "dynamoBulkDeleter")
+    @Resource(name = "bridgeConfig")
+    public DynamoBulkDeleter dynamoBulkDeleter() {
+        return new DynamoBulkDeleter(dynamoThrottleController(),
+                bridgeConfig().getPropertyAsInt("ddb.bulk.delete.items.per.second"));
     }
     
     @Bean(name = "snsClient")
@@ -254,11 +285,6 @@ public class SpringConfig {
         return new AWSSecurityTokenServiceClient(awsCredentials);
     }
 
-    @Bean(name = "md5DigestUtils")
-    public DigestUtils md5DigestUtils() {
-        return new DigestUtils(DigestUtils.getMd5Digest());
-    }
-
     @Bean(name = "s3Helper")
     @Resource(name = "s3Client")
     public S3Helper s3Helper(AmazonS3Client s3Client) {
@@ -285,6 +311,77 @@ public class SpringConfig {
         return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("async.worker.thread.count"));
     }
 
+    /**
+     * Thread pool for logging sent SMS messages and recording them as health data. The queue is bounded, and the 
+     * request thread does the work itself when the queue is full.
+     */
+    @Bean(name = "smsExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService smsExecutorService(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("sms.log.thread.count");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bridgeConfig.getPropertyAsInt("sms.log.queue.size")),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Thread pool that runs background user deletion jobs, one thread per job. The queue is bounded, and when it is 
+     * full, new jobs are rejected rather than waiting behind a long backlog.
+     */
+    @Bean(name = "userDeletionExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService userDeletionExecutorService(BridgeConfig bridgeConfig) {
+        int threadCount = bridgeConfig.getPropertyAsInt("user.deletion.thread.count");
+        return new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bridgeConfig.getPropertyAsInt("user.deletion.queue.size")));
+    }
+
+    /**
+     * Thread pool that deletes a user's data from each store in parallel. This is shared by all deletion jobs, so it
+     * bounds the load that user deletion can put on DynamoDB, S3 and MySQL at any one time.
+     */
+    @Bean(name = "userDeletionStageExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService userDeletionStageExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("user.deletion.stage.thread.count"));
+    }
+
+    @Bean(name = "attachmentUploadExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService attachmentUploadExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("attachment.upload.thread.count"));
+    }
+
+    @Bean(name = "attachmentTransferManager")
+    @Resource(name = "s3Client")
+    public TransferManager attachmentTransferManager(AmazonS3Client s3Client) {
+        return TransferManagerBuilder.standard().withS3Client(s3Client)
+                .withMultipartUploadThreshold((long) UploadUtil.MULTIPART_UPLOAD_THRESHOLD).build();
+    }
+
+    // Shared by all calls to partner services, so that connections are kept alive and reused. The connection 
+    // request timeout bounds the wait for a pooled connection, and the connect and socket timeouts bound the call.
+    @Bean(name = "outboundHttpClient")
+    @Resource(name = "bridgeConfig")
+    public CloseableHttpClient outboundHttpClient(BridgeConfig bridgeConfig) {
+        int connectTimeout = bridgeConfig.getPropertyAsInt("outbound.http.connect.timeout.millis");
+        int socketTimeout = bridgeConfig.getPropertyAsInt("outbound.http.socket.timeout.millis");
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(bridgeConfig.getPropertyAsInt("outbound.http.max.connections"));
+        connectionManager.setDefaultMaxPerRoute(bridgeConfig.getPropertyAsInt("outbound.http.max.connections.per.route"));
+
+        RequestConfig requestConfig = RequestConfig.custom().setConnectionRequestTimeout(connectTimeout)
+                .setConnectTimeout(connectTimeout).setSocketTimeout(socketTimeout).build();
+
+        return HttpClients.custom().setConnectionManager(connectionManager).setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(bridgeConfig.getPropertyAsInt("outbound.http.idle.timeout.seconds"),
+                        TimeUnit.SECONDS)
+                .build();
+    }
+
     @Bean(name = "supportEmail")
     @Resource(name = "bridgeConfig")
     public String supportEmail(BridgeConfig bridgeConfig) {
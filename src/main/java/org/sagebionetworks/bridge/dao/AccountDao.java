@@ -7,6 +7,7 @@ import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountLoadProfile;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import org.sagebionetworks.bridge.models.apps.App;
 
@@ -44,6 +45,12 @@ public interface AccountDao {
      */
     Optional<Account> getAccount(AccountId accountId);
     
+    /**
+     * Get an account as above, loading only the parts of the account described by the profile. Collections 
+     * outside of the profile are not loaded and cannot be accessed on the returned account. 
+     */
+    Optional<Account> getAccount(AccountId accountId, AccountLoadProfile profile);
+    
     /**
      * Delete an account along with the authentication credentials.
      */
@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.List;
 import java.util.Map;
 
 import org.joda.time.DateTime;
@@ -18,6 +19,13 @@ public interface ActivityEventDao {
      */
     boolean publishEvent(ActivityEvent event);
     
+    /**
+     * Publish a set of events in a single batch (e.g. the automatic custom events derived from another event). As 
+     * with publishEvent, each event is only written if it is new, or it is mutable and its timestamp is later than 
+     * the recorded timestamp.
+     */
+    void publishEvents(List<ActivityEvent> events);
+    
     /**
      * Get a map of events, where the string key is an event identifier, and the value 
      * is the timestamp of the event. If studyId is null, only events that are not scoped
@@ -3,15 +3,18 @@ package org.sagebionetworks.bridge.dao;
 import java.util.List;
 
 import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.studies.EnrollmentDetail;
 import org.sagebionetworks.bridge.models.studies.EnrollmentFilter;
 
 public interface EnrollmentDao {
     /**
-     * Get accounts that have been enrolled in the study (past and present).
+     * Get accounts that have been enrolled in the study (past and present). The total is calculated as 
+     * described by totalCount.
      */
     PagedResourceList<EnrollmentDetail> getEnrollmentsForStudy(String appId, String studyId, 
-            EnrollmentFilter filter, boolean includeTesters, Integer offsetBy, Integer pageSize);
+            EnrollmentFilter filter, boolean includeTesters, Integer offsetBy, Integer pageSize,
+            TotalCount totalCount);
     
     /**
      * Get enrollments for a specific account.
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.dao;
 
 import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifierInfo;
 
@@ -11,10 +12,11 @@ import org.sagebionetworks.bridge.models.accounts.ExternalIdentifierInfo;
  */
 public interface ExternalIdDao {
     /**
-     * Get a page of external IDs associated to the indicated study.  
+     * Get a page of external IDs associated to the indicated study. The total is calculated as described by 
+     * totalCount.
      */
     PagedResourceList<ExternalIdentifierInfo> getPagedExternalIds(String appId, String studyId, String idFilter,
-            Integer offsetBy, Integer pageSize);
+            Integer offsetBy, Integer pageSize, TotalCount totalCount);
 
     /**
      * Delete an external identifier.
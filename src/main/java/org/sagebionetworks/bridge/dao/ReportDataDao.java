@@ -1,5 +1,7 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.List;
+
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 
@@ -30,6 +32,22 @@ public interface ReportDataDao {
     ForwardCursorPagedResourceList<ReportData> getReportDataV4(ReportDataKey key, DateTime startTime, DateTime endTime,
             String offsetKey, int pageSize);
     
+    /**
+     * Get report data records for the given date range, without a limit on the size of the range. Records 
+     * are loaded lazily from the backing store, one page at a time, as the iterable is consumed, and pages are 
+     * not retained once iterated past. Records saved with a DateTime are included for all dates in the range 
+     * (in UTC), so both kinds of report can be exported with this method.
+     *
+     * @param key
+     *         the key for this report
+     * @param startDate
+     *         start date for report
+     * @param endDate
+     *         end date for report
+     * @return an iterable that can only be iterated over once.
+     */
+    Iterable<? extends ReportData> streamReportData(ReportDataKey key, LocalDate startDate, LocalDate endDate);
+    
     /**
      * Writes a report data record to the backing store. 
      *
@@ -38,6 +56,16 @@ public interface ReportDataDao {
      */
     void saveReportData(ReportData reportData);
     
+    /**
+     * Writes a batch of report data records to the backing store. The records may belong to different 
+     * reports (e.g. the same report for many participants). Unprocessed items are retried, and if any 
+     * records still cannot be written, an exception is thrown.
+     *
+     * @param reportDataList
+     *         report data objects
+     */
+    void saveReportDataRecords(List<ReportData> reportDataList);
+    
     /***
      * Delete all records regardless of date for a report. This can be used as part of testing, 
      * and in development, but there will be too many records in production to do a deletion.
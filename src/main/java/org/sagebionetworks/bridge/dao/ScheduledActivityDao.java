@@ -17,6 +17,14 @@ public interface ScheduledActivityDao {
     ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistoryV2(String healthCode, String activityGuid,
             DateTime scheduledOnStart, DateTime scheduledOnEnd, String offsetKey, int pageSize);
     
+    /**
+     * Get all historical scheduled activities by an activity GUID in the given time range, most recent first. 
+     * Activities are loaded lazily, one page at a time, as the iterable is consumed, and pages are not retained 
+     * once iterated past. The iterable can only be iterated over once.
+     */
+    Iterable<ScheduledActivity> streamActivityHistory(String healthCode, String activityGuid,
+            DateTime scheduledOnStart, DateTime scheduledOnEnd);
+    
     /**
      * Get paged results of historical scheduled activities by a GUID constructed from the task, compound
      * activity or survey that is referred to by the scheduled activity.
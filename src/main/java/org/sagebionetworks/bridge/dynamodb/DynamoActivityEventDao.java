@@ -5,6 +5,8 @@ import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectTy
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.CREATED_ON;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ENROLLMENT;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -22,12 +24,14 @@ import org.springframework.stereotype.Component;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableMap.Builder;
-import com.google.common.collect.Lists;
 
 @Component
 public class DynamoActivityEventDao implements ActivityEventDao {
@@ -39,13 +43,25 @@ public class DynamoActivityEventDao implements ActivityEventDao {
             ACTIVITIES_RETRIEVED.name().toLowerCase(),
             CREATED_ON.name().toLowerCase());
 
+    static final String EVENT_ID_FIELD = "eventId";
+    static final String TIMESTAMP_FIELD = "timestamp";
+    
+    static final DynamoDBSaveExpression DOES_NOT_EXIST_EXPRESSION = new DynamoDBSaveExpression()
+            .withConditionExpression("attribute_not_exists(" + EVENT_ID_FIELD + ")");
+
     private DynamoDBMapper mapper;
+    private DynamoBulkDeleter dynamoBulkDeleter;
 
     @Resource(name = "activityEventDdbMapper")
     public final void setDdbMapper(DynamoDBMapper mapper) {
         this.mapper = mapper;
     }
 
+    @Resource(name = "dynamoBulkDeleter")
+    public final void setDynamoBulkDeleter(DynamoBulkDeleter dynamoBulkDeleter) {
+        this.dynamoBulkDeleter = dynamoBulkDeleter;
+    }
+
     @Override
     public boolean deleteCustomEvent(ActivityEvent event) {
         checkNotNull(event);
@@ -63,21 +79,82 @@ public class DynamoActivityEventDao implements ActivityEventDao {
         return false;
     }
     
+    /**
+     * Events are recorded with a conditional write rather than being read first and then saved. Immutable events 
+     * are only written if they do not exist; all other events are written if they do not exist, or if the new 
+     * timestamp is later than the recorded timestamp.
+     */
     @Override
     public boolean publishEvent(ActivityEvent event) {
         checkNotNull(event);
         
-        DynamoActivityEvent hashKey = new DynamoActivityEvent();
-        hashKey.setHealthCode(event.getHealthCode());
-        hashKey.setStudyId(event.getStudyId());
-        hashKey.setEventId(event.getEventId());
+        try {
+            mapper.save(event, getSaveExpression(event));
+            return true;
+        } catch(ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Batch writes cannot be conditional, so the recorded events are read in one batch first, and only the events 
+     * that publishEvent() would write are saved.
+     */
+    @Override
+    public void publishEvents(List<ActivityEvent> events) {
+        checkNotNull(events);
         
-        ActivityEvent savedEvent = mapper.load(hashKey);
-        if (isNewOrMutable(savedEvent, event) && isLater(savedEvent, event)) {
-            mapper.save(event);
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Object> keys = new ArrayList<>();
+        for (ActivityEvent event : events) {
+            DynamoActivityEvent hashKey = new DynamoActivityEvent();
+            hashKey.setHealthCode(event.getHealthCode());
+            hashKey.setStudyId(event.getStudyId());
+            hashKey.setEventId(event.getEventId());
+            keys.add(hashKey);
+        }
+        Map<String, ActivityEvent> savedEvents = new HashMap<>();
+        for (List<Object> tableEvents : mapper.batchLoad(keys).values()) {
+            for (Object savedEvent : tableEvents) {
+                ActivityEvent event = (ActivityEvent) savedEvent;
+                savedEvents.put(getEventKey(event), event);
+            }
+        }
+        List<ActivityEvent> eventsToSave = new ArrayList<>();
+        for (ActivityEvent event : events) {
+            ActivityEvent savedEvent = savedEvents.get(getEventKey(event));
+            if (isNewOrMutable(savedEvent, event) && isLater(savedEvent, event)) {
+                eventsToSave.add(event);
+            }
+        }
+        if (!eventsToSave.isEmpty()) {
+            List<FailedBatch> failures = mapper.batchSave(eventsToSave);
+            BridgeUtils.ifFailuresThrowException(failures);
+        }
+    }
+    
+    private static String getEventKey(ActivityEvent event) {
+        return event.getHealthCode() + ":" + event.getEventId();
+    }
+    
+    private static boolean isNewOrMutable(ActivityEvent savedEvent, ActivityEvent event) {
+        if (savedEvent == null) {
             return true;
         }
-        return false;
+        return (!IMMUTABLE_EVENTS.contains(event.getEventId()));
+    }
+    
+    /**
+     * Events cannot be recorded unless the timestamp submitted is later than the currently
+     * recorded timestamp.
+     */
+    private static boolean isLater(ActivityEvent savedEvent, ActivityEvent event) {
+        if (savedEvent == null || savedEvent.getTimestamp() == null) {
+            return true;
+        }
+        return event.getTimestamp() > savedEvent.getTimestamp();
     }
 
     @Override
@@ -109,33 +186,24 @@ public class DynamoActivityEventDao implements ActivityEventDao {
         DynamoDBQueryExpression<DynamoActivityEvent> query = new DynamoDBQueryExpression<DynamoActivityEvent>()
             .withHashKeyValues(hashKey);
 
-        PaginatedQueryList<DynamoActivityEvent> queryResults = mapper.query(DynamoActivityEvent.class, query);
-        
-        List<DynamoActivityEvent> objectsToDelete = Lists.newArrayList();
-        objectsToDelete.addAll(queryResults);
-        
-        if (!objectsToDelete.isEmpty()) {
-            List<FailedBatch> failures = mapper.batchDelete(objectsToDelete);
-            BridgeUtils.ifFailuresThrowException(failures);
-        }
-    }
-    
-    private boolean isNewOrMutable(ActivityEvent savedEvent, ActivityEvent event) {
-        if (savedEvent == null) {
-            return true;
-        }
-        return (!IMMUTABLE_EVENTS.contains(event.getEventId()));
+        PaginatedQueryList<DynamoActivityEvent> queryResults = mapper.query(DynamoActivityEvent.class, query,
+                DynamoBulkDeleter.STREAMING_CONFIG);
+        dynamoBulkDeleter.delete(mapper, DynamoActivityEvent.class, queryResults);
     }
     
     /**
-     * Events cannot be recorded unless the timestamp submitted is later than the currently
-     * recorded timestamp.
+     * Events cannot be recorded unless they are new, or they are mutable and the timestamp submitted is later than 
+     * the currently recorded timestamp. ("timestamp" is a reserved word in DynamoDB expressions.)
      */
-    private boolean isLater(ActivityEvent savedEvent, ActivityEvent event) {
-        if (savedEvent == null) {
-            return true;
-        }        
-        return event.getTimestamp() > savedEvent.getTimestamp();
+    static DynamoDBSaveExpression getSaveExpression(ActivityEvent event) {
+        if (IMMUTABLE_EVENTS.contains(event.getEventId())) {
+            return DOES_NOT_EXIST_EXPRESSION;
+        }
+        return new DynamoDBSaveExpression()
+                .withConditionExpression("attribute_not_exists(" + EVENT_ID_FIELD + ") OR #ts < :ts")
+                .withExpressionAttributeNames(ImmutableMap.of("#ts", TIMESTAMP_FIELD))
+                .withExpressionAttributeValues(ImmutableMap.of(":ts",
+                        new AttributeValue().withN(Long.toString(event.getTimestamp()))));
     }
 
     /**
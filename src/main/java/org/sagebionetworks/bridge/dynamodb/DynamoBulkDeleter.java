@@ -0,0 +1,96 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.RateLimiter;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+
+/**
+ * <p>
+ * Deletes large numbers of items, such as all of a participant's records in a table. Items are deleted a batch at a
+ * time as their keys are read, so memory use does not grow with the number of items, as long as the keys are read
+ * lazily (for example, from a query made with STREAMING_CONFIG, or from an index query).
+ * </p>
+ * <p>
+ * Bulk deletes of each mapped class share a fixed rate limit, so that deleting a heavy participant in the
+ * background does not starve other calls to the table. Deletes that a caller is waiting on should be run through
+ * runUnpaced(), so a request thread never waits on this limit. Batches are deleted through the
+ * DynamoThrottleController, which resubmits unprocessed items, and paces the table if DynamoDB throttles it.
+ * </p>
+ */
+public class DynamoBulkDeleter {
+    /** DynamoDB's limit on the number of items in one batch write. */
+    static final int BATCH_SIZE = 25;
+
+    /** Lazily loads pages of query results, and does not retain pages that have already been iterated. */
+    public static final DynamoDBMapperConfig STREAMING_CONFIG = new DynamoDBMapperConfig.Builder()
+            .withPaginationLoadingStrategy(PaginationLoadingStrategy.ITERATION_ONLY).build();
+
+    // Set while running deletes that a caller is waiting on, which are not paced.
+    private static final ThreadLocal<Boolean> UNPACED = ThreadLocal.withInitial(() -> false);
+
+    private final ConcurrentMap<Class<?>, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final DynamoThrottleController dynamoThrottleController;
+    private final double itemsPerSecond;
+
+    /**
+     * @param itemsPerSecond
+     *         the rate at which bulk deletes of each mapped class can delete items
+     */
+    public DynamoBulkDeleter(DynamoThrottleController dynamoThrottleController, double itemsPerSecond) {
+        checkNotNull(dynamoThrottleController);
+        checkArgument(itemsPerSecond > 0);
+        this.dynamoThrottleController = dynamoThrottleController;
+        this.itemsPerSecond = itemsPerSecond;
+    }
+
+    /**
+     * Runs the task without pacing the bulk deletes it makes on this thread, for deletes that a request thread waits
+     * on. Threads that the task hands work to must call this themselves.
+     */
+    public static void runUnpaced(Runnable task) {
+        boolean previous = UNPACED.get();
+        UNPACED.set(true);
+        try {
+            task.run();
+        } finally {
+            UNPACED.set(previous);
+        }
+    }
+
+    /**
+     * Deletes the items with the given keys, a batch at a time. If a batch fails after its unprocessed items have
+     * been resubmitted, this throws and the remaining items are not deleted.
+     *
+     * @param clazz
+     *         the mapped class of the keys
+     * @param keys
+     *         objects with (at least) the keys of the items to delete
+     * @return the number of items deleted
+     */
+    public <T> int delete(DynamoDBMapper mapper, Class<T> clazz, Iterable<? extends T> keys) {
+        RateLimiter rateLimiter = UNPACED.get() ? null
+                : rateLimiters.computeIfAbsent(clazz, c -> RateLimiter.create(itemsPerSecond));
+        int count = 0;
+        for (List<? extends T> batch : Iterables.partition(keys, BATCH_SIZE)) {
+            if (rateLimiter != null) {
+                rateLimiter.acquire(batch.size());
+            }
+            List<FailedBatch> failures = dynamoThrottleController.batchDelete(mapper, clazz, batch);
+            BridgeUtils.ifFailuresThrowException(failures);
+            count += batch.size();
+        }
+        return count;
+    }
+}
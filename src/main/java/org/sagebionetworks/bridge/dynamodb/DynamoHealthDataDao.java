@@ -12,7 +12,7 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
+import com.google.common.collect.Iterables;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
@@ -29,6 +29,7 @@ public class DynamoHealthDataDao implements HealthDataDao {
     private DynamoDBMapper mapper;
     private DynamoIndexHelper healthCodeIndex;
     private DynamoIndexHelper uploadDateIndex;
+    private DynamoBulkDeleter dynamoBulkDeleter;
 
     /** DynamoDB mapper for the HealthDataRecord table. This is configured by Spring. */
     @Resource(name = "healthDataDdbMapper")
@@ -45,6 +46,12 @@ public class DynamoHealthDataDao implements HealthDataDao {
         this.healthCodeIndex = healthCodeIndex;
     }
 
+    /** Deletes all of a participant's records. This is configured by Spring. */
+    @Resource(name = "dynamoBulkDeleter")
+    public void setDynamoBulkDeleter(DynamoBulkDeleter dynamoBulkDeleter) {
+        this.dynamoBulkDeleter = dynamoBulkDeleter;
+    }
+
     /**
      * DynamoDB Index reference for the uploadDate index. This is needed because the DynamoDB mapper does allow queries
      * using global secondary indices. This is configured by Spring
@@ -78,18 +85,14 @@ public class DynamoHealthDataDao implements HealthDataDao {
         Index index = healthCodeIndex.getIndex();
         Iterable<Item> iter = index.query("healthCode", healthCode);
         
-        List<DynamoHealthDataRecord> keysToDelete = Lists.newArrayList();
-        for (Item item : iter) {
+        // Keys are converted and deleted as the pages of the query are read, so a participant with many records
+        // doesn't need all of their keys in memory.
+        Iterable<DynamoHealthDataRecord> keysToDelete = Iterables.transform(iter, item -> {
             DynamoHealthDataRecord oneRecord = new DynamoHealthDataRecord();
             oneRecord.setId(item.getString("id"));
-            keysToDelete.add(oneRecord);
-        }
-
-        // and then delete
-        List<DynamoDBMapper.FailedBatch> failureList = mapper.batchDelete(keysToDelete);
-        BridgeUtils.ifFailuresThrowException(failureList);
-
-        return keysToDelete.size();
+            return oneRecord;
+        });
+        return dynamoBulkDeleter.delete(mapper, DynamoHealthDataRecord.class, keysToDelete);
     }
 
     /** {@inheritDoc} */
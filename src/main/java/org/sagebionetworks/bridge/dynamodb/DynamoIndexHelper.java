@@ -17,6 +17,7 @@ import com.amazonaws.services.dynamodbv2.document.QueryOutcome;
 import com.amazonaws.services.dynamodbv2.document.RangeKeyCondition;
 import com.amazonaws.services.dynamodbv2.document.Table;
 import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
+import com.google.common.collect.Iterables;
 
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -95,6 +96,28 @@ public class DynamoIndexHelper {
         }
         return recordKeyList;
     }
+
+    /**
+     * Like {@link #queryKeys}, except that the key objects are converted as they are iterated, and pages of the query
+     * are only read as they are needed. This is used to batch delete rows for keys that may not fit in memory.
+     *
+     * @param clazz
+     *         expected result class
+     * @param indexKeyName
+     *         index key name to query on
+     * @param indexKeyValue
+     *         index key value to query on
+     * @param rangeKeyCondition
+     *         range condition for query on range portion of key (optional)
+     * @param <T>
+     *         expected result type
+     * @return lazy iterable of key objects returned by the query
+     */
+    public <T> Iterable<T> iterateKeys(@Nonnull Class<? extends T> clazz, @Nonnull String indexKeyName,
+            @Nonnull Object indexKeyValue, RangeKeyCondition rangeKeyCondition) {
+        Iterable<Item> itemIter = queryHelper(indexKeyName, indexKeyValue, rangeKeyCondition);
+        return Iterables.transform(itemIter, oneItem -> BridgeObjectMapper.get().convertValue(oneItem.asMap(), clazz));
+    }
     
     /**
      * Query via a secondary index to return the count of matching items in the table.
@@ -16,6 +16,7 @@ import javax.annotation.Resource;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
@@ -26,6 +27,8 @@ import org.sagebionetworks.bridge.models.reports.ReportData;
 import org.sagebionetworks.bridge.models.reports.ReportDataKey;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
@@ -36,14 +39,30 @@ import com.google.common.collect.Lists;
 
 @Component
 public class DynamoReportDataDao implements ReportDataDao {
+    
+    /**
+     * Appended to the end date of a streaming query so the range includes records saved with a DateTime 
+     * on that date (these sort after the plain date, and "~" sorts after every character in a timestamp).
+     */
+    static final String END_OF_DAY_SUFFIX = "T~";
+    
+    /** Lazily loads pages of query results, and does not retain pages that have already been iterated. */
+    static final DynamoDBMapperConfig STREAMING_CONFIG = new DynamoDBMapperConfig.Builder()
+            .withPaginationLoadingStrategy(PaginationLoadingStrategy.ITERATION_ONLY).build();
 
     private DynamoDBMapper mapper;
+    private DynamoThrottleController dynamoThrottleController;
 
     @Resource(name = "reportDataMapper")
     final void setReportDataMapper(DynamoDBMapper reportDataMapper) {
         this.mapper = reportDataMapper;
     }
     
+    @Autowired
+    final void setDynamoThrottleController(DynamoThrottleController dynamoThrottleController) {
+        this.dynamoThrottleController = dynamoThrottleController;
+    }
+    
     @Override
     public DateRangeResourceList<? extends ReportData> getReportData(ReportDataKey key, LocalDate startDate, LocalDate endDate) {
         checkNotNull(key);
@@ -68,6 +87,26 @@ public class DynamoReportDataDao implements ReportDataDao {
                 .withRequestParam(END_DATE, endDate);
     }
     
+    @Override
+    public Iterable<? extends ReportData> streamReportData(ReportDataKey key, LocalDate startDate,
+            LocalDate endDate) {
+        checkNotNull(key);
+        checkNotNull(startDate);
+        checkNotNull(endDate);
+        
+        DynamoReportData hashKey = new DynamoReportData();
+        hashKey.setKey(key.getKeyString());
+        
+        Condition dateCondition = new Condition().withComparisonOperator(BETWEEN)
+                .withAttributeValueList(new AttributeValue().withS(startDate.toString()),
+                        new AttributeValue().withS(endDate.toString() + END_OF_DAY_SUFFIX));
+        
+        DynamoDBQueryExpression<DynamoReportData> query =
+                new DynamoDBQueryExpression<DynamoReportData>().withHashKeyValues(hashKey)
+                        .withRangeKeyCondition("date", dateCondition);
+        return mapper.query(DynamoReportData.class, query, STREAMING_CONFIG);
+    }
+    
     /**
      * Query for report records within a range of DateTime values, using the indicated page size and offset key. 
      * The report's date field will be returned using the timezone provided in the startTime/endTime parameters, 
@@ -136,6 +175,21 @@ public class DynamoReportDataDao implements ReportDataDao {
         mapper.save(reportData);
     }
 
+    @Override
+    public void saveReportDataRecords(List<ReportData> reportDataList) {
+        checkNotNull(reportDataList);
+        
+        for (ReportData reportData : reportDataList) {
+            DateTime dateTime = reportData.getDateTime();
+            if (dateTime != null) {
+                reportData.setDateTime(dateTime.withZone(DateTimeZone.UTC));
+            }
+        }
+        List<FailedBatch> failures = dynamoThrottleController.batchSave(mapper, DynamoReportData.class,
+                reportDataList);
+        BridgeUtils.ifFailuresThrowException(failures);
+    }
+
     @Override
     public void deleteReportData(ReportDataKey key) {
         checkNotNull(key);
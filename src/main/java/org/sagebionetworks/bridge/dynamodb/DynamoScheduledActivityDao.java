@@ -28,6 +28,8 @@ import org.springframework.stereotype.Component;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
@@ -53,15 +55,26 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
 
     private static final String INVALID_KEY_MSG = "Invalid offsetKey (may exceed maximum seek for value range): ";
     
+    /** Lazily loads pages of query results, and does not retain pages that have already been iterated. */
+    static final DynamoDBMapperConfig STREAMING_CONFIG = new DynamoDBMapperConfig.Builder()
+            .withPaginationLoadingStrategy(PaginationLoadingStrategy.ITERATION_ONLY).build();
+    
     private DynamoDBMapper mapper;
     
     private DynamoIndexHelper referentIndex;
     
+    private DynamoBulkDeleter dynamoBulkDeleter;
+    
     @Resource(name = "activityDdbMapper")
     final void setDdbMapper(DynamoDBMapper mapper) {
         this.mapper = mapper;
     }
     
+    @Resource(name = "dynamoBulkDeleter")
+    final void setDynamoBulkDeleter(DynamoBulkDeleter dynamoBulkDeleter) {
+        this.dynamoBulkDeleter = dynamoBulkDeleter;
+    }
+    
     @Resource(name = "healthCodeReferentGuidIndex")
     final void setReferentIndex(DynamoIndexHelper index) {
         this.referentIndex = index;
@@ -124,6 +137,36 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
                 .withRequestParam(ResourceList.SCHEDULED_ON_END, scheduledOnEnd);
     }
     
+    @Override
+    public Iterable<ScheduledActivity> streamActivityHistory(String healthCode, String activityGuid,
+            DateTime scheduledOnStart, DateTime scheduledOnEnd) {
+        checkNotNull(healthCode);
+        checkNotNull(scheduledOnStart);
+        checkNotNull(scheduledOnEnd);
+        checkNotNull(activityGuid);
+        
+        DynamoScheduledActivity hashKey = new DynamoScheduledActivity();
+        hashKey.setHealthCode(healthCode);
+        
+        String start = activityGuid + ":" + scheduledOnStart.toLocalDateTime().toString();
+        String end = activityGuid + ":" + scheduledOnEnd.toLocalDateTime().toString();
+        
+        Condition dateCondition = new Condition().withComparisonOperator(ComparisonOperator.BETWEEN)
+                .withAttributeValueList(new AttributeValue().withS(start),
+                        new AttributeValue().withS(end));
+
+        DynamoDBQueryExpression<DynamoScheduledActivity> query = new DynamoDBQueryExpression<DynamoScheduledActivity>()
+            .withHashKeyValues(hashKey)
+            .withScanIndexForward(false)
+            .withRangeKeyCondition(GUID, dateCondition);
+        
+        List<DynamoScheduledActivity> results = mapper.query(DynamoScheduledActivity.class, query, STREAMING_CONFIG);
+        return Iterables.transform(results, (act) -> {
+            act.setTimeZone(scheduledOnStart.getZone());
+            return (ScheduledActivity)act;
+        });
+    }
+    
     /** {@inheritDoc} */
     @Override
     public ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistoryV3(final String healthCode,
@@ -321,10 +364,7 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
             
             QueryResultPage<DynamoScheduledActivity> queryResults = mapper.queryPage(DynamoScheduledActivity.class, query);
             List<DynamoScheduledActivity> activities = queryResults.getResults();
-            if (!activities.isEmpty()) {
-                List<FailedBatch> failures = mapper.batchDelete(activities);
-                BridgeUtils.ifFailuresThrowException(failures);
-            }
+            dynamoBulkDeleter.delete(mapper, DynamoScheduledActivity.class, activities);
             lastKey = queryResults.getLastEvaluatedKey();
         } while(lastKey != null);        
     }
@@ -233,6 +233,7 @@ public class DynamoSurveyDao implements SurveyDao {
 
     private DynamoDBMapper surveyMapper;
     private DynamoDBMapper surveyElementMapper;
+    private DynamoThrottleController dynamoThrottleController;
     private UploadSchemaService uploadSchemaService;
     
     @Resource(name = "surveyMapper")
@@ -245,6 +246,11 @@ public class DynamoSurveyDao implements SurveyDao {
         this.surveyElementMapper = surveyElementMapper;
     }
 
+    @Autowired
+    public final void setDynamoThrottleController(DynamoThrottleController dynamoThrottleController) {
+        this.dynamoThrottleController = dynamoThrottleController;
+    }
+
     @Autowired
     public final void setUploadSchemaService(UploadSchemaService uploadSchemaService) {
         this.uploadSchemaService = uploadSchemaService;
@@ -457,7 +463,8 @@ public class DynamoSurveyDao implements SurveyDao {
             dynamoElements.add((DynamoSurveyElement)element);
         }
         
-        List<FailedBatch> failures = surveyElementMapper.batchSave(dynamoElements);
+        List<FailedBatch> failures = dynamoThrottleController.batchSave(surveyElementMapper,
+                DynamoSurveyElement.class, dynamoElements);
         BridgeUtils.ifFailuresThrowException(failures);
 
         try {
@@ -481,7 +488,8 @@ public class DynamoSurveyDao implements SurveyDao {
         query.withHashKeyValues(template);
         
         List<DynamoSurveyElement> page = surveyElementMapper.query(DynamoSurveyElement.class, query);
-        List<FailedBatch> failures = surveyElementMapper.batchDelete(page);
+        List<FailedBatch> failures = dynamoThrottleController.batchDelete(surveyElementMapper,
+                DynamoSurveyElement.class, page);
         BridgeUtils.ifFailuresThrowException(failures);
     }
 }
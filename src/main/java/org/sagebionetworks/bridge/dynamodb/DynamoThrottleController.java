@@ -0,0 +1,466 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.models.Metrics;
+import org.sagebionetworks.bridge.time.DateUtils;
+
+/**
+ * <p>
+ * Paces the calls we make to each DynamoDB table. This is registered as a request handler on the DynamoDB client,
+ * so it sees the calls of every mapper and index helper. Calls to a table are not paced until DynamoDB throttles
+ * the table. The table is then given a rate limit (in items read or written per second, where a query or scan
+ * counts as one item) of half the rate it was being called at. The limit is halved again each time the table is
+ * throttled, and raised a step at a time while calls succeed, so that under load callers wait briefly for the
+ * table rather than piling retries onto it. Once the limit is back up to the rate that was throttled, calls are no
+ * longer paced. A fixed cap on every table can also be configured, but is off by default, because it knows nothing
+ * of the capacity of each table and applies to each server separately. The latency and consumed capacity of each
+ * call are recorded in the metrics of the request on the calling thread.
+ * </p>
+ * <p>
+ * DAOs that batch write should use batchSave() and batchDelete(), which resubmit unprocessed items after a
+ * jittered delay that increases with each attempt.
+ * </p>
+ */
+public class DynamoThrottleController extends RequestHandler2 {
+    private static final Logger LOG = LoggerFactory.getLogger(DynamoThrottleController.class);
+
+    static final HandlerContextKey<Long> START_MILLIS = new HandlerContextKey<>("DynamoThrottleStartMillis");
+    static final Set<String> THROTTLING_ERROR_CODES = ImmutableSet.of("ProvisionedThroughputExceededException",
+            "ThrottlingException", "RequestLimitExceeded");
+    /** The rate limit of a table is changed at most once in this interval, however many calls see the change. */
+    static final long RATE_CHANGE_INTERVAL_MILLIS = 1000;
+    static final double RATE_DECREASE_FACTOR = 0.5;
+    /** The interval over which the calls to a table are counted, to find the rate at which it was throttled. */
+    static final long CALL_RATE_INTERVAL_MILLIS = 1000;
+
+    private final ConcurrentMap<String, TableThrottle> tableThrottles = new ConcurrentHashMap<>();
+    private final double minRate;
+    private final double maxRate;
+    private final double rateIncrease;
+
+    // Can be overridden for test.
+    private int maxBatchAttempts = 5;
+    private long baseRetryDelayMillis = 50;
+    private long maxRetryDelayMillis = 2000;
+
+    /**
+     * @param minRate
+     *         the rate limit of a table is never lowered below this, in items per second
+     * @param maxRate
+     *         a fixed cap on the rate of every table, or 0 to pace a table only after it has been throttled
+     * @param rateIncrease
+     *         the amount the rate limit of a table is raised each interval in which calls succeed
+     */
+    public DynamoThrottleController(double minRate, double maxRate, double rateIncrease) {
+        checkArgument(minRate > 0 && (maxRate == 0 || minRate <= maxRate));
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.rateIncrease = rateIncrease;
+    }
+
+    /** Number of times a batch write is submitted before its failures are returned. */
+    final void setMaxBatchAttempts(int maxBatchAttempts) {
+        this.maxBatchAttempts = maxBatchAttempts;
+    }
+
+    /** Delay before the first resubmission of a batch, which doubles with each attempt up to the max delay. */
+    final void setRetryDelayMillis(long baseRetryDelayMillis, long maxRetryDelayMillis) {
+        this.baseRetryDelayMillis = baseRetryDelayMillis;
+        this.maxRetryDelayMillis = maxRetryDelayMillis;
+    }
+
+    /** The current rate limit for the table, in items per second, or 0 if calls to the table aren't paced. */
+    public double getRate(String tableName) {
+        return getTableThrottle(tableName).getRate();
+    }
+
+    @Override
+    public AmazonWebServiceRequest beforeExecution(AmazonWebServiceRequest request) {
+        for (Map.Entry<String, Integer> entry : getItemCountsByTable(request).entrySet()) {
+            getTableThrottle(entry.getKey()).acquire(entry.getValue());
+        }
+        requestConsumedCapacity(request);
+        request.addHandlerContext(START_MILLIS, DateUtils.getCurrentMillisFromEpoch());
+        return request;
+    }
+
+    @Override
+    public void afterResponse(Request<?> request, Response<?> response) {
+        AmazonWebServiceRequest originalRequest = request.getOriginalRequest();
+        Object result = response.getAwsResponse();
+        Set<String> throttledTables = getThrottledTables(result);
+        Map<String, Double> consumedCapacity = getConsumedCapacity(result);
+
+        for (String tableName : getItemCountsByTable(originalRequest).keySet()) {
+            if (throttledTables.contains(tableName)) {
+                getTableThrottle(tableName).decreaseRate();
+            } else {
+                getTableThrottle(tableName).increaseRate();
+            }
+            recordRequest(originalRequest, tableName, consumedCapacity.getOrDefault(tableName, 0.0));
+        }
+    }
+
+    @Override
+    public void afterError(Request<?> request, Response<?> response, Exception e) {
+        AmazonWebServiceRequest originalRequest = request.getOriginalRequest();
+        boolean throttled = isThrottlingException(e);
+        for (String tableName : getItemCountsByTable(originalRequest).keySet()) {
+            if (throttled) {
+                getTableThrottle(tableName).decreaseRate();
+            }
+            recordRequest(originalRequest, tableName, 0.0);
+        }
+    }
+
+    /**
+     * Saves the objects with a batch save. Items that are still unprocessed after the mapper's own retries are
+     * resubmitted after a jittered, increasing delay. Any batches that still fail are returned, to be passed to
+     * BridgeUtils.ifFailuresThrowException().
+     *
+     * @param clazz
+     *         the mapped class of the objects, which unprocessed items are converted back into
+     */
+    public List<FailedBatch> batchSave(DynamoDBMapper mapper, Class<?> clazz, List<?> objectsToSave) {
+        List<FailedBatch> failures = mapper.batchSave(objectsToSave);
+        return resubmitUnprocessedItems(mapper, clazz, failures, true);
+    }
+
+    /** Deletes the objects with a batch delete, resubmitting unprocessed items as described in batchSave(). */
+    public List<FailedBatch> batchDelete(DynamoDBMapper mapper, Class<?> clazz, List<?> objectsToDelete) {
+        List<FailedBatch> failures = mapper.batchDelete(objectsToDelete);
+        return resubmitUnprocessedItems(mapper, clazz, failures, false);
+    }
+
+    private List<FailedBatch> resubmitUnprocessedItems(DynamoDBMapper mapper, Class<?> clazz,
+            List<FailedBatch> failures, boolean save) {
+        long delayMillis = baseRetryDelayMillis;
+        for (int attempt = 1; !failures.isEmpty() && attempt < maxBatchAttempts; attempt++) {
+            List<Object> unprocessedItems = getUnprocessedItems(mapper, clazz, failures);
+            if (unprocessedItems.isEmpty()) {
+                break;
+            }
+            LOG.warn("Resubmitting " + unprocessedItems.size() + " unprocessed " + clazz.getSimpleName()
+                    + " items, attempt " + (attempt + 1) + " of " + maxBatchAttempts);
+            sleepWithJitter(delayMillis);
+            delayMillis = Math.min(delayMillis * 2, maxRetryDelayMillis);
+            failures = save ? mapper.batchSave(unprocessedItems) : mapper.batchDelete(unprocessedItems);
+        }
+        return failures;
+    }
+
+    // Convert the unprocessed requests of failed batches back into objects, or returns an empty list if any batch
+    // failed in a way that resubmitting won't fix.
+    private static List<Object> getUnprocessedItems(DynamoDBMapper mapper, Class<?> clazz,
+            List<FailedBatch> failures) {
+        List<Object> unprocessedItems = new ArrayList<>();
+        for (FailedBatch failure : failures) {
+            if (!isRetryable(failure.getException())) {
+                return ImmutableList.of();
+            }
+            for (List<WriteRequest> requests : failure.getUnprocessedItems().values()) {
+                for (WriteRequest request : requests) {
+                    if (request.getPutRequest() != null) {
+                        unprocessedItems.add(mapper.marshallIntoObject(clazz, request.getPutRequest().getItem()));
+                    } else if (request.getDeleteRequest() != null) {
+                        unprocessedItems.add(mapper.marshallIntoObject(clazz, request.getDeleteRequest().getKey()));
+                    }
+                }
+            }
+        }
+        return unprocessedItems;
+    }
+
+    // "Full jitter": a random delay up to the backoff delay, so callers that were throttled together don't all
+    // resubmit together.
+    private static void sleepWithJitter(long delayMillis) {
+        if (delayMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(delayMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException("Interrupted while resubmitting DynamoDB batch", e);
+        }
+    }
+
+    // The mapper reports items it gave up retrying without an exception. Errors that DynamoDB returns for a bad
+    // request (other than throttling) will fail again, so those batches are not resubmitted.
+    static boolean isRetryable(Exception e) {
+        if (e instanceof AmazonServiceException) {
+            return isThrottlingException(e) || ((AmazonServiceException) e).getStatusCode() >= 500;
+        }
+        return true;
+    }
+
+    static boolean isThrottlingException(Exception e) {
+        return (e instanceof AmazonServiceException)
+                && THROTTLING_ERROR_CODES.contains(((AmazonServiceException) e).getErrorCode());
+    }
+
+    private static void recordRequest(AmazonWebServiceRequest request, String tableName, double consumedCapacity) {
+        Metrics metrics = RequestContext.get().getMetrics();
+        Long startMillis = request.getHandlerContext(START_MILLIS);
+        if (metrics != null && startMillis != null) {
+            metrics.recordDynamoRequest(tableName, DateUtils.getCurrentMillisFromEpoch() - startMillis,
+                    consumedCapacity);
+        }
+    }
+
+    private TableThrottle getTableThrottle(String tableName) {
+        return tableThrottles.computeIfAbsent(tableName, name -> new TableThrottle());
+    }
+
+    /**
+     * The tables a call reads or writes, with the number of items it reads or writes in each. Calls that don't
+     * read or write items (such as describing a table) are not paced. Package-scoped for unit tests.
+     */
+    static Map<String, Integer> getItemCountsByTable(AmazonWebServiceRequest request) {
+        if (request instanceof GetItemRequest) {
+            return ImmutableMap.of(((GetItemRequest) request).getTableName(), 1);
+        } else if (request instanceof PutItemRequest) {
+            return ImmutableMap.of(((PutItemRequest) request).getTableName(), 1);
+        } else if (request instanceof UpdateItemRequest) {
+            return ImmutableMap.of(((UpdateItemRequest) request).getTableName(), 1);
+        } else if (request instanceof DeleteItemRequest) {
+            return ImmutableMap.of(((DeleteItemRequest) request).getTableName(), 1);
+        } else if (request instanceof QueryRequest) {
+            return ImmutableMap.of(((QueryRequest) request).getTableName(), 1);
+        } else if (request instanceof ScanRequest) {
+            return ImmutableMap.of(((ScanRequest) request).getTableName(), 1);
+        } else if (request instanceof BatchGetItemRequest) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Map.Entry<String, KeysAndAttributes> entry : ((BatchGetItemRequest) request).getRequestItems()
+                    .entrySet()) {
+                counts.put(entry.getKey(), Math.max(1, entry.getValue().getKeys().size()));
+            }
+            return counts;
+        } else if (request instanceof BatchWriteItemRequest) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Map.Entry<String, List<WriteRequest>> entry : ((BatchWriteItemRequest) request).getRequestItems()
+                    .entrySet()) {
+                counts.put(entry.getKey(), Math.max(1, entry.getValue().size()));
+            }
+            return counts;
+        }
+        return ImmutableMap.of();
+    }
+
+    private static void requestConsumedCapacity(AmazonWebServiceRequest request) {
+        ReturnConsumedCapacity total = ReturnConsumedCapacity.TOTAL;
+        if (request instanceof GetItemRequest) {
+            ((GetItemRequest) request).setReturnConsumedCapacity(total);
+        } else if (request instanceof PutItemRequest) {
+            ((PutItemRequest) request).setReturnConsumedCapacity(total);
+        } else if (request instanceof UpdateItemRequest) {
+            ((UpdateItemRequest) request).setReturnConsumedCapacity(total);
+        } else if (request instanceof DeleteItemRequest) {
+            ((DeleteItemRequest) request).setReturnConsumedCapacity(total);
+        } else if (request instanceof QueryRequest) {
+            ((QueryRequest) request).setReturnConsumedCapacity(total);
+        } else if (request instanceof ScanRequest) {
+            ((ScanRequest) request).setReturnConsumedCapacity(total);
+        } else if (request instanceof BatchGetItemRequest) {
+            ((BatchGetItemRequest) request).setReturnConsumedCapacity(total);
+        } else if (request instanceof BatchWriteItemRequest) {
+            ((BatchWriteItemRequest) request).setReturnConsumedCapacity(total);
+        }
+    }
+
+    /** Batch calls that return unprocessed keys or items were throttled on those tables. */
+    static Set<String> getThrottledTables(Object result) {
+        Set<String> tableNames = new HashSet<>();
+        if (result instanceof BatchGetItemResult) {
+            Map<String, KeysAndAttributes> unprocessed = ((BatchGetItemResult) result).getUnprocessedKeys();
+            if (unprocessed != null) {
+                for (Map.Entry<String, KeysAndAttributes> entry : unprocessed.entrySet()) {
+                    if (!entry.getValue().getKeys().isEmpty()) {
+                        tableNames.add(entry.getKey());
+                    }
+                }
+            }
+        } else if (result instanceof BatchWriteItemResult) {
+            Map<String, List<WriteRequest>> unprocessed = ((BatchWriteItemResult) result).getUnprocessedItems();
+            if (unprocessed != null) {
+                for (Map.Entry<String, List<WriteRequest>> entry : unprocessed.entrySet()) {
+                    if (!entry.getValue().isEmpty()) {
+                        tableNames.add(entry.getKey());
+                    }
+                }
+            }
+        }
+        return tableNames;
+    }
+
+    static Map<String, Double> getConsumedCapacity(Object result) {
+        List<ConsumedCapacity> capacities = new ArrayList<>();
+        if (result instanceof GetItemResult) {
+            capacities.add(((GetItemResult) result).getConsumedCapacity());
+        } else if (result instanceof PutItemResult) {
+            capacities.add(((PutItemResult) result).getConsumedCapacity());
+        } else if (result instanceof UpdateItemResult) {
+            capacities.add(((UpdateItemResult) result).getConsumedCapacity());
+        } else if (result instanceof DeleteItemResult) {
+            capacities.add(((DeleteItemResult) result).getConsumedCapacity());
+        } else if (result instanceof QueryResult) {
+            capacities.add(((QueryResult) result).getConsumedCapacity());
+        } else if (result instanceof ScanResult) {
+            capacities.add(((ScanResult) result).getConsumedCapacity());
+        } else if (result instanceof BatchGetItemResult
+                && ((BatchGetItemResult) result).getConsumedCapacity() != null) {
+            capacities.addAll(((BatchGetItemResult) result).getConsumedCapacity());
+        } else if (result instanceof BatchWriteItemResult
+                && ((BatchWriteItemResult) result).getConsumedCapacity() != null) {
+            capacities.addAll(((BatchWriteItemResult) result).getConsumedCapacity());
+        }
+        Map<String, Double> capacityByTable = new HashMap<>();
+        for (ConsumedCapacity capacity : capacities) {
+            if (capacity != null && capacity.getTableName() != null && capacity.getCapacityUnits() != null) {
+                capacityByTable.merge(capacity.getTableName(), capacity.getCapacityUnits(), Double::sum);
+            }
+        }
+        return capacityByTable;
+    }
+
+    /** The rate limit of one table. */
+    private final class TableThrottle {
+        // Null while calls to the table are not paced.
+        private RateLimiter rateLimiter;
+        private double rate;
+        private long rateChangedOn;
+        // The rate at which the table was throttled. Once the limit is raised back to this, pacing stops.
+        private double releaseRate;
+        // The items of the calls made in the current and previous intervals.
+        private long intervalStartMillis;
+        private int intervalItems;
+        private int previousIntervalItems;
+
+        TableThrottle() {
+            if (maxRate > 0) {
+                setRate(maxRate);
+            }
+        }
+
+        void acquire(int permits) {
+            RateLimiter limiter;
+            synchronized (this) {
+                countItems(permits);
+                limiter = rateLimiter;
+            }
+            // Waits outside the lock, so calls that don't need to wait are not held up behind those that do.
+            if (limiter != null) {
+                limiter.acquire(permits);
+            }
+        }
+
+        synchronized double getRate() {
+            return (rateLimiter == null) ? 0 : rate;
+        }
+
+        synchronized void increaseRate() {
+            if (rateLimiter == null || !canChangeRate()) {
+                return;
+            }
+            if (maxRate > 0) {
+                if (rate < maxRate) {
+                    setRate(Math.min(maxRate, rate + rateIncrease));
+                }
+            } else if (rate + rateIncrease >= releaseRate) {
+                rateLimiter = null;
+                rateChangedOn = DateUtils.getCurrentMillisFromEpoch();
+            } else {
+                setRate(rate + rateIncrease);
+            }
+        }
+
+        synchronized void decreaseRate() {
+            if (rateLimiter == null) {
+                // The first throttle since the table was last paced, so start from the rate it was called at.
+                releaseRate = Math.max(minRate, getCallRate());
+                setRate(Math.max(minRate, releaseRate * RATE_DECREASE_FACTOR));
+            } else if (rate > minRate && canChangeRate()) {
+                setRate(Math.max(minRate, rate * RATE_DECREASE_FACTOR));
+            }
+        }
+
+        private void countItems(int permits) {
+            long now = DateUtils.getCurrentMillisFromEpoch();
+            long elapsed = now - intervalStartMillis;
+            if (elapsed >= CALL_RATE_INTERVAL_MILLIS) {
+                previousIntervalItems = (elapsed < 2 * CALL_RATE_INTERVAL_MILLIS) ? intervalItems : 0;
+                intervalStartMillis = now;
+                intervalItems = 0;
+            }
+            intervalItems += permits;
+        }
+
+        // Items per second, from whichever of the current and previous intervals had more calls.
+        private double getCallRate() {
+            int items = Math.max(intervalItems, previousIntervalItems);
+            return items * 1000.0 / CALL_RATE_INTERVAL_MILLIS;
+        }
+
+        private boolean canChangeRate() {
+            return DateUtils.getCurrentMillisFromEpoch() - rateChangedOn >= RATE_CHANGE_INTERVAL_MILLIS;
+        }
+
+        private void setRate(double rate) {
+            this.rate = rate;
+            this.rateChangedOn = DateUtils.getCurrentMillisFromEpoch();
+            if (rateLimiter == null) {
+                rateLimiter = RateLimiter.create(rate);
+            } else {
+                rateLimiter.setRate(rate);
+            }
+        }
+    }
+}
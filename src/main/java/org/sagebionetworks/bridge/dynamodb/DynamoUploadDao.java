@@ -16,7 +16,6 @@ import javax.annotation.Nullable;
 import javax.annotation.Resource;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.document.Item;
@@ -27,6 +26,8 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
 
 import org.apache.commons.lang3.StringUtils;
@@ -36,7 +37,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeConstants;
-import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.HealthCodeDao;
 import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -57,9 +57,19 @@ import org.sagebionetworks.bridge.models.upload.UploadStatus;
 public class DynamoUploadDao implements UploadDao {
     static final String PAGE_SIZE_ERROR = "pageSize must be from 1-"+API_MAXIMUM_PAGE_SIZE+" records";
 
+    /**
+     * Legacy uploads don't have an app ID, so it is looked up from the health code every time one is loaded. A
+     * health code never moves to another app, so we remember these lookups.
+     */
+    static final int APP_ID_CACHE_SIZE = 1000;
+
+    private final Cache<String, String> appIdsByHealthCode = CacheBuilder.newBuilder()
+            .maximumSize(APP_ID_CACHE_SIZE).build();
+
     private DynamoDBMapper mapper;
     private DynamoIndexHelper healthCodeRequestedOnIndex;
     private HealthCodeDao healthCodeDao;
+    private DynamoBulkDeleter dynamoBulkDeleter;
 
     private static final String UPLOAD_ID = "uploadId";
     private static final String STUDY_ID = "studyId";
@@ -89,6 +99,11 @@ public class DynamoUploadDao implements UploadDao {
         this.healthCodeDao = healthCodeDao;
     }
     
+    @Autowired
+    final void setDynamoBulkDeleter(DynamoBulkDeleter dynamoBulkDeleter) {
+        this.dynamoBulkDeleter = dynamoBulkDeleter;
+    }
+    
     /** {@inheritDoc} */
     @Override
     public Upload createUpload(@Nonnull UploadRequest uploadRequest, @Nonnull String appId,
@@ -112,8 +127,6 @@ public class DynamoUploadDao implements UploadDao {
         return upload;
     }
 
-    // TODO: Cache this, or make it so that calling getUpload() and uploadComplete() in sequence don't cause duplicate
-    // calls to DynamoDB.
     /** {@inheritDoc} */
     @Override
     public Upload getUpload(@Nonnull String uploadId) {
@@ -125,10 +138,14 @@ public class DynamoUploadDao implements UploadDao {
             // Very old uploads (2+ years ago) did not have appId set; for these we must do 
             // a lookup in the legacy DynamoHealthCode table.
             if (upload.getAppId() == null) { 
-                String appId = healthCodeDao.getAppId(upload.getHealthCode());
+                String appId = appIdsByHealthCode.getIfPresent(upload.getHealthCode());
                 if (appId == null) {
-                    throw new EntityNotFoundException(DynamoApp.class,
-                            "App not found for upload. User may have been deleted from system.");
+                    appId = healthCodeDao.getAppId(upload.getHealthCode());
+                    if (appId == null) {
+                        throw new EntityNotFoundException(DynamoApp.class,
+                                "App not found for upload. User may have been deleted from system.");
+                    }
+                    appIdsByHealthCode.put(upload.getHealthCode(), appId);
                 }
                 upload.setAppId(appId);
             }
@@ -309,13 +326,10 @@ public class DynamoUploadDao implements UploadDao {
     
     @Override
     public void deleteUploadsForHealthCode(@Nonnull String healthCode) {
-        List<? extends Upload> uploadsToDelete = healthCodeRequestedOnIndex.queryKeys(
+        Iterable<DynamoUpload2> uploadsToDelete = healthCodeRequestedOnIndex.iterateKeys(
                 DynamoUpload2.class, HEALTH_CODE, healthCode, null);
-        
-        if (!uploadsToDelete.isEmpty()) {
-            List<FailedBatch> failures = mapper.batchDelete(uploadsToDelete);
-            BridgeUtils.ifFailuresThrowException(failures);
-        }
+        dynamoBulkDeleter.delete(mapper, DynamoUpload2.class, uploadsToDelete);
+        appIdsByHealthCode.invalidate(healthCode);
     }
 }
 
@@ -218,7 +218,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountAttributes", joinColumns = @JoinColumn(name = "accountId",
             referencedColumnName = "id"))
     @Column(name = "attributeValue")
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @MapKeyColumn(name = "attributeKey")
     public Map<String, String> getAttributes() {
         if (attributes == null) {
@@ -236,7 +236,7 @@ public class HibernateAccount implements Account {
     /** Map of consents, keyed by a composite of subpopulation ID and signedOn. Never returns null. */
     @CollectionTable(name = "AccountConsents", joinColumns = @JoinColumn(name = "accountId",
             referencedColumnName = "id"))
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @MapKeyClass(HibernateAccountConsentKey.class)
     @JsonIgnore
     public Map<HibernateAccountConsentKey, HibernateAccountConsent> getConsents() {
@@ -352,7 +352,7 @@ public class HibernateAccount implements Account {
      */
     @CollectionTable(name = "AccountRoles", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "role")
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @Enumerated(EnumType.STRING)
     public Set<Roles> getRoles() {
         if (roles == null) {
@@ -456,7 +456,7 @@ public class HibernateAccount implements Account {
     /** Data groups assigned to this account. */
     @CollectionTable(name = "AccountDataGroups", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "dataGroup")
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     public Set<String> getDataGroups() {
         if (dataGroups == null) {
             dataGroups = new HashSet<>();
@@ -474,7 +474,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountLanguages", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "language")
     @OrderColumn(name="order_index", insertable=true, updatable=true)
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     public List<String> getLanguages() {
         if (languages == null) {
             languages = new ArrayList<>();
@@ -509,7 +509,7 @@ public class HibernateAccount implements Account {
     }
     
     @OneToMany(mappedBy = "accountId", cascade = CascadeType.ALL, orphanRemoval = true, 
-        fetch = FetchType.EAGER, targetEntity=HibernateEnrollment.class)
+        fetch = FetchType.LAZY, targetEntity=HibernateEnrollment.class)
     @OnDelete(action=OnDeleteAction.CASCADE)
     @JsonIgnore
     @Override
@@ -3,6 +3,10 @@ package org.sagebionetworks.bridge.hibernate;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.WORKER;
+import static org.sagebionetworks.bridge.models.TotalCount.ESTIMATED;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.CORE;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.FULL;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,6 +16,7 @@ import java.util.stream.Collectors;
 import javax.annotation.Resource;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Hibernate;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,8 +33,10 @@ import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountLoadProfile;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import org.sagebionetworks.bridge.models.apps.App;
 
@@ -85,20 +92,28 @@ public class HibernateAccountDao implements AccountDao {
     /** {@inheritDoc} */
     @Override
     public Optional<Account> getAccount(AccountId accountId) {
+        return getAccount(accountId, FULL);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public Optional<Account> getAccount(AccountId accountId, AccountLoadProfile profile) {
         HibernateAccount account = null;
         
         // The fastest retrieval can be done with the ID if it has been provided.
         AccountId unguarded = accountId.getUnguardedAccountId();
         if (unguarded.getId() != null) {
-            account = hibernateHelper.getById(HibernateAccount.class, unguarded.getId());
+            account = hibernateHelper.getById(HibernateAccount.class, unguarded.getId(),
+                    acct -> initializeCollections(acct, profile));
             // Enforce the app membership of the accountId
             if (account == null || !account.getAppId().equals(accountId.getAppId())) {
                 return Optional.empty();
             }
         } else {
             QueryBuilder builder = makeQuery(FULL_QUERY, unguarded.getAppId(), accountId, null, false);
-            List<HibernateAccount> accountList = hibernateHelper.queryGet(
-                    builder.getQuery(), builder.getParameters(), null, null, HibernateAccount.class);
+            List<HibernateAccount> accountList = hibernateHelper.queryGet(builder.getQuery(),
+                    builder.getParameters(), null, null, HibernateAccount.class,
+                    acct -> initializeCollections(acct, profile));
             if (accountList.isEmpty()) {
                 return Optional.empty();
             }
@@ -195,20 +210,34 @@ public class HibernateAccountDao implements AccountDao {
         // HibernateAccount fields, like clientData, though it is not returned.
         QueryBuilder builder = makeQuery(ID_QUERY, appId, null, search, false);
         
+        // Without an exact total, one more ID than the page size is retrieved to determine if there's a next page.
+        TotalCount totalCount = search.getTotalCount();
+        int limit = (totalCount == EXACT) ? search.getPageSize() : search.getPageSize() + 1;
         List<String> ids = hibernateHelper.queryGet(builder.getQuery(), builder.getParameters(),
-                search.getOffsetBy(), search.getPageSize(), String.class);
+                search.getOffsetBy(), limit, String.class);
+        Boolean hasNext = null;
+        if (totalCount != EXACT) {
+            hasNext = ids.size() > search.getPageSize();
+            ids = ids.subList(0, Math.min(ids.size(), search.getPageSize()));
+        }
         
         List<AccountSummary>accountSummaryList = ids.stream()
-                .map(id -> hibernateHelper.getById(HibernateAccount.class, id))
+                .map(id -> hibernateHelper.getById(HibernateAccount.class, id, this::initializeSummaryCollections))
                 .map(this::unmarshallAccountSummary)
                 .collect(Collectors.toList());
 
         // Get count of accounts.
+        Integer count = null;
         builder = makeQuery(COUNT_QUERY, appId, null, search, true);
-        int count = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        if (totalCount == EXACT) {
+            count = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        } else if (totalCount == ESTIMATED) {
+            count = hibernateHelper.queryEstimatedCount(builder.getQuery(), builder.getParameters());
+        }
         
         // Package results and return.
         return new PagedResourceList<>(accountSummaryList, count)
+                .withHasNext(hasNext)
                 .withRequestParam(ResourceList.ADMIN_ONLY, search.isAdminOnly())
                 .withRequestParam(ResourceList.ALL_OF_GROUPS, search.getAllOfGroups())
                 .withRequestParam(ResourceList.EMAIL_FILTER, search.getEmailFilter())
@@ -219,7 +248,8 @@ public class HibernateAccountDao implements AccountDao {
                 .withRequestParam(ResourceList.ORG_MEMBERSHIP, search.getOrgMembership())
                 .withRequestParam(ResourceList.PAGE_SIZE, search.getPageSize())
                 .withRequestParam(ResourceList.PHONE_FILTER, search.getPhoneFilter())
-                .withRequestParam(ResourceList.START_TIME, search.getStartTime());
+                .withRequestParam(ResourceList.START_TIME, search.getStartTime())
+                .withRequestParam(ResourceList.TOTAL_COUNT, totalCount);
     }
     
     // Callers of AccountDao assume that an Account will always a health code and health ID. All accounts created
@@ -238,6 +268,30 @@ public class HibernateAccountDao implements AccountDao {
         return false;
     }
 
+    // The collections of an account are loaded lazily, each with its own select, so that the account row is not
+    // multiplied by every combination of attributes, consents, roles, data groups, languages and enrollments. This
+    // loads the collections in the profile while the session is still open. Package-scoped for unit tests.
+    void initializeCollections(HibernateAccount account, AccountLoadProfile profile) {
+        // Enrollments are needed in every profile to filter the account by the caller's studies.
+        Hibernate.initialize(account.getEnrollments());
+        if (profile == CORE) {
+            return;
+        }
+        Hibernate.initialize(account.getDataGroups());
+        if (profile == FULL) {
+            Hibernate.initialize(account.getAttributes());
+            Hibernate.initialize(account.getConsents());
+            Hibernate.initialize(account.getRoles());
+            Hibernate.initialize(account.getLanguages());
+        }
+    }
+    
+    // An account summary only includes the attributes and enrollments of the account.
+    private void initializeSummaryCollections(HibernateAccount account) {
+        Hibernate.initialize(account.getAttributes());
+        Hibernate.initialize(account.getEnrollments());
+    }
+
     // Helper method to unmarshall a HibernateAccount into an AccountSummary.
     // Package-scoped to facilitate unit tests.
     AccountSummary unmarshallAccountSummary(HibernateAccount acct) {
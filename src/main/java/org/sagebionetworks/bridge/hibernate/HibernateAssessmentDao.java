@@ -15,6 +15,7 @@ import javax.annotation.Resource;
 
 import com.google.common.collect.ImmutableMap;
 
+import org.hibernate.Session;
 import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Component;
 
@@ -45,6 +46,13 @@ class HibernateAssessmentDao implements AssessmentDao {
             +"identifier = :identifier";
     static final String GET_REVISIONS2 = "ORDER BY revision DESC";
     static final String EXCLUDE_DELETED = "AND deleted = 0";
+    
+    // AssessmentLatestRevisions points at the highest revision of each assessment in an app, so listing the latest
+    // revisions does not have to group every revision. It is rewritten whenever a revision is added, changed or 
+    // removed. (Deleting the revision it points to deletes the pointer through a cascading foreign key.)
+    static final String UPDATE_LATEST_REVISION_SQL = "REPLACE INTO AssessmentLatestRevisions (appId, identifier, "
+            + "guid) SELECT appId, identifier, guid FROM Assessments WHERE appId = :appId AND identifier = "
+            + ":identifier ORDER BY revision DESC LIMIT 1";
 
     private HibernateHelper hibernateHelper;
     
@@ -61,28 +69,25 @@ class HibernateAssessmentDao implements AssessmentDao {
         
         // Not sure pulling this out into constants is any easier to understand...
         QueryBuilder builder = new QueryBuilder();
-        builder.append("FROM (");
-        builder.append("SELECT DISTINCT identifier as id, MAX(revision) AS rev FROM Assessments");
-        builder.append("WHERE appId = :appId GROUP BY identifier) AS latest_assessments");
-        builder.append("INNER JOIN Assessments AS a ON a.identifier = latest_assessments.id AND");
-        builder.append("a.revision = latest_assessments.rev");
+        builder.append("FROM AssessmentLatestRevisions AS latest");
+        builder.append("INNER JOIN Assessments AS a ON a.guid = latest.guid");
         
         List<String> clauses = new ArrayList<>();
-        clauses.add("WHERE appId = :appId");
+        clauses.add("WHERE latest.appId = :appId");
         if (includeTags) {
-            clauses.add("guid IN (SELECT DISTINCT assessmentGuid FROM AssessmentTags WHERE tagValue IN :tags)");
+            clauses.add("a.guid IN (SELECT DISTINCT assessmentGuid FROM AssessmentTags WHERE tagValue IN :tags)");
             builder.getParameters().put("tags", tags);
         }
         if (!includeDeleted) {
-            clauses.add("deleted = 0");
+            clauses.add("a.deleted = 0");
         }
         builder.append(AND_JOINER.join(clauses), "appId", appId);
-        builder.append("ORDER BY createdOn DESC");
+        builder.append("ORDER BY a.createdOn DESC");
         
         int count = hibernateHelper.nativeQueryCount(
                 "SELECT count(*) " + builder.getQuery(), builder.getParameters());
         List<HibernateAssessment> assessments = hibernateHelper.nativeQueryGet(
-                "SELECT * " + builder.getQuery(), builder.getParameters(), 
+                "SELECT a.* " + builder.getQuery(), builder.getParameters(), 
                 offsetBy, pageSize, HibernateAssessment.class);
         
         List<Assessment> dtos = assessments.stream().map(Assessment::create).collect(toList());
@@ -136,7 +141,9 @@ class HibernateAssessmentDao implements AssessmentDao {
         
         HibernateAssessment retValue = hibernateHelper.executeWithExceptionHandling(hibernateAssessment, (session) -> {
             session.persist(hibernateConfig);
-            return (HibernateAssessment)session.merge(hibernateAssessment);
+            HibernateAssessment merged = (HibernateAssessment)session.merge(hibernateAssessment);
+            updateLatestRevision(session, appId, hibernateAssessment.getIdentifier());
+            return merged;
         });
         return Assessment.create(retValue);
     }
@@ -148,8 +155,11 @@ class HibernateAssessmentDao implements AssessmentDao {
         // convert it to a non-managed object, the version will not be updated. It appears that the update of the 
         // Java object happens as part of the transaction commit, or something like that.
         HibernateAssessment hibernateAssessment = HibernateAssessment.create(appId, assessment);
-        HibernateAssessment retValue = hibernateHelper.executeWithExceptionHandling(hibernateAssessment, 
-                (session) -> (HibernateAssessment)session.merge(hibernateAssessment));
+        HibernateAssessment retValue = hibernateHelper.executeWithExceptionHandling(hibernateAssessment, (session) -> {
+            HibernateAssessment merged = (HibernateAssessment)session.merge(hibernateAssessment);
+            updateLatestRevision(session, appId, hibernateAssessment.getIdentifier());
+            return merged;
+        });
         return Assessment.create(retValue);
     }
 
@@ -172,6 +182,7 @@ class HibernateAssessmentDao implements AssessmentDao {
             query.executeUpdate();
             
             session.remove(hibernateAssessment);
+            updateLatestRevision(session, appId, assessmentId);
             return null;
         });
     }
@@ -187,7 +198,9 @@ class HibernateAssessmentDao implements AssessmentDao {
             // And persist all of the resources
             session.saveOrUpdate(hibernateDestConfig);
             session.saveOrUpdate(hibernateDest);
-            return (HibernateAssessment)session.merge(hibernateOrigin);
+            HibernateAssessment merged = (HibernateAssessment)session.merge(hibernateOrigin);
+            updateLatestRevision(session, SHARED_APP_ID, hibernateDest.getIdentifier());
+            return merged;
         });
         return Assessment.create(retValue);
     }
@@ -200,6 +213,7 @@ class HibernateAssessmentDao implements AssessmentDao {
         HibernateAssessment retValue = hibernateHelper.executeWithExceptionHandling(hibernateDest, (session) -> {
             session.saveOrUpdate(hibernateConfig);
             session.merge(hibernateDest);
+            updateLatestRevision(session, destAppId, hibernateDest.getIdentifier());
             return hibernateDest;
         });
         return Assessment.create(retValue);
@@ -220,4 +234,17 @@ class HibernateAssessmentDao implements AssessmentDao {
         resultCount = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
         return resultCount != 0;
     }
+    
+    /**
+     * Points AssessmentLatestRevisions at the highest remaining revision of an assessment. Runs in the same 
+     * transaction as the change to the assessment, after that change has been flushed.
+     */
+    private void updateLatestRevision(Session session, String appId, String identifier) {
+        session.flush();
+        
+        NativeQuery<?> query = session.createNativeQuery(UPDATE_LATEST_REVISION_SQL);
+        query.setParameter(APP_ID, appId);
+        query.setParameter(IDENTIFIER, identifier);
+        query.executeUpdate();
+    }
 }
@@ -1,12 +1,24 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.sagebionetworks.bridge.BridgeConstants.TEST_USER_GROUP;
+import static org.sagebionetworks.bridge.models.TotalCount.ESTIMATED;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import javax.annotation.Resource;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -14,6 +26,7 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.dao.EnrollmentDao;
 import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.accounts.AccountRef;
 import org.sagebionetworks.bridge.models.studies.EnrollmentDetail;
 import org.sagebionetworks.bridge.models.studies.EnrollmentFilter;
@@ -23,7 +36,15 @@ public class HibernateEnrollmentDao implements EnrollmentDao {
     
     static final String REF_QUERY = "SELECT new org.sagebionetworks.bridge.hibernate.HibernateAccount("
             + "a.firstName, a.lastName, a.email, a.phone, a.synapseUserId, a.orgMembership, a.id) FROM "
-            + "org.sagebionetworks.bridge.hibernate.HibernateAccount a WHERE a.appId = :appId AND a.id = :id";
+            + "org.sagebionetworks.bridge.hibernate.HibernateAccount a WHERE a.appId = :appId AND a.id IN (:ids)";
+    
+    static final int STAFF_REF_CACHE_SIZE = 1000;
+    static final int STAFF_REF_CACHE_EXPIRE_IN_SECONDS = 60;
+    
+    // Keyed by app ID and account ID. Names and contact info can be a minute out of date in enrollment listings.
+    private final Cache<String, AccountRef> staffRefCache = CacheBuilder.newBuilder()
+            .maximumSize(STAFF_REF_CACHE_SIZE)
+            .expireAfterWrite(STAFF_REF_CACHE_EXPIRE_IN_SECONDS, TimeUnit.SECONDS).build();
 
     private HibernateHelper hibernateHelper;
     
@@ -34,7 +55,8 @@ public class HibernateEnrollmentDao implements EnrollmentDao {
     
     @Override
     public PagedResourceList<EnrollmentDetail> getEnrollmentsForStudy(String appId, String studyId, 
-            EnrollmentFilter filter, boolean includeTesters, Integer offsetBy, Integer pageSize) {
+            EnrollmentFilter filter, boolean includeTesters, Integer offsetBy, Integer pageSize,
+            TotalCount totalCount) {
         QueryBuilder builder = new QueryBuilder();
         builder.append("FROM HibernateEnrollment AS h");
         if (!includeTesters) {
@@ -45,18 +67,27 @@ public class HibernateEnrollmentDao implements EnrollmentDao {
         if (!includeTesters) {
             builder.dataGroups(ImmutableSet.of(TEST_USER_GROUP), "NOT IN");
         }
-        int total = hibernateHelper.queryCount("SELECT COUNT(*) " + builder.getQuery(), builder.getParameters());
+        Integer total = null;
+        if (totalCount == EXACT) {
+            total = hibernateHelper.queryCount("SELECT COUNT(*) " + builder.getQuery(), builder.getParameters());
+        } else if (totalCount == ESTIMATED) {
+            total = hibernateHelper.queryEstimatedCount("SELECT COUNT(*) " + builder.getQuery(),
+                    builder.getParameters());
+        }
         
+        // Without an exact total, one more enrollment than the page size is retrieved to determine if there's 
+        // a next page.
+        Integer limit = (totalCount == EXACT || pageSize == null) ? pageSize : pageSize + 1;
         List<HibernateEnrollment> enrollments = hibernateHelper.queryGet("SELECT h " + builder.getQuery(),
-                builder.getParameters(), offsetBy, pageSize, HibernateEnrollment.class);
+                builder.getParameters(), offsetBy, limit, HibernateEnrollment.class);
+        Boolean hasNext = null;
+        if (totalCount != EXACT && pageSize != null) {
+            hasNext = enrollments.size() > pageSize;
+            enrollments = enrollments.subList(0, Math.min(enrollments.size(), pageSize));
+        }
         
-        List<EnrollmentDetail> dtos = enrollments.stream().map(enrollment -> {
-            AccountRef participantRef = nullSafeAccountRef(appId, enrollment.getAccountId());
-            AccountRef enrolledByRef = nullSafeAccountRef(appId, enrollment.getEnrolledBy());
-            AccountRef withdrawnByRef = nullSafeAccountRef(appId, enrollment.getWithdrawnBy());
-            return new EnrollmentDetail(enrollment, participantRef, enrolledByRef, withdrawnByRef);
-        }).collect(toList());
-        return new PagedResourceList<>(dtos, total, true);
+        List<EnrollmentDetail> dtos = toEnrollmentDetails(appId, enrollments);
+        return new PagedResourceList<>(dtos, total, true).withHasNext(hasNext);
     }
     
     @Override
@@ -67,23 +98,46 @@ public class HibernateEnrollmentDao implements EnrollmentDao {
         
         List<HibernateEnrollment> enrollments = hibernateHelper.queryGet(builder.getQuery(),
                 builder.getParameters(), null, null, HibernateEnrollment.class);
-        return enrollments.stream().map(enrollment -> {
-            AccountRef participantRef = nullSafeAccountRef(appId, enrollment.getAccountId());
-            AccountRef enrolledByRef = nullSafeAccountRef(appId, enrollment.getEnrolledBy());
-            AccountRef withdrawnByRef = nullSafeAccountRef(appId, enrollment.getWithdrawnBy());
-            return new EnrollmentDetail(enrollment, participantRef, enrolledByRef, withdrawnByRef);
-        }).collect(toList());
+        return toEnrollmentDetails(appId, enrollments);
     }
     
-    private AccountRef nullSafeAccountRef(String appId, String id) {
-        if (id == null) {
-            return null;
+    /**
+     * Resolves the participant, enrolledBy and withdrawnBy accounts of a page of enrollments with a single query. 
+     * The accounts that enrolled or withdrew other participants are usually a handful of administrators and study 
+     * coordinators that appear throughout a study's enrollments, so their references are also remembered for a 
+     * short time.
+     */
+    private List<EnrollmentDetail> toEnrollmentDetails(String appId, List<HibernateEnrollment> enrollments) {
+        Set<String> participantIds = enrollments.stream().map(HibernateEnrollment::getAccountId)
+                .filter(Objects::nonNull).collect(toSet());
+        Set<String> staffIds = enrollments.stream()
+                .flatMap(enrollment -> Stream.of(enrollment.getEnrolledBy(), enrollment.getWithdrawnBy()))
+                .filter(id -> id != null && !participantIds.contains(id)).collect(toSet());
+        
+        Map<String, AccountRef> refs = new HashMap<>();
+        for (String staffId : staffIds) {
+            AccountRef ref = staffRefCache.getIfPresent(appId + ":" + staffId);
+            if (ref != null) {
+                refs.put(staffId, ref);
+            }
         }
-        List<HibernateAccount> accounts = hibernateHelper.queryGet(REF_QUERY, 
-                ImmutableMap.of("appId", appId, "id", id), null, 1, HibernateAccount.class);
-        if (accounts.isEmpty()) {
-            return null;
+        Set<String> ids = new HashSet<>(participantIds);
+        ids.addAll(staffIds);
+        ids.removeAll(refs.keySet());
+        if (!ids.isEmpty()) {
+            List<HibernateAccount> accounts = hibernateHelper.queryGet(REF_QUERY, 
+                    ImmutableMap.of("appId", appId, "ids", ids), null, null, HibernateAccount.class);
+            for (HibernateAccount account : accounts) {
+                AccountRef ref = new AccountRef(account);
+                refs.put(account.getId(), ref);
+                if (staffIds.contains(account.getId())) {
+                    staffRefCache.put(appId + ":" + account.getId(), ref);
+                }
+            }
         }
-        return new AccountRef(accounts.get(0));
+        // A missing ID (or a null one) resolves to a null reference
+        return enrollments.stream().map(enrollment -> new EnrollmentDetail(enrollment,
+                refs.get(enrollment.getAccountId()), refs.get(enrollment.getEnrolledBy()),
+                refs.get(enrollment.getWithdrawnBy()))).collect(toList());
     }
 }
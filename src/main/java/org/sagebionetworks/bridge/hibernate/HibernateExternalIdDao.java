@@ -1,6 +1,8 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sagebionetworks.bridge.models.TotalCount.ESTIMATED;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -16,6 +18,7 @@ import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.dao.ExternalIdDao;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
@@ -47,7 +50,7 @@ public class HibernateExternalIdDao implements ExternalIdDao {
 
     @Override
     public PagedResourceList<ExternalIdentifierInfo> getPagedExternalIds(String appId, String studyId, String idFilter,
-            Integer offsetBy, Integer pageSize) {
+            Integer offsetBy, Integer pageSize, TotalCount totalCount) {
         checkNotNull(appId);
         checkNotNull(studyId);
         checkNotNull(offsetBy);
@@ -60,16 +63,29 @@ public class HibernateExternalIdDao implements ExternalIdDao {
         }
         query.append(ORDER_QUERY);
 
+        // Without an exact total, one more ID than the page size is retrieved to determine if there's a next page.
+        int limit = (totalCount == EXACT) ? pageSize : pageSize + 1;
         List<HibernateEnrollment> enrollments = hibernateHelper.queryGet("SELECT en " + query.getQuery(), 
-                query.getParameters(), offsetBy, pageSize, HibernateEnrollment.class);
+                query.getParameters(), offsetBy, limit, HibernateEnrollment.class);
+        Boolean hasNext = null;
+        if (totalCount != EXACT) {
+            hasNext = enrollments.size() > pageSize;
+            enrollments = enrollments.subList(0, Math.min(enrollments.size(), pageSize));
+        }
 
         List<ExternalIdentifierInfo> infos = enrollments.stream()
                 .map(en -> new ExternalIdentifierInfo(en.getExternalId(), en.getStudyId(), true))
                 .collect(Collectors.toList());
 
-        int count = hibernateHelper.queryCount("SELECT count(en) " + query.getQuery(), query.getParameters());
+        Integer count = null;
+        if (totalCount == EXACT) {
+            count = hibernateHelper.queryCount("SELECT count(en) " + query.getQuery(), query.getParameters());
+        } else if (totalCount == ESTIMATED) {
+            count = hibernateHelper.queryEstimatedCount("SELECT count(en) " + query.getQuery(),
+                    query.getParameters());
+        }
 
-        return new PagedResourceList<>(infos, count, true);
+        return new PagedResourceList<>(infos, count, true).withHasNext(hasNext);
     }
 
     @Override
@@ -4,10 +4,15 @@ import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import javax.persistence.PersistenceException;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
@@ -17,6 +22,14 @@ import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 
 /** Encapsulates common scenarios for using Hibernate to make it easier to use. */
 public class HibernateHelper {
+    static final int ESTIMATED_COUNT_CACHE_SIZE = 1000;
+    static final int ESTIMATED_COUNT_EXPIRE_IN_SECONDS = 300;
+    
+    // Keyed by the count query and its parameters.
+    private final Cache<String, Integer> estimatedCountCache = CacheBuilder.newBuilder()
+            .maximumSize(ESTIMATED_COUNT_CACHE_SIZE)
+            .expireAfterWrite(ESTIMATED_COUNT_EXPIRE_IN_SECONDS, TimeUnit.SECONDS).build();
+    
     private SessionFactory hibernateSessionFactory;
     private PersistenceExceptionConverter exceptionConverter;
 
@@ -52,7 +65,21 @@ public class HibernateHelper {
 
     /** Get by the table's primary key. Returns null if the object doesn't exist. */
     public <T> T getById(Class<T> clazz, Serializable id) {
-        return executeWithExceptionHandling(null, session -> session.get(clazz, id));
+        return getById(clazz, id, null);
+    }
+
+    /**
+     * Get by the table's primary key. Returns null if the object doesn't exist. If an initializer is provided, it is
+     * called with the object (if it exists) while the session is still open, so it can load lazy associations.
+     */
+    public <T> T getById(Class<T> clazz, Serializable id, Consumer<? super T> initializer) {
+        return executeWithExceptionHandling(null, session -> {
+            T obj = session.get(clazz, id);
+            if (obj != null && initializer != null) {
+                initializer.accept(obj);
+            }
+            return obj;
+        });
     }
 
     /**
@@ -78,6 +105,21 @@ public class HibernateHelper {
         }
     }
 
+    /**
+     * Returns the count of the query as queryCount() does, except that a count of the same query and parameters from
+     * the last few minutes is returned if there is one. The count will not reflect records that were added or
+     * removed since it was made. For paged lists where the caller has asked for an estimated total.
+     */
+    public int queryEstimatedCount(String queryString, Map<String,Object> parameters) {
+        String key = queryString + ":" + ((parameters == null) ? "" : new TreeMap<>(parameters).toString());
+        Integer count = estimatedCountCache.getIfPresent(key);
+        if (count == null) {
+            count = queryCount(queryString, parameters);
+            estimatedCountCache.put(key, count);
+        }
+        return count;
+    }
+
     @SuppressWarnings("rawtypes")
     public int nativeQueryCount(String queryString, Map<String,Object> parameters) {
         // This does not accept the typed parameter with something like a Long value, it
@@ -105,6 +147,15 @@ public class HibernateHelper {
      * and limit for pagination.
      */
     public <T> List<T> queryGet(String queryString, Map<String,Object> parameters, Integer offset, Integer limit, Class<T> clazz) {
+        return queryGet(queryString, parameters, offset, limit, clazz, null);
+    }
+
+    /**
+     * Executes the query and returns a list of results, as above. If an initializer is provided, it is called with
+     * each result while the session is still open, so it can load lazy associations.
+     */
+    public <T> List<T> queryGet(String queryString, Map<String,Object> parameters, Integer offset, Integer limit,
+            Class<T> clazz, Consumer<? super T> initializer) {
         return executeWithExceptionHandling(null, session -> {
             Query<T> query = session.createQuery(queryString, clazz);
             if (parameters != null) {
@@ -118,7 +169,11 @@ public class HibernateHelper {
             if (limit != null) {
                 query.setMaxResults(limit);
             }
-            return query.list();
+            List<T> results = query.list();
+            if (initializer != null) {
+                results.forEach(initializer);
+            }
+            return results;
         });
     }
 
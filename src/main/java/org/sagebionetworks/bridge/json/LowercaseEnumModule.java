@@ -9,6 +9,7 @@ import com.fasterxml.jackson.databind.deser.Deserializers;
 import com.fasterxml.jackson.databind.deser.Deserializers.Base;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.apps.MimeType;
 
 @SuppressWarnings("serial")
@@ -27,7 +28,7 @@ class LowercaseEnumModule extends SimpleModule {
             @Override
             public JsonDeserializer<?> findEnumDeserializer(Class<?> type, DeserializationConfig config,
                     BeanDescription beanDesc) throws JsonMappingException {
-                if (type == MimeType.class) {
+                if (type == MimeType.class || type == TotalCount.class) {
                     return null;
                 }
                 return new LowercaseEnumDeserializer((Class<Enum<?>>) type);
@@ -29,10 +29,11 @@ public final class AccountSummarySearch implements BridgeEntity {
     private final String orgMembership;
     private final Boolean adminOnly;
     private final String enrolledInStudyId;
+    private final TotalCount totalCount;
 
     private AccountSummarySearch(int offsetBy, int pageSize, String emailFilter, String phoneFilter,
             Set<String> allOfGroups, Set<String> noneOfGroups, String language, DateTime startTime, DateTime endTime,
-            String orgId, Boolean adminOnly, String enrolledInStudyId) {
+            String orgId, Boolean adminOnly, String enrolledInStudyId, TotalCount totalCount) {
         this.offsetBy = offsetBy;
         this.pageSize = pageSize;
         this.emailFilter = emailFilter;
@@ -45,6 +46,7 @@ public final class AccountSummarySearch implements BridgeEntity {
         this.orgMembership = orgId;
         this.adminOnly = adminOnly;
         this.enrolledInStudyId = enrolledInStudyId;
+        this.totalCount = totalCount;
     }
 
     public int getOffsetBy() {
@@ -107,6 +109,15 @@ public final class AccountSummarySearch implements BridgeEntity {
         return enrolledInStudyId;
     }
 
+    /**
+     * How the total number of matching accounts is calculated. Counting the accounts can take longer than 
+     * retrieving the page, so a caller that is paging through all the accounts can ask for an estimated total, 
+     * or no total at all. Defaults to EXACT.
+     */
+    public TotalCount getTotalCount() {
+        return totalCount;
+    }
+
     @Override
     public int hashCode() {
         // When serialized, Joda DateTime objects can change their Chronology and become unequal, even when representing
@@ -114,7 +125,8 @@ public final class AccountSummarySearch implements BridgeEntity {
         // versus ISOChronology[-07:00] if that's the offset at the time of serialization). Using the ISO String
         // representation of the DateTime gives us equality across serialization.
         return Objects.hash(allOfGroups, emailFilter, nullsafeDateString(endTime), language, noneOfGroups, offsetBy,
-                pageSize, phoneFilter, nullsafeDateString(startTime), orgMembership, adminOnly, enrolledInStudyId);
+                pageSize, phoneFilter, nullsafeDateString(startTime), orgMembership, adminOnly, enrolledInStudyId,
+                totalCount);
     }
 
     @Override
@@ -136,7 +148,8 @@ public final class AccountSummarySearch implements BridgeEntity {
                 && Objects.equals(nullsafeDateString(startTime), nullsafeDateString(other.startTime))
                 && Objects.equals(orgMembership, other.orgMembership)
                 && Objects.equals(adminOnly, other.adminOnly)
-                && Objects.equals(enrolledInStudyId, other.enrolledInStudyId);
+                && Objects.equals(enrolledInStudyId, other.enrolledInStudyId)
+                && Objects.equals(totalCount, other.totalCount);
     }
     
     private String nullsafeDateString(DateTime dateTime) {
@@ -148,7 +161,8 @@ public final class AccountSummarySearch implements BridgeEntity {
         return "AccountSummarySearch [offsetBy=" + offsetBy + ", pageSize=" + pageSize + ", emailFilter=" + emailFilter
                 + ", phoneFilter=" + phoneFilter + ", allOfGroups=" + allOfGroups + ", noneOfGroups=" + noneOfGroups
                 + ", language=" + language + ", startTime=" + startTime + ", endTime=" + endTime + ", orgMembership="
-                + orgMembership + ", adminOnly=" + adminOnly + ", enrolledInStudyId=" + enrolledInStudyId + "]";
+                + orgMembership + ", adminOnly=" + adminOnly + ", enrolledInStudyId=" + enrolledInStudyId
+                + ", totalCount=" + totalCount + "]";
     }
     
     public static class Builder {
@@ -164,6 +178,7 @@ public final class AccountSummarySearch implements BridgeEntity {
         private String orgMembership;
         private Boolean adminOnly;
         private String enrolledInStudyId;
+        private TotalCount totalCount;
         
         public Builder withOffsetBy(Integer offsetBy) {
             this.offsetBy = offsetBy;
@@ -219,6 +234,10 @@ public final class AccountSummarySearch implements BridgeEntity {
             this.enrolledInStudyId = enrolledInStudyId;
             return this;
         }
+        public Builder withTotalCount(TotalCount totalCount) {
+            this.totalCount = totalCount;
+            return this;
+        }
         public Builder copyOf(AccountSummarySearch search) {
             this.offsetBy = search.offsetBy;
             this.pageSize = search.pageSize;
@@ -232,13 +251,16 @@ public final class AccountSummarySearch implements BridgeEntity {
             this.orgMembership = search.orgMembership;
             this.adminOnly = search.adminOnly;
             this.enrolledInStudyId = search.enrolledInStudyId;
+            this.totalCount = search.totalCount;
             return this;
         }
         public AccountSummarySearch build() {
             int defaultedOffsetBy = (offsetBy == null) ? 0 : offsetBy;
             int defaultedPageSize = (pageSize == null) ? API_DEFAULT_PAGE_SIZE : pageSize;
+            TotalCount defaultedTotalCount = (totalCount == null) ? TotalCount.EXACT : totalCount;
             return new AccountSummarySearch(defaultedOffsetBy, defaultedPageSize, emailFilter, phoneFilter, allOfGroups,
-                    noneOfGroups, language, startTime, endTime, orgMembership, adminOnly, enrolledInStudyId);
+                    noneOfGroups, language, startTime, endTime, orgMembership, adminOnly, enrolledInStudyId,
+                    defaultedTotalCount);
         }
     }
 }
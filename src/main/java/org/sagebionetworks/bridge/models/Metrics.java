@@ -121,6 +121,51 @@ public class Metrics {
         json.put("upload_size", uploadSize);
     }
 
+    /**
+     * How the upload dedupe check was answered: "skipped" when the cache ruled out a dupe, "duplicate" when the dedupe
+     * table found a dupe, "false_positive" when the cache had a marker but the table found no dupe, and "checked" when
+     * the table was checked without consulting the cache.
+     */
+    public void setUploadDedupeResult(String uploadDedupeResult) {
+        put("upload_dedupe_result", uploadDedupeResult);
+    }
+
+    /** Whether the scheduled activities were returned from the schedule cache: "hit" or "miss". */
+    public void setScheduleCacheResult(String scheduleCacheResult) {
+        put("schedule_cache_result", scheduleCacheResult);
+    }
+
+    /**
+     * Counts a call to an external service (for example "gbf" or "oauth") made while handling this request, and adds
+     * its duration to the total time spent waiting on that service.
+     */
+    public void recordOutboundRequest(String integration, long elapsedMillis) {
+        ObjectNode integrationNode = json.with("outbound_requests").with(integration);
+        integrationNode.put("count", integrationNode.path("count").asInt() + 1);
+        integrationNode.put("elapsedMillis", integrationNode.path("elapsedMillis").asLong() + elapsedMillis);
+    }
+
+    /**
+     * Counts a DynamoDB call made against a table while handling this request, and adds its duration and the read 
+     * and write capacity it consumed to the totals for that table.
+     */
+    public void recordDynamoRequest(String tableName, long elapsedMillis, double consumedCapacity) {
+        ObjectNode tableNode = json.with("dynamo_requests").with(tableName);
+        tableNode.put("count", tableNode.path("count").asInt() + 1);
+        tableNode.put("elapsedMillis", tableNode.path("elapsedMillis").asLong() + elapsedMillis);
+        tableNode.put("consumedCapacity", tableNode.path("consumedCapacity").asDouble() + consumedCapacity);
+    }
+
+    /**
+     * Counts a lookup of a cached entity (for example "study" or "organization") while handling this request, as a 
+     * hit when it was found in the cache and a miss when it had to be read from the database.
+     */
+    public void recordCacheResult(String region, boolean hit) {
+        ObjectNode regionNode = json.with("cache_results").with(region);
+        String field = hit ? "hits" : "misses";
+        regionNode.put(field, regionNode.path(field).asInt() + 1);
+    }
+
     /**
      * Set the query params from the url request to json.
      *
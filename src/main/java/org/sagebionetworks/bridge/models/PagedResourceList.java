@@ -1,7 +1,5 @@
 package org.sagebionetworks.bridge.models;
 
-import static com.google.common.base.Preconditions.checkNotNull;
-
 import java.util.List;
 
 import org.joda.time.DateTime;
@@ -15,7 +13,8 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 /**
  * This list represents one page of a larger list, for which we know the total number of items in the list 
  * (not just the size of the page). Request parameters are specifically modeled for this form of paging 
- * (offsetBy and total).
+ * (offsetBy and total). If the caller asked for the total not to be counted (see {@link TotalCount}), the 
+ * total is null, and hasNext reports whether there is another page after this one.
  *  
  * Due to this issue: https://github.com/FasterXML/jackson-databind/issues/921 you cannot deserialize a list 
  * with a generic type and also use a builder. Not fixed as of Jackson v2.7.3. We're using a pattern here 
@@ -25,7 +24,10 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
  */
 public class PagedResourceList<T> extends ResourceList<T> {
     
+    public static final String HAS_NEXT = "hasNext";
+    
     private final Integer total;
+    private Boolean hasNext;
 
     // This could have a nextPageOffsetBy, but it's trivial to calculate client-side
     @JsonCreator
@@ -33,13 +35,11 @@ public class PagedResourceList<T> extends ResourceList<T> {
             @JsonProperty(ITEMS) List<T> items, 
             @JsonProperty(TOTAL) Integer total) {
         super(items, false);
-        checkNotNull(total);
         this.total = total;
     }
 
     public PagedResourceList(List<T> items, Integer total, boolean suppressDeprecated) {
         super(items, suppressDeprecated);
-        checkNotNull(total);
         this.total = total;
     }
     
@@ -68,6 +68,16 @@ public class PagedResourceList<T> extends ResourceList<T> {
     public Integer getTotal() {
         return total;
     }
+    /** Null unless the total was estimated or not counted. */
+    @JsonProperty(HAS_NEXT)
+    public Boolean hasNext() {
+        return hasNext;
+    }
+    @JsonProperty(HAS_NEXT)
+    public PagedResourceList<T> withHasNext(Boolean hasNext) {
+        this.hasNext = hasNext;
+        return this;
+    }
     public PagedResourceList<T> withRequestParam(String key, Object value) {
         super.withRequestParam(key, value);
         return this;
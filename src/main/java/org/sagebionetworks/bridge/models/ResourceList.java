@@ -52,6 +52,7 @@ public class ResourceList<T> {
     public static final String START_TIME = "startTime";
     public static final String TAGS = "tags";
     public static final String TOTAL = "total";
+    public static final String TOTAL_COUNT = "totalCount";
     public static final String TYPE = "type";
     public static final String TEMPLATE_TYPE = "templateType";
     public static final String REQUEST_PARAMS = "RequestParams";
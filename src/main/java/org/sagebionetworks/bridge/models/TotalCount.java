@@ -0,0 +1,31 @@
+package org.sagebionetworks.bridge.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+
+/**
+ * How the total of a paged list is calculated. Counting every matching record can cost more than retrieving the
+ * page, so callers that only page forward (or only need a rough total) can ask for less.
+ */
+public enum TotalCount {
+    /** The total is counted for every page. This is the default. */
+    EXACT,
+    /**
+     * The total may be a count of the same search from the last few minutes, and will not reflect records that
+     * have been added or removed since then. The list also reports if there is a next page.
+     */
+    ESTIMATED,
+    /** The total is not counted and is not returned. The list reports if there is a next page. */
+    NONE;
+    
+    /**
+     * Parses the value in any case, as the totalCount query parameter is parsed, so a search submitted in the body 
+     * of a request accepts the same values. This enum is excepted in the LowercaseEnumModule so Jackson will use 
+     * this method.
+     */
+    @JsonCreator
+    public static TotalCount fromString(String value) {
+        return BridgeUtils.getEnumOrDefault(value, TotalCount.class, null);
+    }
+}
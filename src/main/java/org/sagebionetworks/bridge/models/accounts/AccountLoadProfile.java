@@ -0,0 +1,19 @@
+package org.sagebionetworks.bridge.models.accounts;
+
+/**
+ * How much of an account to load. The collections of an account (attributes, consents, roles, data groups,
+ * languages and enrollments) are each stored in their own table, so callers that only need a few fields of the
+ * account can avoid loading the rest.
+ */
+public enum AccountLoadProfile {
+    /**
+     * The account's own fields and its enrollments. Enrollments are always loaded because they are needed to
+     * determine whether the caller can see the account at all. The other collections are not loaded and cannot be
+     * read or updated from the returned account.
+     */
+    CORE,
+    /** The core profile plus the data groups, which are copied into a participant's uploads. */
+    UPLOAD_METADATA,
+    /** The complete account. Required for any account that will be updated. */
+    FULL;
+}
@@ -0,0 +1,101 @@
+package org.sagebionetworks.bridge.models.accounts;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.BridgeEntity;
+
+/**
+ * The progress of deleting a user in the background. The job records the health code and studies of the user when it
+ * is started, so that it can be resumed after the account itself has been deleted, and it records each stage as it
+ * completes, so that a failed job is resumed from where it left off rather than restarted.
+ */
+@JsonFilter("filter")
+public final class UserDeletionJob implements BridgeEntity {
+    public static final ObjectWriter PUBLIC_JOB_WRITER = new BridgeObjectMapper().writer(
+            new SimpleFilterProvider().addFilter("filter",
+                    SimpleBeanPropertyFilter.serializeAllExcept("healthCode")));
+
+    private String appId;
+    private String userId;
+    private String healthCode;
+    private Set<String> studyIds;
+    private UserDeletionStatus status;
+    private Set<UserDeletionStage> completedStages;
+    private String errorMessage;
+    private DateTime startedOn;
+    private DateTime modifiedOn;
+
+    public String getAppId() {
+        return appId;
+    }
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+    public String getUserId() {
+        return userId;
+    }
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    public String getHealthCode() {
+        return healthCode;
+    }
+    public void setHealthCode(String healthCode) {
+        this.healthCode = healthCode;
+    }
+    /** The studies the user was enrolled in, which have study-specific activity events to delete. Never null. */
+    public Set<String> getStudyIds() {
+        if (studyIds == null) {
+            studyIds = new HashSet<>();
+        }
+        return studyIds;
+    }
+    public void setStudyIds(Set<String> studyIds) {
+        this.studyIds = studyIds;
+    }
+    public UserDeletionStatus getStatus() {
+        return status;
+    }
+    public void setStatus(UserDeletionStatus status) {
+        this.status = status;
+    }
+    /** The stages that have completed and are skipped if the job is resumed. Never null. */
+    public Set<UserDeletionStage> getCompletedStages() {
+        if (completedStages == null) {
+            completedStages = EnumSet.noneOf(UserDeletionStage.class);
+        }
+        return completedStages;
+    }
+    public void setCompletedStages(Set<UserDeletionStage> completedStages) {
+        this.completedStages = completedStages;
+    }
+    /** If the job failed, the error from the first stage that failed. */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+    public DateTime getStartedOn() {
+        return startedOn;
+    }
+    public void setStartedOn(DateTime startedOn) {
+        this.startedOn = startedOn;
+    }
+    /** When the job was last started, resumed, or completed a stage. */
+    public DateTime getModifiedOn() {
+        return modifiedOn;
+    }
+    public void setModifiedOn(DateTime modifiedOn) {
+        this.modifiedOn = modifiedOn;
+    }
+}
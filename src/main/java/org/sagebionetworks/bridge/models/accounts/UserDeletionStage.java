@@ -0,0 +1,16 @@
+package org.sagebionetworks.bridge.models.accounts;
+
+/**
+ * The steps of deleting a user. All stages but the last delete a user's data from independent stores, and can run in 
+ * parallel. The account is deleted last, only after all other stages have completed, so a failed deletion can still 
+ * find the account and be resumed.
+ */
+public enum UserDeletionStage {
+    HEALTH_DATA,
+    EXPORTER_3_HEALTH_DATA,
+    NOTIFICATION_REGISTRATIONS,
+    UPLOADS,
+    SCHEDULED_ACTIVITIES,
+    ACTIVITY_EVENTS,
+    ACCOUNT;
+}
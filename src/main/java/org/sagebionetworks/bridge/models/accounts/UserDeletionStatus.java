@@ -0,0 +1,7 @@
+package org.sagebionetworks.bridge.models.accounts;
+
+public enum UserDeletionStatus {
+    IN_PROGRESS,
+    FAILED,
+    COMPLETED;
+}
@@ -0,0 +1,52 @@
+package org.sagebionetworks.bridge.models.upload;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.models.accounts.SharingScope;
+
+/**
+ * The participant information that is copied into every health data record created from a participant's uploads.
+ * This is cached for a short time, keyed by health code, so that a participant who uploads many files does not 
+ * cause the same account and activity event lookups for each one.
+ */
+public final class ParticipantUploadMetadata {
+    private SharingScope sharingScope;
+    private String externalId;
+    private Set<String> dataGroups;
+    private Map<String, String> studyMemberships;
+    private DateTime studyStartTime;
+
+    public SharingScope getSharingScope() {
+        return sharingScope;
+    }
+    public void setSharingScope(SharingScope sharingScope) {
+        this.sharingScope = sharingScope;
+    }
+    public String getExternalId() {
+        return externalId;
+    }
+    public void setExternalId(String externalId) {
+        this.externalId = externalId;
+    }
+    public Set<String> getDataGroups() {
+        return dataGroups;
+    }
+    public void setDataGroups(Set<String> dataGroups) {
+        this.dataGroups = dataGroups;
+    }
+    public Map<String, String> getStudyMemberships() {
+        return studyMemberships;
+    }
+    public void setStudyMemberships(Map<String, String> studyMemberships) {
+        this.studyMemberships = studyMemberships;
+    }
+    public DateTime getStudyStartTime() {
+        return studyStartTime;
+    }
+    public void setStudyStartTime(DateTime studyStartTime) {
+        this.studyStartTime = studyStartTime;
+    }
+}
@@ -5,6 +5,7 @@ import static java.lang.Boolean.TRUE;
 import static org.sagebionetworks.bridge.BridgeUtils.collectStudyIds;
 import static org.sagebionetworks.bridge.BridgeUtils.filterForStudy;
 import static org.sagebionetworks.bridge.dao.AccountDao.MIGRATION_VERSION;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.CORE;
 import static org.sagebionetworks.bridge.models.accounts.AccountSecretType.REAUTH;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.DISABLED;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.UNVERIFIED;
@@ -30,6 +31,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.dao.AccountSecretDao;
 import org.sagebionetworks.bridge.exceptions.AccountDisabledException;
@@ -41,6 +44,7 @@ import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountLoadProfile;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
@@ -59,6 +63,7 @@ public class AccountService {
     private AccountSecretDao accountSecretDao;
     private AppService appService;
     private ActivityEventService activityEventService;
+    private CacheProvider cacheProvider;
 
     @Autowired
     public final void setAccountDao(AccountDao accountDao) {
@@ -80,6 +85,11 @@ public class AccountService {
         this.activityEventService = activityEventService;
     }
     
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
     // Provided to override in tests
     protected String generateGUID() {
         return BridgeUtils.generateGuid();
@@ -193,7 +203,7 @@ public class AccountService {
     public void deleteReauthToken(AccountId accountId) {
         checkNotNull(accountId);
 
-        Account account = getAccount(accountId);
+        Account account = getAccount(accountId, CORE);
         if (account != null) {
             accountSecretDao.removeSecrets(REAUTH, account.getId());
         }
@@ -249,6 +259,7 @@ public class AccountService {
 
         // Update. We don't verify studies because this is handled by validation
         accountDao.updateAccount(account);
+        cacheProvider.removeObject(CacheKey.participantUploadMetadata(account.getAppId(), account.getHealthCode()));
         
         // If any enrollments have been added, then create an enrollment event for that enrollment.
         // We want to create these events only after we're sure the account has been updated to 
@@ -278,6 +289,7 @@ public class AccountService {
         if (account != null) {
             accountEdits.accept(account);
             accountDao.updateAccount(account);
+            cacheProvider.removeObject(CacheKey.participantUploadMetadata(appId, healthCode));
         }        
     }
     
@@ -298,6 +310,22 @@ public class AccountService {
         return null;
     }
     
+    /**
+     * Get an account as above, loading only the parts of the account in the given profile. Use this when the 
+     * caller only reads a few fields of the account and does not update it.
+     */
+    public Account getAccount(AccountId accountId, AccountLoadProfile profile) {
+        checkNotNull(accountId);
+        checkNotNull(profile);
+
+        Optional<Account> optional = accountDao.getAccount(accountId, profile);
+        if (optional.isPresent()) {
+            // filtering based on the study associations of the caller.
+            return filterForStudy(optional.get());
+        }
+        return null;
+    }
+    
     /**
      * This is used when enrolling a user, since the account itself is not yet in a study
      * that is visible to the caller. There may be similar cases where study access 
@@ -315,9 +343,11 @@ public class AccountService {
     public void deleteAccount(AccountId accountId) {
         checkNotNull(accountId);
         
-        Optional<Account> opt = accountDao.getAccount(accountId);
+        Optional<Account> opt = accountDao.getAccount(accountId, CORE);
         if (opt.isPresent()) {
-            accountDao.deleteAccount(opt.get().getId());
+            Account account = opt.get();
+            accountDao.deleteAccount(account.getId());
+            cacheProvider.removeObject(CacheKey.participantUploadMetadata(account.getAppId(), account.getHealthCode()));
         }
     }
     
@@ -343,7 +373,7 @@ public class AccountService {
     public String getHealthCodeForAccount(AccountId accountId) {
         checkNotNull(accountId);
         
-        Account account = getAccount(accountId);
+        Account account = getAccount(accountId, CORE);
         if (account != null) {
             return account.getHealthCode();
         } else {
@@ -7,9 +7,12 @@ import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectTy
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ENROLLMENT;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.STUDY_START_DATE;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.ImmutableMap.Builder;
@@ -19,6 +22,8 @@ import org.joda.time.Period;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -52,9 +57,19 @@ import org.sagebionetworks.bridge.validators.Validate;
 @Component
 public class ActivityEventService {
 
+    /**
+     * The activities_retrieved event is immutable and it is published every time a user retrieves their scheduled 
+     * activities, so once we know it has been recorded for a user, we remember that and skip the write. 
+     */
+    static final int ACTIVITIES_RETRIEVED_CACHE_SIZE = 10000;
+    
+    private final Cache<String, Boolean> activitiesRetrievedRecorded = CacheBuilder.newBuilder()
+            .maximumSize(ACTIVITIES_RETRIEVED_CACHE_SIZE).build();
+    
     private ActivityEventDao activityEventDao;
     private ParticipantService participantService;
     private AppService appService;
+    private CacheProvider cacheProvider;
     
     @Autowired
     final void setActivityEventDao(ActivityEventDao activityEventDao) {
@@ -71,6 +86,11 @@ public class ActivityEventService {
         this.appService = appService;
     }
     
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
     /**
      * Delete a custom event.
      */
@@ -87,6 +107,7 @@ public class ActivityEventService {
                 .withStudyId(studyId).build();
 
         activityEventDao.deleteCustomEvent(event);
+        removeScheduleVersionFromCache(healthCode);
     }
     
     /**
@@ -114,6 +135,7 @@ public class ActivityEventService {
         Validate.entityThrowingException(ActivityEventValidator.INSTANCE, event);
         
         if (activityEventDao.publishEvent(event)) {
+            removeScheduleVersionFromCache(healthCode);
             // Create automatic events, as defined in the app
             createAutomaticCustomEvents(app, studyId, healthCode, event);
         }
@@ -139,6 +161,8 @@ public class ActivityEventService {
         Validate.entityThrowingException(ActivityEventValidator.INSTANCE, globalEvent);
         
         if (activityEventDao.publishEvent(globalEvent)) {
+            removeUploadMetadataFromCache(app, healthCode);
+            removeScheduleVersionFromCache(healthCode);
             // Create automatic events, as defined in the app
             createAutomaticCustomEvents(app, null, healthCode, globalEvent);
         }
@@ -149,6 +173,7 @@ public class ActivityEventService {
                     .withObjectType(ENROLLMENT)
                     .withStudyId(studyId).build();
             if (activityEventDao.publishEvent(studyEvent)) {
+                removeScheduleVersionFromCache(healthCode);
                 createAutomaticCustomEvents(app, studyId, healthCode, studyEvent);
             }
         }
@@ -166,21 +191,32 @@ public class ActivityEventService {
         // If the globalEvent is valid, all other derivations are valid
         Validate.entityThrowingException(ActivityEventValidator.INSTANCE, globalEvent);
         
-        if (activityEventDao.publishEvent(globalEvent)) {
-            // Create automatic events, as defined in the app
-            createAutomaticCustomEvents(app, null, healthCode, globalEvent);
-        }
+        publishActivitiesRetrievedOnce(app, null, healthCode, globalEvent);
         if (studyId != null) {
             ActivityEvent studyEvent = new DynamoActivityEvent.Builder()
                     .withHealthCode(healthCode)
                     .withTimestamp(timestamp)
                     .withObjectType(ACTIVITIES_RETRIEVED)
                     .withStudyId(studyId).build();
-            if (activityEventDao.publishEvent(studyEvent)) {
-                // Create automatic events, as defined in the app
-                createAutomaticCustomEvents(app, studyId, healthCode, studyEvent);
+            publishActivitiesRetrievedOnce(app, studyId, healthCode, studyEvent);
+        }
+    }
+    
+    private void publishActivitiesRetrievedOnce(App app, String studyId, String healthCode, ActivityEvent event) {
+        String key = activitiesRetrievedKey(studyId, healthCode);
+        if (activitiesRetrievedRecorded.getIfPresent(key) != null) {
+            return;
+        }
+        if (activityEventDao.publishEvent(event)) {
+            if (studyId == null) {
+                removeUploadMetadataFromCache(app, healthCode);
             }
+            removeScheduleVersionFromCache(healthCode);
+            // Create automatic events, as defined in the app
+            createAutomaticCustomEvents(app, studyId, healthCode, event);
         }
+        // Whether it was written now or was already there, the event is now recorded and cannot change.
+        activitiesRetrievedRecorded.put(key, Boolean.TRUE);
     }
     
     /**
@@ -200,7 +236,9 @@ public class ActivityEventService {
         
         Validate.entityThrowingException(ActivityEventValidator.INSTANCE, event);
         
-        activityEventDao.publishEvent(event);
+        if (activityEventDao.publishEvent(event)) {
+            removeScheduleVersionFromCache(healthCode);
+        }
     }
     
     /**
@@ -226,7 +264,9 @@ public class ActivityEventService {
             // If the globalEvent is valid, all other derivations are valid 
             Validate.entityThrowingException(ActivityEventValidator.INSTANCE, event);
             
-            activityEventDao.publishEvent(event);
+            if (activityEventDao.publishEvent(event)) {
+                removeScheduleVersionFromCache(schActivity.getHealthCode());
+            }
         }
     }
     
@@ -254,6 +294,7 @@ public class ActivityEventService {
                     .withStudyId(studyId).build();
             activityEventDao.publishEvent(studyEvent);
         }
+        removeScheduleVersionFromCache(healthCode);
     }
     
     /**
@@ -313,9 +354,36 @@ public class ActivityEventService {
     public void deleteActivityEvents(String studyId, String healthCode) {
         checkNotNull(healthCode);
         activityEventDao.deleteActivityEvents(healthCode, studyId);
+        activitiesRetrievedRecorded.invalidate(activitiesRetrievedKey(studyId, healthCode));
+        removeScheduleVersionFromCache(healthCode);
+    }
+
+    /**
+     * The global enrollment and activities_retrieved events determine the study start time that is recorded with 
+     * a participant's uploads (see ParticipantService.getStudyStartTime).
+     */
+    private void removeUploadMetadataFromCache(App app, String healthCode) {
+        if (app.getIdentifier() != null) {
+            cacheProvider.removeObject(CacheKey.participantUploadMetadata(app.getIdentifier(), healthCode));
+        }
+    }
+
+    /** Any change to a user's events can change their schedule, so it must be recomputed. */
+    private void removeScheduleVersionFromCache(String healthCode) {
+        cacheProvider.removeObject(CacheKey.scheduledActivitiesVersion(healthCode));
+    }
+
+    private static String activitiesRetrievedKey(String studyId, String healthCode) {
+        return (studyId == null) ? healthCode : (healthCode + ":" + studyId);
     }
 
+    /**
+     * Automatic custom events are derived from an event that has just been recorded, and they are all written for 
+     * the triggering event in one batch. An automatic event is still only written if it is later than the one 
+     * recorded, as the automatic event may be shared by more than one triggering event.
+     */
     private void createAutomaticCustomEvents(App app, String studyId, String healthCode, ActivityEvent event) {
+        List<ActivityEvent> automaticEvents = new ArrayList<>();
         for (Map.Entry<String, String> oneAutomaticEvent : app.getAutomaticCustomEvents().entrySet()) {
             String automaticEventKey = oneAutomaticEvent.getKey(); // new event key
             Tuple<String> autoEventSpec = BridgeUtils.parseAutoEventValue(oneAutomaticEvent.getValue()); // originEventId:Period
@@ -331,8 +399,11 @@ public class ActivityEventService {
                         .withObjectId(automaticEventKey)
                         .withTimestamp(automaticEventTime)
                         .withStudyId(studyId).build();
-                activityEventDao.publishEvent(automaticEvent);
+                automaticEvents.add(automaticEvent);
             }
-        }        
+        }
+        if (!automaticEvents.isEmpty()) {
+            activityEventDao.publishEvents(automaticEvents);
+        }
     }
 }
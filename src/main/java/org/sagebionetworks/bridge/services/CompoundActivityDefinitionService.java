@@ -6,6 +6,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.CompoundActivityDefinitionDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
@@ -24,6 +26,8 @@ public class CompoundActivityDefinitionService {
     private SchedulePlanService schedulePlanService;
     
     private CompoundActivityDefinitionDao compoundActivityDefDao;
+    
+    private CacheProvider cacheProvider;
 
     @Autowired
     public final void setSchedulePlanService(SchedulePlanService schedulePlanService) {
@@ -35,6 +39,12 @@ public class CompoundActivityDefinitionService {
     public final void setCompoundActivityDefDao(CompoundActivityDefinitionDao compoundActivityDefDao) {
         this.compoundActivityDefDao = compoundActivityDefDao;
     }
+    
+    /** Cache provider, used to remove definitions cached for schedule resolution. */
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
 
     /** Creates a compound activity definition. */
     public CompoundActivityDefinition createCompoundActivityDefinition(String appId,
@@ -46,7 +56,11 @@ public class CompoundActivityDefinitionService {
         Validate.entityThrowingException(CompoundActivityDefinitionValidator.INSTANCE, compoundActivityDefinition);
 
         // call through to dao
-        return compoundActivityDefDao.createCompoundActivityDefinition(compoundActivityDefinition);
+        CompoundActivityDefinition created = compoundActivityDefDao
+                .createCompoundActivityDefinition(compoundActivityDefinition);
+        cacheProvider.removeObject(CacheKey.compoundActivityDefinition(appId,
+                compoundActivityDefinition.getTaskId()));
+        return created;
     }
 
     /** Deletes a compound activity definition. */
@@ -59,6 +73,7 @@ public class CompoundActivityDefinitionService {
         
         // call through to dao
         compoundActivityDefDao.deleteCompoundActivityDefinition(appId, taskId);
+        cacheProvider.removeObject(CacheKey.compoundActivityDefinition(appId, taskId));
     }
 
     /** Deletes all compound activity definitions in the specified app. Used when we physically delete an app. */
@@ -105,7 +120,10 @@ public class CompoundActivityDefinitionService {
         Validate.entityThrowingException(CompoundActivityDefinitionValidator.INSTANCE, compoundActivityDefinition);
 
         // call through to dao
-        return compoundActivityDefDao.updateCompoundActivityDefinition(compoundActivityDefinition);
+        CompoundActivityDefinition updated = compoundActivityDefDao
+                .updateCompoundActivityDefinition(compoundActivityDefinition);
+        cacheProvider.removeObject(CacheKey.compoundActivityDefinition(appId, taskId));
+        return updated;
     }
     
     private void checkConstraintViolations(String appId, String taskId) {
@@ -4,7 +4,10 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 
 import javax.annotation.Resource;
@@ -26,6 +29,7 @@ import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.time.DateUtils;
 
 import com.amazonaws.services.simpleemail.AmazonSimpleEmailServiceClient;
 import com.amazonaws.services.simpleemail.model.GetIdentityVerificationAttributesRequest;
@@ -45,6 +49,9 @@ public class EmailVerificationService {
 
     static final String CONFIG_KEY_NOTIFICATION_TOPIC_ARN = "ses.notification.topic.arn";
     private static final int VERIFIED_EMAIL_CACHE_IN_SECONDS = 60*5;
+    static final long VERIFIED_STATUS_REFRESH_MILLIS = 5*60*1000;
+    static final long UNVERIFIED_STATUS_REFRESH_MILLIS = 60*1000;
+    static final long LOCAL_STATUS_EXPIRE_MILLIS = 60*60*1000;
 
     // config
     private String notificationTopicArn;
@@ -54,6 +61,11 @@ public class EmailVerificationService {
     private AmazonSimpleEmailServiceClient sesClient;
     private CacheProvider cacheProvider;
 
+    // Sender statuses held in memory, so that sending an email doesn't require a remote lookup. There is one
+    // entry per sender address, which is one per app at most.
+    private final ConcurrentMap<String, LocalStatus> localStatusCache = new ConcurrentHashMap<>();
+    private final Set<String> refreshesInProgress = ConcurrentHashMap.newKeySet();
+
     // Most SES administrative calls are throttled to 1 call per second.
     private final RateLimiter sesRateLimiter = RateLimiter.create(1.0);
 
@@ -101,17 +113,74 @@ public class EmailVerificationService {
     private EmailVerificationStatus cacheAndReturn(String emailAddress, EmailVerificationStatus status) {
         CacheKey key = CacheKey.emailVerification(emailAddress);
         cacheProvider.setObject(key, status.name(), VERIFIED_EMAIL_CACHE_IN_SECONDS);
+        localStatusCache.put(emailAddress, new LocalStatus(status, DateUtils.getCurrentMillisFromEpoch()));
         return status;
     }
     
+    /**
+     * Returns true if the address is verified to send email through SES. This is called for every email we send, so 
+     * the status is answered from memory where possible. A status older than its refresh interval is still used, but 
+     * is reloaded in the background. Only an address we have not seen for a long time is looked up before returning.
+     */
     public boolean isVerified(String emailAddress) {
+        LocalStatus localStatus = localStatusCache.get(emailAddress);
+        long now = DateUtils.getCurrentMillisFromEpoch();
+        if (localStatus == null || now - localStatus.cachedOn > LOCAL_STATUS_EXPIRE_MILLIS) {
+            return loadStatus(emailAddress) == EmailVerificationStatus.VERIFIED;
+        }
+        // Statuses other than verified are refreshed sooner, so a newly verified address can send without much delay.
+        long refreshMillis = (localStatus.status == EmailVerificationStatus.VERIFIED) ?
+                VERIFIED_STATUS_REFRESH_MILLIS : UNVERIFIED_STATUS_REFRESH_MILLIS;
+        if (now - localStatus.cachedOn > refreshMillis && refreshesInProgress.add(emailAddress)) {
+            asyncExecutorService.execute(new AsyncStatusRefreshHandler(emailAddress));
+        }
+        return localStatus.status == EmailVerificationStatus.VERIFIED;
+    }
+    
+    // Loads the status from Redis, or from SES if Redis doesn't have it, and caches it locally.
+    private EmailVerificationStatus loadStatus(String emailAddress) {
         CacheKey key = CacheKey.emailVerification(emailAddress);
         String value = cacheProvider.getObject(key, String.class);
         if (value == null) {
-            EmailVerificationStatus status = getEmailStatus(emailAddress);
-            value = cacheAndReturn(emailAddress, status).name();
+            return cacheAndReturn(emailAddress, getEmailStatus(emailAddress));
+        }
+        EmailVerificationStatus status = EmailVerificationStatus.valueOf(value);
+        localStatusCache.put(emailAddress, new LocalStatus(status, DateUtils.getCurrentMillisFromEpoch()));
+        return status;
+    }
+    
+    /** Async handler to reload the status of a sender email address. Package-scoped for unit tests. */
+    class AsyncStatusRefreshHandler extends AsyncHandler {
+        private final String emailAddress;
+
+        AsyncStatusRefreshHandler(String emailAddress) {
+            this.emailAddress = emailAddress;
+        }
+
+        /** The email address to be refreshed. Visible for unit tests. */
+        String getEmailAddress() {
+            return emailAddress;
+        }
+
+        @Override
+        protected void handle() {
+            try {
+                loadStatus(emailAddress);
+            } finally {
+                refreshesInProgress.remove(emailAddress);
+            }
+        }
+    }
+    
+    // A sender status held in memory, with the time it was cached.
+    private static final class LocalStatus {
+        private final EmailVerificationStatus status;
+        private final long cachedOn;
+        
+        LocalStatus(EmailVerificationStatus status, long cachedOn) {
+            this.status = status;
+            this.cachedOn = cachedOn;
         }
-        return "VERIFIED".equals(value);
     }
     
     public EmailVerificationStatus getEmailStatus(String emailAddress) {
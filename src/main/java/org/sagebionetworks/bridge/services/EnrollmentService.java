@@ -12,6 +12,7 @@ import static org.sagebionetworks.bridge.BridgeConstants.PAGE_SIZE_ERROR;
 import static org.sagebionetworks.bridge.models.ResourceList.ENROLLMENT_FILTER;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
+import static org.sagebionetworks.bridge.models.ResourceList.TOTAL_COUNT;
 import static org.sagebionetworks.bridge.validators.EnrollmentValidator.INSTANCE;
 
 import java.util.List;
@@ -26,6 +27,7 @@ import org.sagebionetworks.bridge.dao.EnrollmentDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.studies.Enrollment;
@@ -63,7 +65,8 @@ public class EnrollmentService {
      * common reporting requirements (e.g. how many people have withdrawn from the study).
      */
     public PagedResourceList<EnrollmentDetail> getEnrollmentsForStudy(String appId, String studyId, 
-            EnrollmentFilter filter, boolean includeTesters, Integer offsetBy, Integer pageSize) {
+            EnrollmentFilter filter, boolean includeTesters, Integer offsetBy, Integer pageSize,
+            TotalCount totalCount) {
         checkNotNull(appId);
         checkNotNull(studyId);
         
@@ -75,10 +78,12 @@ public class EnrollmentService {
         if (pageSize != null && (pageSize < API_MINIMUM_PAGE_SIZE || pageSize > API_MAXIMUM_PAGE_SIZE)) {
             throw new BadRequestException(PAGE_SIZE_ERROR);
         }
-        return enrollmentDao.getEnrollmentsForStudy(appId, studyId, filter, includeTesters, offsetBy, pageSize)
+        return enrollmentDao.getEnrollmentsForStudy(appId, studyId, filter, includeTesters, offsetBy, pageSize,
+                totalCount)
                 .withRequestParam(OFFSET_BY, offsetBy)
                 .withRequestParam(PAGE_SIZE, pageSize)
-                .withRequestParam(ENROLLMENT_FILTER, filter);
+                .withRequestParam(ENROLLMENT_FILTER, filter)
+                .withRequestParam(TOTAL_COUNT, totalCount);
     }
     
     public List<EnrollmentDetail> getEnrollmentsForUser(String appId, String studyId, String userIdToken) {
@@ -6,6 +6,7 @@ import static org.sagebionetworks.bridge.BridgeConstants.NEGATIVE_OFFSET_ERROR;
 import static org.sagebionetworks.bridge.models.ResourceList.ID_FILTER;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
+import static org.sagebionetworks.bridge.models.ResourceList.TOTAL_COUNT;
 
 import java.util.Optional;
 
@@ -15,6 +16,7 @@ import org.sagebionetworks.bridge.dao.ExternalIdDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
@@ -50,17 +52,18 @@ public class ExternalIdService {
     }
     
     public PagedResourceList<ExternalIdentifierInfo> getPagedExternalIds(String appId, String studyId, String idFilter,
-            Integer offsetBy, Integer pageSize) {
+            Integer offsetBy, Integer pageSize, TotalCount totalCount) {
         if (offsetBy != null && offsetBy < 0) {
             throw new BadRequestException(NEGATIVE_OFFSET_ERROR);
         }
         if (pageSize != null && (pageSize < 1 || pageSize > API_MAXIMUM_PAGE_SIZE)) {
             throw new BadRequestException(PAGE_SIZE_ERROR);
         }
-        return externalIdDao.getPagedExternalIds(appId, studyId, idFilter, offsetBy, pageSize)
+        return externalIdDao.getPagedExternalIds(appId, studyId, idFilter, offsetBy, pageSize, totalCount)
                 .withRequestParam(ID_FILTER, idFilter)
                 .withRequestParam(OFFSET_BY, offsetBy)
-                .withRequestParam(PAGE_SIZE, pageSize);
+                .withRequestParam(PAGE_SIZE, pageSize)
+                .withRequestParam(TOTAL_COUNT, totalCount);
     }
 
     public void deleteExternalIdPermanently(App app, ExternalIdentifier externalId) {
@@ -45,6 +45,7 @@ public class GBFOrderService {
     private String getGbfOrderStatusUrl;
     private String gbfConfirmationUrl;
     private String gbfApiKey;
+    private OutboundHttpClient outboundHttpClient;
 
     private ObjectMapper jsonMapper = new ObjectMapper()
             .registerModule(new JodaModule())
@@ -61,6 +62,11 @@ public class GBFOrderService {
         this.gbfConfirmationUrl = config.get(GBF_CONFIRMATION_URL);
     }
 
+    @Autowired
+    final void setOutboundHttpClient(OutboundHttpClient outboundHttpClient) {
+        this.outboundHttpClient = outboundHttpClient;
+    }
+
     public void placeOrder(Order order, boolean isTest) {
         String orderXml;
         try {
@@ -185,7 +191,7 @@ public class GBFOrderService {
         request.addHeader("Authorization", "Bearer " + bearerToken);
 
         try {
-            return request.execute().returnResponse();
+            return outboundHttpClient.execute("gbf", request);
         } catch (IOException e) {
             LOG.error("Error posting Json to url: {}", url, e);
             throw new BridgeServiceException(GBF_SERVICE_ERROR_MESSAGE);
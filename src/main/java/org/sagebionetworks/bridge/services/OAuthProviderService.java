@@ -31,10 +31,7 @@ import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -115,6 +112,7 @@ class OAuthProviderService {
     private String synapseClientID;
     private String synapseClientSecret;
     private AppService appService;
+    private OutboundHttpClient outboundHttpClient;
 
     @Autowired
     final void setBridgeConfig(BridgeConfig config) {
@@ -128,6 +126,11 @@ class OAuthProviderService {
         this.appService = appService;
     }
     
+    @Autowired
+    final void setOutboundHttpClient(OutboundHttpClient outboundHttpClient) {
+        this.outboundHttpClient = outboundHttpClient;
+    }
+    
     /**
      * Simple container for the response, parsed before closing the stream.
      */
@@ -165,20 +168,21 @@ class OAuthProviderService {
     }
 
     private OAuthProviderService.Response executeInternal(HttpPost client) {
-        try (CloseableHttpClient httpclient = HttpClients.createDefault()) {
-            CloseableHttpResponse response = httpclient.execute(client);
-            int statusCode = response.getStatusLine().getStatusCode();
-
-            JsonNode body;
-            try {
-                body = BridgeObjectMapper.get().readTree(response.getEntity().getContent());
-            } catch (JsonParseException ex) {
-                // Log the error and the status code. Set body to a null node, so we don't break any callers.
-                LOG.error("OAuth call failed with invalid JSON, status code " + statusCode);
-                body = NullNode.getInstance();
-            }
+        try {
+            return outboundHttpClient.execute("oauth", client, response -> {
+                int statusCode = response.getStatusLine().getStatusCode();
+
+                JsonNode body;
+                try {
+                    body = BridgeObjectMapper.get().readTree(response.getEntity().getContent());
+                } catch (JsonParseException ex) {
+                    // Log the error and the status code. Set body to a null node, so we don't break any callers.
+                    LOG.error("OAuth call failed with invalid JSON, status code " + statusCode);
+                    body = NullNode.getInstance();
+                }
 
-            return new Response(statusCode, body);
+                return new Response(statusCode, body);
+            });
         } catch (IOException e) {
             LOG.error(SERVICE_ERROR_MSG, e);
             throw new BridgeServiceException(SERVICE_ERROR_MSG);
@@ -15,6 +15,7 @@ import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 import static org.sagebionetworks.bridge.validators.OrganizationValidator.INSTANCE;
 
+import java.util.List;
 import java.util.Optional;
 
 import com.google.common.collect.ImmutableMap;
@@ -43,6 +44,8 @@ import org.sagebionetworks.bridge.validators.Validate;
 
 @Component
 public class OrganizationService {
+    static final int ORGANIZATION_EXPIRE_IN_SECONDS = 30*60;
+    static final String ORGANIZATION_CACHE_REGION = "organization";
 
     private OrganizationDao orgDao;
     private AccountDao accountDao;
@@ -119,7 +122,9 @@ public class OrganizationService {
         organization.setCreatedOn(timestamp);
         organization.setModifiedOn(timestamp);
         organization.setVersion(null);
-        return orgDao.createOrganization(organization);
+        Organization created = orgDao.createOrganization(organization);
+        cacheProvider.removeObject(CacheKey.organization(organization.getAppId(), organization.getIdentifier()));
+        return created;
     }
     
     /**
@@ -139,7 +144,9 @@ public class OrganizationService {
         organization.setModifiedOn(getModifiedOn());
         organization.setCreatedOn(existing.getCreatedOn());
         
-        return orgDao.updateOrganization(organization);
+        Organization updated = orgDao.updateOrganization(organization);
+        cacheProvider.removeObject(CacheKey.organization(organization.getAppId(), organization.getIdentifier()));
+        return updated;
     }
     
     /**
@@ -150,7 +157,7 @@ public class OrganizationService {
         checkArgument(isNotBlank(appId));
         checkArgument(isNotBlank(identifier));
         
-        return orgDao.getOrganization(appId, identifier)
+        return getCachedOrganization(appId, identifier)
                 .orElseThrow(() -> new EntityNotFoundException(Organization.class));        
     }
     
@@ -162,7 +169,27 @@ public class OrganizationService {
         checkArgument(isNotBlank(appId));
         checkArgument(isNotBlank(identifier));
 
-        return orgDao.getOrganization(appId, identifier);        
+        return getCachedOrganization(appId, identifier);
+    }
+    
+    /**
+     * Organizations are cached, as they are looked up on many requests and rarely change. The cached organization 
+     * is removed whenever it is changed through this service.
+     */
+    private Optional<Organization> getCachedOrganization(String appId, String identifier) {
+        CacheKey cacheKey = CacheKey.organization(appId, identifier);
+        Organization organization = cacheProvider.getObject(cacheKey, Organization.class);
+        RequestContext.recordCacheResult(ORGANIZATION_CACHE_REGION, organization != null);
+        if (organization != null) {
+            // App ID is not serialized
+            organization.setAppId(appId);
+            return Optional.of(organization);
+        }
+        Optional<Organization> optional = orgDao.getOrganization(appId, identifier);
+        if (optional.isPresent()) {
+            cacheProvider.setObject(cacheKey, optional.get(), ORGANIZATION_EXPIRE_IN_SECONDS);
+        }
+        return optional;
     }
     
     /**
@@ -186,6 +213,7 @@ public class OrganizationService {
 
         orgDao.deleteOrganization(existing);
         
+        cacheProvider.removeObject(CacheKey.organization(appId, identifier));
         CacheKey cacheKey = CacheKey.orgSponsoredStudies(appId, identifier);
         cacheProvider.removeObject(cacheKey);
     }
@@ -264,6 +292,10 @@ public class OrganizationService {
     public void deleteAllOrganizations(String appId) {
         checkNotNull(appId);
 
+        List<Organization> organizations = orgDao.getOrganizations(appId, null, null).getItems();
         orgDao.deleteAllOrganizations(appId);
+        for (Organization organization : organizations) {
+            cacheProvider.removeObject(CacheKey.organization(appId, organization.getIdentifier()));
+        }
     }
 }
@@ -0,0 +1,70 @@
+package org.sagebionetworks.bridge.services;
+
+import java.io.IOException;
+
+import javax.annotation.Resource;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.fluent.Executor;
+import org.apache.http.client.fluent.Request;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.models.Metrics;
+import org.sagebionetworks.bridge.time.DateUtils;
+
+/**
+ * Executes calls to partner services (OAuth providers, CUIMC, Google geocoding, GBF) with the shared, pooled
+ * outboundHttpClient, so connections (and their TLS sessions) are reused across calls, and configured timeouts
+ * keep a slow partner from holding request threads indefinitely. Every call is counted and timed in the request
+ * metrics under the name of its integration.
+ */
+@Component
+public class OutboundHttpClient {
+    
+    private CloseableHttpClient httpClient;
+    private Executor executor;
+    
+    @Resource(name = "outboundHttpClient")
+    final void setHttpClient(CloseableHttpClient httpClient) {
+        this.httpClient = httpClient;
+        this.executor = Executor.newInstance(httpClient);
+    }
+    
+    /**
+     * Execute a fluent request. The response entity is buffered, so the connection is returned to the pool before 
+     * this method returns.
+     */
+    public HttpResponse execute(String integration, Request request) throws IOException {
+        long start = DateUtils.getCurrentMillisFromEpoch();
+        try {
+            return executor.execute(request).returnResponse();
+        } finally {
+            recordRequest(integration, start);
+        }
+    }
+    
+    /**
+     * Execute a request and process the response with the handler. The response is consumed and the connection is 
+     * returned to the pool after the handler returns.
+     */
+    public <T> T execute(String integration, HttpUriRequest request, ResponseHandler<? extends T> handler)
+            throws IOException {
+        long start = DateUtils.getCurrentMillisFromEpoch();
+        try {
+            return httpClient.execute(request, handler);
+        } finally {
+            recordRequest(integration, start);
+        }
+    }
+    
+    private static void recordRequest(String integration, long start) {
+        Metrics metrics = RequestContext.get().getMetrics();
+        if (metrics != null) {
+            metrics.recordOutboundRequest(integration, DateUtils.getCurrentMillisFromEpoch() - start);
+        }
+    }
+}
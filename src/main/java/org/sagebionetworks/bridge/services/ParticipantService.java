@@ -373,6 +373,15 @@ public class ParticipantService {
      */
     public DateTime getStudyStartTime(AccountId accountId) {
         Account account = getAccountThrowingException(accountId);
+        return getStudyStartTime(account);
+    }
+
+    /**
+     * Gets the timestamp representing when the participant started the study, for an account that has already 
+     * been loaded (see {@link #getStudyStartTime(AccountId)}).
+     */
+    public DateTime getStudyStartTime(Account account) {
+        checkNotNull(account);
 
         Map<String, DateTime> activityMap = activityEventService.getActivityEventMap(account.getAppId(), null, account.getHealthCode());
         DateTime activitiesRetrievedDateTime = activityMap.get(ACTIVITIES_RETRIEVED.name().toLowerCase());
@@ -619,6 +628,18 @@ public class ParticipantService {
                 scheduledOnEnd, offsetKey, pageSize);
     }
     
+    public Iterable<ScheduledActivity> streamActivityHistory(App app, String userId, String activityGuid,
+            DateTime scheduledOnStart, DateTime scheduledOnEnd) {
+        checkNotNull(app);
+        checkArgument(isNotBlank(activityGuid));
+        checkArgument(isNotBlank(userId));
+
+        Account account = getAccountThrowingException(app.getIdentifier(), userId);
+
+        return scheduledActivityService.streamActivityHistory(account.getHealthCode(), activityGuid,
+                scheduledOnStart, scheduledOnEnd);
+    }
+    
     public ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistory(App app, String userId,
             ActivityType activityType, String referentGuid, DateTime scheduledOnStart, DateTime scheduledOnEnd,
             String offsetKey, int pageSize) {
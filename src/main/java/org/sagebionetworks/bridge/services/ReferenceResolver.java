@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.joda.time.DateTime;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.schedules.Activity;
@@ -28,10 +30,17 @@ import org.slf4j.LoggerFactory;
  * recently published survey. In compound activities we resolve all references in the schema and survey 
  * lists. Finally, if a compound activity only contains a taskIdentifier, we load the full compound 
  * activity, resolve it, and return that in the scheduled activity. 
+ * 
+ * Resolutions are cached for the life of this resolver, and are also shared across requests through the 
+ * cache provider. The shared entries are removed when surveys are published or deleted, when schemas are 
+ * revised, and when compound activity definitions change; they also expire as a safeguard.
  */
 class ReferenceResolver {
     private static final Logger LOG = LoggerFactory.getLogger(ReferenceResolver.class);
     
+    static final int REFERENCE_CACHE_EXPIRE_IN_SECONDS = 15*60;
+    
+    private final CacheProvider cacheProvider;
     private final CompoundActivityDefinitionService compoundActivityDefinitionService;
     private final UploadSchemaService schemaService;
     private final SurveyService surveyService;
@@ -45,10 +54,12 @@ class ReferenceResolver {
     private final Map<String, SchemaReference> schemaCache = new HashMap<>();
     private final Map<String, SurveyReference> surveyCache = new HashMap<>();
     
-    ReferenceResolver(CompoundActivityDefinitionService compoundActivityDefinitionService,
+    ReferenceResolver(CacheProvider cacheProvider,
+            CompoundActivityDefinitionService compoundActivityDefinitionService,
             UploadSchemaService schemaService, SurveyService surveyService,
             Map<String, SurveyReference> surveyReferences, Map<String, SchemaReference> schemaReferences,
             ClientInfo clientInfo, String appId) {
+        this.cacheProvider = cacheProvider;
         this.compoundActivityDefinitionService = compoundActivityDefinitionService;
         this.schemaService = schemaService;
         this.surveyService = surveyService;
@@ -107,16 +118,22 @@ class ReferenceResolver {
         CompoundActivity resolvedCompoundActivity = compoundActivityCache.get(taskId);
         if (resolvedCompoundActivity == null) {
             if (compoundActivity.isReference()) {
-                // Compound activity has no schemas or surveys defined. Resolve it with its definition.
-                CompoundActivityDefinition compoundActivityDef;
-                try {
-                    compoundActivityDef = compoundActivityDefinitionService.getCompoundActivityDefinition(appId,
-                            taskId);
-                } catch (EntityNotFoundException ex) {
-                    LOG.error("Schedule references non-existent compound activity " + taskId);
-                    return null;
+                // Compound activity has no schemas or surveys defined. Resolve it with its definition. The 
+                // definition is shared across requests, but its lists are resolved per client below.
+                CacheKey cacheKey = CacheKey.compoundActivityDefinition(appId, taskId);
+                resolvedCompoundActivity = cacheProvider.getObject(cacheKey, CompoundActivity.class);
+                if (resolvedCompoundActivity == null) {
+                    CompoundActivityDefinition compoundActivityDef;
+                    try {
+                        compoundActivityDef = compoundActivityDefinitionService.getCompoundActivityDefinition(appId,
+                                taskId);
+                    } catch (EntityNotFoundException ex) {
+                        LOG.error("Schedule references non-existent compound activity " + taskId);
+                        return null;
+                    }
+                    resolvedCompoundActivity = compoundActivityDef.getCompoundActivity();
+                    cacheProvider.setObject(cacheKey, resolvedCompoundActivity, REFERENCE_CACHE_EXPIRE_IN_SECONDS);
                 }
-                resolvedCompoundActivity = compoundActivityDef.getCompoundActivity();
             } else {
                 // Compound activity has schemas and surveys defined. Use the schemas and surveys from the lists, but
                 // we may need to resolve individual schema and survey refs at a later step.
@@ -173,14 +190,22 @@ class ReferenceResolver {
             resolvedSchemaRef = schemaReferences.get(schemaId);
         }
         if (resolvedSchemaRef == null) {
-            UploadSchema schema;
-            try {
-                schema = schemaService.getLatestUploadSchemaRevisionForAppVersion(appId, schemaId, clientInfo);
-            } catch (EntityNotFoundException ex) {
-                LOG.error("Schedule references non-existent schema " + schemaId);
-                return null;
+            CacheKey cacheKey = CacheKey.resolvedSchemaReference(appId, schemaId, clientInfo.getOsName(),
+                    clientInfo.getAppVersion());
+            resolvedSchemaRef = cacheProvider.getObject(cacheKey, SchemaReference.class);
+            if (resolvedSchemaRef == null) {
+                UploadSchema schema;
+                try {
+                    schema = schemaService.getLatestUploadSchemaRevisionForAppVersion(appId, schemaId, clientInfo);
+                } catch (EntityNotFoundException ex) {
+                    LOG.error("Schedule references non-existent schema " + schemaId);
+                    return null;
+                }
+                resolvedSchemaRef = new SchemaReference(schemaId, schema.getRevision());
+                cacheProvider.setObject(cacheKey, resolvedSchemaRef, REFERENCE_CACHE_EXPIRE_IN_SECONDS);
+                cacheProvider.addCacheKeyToSet(CacheKey.resolvedSchemaReferenceSet(appId, schemaId),
+                        cacheKey.toString());
             }
-            resolvedSchemaRef = new SchemaReference(schemaId, schema.getRevision());
             schemaCache.put(schemaId, resolvedSchemaRef);
         }
         return resolvedSchemaRef;
@@ -198,15 +223,20 @@ class ReferenceResolver {
             resolvedSurveyRef = surveyReferences.get(surveyGuid);
         }
         if (resolvedSurveyRef == null) {
-            Survey survey;
-            try {
-                survey = surveyService.getSurveyMostRecentlyPublishedVersion(appId, surveyGuid, false);
-            } catch (EntityNotFoundException ex) {
-                LOG.error("Schedule references non-existent survey " + surveyGuid);
-                return null;
+            CacheKey cacheKey = CacheKey.resolvedSurveyReference(appId, surveyGuid);
+            resolvedSurveyRef = cacheProvider.getObject(cacheKey, SurveyReference.class);
+            if (resolvedSurveyRef == null) {
+                Survey survey;
+                try {
+                    survey = surveyService.getSurveyMostRecentlyPublishedVersion(appId, surveyGuid, false);
+                } catch (EntityNotFoundException ex) {
+                    LOG.error("Schedule references non-existent survey " + surveyGuid);
+                    return null;
+                }
+                resolvedSurveyRef = new SurveyReference(survey.getIdentifier(), surveyGuid,
+                        new DateTime(survey.getCreatedOn()));
+                cacheProvider.setObject(cacheKey, resolvedSurveyRef, REFERENCE_CACHE_EXPIRE_IN_SECONDS);
             }
-            resolvedSurveyRef = new SurveyReference(survey.getIdentifier(), surveyGuid,
-                    new DateTime(survey.getCreatedOn()));
             surveyCache.put(surveyGuid, resolvedSurveyRef);
         }
         return resolvedSurveyRef;
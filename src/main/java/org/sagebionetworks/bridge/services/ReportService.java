@@ -4,9 +4,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.API_MINIMUM_PAGE_SIZE;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 
 import org.apache.commons.lang3.StringUtils;
@@ -54,6 +58,16 @@ import org.sagebionetworks.bridge.validators.Validate;
 public class ReportService {
     private static final int MAX_RANGE_DAYS = 45;
     
+    static final int MAX_BATCH_SAVE_RECORDS = 500;
+    
+    private static final String BATCH_EMPTY_MSG = "At least one report record is required";
+    
+    private static final String BATCH_TOO_LARGE_MSG = "Cannot save more than " + MAX_BATCH_SAVE_RECORDS
+            + " report records in one call";
+    
+    private static final String BATCH_DUPLICATE_DATE_MSG = "Cannot save more than one report record for the same "
+            + "report and date in one call";
+    
     private static final String RECORD_DATE_MISSING_MSG = "Date of report record is required";
     
     private static final String EITHER_BOTH_DATES_OR_NEITHER = "Only one date of a date range provided (both startTime and endTime required)";
@@ -62,6 +76,8 @@ public class ReportService {
     
     private static final String INVALID_TIME_RANGE = "startTime later in time than endTime";
     
+    private static final String EXPORT_DATES_REQUIRED = "Both startDate and endDate are required to export a report";
+    
     private ReportDataDao reportDataDao;
     private ReportIndexDao reportIndexDao;
     
@@ -132,6 +148,51 @@ public class ReportService {
         return reportDataDao.getReportData(key, startDate, endDate);
     }
     
+    /**
+     * Export study report records in the provided local date range. Unlike {@link #getStudyReport}, the range is 
+     * not limited in size; records are loaded lazily as the returned iterable is consumed. Study memberships are 
+     * enforced.
+     */
+    public Iterable<? extends ReportData> streamStudyReport(String appId, String identifier, LocalDate startDate,
+            LocalDate endDate) {
+        validateExportDateRange(startDate, endDate);
+        
+        ReportDataKey key = new ReportDataKey.Builder()
+                .withReportType(ReportType.STUDY)
+                .withIdentifier(identifier)
+                .withAppId(appId).build();
+        Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
+        
+        ReportIndex index = reportIndexDao.getIndex(key);
+        if (!canAccess(index)) {
+            throw new UnauthorizedException();
+        }
+        return reportDataDao.streamReportData(key, startDate, endDate);
+    }
+    
+    /**
+     * Export participant report records in the provided local date range. Unlike {@link #getParticipantReport}, 
+     * the range is not limited in size; records are loaded lazily as the returned iterable is consumed. Study 
+     * memberships are enforced.
+     */
+    public Iterable<? extends ReportData> streamParticipantReport(String appId, String identifier,
+            String healthCode, LocalDate startDate, LocalDate endDate) {
+        validateExportDateRange(startDate, endDate);
+        
+        ReportDataKey key = new ReportDataKey.Builder()
+                .withHealthCode(healthCode)
+                .withReportType(ReportType.PARTICIPANT)
+                .withIdentifier(identifier)
+                .withAppId(appId).build();
+        Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
+        
+        ReportIndex index = reportIndexDao.getIndex(key);
+        if (!canAccess(index)) {
+            throw new UnauthorizedException();
+        }
+        return reportDataDao.streamReportData(key, startDate, endDate);
+    }
+    
     /**
      * Return set of participant report records based on the provided datetime range. Study memberships are enforced.
      */
@@ -247,6 +308,91 @@ public class ReportService {
         }
     }
     
+    /**
+     * Save a batch of study report records. The report index is retrieved once for the whole batch, and all 
+     * records are validated before any are written. If this is the first save for this report, the studies of 
+     * the first record will define who can see this report.
+     */
+    public void saveStudyReportRecords(String appId, String identifier, List<ReportData> reportDataList) {
+        checkNotNull(reportDataList);
+        
+        ReportDataKey key = new ReportDataKey.Builder()
+                .withReportType(ReportType.STUDY)
+                .withIdentifier(identifier)
+                .withAppId(appId).build();
+        for (ReportData reportData : reportDataList) {
+            reportData.setReportDataKey(key);
+        }
+        saveReportRecords(key, reportDataList);
+    }
+    
+    /**
+     * Save a batch of records for one participant report. See 
+     * {@link #saveParticipantReportRecords(String, String, Map)}.
+     */
+    public void saveParticipantReportRecords(String appId, String identifier, String healthCode,
+            List<ReportData> reportDataList) {
+        checkNotNull(reportDataList);
+        
+        saveParticipantReportRecords(appId, identifier, ImmutableMap.of(healthCode, reportDataList));
+    }
+    
+    /**
+     * Save a batch of participant report records for one or more participants (mapped by health code). All 
+     * participant reports with the same identifier share one report index, so it is retrieved once for the 
+     * whole batch, and all records are validated before any are written.
+     */
+    public void saveParticipantReportRecords(String appId, String identifier,
+            Map<String, List<ReportData>> reportDataByHealthCode) {
+        checkNotNull(reportDataByHealthCode);
+        
+        ReportDataKey indexKey = null;
+        List<ReportData> reportDataList = new ArrayList<>();
+        for (Map.Entry<String, List<ReportData>> entry : reportDataByHealthCode.entrySet()) {
+            ReportDataKey key = new ReportDataKey.Builder()
+                    .withHealthCode(entry.getKey())
+                    .withReportType(ReportType.PARTICIPANT)
+                    .withIdentifier(identifier)
+                    .withAppId(appId).build();
+            for (ReportData reportData : entry.getValue()) {
+                reportData.setReportDataKey(key);
+                reportDataList.add(reportData);
+            }
+            if (indexKey == null) {
+                indexKey = key;
+            }
+        }
+        saveReportRecords(indexKey, reportDataList);
+    }
+    
+    private void saveReportRecords(ReportDataKey indexKey, List<ReportData> reportDataList) {
+        if (reportDataList.isEmpty()) {
+            throw new BadRequestException(BATCH_EMPTY_MSG);
+        }
+        if (reportDataList.size() > MAX_BATCH_SAVE_RECORDS) {
+            throw new BadRequestException(BATCH_TOO_LARGE_MSG);
+        }
+        ReportIndex index = reportIndexDao.getIndex(indexKey);
+        if (!canAccess(index)) {
+            throw new UnauthorizedException();
+        }
+        
+        ReportDataValidator validator = new ReportDataValidator(index);
+        Set<String> recordKeys = new HashSet<>();
+        for (ReportData reportData : reportDataList) {
+            Validate.entityThrowingException(validator, reportData);
+            // DynamoDB rejects a batch write that contains the same item twice.
+            if (!recordKeys.add(reportData.getKey() + ":" + reportData.getDate())) {
+                throw new BadRequestException(BATCH_DUPLICATE_DATE_MSG);
+            }
+        }
+        
+        reportDataDao.saveReportDataRecords(reportDataList);
+        if (index == null) {
+            addToIndex(indexKey, reportDataList.get(0).getStudyIds());
+        }
+    }
+    
     /**
      * Delete all records for a study report. Study memberships will be enforced.
      */
@@ -435,6 +581,15 @@ public class ReportService {
         return new RangeTuple<>(startTime, endTime);
     }
     
+    private void validateExportDateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new BadRequestException(EXPORT_DATES_REQUIRED);
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("Start date " + startDate + " can't be after end date " + endDate);
+        }
+    }
+    
     private RangeTuple<LocalDate> validateLocalDateRange(LocalDate startDate, LocalDate endDate) {
         if (startDate == null) {
             startDate = DateUtils.getCurrentCalendarDateInLocalTime().minusDays(1);
@@ -7,6 +7,8 @@ import java.util.List;
 import java.util.Set;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.SchedulePlanDao;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
@@ -32,6 +34,7 @@ public class SchedulePlanService {
     private SchedulePlanDao schedulePlanDao;
     private SurveyService surveyService;
     private StudyService studyService;
+    private CacheProvider cacheProvider;
 
     @Autowired
     public final void setSchedulePlanDao(SchedulePlanDao schedulePlanDao) {
@@ -45,6 +48,10 @@ public class SchedulePlanService {
     public final void setStudyService(StudyService studyService) {
         this.studyService = studyService;
     }
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
 
     public List<SchedulePlan> getSchedulePlans(ClientInfo clientInfo, String appId,
             boolean includeDeleted) {
@@ -83,7 +90,9 @@ public class SchedulePlanService {
                 new SchedulePlanValidator(app.getDataGroups(), studyIds, app.getTaskIdentifiers()), plan);
 
         lookupSurveyReferenceIdentifiers(app.getIdentifier(), plan);
-        return schedulePlanDao.createSchedulePlan(app.getIdentifier(), plan);
+        SchedulePlan created = schedulePlanDao.createSchedulePlan(app.getIdentifier(), plan);
+        removeSchedulePlansVersionFromCache(app.getIdentifier());
+        return created;
     }
     
     public SchedulePlan updateSchedulePlan(App app, SchedulePlan plan) {
@@ -117,7 +126,9 @@ public class SchedulePlanService {
                 new SchedulePlanValidator(app.getDataGroups(), studyIds, app.getTaskIdentifiers()), plan);
         
         lookupSurveyReferenceIdentifiers(plan.getAppId(), plan);
-        return schedulePlanDao.updateSchedulePlan(plan.getAppId(), plan);
+        SchedulePlan updated = schedulePlanDao.updateSchedulePlan(plan.getAppId(), plan);
+        removeSchedulePlansVersionFromCache(plan.getAppId());
+        return updated;
     }
 
     public void deleteSchedulePlan(String appId, String guid) {
@@ -125,6 +136,7 @@ public class SchedulePlanService {
         checkNotNull(isNotBlank(guid));
         
         schedulePlanDao.deleteSchedulePlan(appId, guid);
+        removeSchedulePlansVersionFromCache(appId);
     }
     
     public void deleteSchedulePlanPermanently(String appId, String guid) {
@@ -132,6 +144,12 @@ public class SchedulePlanService {
         checkNotNull(isNotBlank(guid));
         
         schedulePlanDao.deleteSchedulePlanPermanently(appId, guid);
+        removeSchedulePlansVersionFromCache(appId);
+    }
+    
+    /** Participants' cached schedules are computed from the app's plans, so they must be recomputed. */
+    private void removeSchedulePlansVersionFromCache(String appId) {
+        cacheProvider.removeObject(CacheKey.schedulePlansVersion(appId));
     }
     
     /**
@@ -19,10 +19,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -33,9 +36,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
+import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.RangeTuple;
 import org.sagebionetworks.bridge.models.appconfig.AppConfig;
 import org.sagebionetworks.bridge.models.apps.App;
@@ -68,11 +76,32 @@ public class ScheduledActivityService {
     private static final String EITHER_BOTH_DATES_OR_NEITHER = "Only one date of a date range provided (both scheduledOnStart and scheduledOnEnd required)";
     
     private static final String INVALID_TIME_RANGE = "scheduledOnStart later in time than scheduledOnEnd";
+    
+    private static final String EXPORT_DATES_REQUIRED = "Both scheduledOnStart and scheduledOnEnd are required to export activity history";
 
     private static final String ENROLLMENT = "enrollment";
 
     private static final ScheduleContextValidator VALIDATOR = new ScheduleContextValidator();
 
+    /**
+     * Clients request their V4 activities every time the app comes to the foreground, so the computed result is kept 
+     * in memory for a short time. It is reused only for the same schedule context (which includes the date range 
+     * and the user's data groups, studies, languages and client), and only while the user's and the app's schedule 
+     * version tokens in Redis are unchanged. The user's token is removed when their activity events or activities 
+     * change, and the app's when a schedule plan changes, so every server stops using its copy.
+     */
+    static final int SCHEDULE_CACHE_EXPIRE_IN_SECONDS = 5*60;
+    static final int SCHEDULE_PLANS_VERSION_EXPIRE_IN_SECONDS = 24*60*60;
+    static final long SCHEDULE_CACHE_MAX_ACTIVITIES = 200000;
+    static final String SCHEDULE_CACHE_HIT = "hit";
+    static final String SCHEDULE_CACHE_MISS = "miss";
+
+    // Weighed by the number of activities, since those make up most of the memory used by an entry.
+    private final Cache<String, CachedSchedule> scheduleCache = CacheBuilder.newBuilder()
+            .maximumWeight(SCHEDULE_CACHE_MAX_ACTIVITIES)
+            .weigher((String healthCode, CachedSchedule schedule) -> schedule.activities.size() + 1)
+            .expireAfterWrite(SCHEDULE_CACHE_EXPIRE_IN_SECONDS, TimeUnit.SECONDS).build();
+
     private ScheduledActivityDao activityDao;
 
     private ActivityEventService activityEventService;
@@ -87,6 +116,8 @@ public class ScheduledActivityService {
     
     private AppConfigService appConfigService;
     
+    private CacheProvider cacheProvider;
+    
     @Autowired
     final void setScheduledActivityDao(ScheduledActivityDao activityDao) {
         this.activityDao = activityDao;
@@ -125,6 +156,12 @@ public class ScheduledActivityService {
     final void setAppConfigService(AppConfigService appConfigService) {
         this.appConfigService = appConfigService;
     }
+    
+    /** Cache provider, used to share resolved activity references across requests. */
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
 
     public ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistory(String healthCode,
             String activityGuid, DateTime scheduledOnStart, DateTime scheduledOnEnd, String offsetKey,
@@ -138,6 +175,24 @@ public class ScheduledActivityService {
                 offsetKey, pageSize);
     }
     
+    /**
+     * Export the full history of an activity in the given time range. Unlike the paged history APIs, activities 
+     * are loaded lazily as the returned iterable is consumed, so there is no page size. 
+     */
+    public Iterable<ScheduledActivity> streamActivityHistory(String healthCode, String activityGuid,
+            DateTime scheduledOnStart, DateTime scheduledOnEnd) {
+        checkArgument(isNotBlank(healthCode));
+        checkArgument(isNotBlank(activityGuid));
+        
+        if (scheduledOnStart == null || scheduledOnEnd == null) {
+            throw new BadRequestException(EXPORT_DATES_REQUIRED);
+        }
+        if (scheduledOnStart.isAfter(scheduledOnEnd)) {
+            throw new BadRequestException(INVALID_TIME_RANGE);
+        }
+        return activityDao.streamActivityHistory(healthCode, activityGuid, scheduledOnStart, scheduledOnEnd);
+    }
+    
     public ForwardCursorPagedResourceList<ScheduledActivity> getActivityHistory(String healthCode, ActivityType activityType,
             String referentGuid, DateTime scheduledOnStart, DateTime scheduledOnEnd, String offsetKey, int pageSize) {
         checkArgument(isNotBlank(healthCode));
@@ -217,6 +272,29 @@ public class ScheduledActivityService {
         String healthCode = context.getCriteriaContext().getHealthCode();
         activityEventService.publishActivitiesRetrieved(app, null, healthCode, DateUtils.getCurrentDateTime());
         
+        CacheKey userVersionKey = CacheKey.scheduledActivitiesVersion(healthCode);
+        CacheKey plansVersionKey = CacheKey.schedulePlansVersion(context.getCriteriaContext().getAppId());
+        String userVersion = cacheProvider.getObject(userVersionKey, String.class);
+        String plansVersion = cacheProvider.getObject(plansVersionKey, String.class);
+        
+        CachedSchedule cachedSchedule = scheduleCache.getIfPresent(healthCode);
+        if (cachedSchedule != null && cachedSchedule.isValidFor(context, userVersion, plansVersion)) {
+            setScheduleCacheResult(SCHEDULE_CACHE_HIT);
+            return cachedSchedule.activities;
+        }
+        setScheduleCacheResult(SCHEDULE_CACHE_MISS);
+        
+        // Set the tokens before computing the schedule, so that a change made while we compute it removes the token 
+        // again and this result is never used.
+        if (userVersion == null) {
+            userVersion = BridgeUtils.generateGuid();
+            cacheProvider.setObject(userVersionKey, userVersion, SCHEDULE_CACHE_EXPIRE_IN_SECONDS);
+        }
+        if (plansVersion == null) {
+            plansVersion = BridgeUtils.generateGuid();
+            cacheProvider.setObject(plansVersionKey, plansVersion, SCHEDULE_PLANS_VERSION_EXPIRE_IN_SECONDS);
+        }
+        
         // Add events for scheduling
         Map<String, DateTime> events = createEventsMap(context);
         ScheduleContext updatedContext = new ScheduleContext.Builder().withContext(context).withEvents(events).build();
@@ -236,7 +314,37 @@ public class ScheduledActivityService {
         // added to the activities that will be returned.
         scheduledActivities.addAll(dbMap.values());
         
-        return orderActivities(scheduledActivities, V4_FILTER);
+        List<ScheduledActivity> results = orderActivities(scheduledActivities, V4_FILTER);
+        scheduleCache.put(healthCode, new CachedSchedule(context, userVersion, plansVersion, results));
+        return results;
+    }
+    
+    private void setScheduleCacheResult(String result) {
+        Metrics metrics = RequestContext.get().getMetrics();
+        if (metrics != null) {
+            metrics.setScheduleCacheResult(result);
+        }
+    }
+    
+    /** A user's computed V4 schedule, with the context and version tokens it was computed under. */
+    private static final class CachedSchedule {
+        private final ScheduleContext context;
+        private final String userVersion;
+        private final String plansVersion;
+        private final List<ScheduledActivity> activities;
+        
+        CachedSchedule(ScheduleContext context, String userVersion, String plansVersion,
+                List<ScheduledActivity> activities) {
+            this.context = context;
+            this.userVersion = userVersion;
+            this.plansVersion = plansVersion;
+            this.activities = activities;
+        }
+        
+        boolean isValidFor(ScheduleContext context, String userVersion, String plansVersion) {
+            return this.context.equals(context) && this.userVersion.equals(userVersion)
+                    && this.plansVersion.equals(plansVersion);
+        }
     }
     
     protected List<ScheduledActivity> performMerge(List<ScheduledActivity> scheduledActivities,
@@ -357,12 +465,14 @@ public class ScheduledActivityService {
             
         }
         activityDao.updateActivities(healthCode, activitiesToSave);
+        cacheProvider.removeObject(CacheKey.scheduledActivitiesVersion(healthCode));
     }
 
     public void deleteActivitiesForUser(String healthCode) {
         checkArgument(isNotBlank(healthCode));
 
         activityDao.deleteActivitiesForUser(healthCode);
+        cacheProvider.removeObject(CacheKey.scheduledActivitiesVersion(healthCode));
     }
 
     protected List<ScheduledActivity> orderActivities(List<ScheduledActivity> activities,
@@ -416,9 +526,9 @@ public class ScheduledActivityService {
         Map<String, SchemaReference> schemaReferences = (appConfig == null) ? ImmutableMap.of()
                 : Maps.uniqueIndex(appConfig.getSchemaReferences(), SchemaReference::getId);
 
-        ReferenceResolver resolver = new ReferenceResolver(compoundActivityDefinitionService, schemaService,
-                surveyService, surveyReferences, schemaReferences, context.getCriteriaContext().getClientInfo(),
-                context.getCriteriaContext().getAppId());
+        ReferenceResolver resolver = new ReferenceResolver(cacheProvider, compoundActivityDefinitionService,
+                schemaService, surveyService, surveyReferences, schemaReferences,
+                context.getCriteriaContext().getClientInfo(), context.getCriteriaContext().getAppId());
         
         for (SchedulePlan plan : plans) {
             Schedule schedule = plan.getStrategy().getScheduleForUser(plan, context);
@@ -15,6 +15,7 @@ import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
 
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.services.email.MimeTypeEmail;
 import org.sagebionetworks.bridge.services.email.MimeTypeEmailProvider;
@@ -34,17 +35,30 @@ import com.amazonaws.services.simpleemail.model.RawMessage;
 import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
 import com.amazonaws.services.simpleemail.model.SendRawEmailResult;
 import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.RateLimiter;
 
+/**
+ * Sends email through Amazon SES. Sends are throttled to the SES sending rate, and throttled or failed (5XX) sends 
+ * are retried. Email is sent on the caller's thread, so a failure to send reaches the caller.
+ */
 @Component("sendEmailViaAmazonService")
 public class SendMailViaAmazonService implements SendMailService {
 
     private static final Logger logger = LoggerFactory.getLogger(SendMailViaAmazonService.class);
     private static final Region REGION = Region.getRegion(Regions.US_EAST_1);
     public static final String UNVERIFIED_EMAIL_ERROR = "Bridge cannot send email until you verify Amazon SES can send using your app's support email address";
+    static final String CONFIG_KEY_SEND_RATE = "ses.send.rate.per.second";
 
     private AmazonSimpleEmailServiceClient emailClient;
     private EmailVerificationService emailVerificationService;
 
+    // The SES sending quota applies to the account, so this is only exact when one server is sending email.
+    private final RateLimiter sendRateLimiter = RateLimiter.create(1.0);
+
+    // Can be overriden for test.
+    private int maxSendTries = 5;
+    private long retryDelayMillis = 1000;
+
     @Autowired
     final void setEmailClient(AmazonSimpleEmailServiceClient emailClient) {
         this.emailClient = emailClient;
@@ -53,6 +67,22 @@ public class SendMailViaAmazonService implements SendMailService {
     final void setEmailVerificationService(EmailVerificationService emailVerificationService) {
         this.emailVerificationService = emailVerificationService;
     }
+    @Autowired
+    final void setConfig(BridgeConfig config) {
+        setSendRateLimit(config.getPropertyAsInt(CONFIG_KEY_SEND_RATE));
+    }
+    /** Rate limit for sending email, in emails per second. Made overridable for unit tests. */
+    final void setSendRateLimit(double rate) {
+        sendRateLimiter.setRate(rate);
+    }
+    /** Number of times we try to send an email before we fail. Made overridable for unit tests. */
+    final void setMaxSendTries(int maxSendTries) {
+        this.maxSendTries = maxSendTries;
+    }
+    /** Delay before the first retry, which doubles with each retry. Made overridable for unit tests. */
+    final void setRetryDelayMillis(long retryDelayMillis) {
+        this.retryDelayMillis = retryDelayMillis;
+    }
     
     @Override
     public void sendEmail(MimeTypeEmailProvider provider) {
@@ -73,7 +103,7 @@ public class SendMailViaAmazonService implements SendMailService {
             // won't be updated properly, and really weird things happen. The best course of option is to log an error
             // and swallow the exception.
             logger.error("SES rejected email: " + ex.getMessage(), ex);
-        } catch(MessagingException | AmazonServiceException | IOException e) {
+        } catch(MessagingException | AmazonClientException | IOException e) {
             throw new BridgeServiceException(e);
         }
     }
@@ -104,10 +134,42 @@ public class SendMailViaAmazonService implements SendMailService {
         req.setSource(senderEmail);
         req.setDestinations(Collections.singleton(recipient));
         emailClient.setRegion(REGION);
-        SendRawEmailResult result = emailClient.sendRawEmail(req);
+        SendRawEmailResult result = sendRawEmail(req);
 
         logger.info("Sent email to SES with messageID " + result.getMessageId() + " with type " +
                         email.getType() + " for app " + appId + " and request " + RequestContext.get().getId());
     }
-    
+
+    // Rate limits each attempt, and retries throttling and 5XX errors with an increasing delay.
+    private SendRawEmailResult sendRawEmail(SendRawEmailRequest req) {
+        long delayMillis = retryDelayMillis;
+        for (int i = 1; ; i++) {
+            sendRateLimiter.acquire();
+            try {
+                return emailClient.sendRawEmail(req);
+            } catch (AmazonServiceException ex) {
+                if (i >= maxSendTries || !isRetryable(ex)) {
+                    throw ex;
+                }
+                logger.warn("Attempt " + i + " of " + maxSendTries + " to send email failed: " + ex.getMessage());
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new BridgeServiceException("Interrupted while retrying email send", ex);
+            }
+            delayMillis *= 2;
+        }
+    }
+
+    private static boolean isRetryable(AmazonServiceException ex) {
+        int statusCode = ex.getStatusCode();
+        if (statusCode >= 500 && statusCode <= 599) {
+            return true;
+        }
+        // SES returns a "Throttling" error code when the sending rate is exceeded.
+        String errorCode = ex.getErrorCode();
+        return errorCode != null && errorCode.toLowerCase().contains("throttl");
+    }
 }
@@ -1,10 +1,13 @@
 package org.sagebionetworks.bridge.services;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.CORE;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 
@@ -14,6 +17,8 @@ import com.amazonaws.services.sns.model.CheckIfPhoneNumberIsOptedOutResult;
 import com.amazonaws.services.sns.model.OptInPhoneNumberRequest;
 import com.amazonaws.services.sns.model.PublishResult;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
@@ -23,12 +28,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.async.AsyncHandler;
 import org.sagebionetworks.bridge.dao.SmsMessageDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.apps.App;
@@ -57,6 +66,7 @@ public class SmsService {
     static final String MESSAGE_LOG_SCHEMA_ID = "sms-messages-sent-from-bridge";
     static final String MESSAGE_LOG_SCHEMA_NAME = "SMS Messages Sent From Bridge";
     static final int MESSAGE_LOG_SCHEMA_REV = 1;
+    static final int MESSAGE_LOG_SCHEMA_CACHE_EXPIRE_IN_SECONDS = 5*60;
 
     // mPower 2.0 study burst notifications can be fairly long. The longest one has 230 chars of fixed content, an app
     // url that's 53 characters long, and some freeform text that can be potentially 255 characters long, for a total
@@ -65,9 +75,15 @@ public class SmsService {
 
     private HealthDataService healthDataService;
     private SmsMessageDao messageDao;
-    private ParticipantService participantService;
+    private AccountService accountService;
     private UploadSchemaService schemaService;
     private AmazonSNSClient snsClient;
+    private ExecutorService smsExecutorService;
+
+    // Apps recently known to have the message log schema. The schema can be deleted permanently through the API,
+    // so apps are only remembered for a few minutes.
+    private final Cache<String, Boolean> appsWithMessageLogSchema = CacheBuilder.newBuilder()
+            .expireAfterWrite(MESSAGE_LOG_SCHEMA_CACHE_EXPIRE_IN_SECONDS, TimeUnit.SECONDS).build();
 
     /** Health data service, used to submit SMS message logs as health data. */
     @Autowired
@@ -81,10 +97,10 @@ public class SmsService {
         this.messageDao = messageDao;
     }
 
-    /** Participant service. */
+    /** Account service, used to get the health code and time zone of the recipient. */
     @Autowired
-    public final void setParticipantService(ParticipantService participantService) {
-        this.participantService = participantService;
+    public final void setAccountService(AccountService accountService) {
+        this.accountService = accountService;
     }
 
     /** Schema service, used to initialize the SMS Message Long schema. */
@@ -99,6 +115,12 @@ public class SmsService {
         this.snsClient = snsClient;
     }
 
+    /** Thread pool that logs sent SMS messages. This is configured by Spring. */
+    @Resource(name = "smsExecutorService")
+    public final void setSmsExecutorService(ExecutorService smsExecutorService) {
+        this.smsExecutorService = smsExecutorService;
+    }
+
     /**
      * Sends an SMS message using the given message provider. User ID is used to fetch the account, so we can get
      * health code and time zone and other relevant attributes to log and record as health data. If the recipient
@@ -123,46 +145,91 @@ public class SmsService {
         LOG.info("Sent SMS message, app=" + app.getIdentifier() + ", message ID=" + messageId + ", request ID=" +
                 RequestContext.get().getId());
 
-        // Log SMS message.
-        DateTime sentOn = DateTime.now();
+        // Log SMS message. Looking up the participant, writing the message log, and submitting health data are
+        // done in the background, so that the caller only waits on SNS.
         SmsMessage smsMessage = SmsMessage.create();
         smsMessage.setPhoneNumber(recipientPhone.getNumber());
-        smsMessage.setSentOn(sentOn.getMillis());
+        smsMessage.setSentOn(DateTime.now().getMillis());
         smsMessage.setMessageBody(message);
         smsMessage.setMessageId(messageId);
         smsMessage.setSmsType(provider.getSmsTypeEnum());
         smsMessage.setAppId(app.getIdentifier());
+        Validate.entityThrowingException(SmsMessageValidator.INSTANCE, smsMessage);
+
+        // The handler can outlive this request, so it gets a copy of the request context with its own Metrics. 
+        // Metrics are not thread-safe, and the request's are logged when the request completes.
+        RequestContext handlerContext = RequestContext.get().toBuilder().withMetrics(null).build();
+        smsExecutorService.execute(new SmsPostSendHandler(handlerContext, userId, app, smsMessage,
+                provider.getSmsType()));
+    }
 
-        // Fetch participant, if it exists.
-        StudyParticipant participant = null;
+    /**
+     * Logs a sent SMS message and, if the recipient has an account, records it as health data. Runs with a copy of 
+     * the request context of the request that sent the message. Package-scoped for unit tests.
+     */
+    class SmsPostSendHandler extends AsyncHandler {
+        private final RequestContext requestContext;
+        private final String userId;
+        private final App app;
+        private final SmsMessage smsMessage;
+        private final String smsType;
+
+        SmsPostSendHandler(RequestContext requestContext, String userId, App app, SmsMessage smsMessage,
+                String smsType) {
+            this.requestContext = requestContext;
+            this.userId = userId;
+            this.app = app;
+            this.smsMessage = smsMessage;
+            this.smsType = smsType;
+        }
+
+        @Override
+        protected void handle() throws IOException, UploadValidationException {
+            // If the queue is full, this runs on the request thread, so restore that thread's context afterwards.
+            RequestContext previousContext = RequestContext.get();
+            RequestContext.set(requestContext);
+            try {
+                logMessage(userId, app, smsMessage, smsType);
+            } finally {
+                RequestContext.set(previousContext);
+            }
+        }
+    }
+
+    // Helper method to write the message log and health data for a sent SMS message.
+    private void logMessage(String userId, App app, SmsMessage smsMessage, String smsType)
+            throws IOException, UploadValidationException {
+        // Fetch account, if it exists. Only the health code and time zone are needed, so none of the account's 
+        // collections are loaded.
+        Account account = null;
         if (userId != null) {
-            participant = participantService.getParticipant(app, userId, false);
+            AccountId accountId = BridgeUtils.parseAccountId(app.getIdentifier(), userId);
+            account = accountService.getAccount(accountId, CORE);
         }
 
         // Finish logging SMS message.
-        if (participant != null) {
-            smsMessage.setHealthCode(participant.getHealthCode());
+        if (account != null) {
+            smsMessage.setHealthCode(account.getHealthCode());
         }
-        Validate.entityThrowingException(SmsMessageValidator.INSTANCE, smsMessage);
         messageDao.logMessage(smsMessage);
 
-        // If we have a participant, make a health data.
-        if (participant != null) {
+        // If we have an account, make a health data.
+        if (account != null) {
             initMessageLogSchema(app.getIdentifier());
 
             // Set sentOn w/ user's time zone, if it exists.
             DateTime sentOnWithTimeZone;
-            if (participant.getTimeZone() != null) {
-                sentOnWithTimeZone = sentOn.withZone(participant.getTimeZone());
+            if (account.getTimeZone() != null) {
+                sentOnWithTimeZone = new DateTime(smsMessage.getSentOn(), account.getTimeZone());
             } else {
-                sentOnWithTimeZone = sentOn.withZone(DateTimeZone.UTC);
+                sentOnWithTimeZone = new DateTime(smsMessage.getSentOn(), DateTimeZone.UTC);
             }
 
             // Create health data.
             ObjectNode healthDataNode = BridgeObjectMapper.get().createObjectNode();
             healthDataNode.put(FIELD_NAME_SENT_ON, sentOnWithTimeZone.toString());
-            healthDataNode.put(FIELD_NAME_SMS_TYPE, provider.getSmsType());
-            healthDataNode.put(FIELD_NAME_MESSAGE_BODY, message);
+            healthDataNode.put(FIELD_NAME_SMS_TYPE, smsType);
+            healthDataNode.put(FIELD_NAME_MESSAGE_BODY, smsMessage.getMessageBody());
 
             // Health Data Service requires app version and phone info. However, this health data is submitted by
             // Bridge, not by the app, so fill those in with artificial values.
@@ -170,16 +237,18 @@ public class SmsService {
                     .withAppVersion(BRIDGE_SERVER_APP_VERSION).withPhoneInfo(BRIDGE_SERVER_PHONE_INFO)
                     .withCreatedOn(sentOnWithTimeZone).withSchemaId(MESSAGE_LOG_SCHEMA_ID)
                     .withSchemaRevision(MESSAGE_LOG_SCHEMA_REV).withData(healthDataNode).build();
-            try {
-                healthDataService.submitHealthData(app.getIdentifier(), participant, healthData);
-            } catch (IOException | UploadValidationException ex) {
-                throw new BridgeServiceException(ex);
-            }
+            StudyParticipant participant = new StudyParticipant.Builder().withId(account.getId())
+                    .withHealthCode(account.getHealthCode()).withTimeZone(account.getTimeZone()).build();
+            healthDataService.submitHealthData(app.getIdentifier(), participant, healthData);
         }
     }
 
     // Helper method to init the SMS log schema for the app.
     private void initMessageLogSchema(String appId) {
+        if (appsWithMessageLogSchema.getIfPresent(appId) != null) {
+            return;
+        }
+
         // See if schema already exists.
         UploadSchema existingSchema = null;
         try {
@@ -189,6 +258,7 @@ public class SmsService {
             // Suppress exception. If get throws, messageLogSchema will be null.
         }
         if (existingSchema != null) {
+            appsWithMessageLogSchema.put(appId, Boolean.TRUE);
             return;
         }
 
@@ -209,6 +279,7 @@ public class SmsService {
         schemaToCreate.setFieldDefinitions(fieldDefList);
 
         schemaService.createSchemaRevisionV4(appId, schemaToCreate);
+        appsWithMessageLogSchema.put(appId, Boolean.TRUE);
     }
 
     /** Gets the message we most recently sent to the given phone number. */
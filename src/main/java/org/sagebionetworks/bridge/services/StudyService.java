@@ -11,11 +11,15 @@ import static org.sagebionetworks.bridge.models.ResourceList.INCLUDE_DELETED;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 
+import java.util.List;
 import java.util.Set;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.joda.time.DateTime;
 
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.StudyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
@@ -32,11 +36,17 @@ import com.google.common.collect.ImmutableMap;
 
 @Component
 public class StudyService {
+    static final int STUDY_EXPIRE_IN_SECONDS = 30*60;
+    static final String STUDY_CACHE_REGION = "study";
+    static final String STUDY_IDS_CACHE_REGION = "study_ids";
+    static final TypeReference<Set<String>> STUDY_ID_SET_TYPE_REF = new TypeReference<Set<String>>() {};
     
     private StudyDao studyDao;
     
     private SponsorService sponsorService;
     
+    private CacheProvider cacheProvider;
+    
     @Autowired
     final void setStudyDao(StudyDao studyDao) {
         this.studyDao = studyDao;
@@ -47,11 +57,31 @@ public class StudyService {
         this.sponsorService = sponsorService;
     }
     
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
+    /**
+     * Studies are cached, as they are resolved on many requests and rarely change. The cached study is removed 
+     * whenever it is changed through this service.
+     */
     public Study getStudy(String appId, String studyId, boolean throwsException) {
         checkNotNull(appId);
         checkNotNull(studyId);
         
-        Study study = studyDao.getStudy(appId, studyId);
+        CacheKey cacheKey = CacheKey.study(appId, studyId);
+        Study study = cacheProvider.getObject(cacheKey, Study.class);
+        RequestContext.recordCacheResult(STUDY_CACHE_REGION, study != null);
+        if (study != null) {
+            // App ID is not serialized
+            study.setAppId(appId);
+        } else {
+            study = studyDao.getStudy(appId, studyId);
+            if (study != null) {
+                cacheProvider.setObject(cacheKey, study, STUDY_EXPIRE_IN_SECONDS);
+            }
+        }
         if (throwsException && study == null) {
             throw new EntityNotFoundException(Study.class);
         }
@@ -64,10 +94,17 @@ public class StudyService {
      * so we can provide a cache for these infrequently changing identifiers.
      */
     public Set<String> getStudyIds(String appId) {
-        return getStudies(appId, null, null, false, false)
-                .getItems().stream()
-                .map(Study::getIdentifier)
-                .collect(toSet());
+        CacheKey cacheKey = CacheKey.studyIdList(appId);
+        Set<String> studyIds = cacheProvider.getObject(cacheKey, STUDY_ID_SET_TYPE_REF);
+        RequestContext.recordCacheResult(STUDY_IDS_CACHE_REGION, studyIds != null);
+        if (studyIds == null) {
+            studyIds = getStudies(appId, null, null, false, false)
+                    .getItems().stream()
+                    .map(Study::getIdentifier)
+                    .collect(toSet());
+            cacheProvider.setObject(cacheKey, studyIds, STUDY_EXPIRE_IN_SECONDS);
+        }
+        return studyIds;
     }
     
     public PagedResourceList<Study> getStudies(String appId, Integer offsetBy, Integer pageSize, 
@@ -116,6 +153,7 @@ public class StudyService {
             throw new EntityAlreadyExistsException(Study.class, ImmutableMap.of("id", existing.getIdentifier()));
         }
         VersionHolder version = studyDao.createStudy(study);
+        removeCachedStudy(appId, study.getIdentifier());
         // You cannot do this when creating an app because it will fail: the caller's organization will not 
         // yet exist. After initial app creation when accounts are established in the app, it should be 
         // possible to create studies that are associated to the caller's organization (so the study 
@@ -141,7 +179,9 @@ public class StudyService {
         study.setCreatedOn(existing.getCreatedOn());
         study.setModifiedOn(DateTime.now());
         
-        return studyDao.updateStudy(study);
+        VersionHolder version = studyDao.updateStudy(study);
+        removeCachedStudy(appId, study.getIdentifier());
+        return version;
     }
     
     public void deleteStudy(String appId, String studyId) {
@@ -152,6 +192,7 @@ public class StudyService {
         existing.setDeleted(true);
         existing.setModifiedOn(DateTime.now());
         studyDao.updateStudy(existing);
+        removeCachedStudy(appId, studyId);
     }
     
     public void deleteStudyPermanently(String appId, String studyId) {
@@ -161,11 +202,22 @@ public class StudyService {
         // Throws exception if the element does not exist.
         getStudy(appId, studyId, true);
         studyDao.deleteStudyPermanently(appId, studyId);
+        removeCachedStudy(appId, studyId);
     }
     
     public void deleteAllStudies(String appId) {
         checkNotNull(appId);
 
+        List<Study> studies = studyDao.getStudies(appId, null, null, null, true).getItems();
         studyDao.deleteAllStudies(appId);
+        for (Study study : studies) {
+            cacheProvider.removeObject(CacheKey.study(appId, study.getIdentifier()));
+        }
+        cacheProvider.removeObject(CacheKey.studyIdList(appId));
+    }
+    
+    private void removeCachedStudy(String appId, String studyId) {
+        cacheProvider.removeObject(CacheKey.study(appId, studyId));
+        cacheProvider.removeObject(CacheKey.studyIdList(appId));
     }
 }
@@ -13,6 +13,8 @@ import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
@@ -35,6 +37,7 @@ import org.sagebionetworks.bridge.validators.SurveyPublishValidator;
 import org.sagebionetworks.bridge.validators.SurveySaveValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -43,18 +46,31 @@ import org.springframework.validation.Validator;
 @Component
 public class SurveyService {
     static final String KEY_IDENTIFIER = "identifier";
+    /**
+     * Published survey versions are effectively immutable (only the deleted flag changes, and we remove the cached
+     * copy when it does), so they can be held much longer than resolved references.
+     */
+    static final int PUBLISHED_SURVEY_EXPIRE_IN_SECONDS = 60*60;
+    static final int PUBLISHED_SURVEY_LIST_EXPIRE_IN_SECONDS = 15*60;
+    private static final TypeReference<List<Survey>> SURVEY_LIST_TYPE = new TypeReference<List<Survey>>() {};
 
     private Validator publishValidator;
     private SurveyDao surveyDao;
     private SchedulePlanService schedulePlanService;
     private SharedModuleMetadataService sharedModuleMetadataService;
     private AppService appService;
+    private CacheProvider cacheProvider;
 
     @Autowired
     final void setSurveyDao(SurveyDao surveyDao) {
         this.surveyDao = surveyDao;
     }
 
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
     @Autowired
     final void setPublishValidator(SurveyPublishValidator validator) {
         this.publishValidator = validator;
@@ -76,7 +92,24 @@ public class SurveyService {
     }
     
     public Survey getSurvey(String appId, GuidCreatedOnVersionHolder keys, boolean includeElements, boolean throwException) {
-        Survey survey = surveyDao.getSurvey(appId, keys, includeElements);
+        Survey survey = null;
+        // Assembling a survey with its elements requires a second query of the element table, so published versions
+        // (which won't change) are cached in their entirety. Unpublished versions can still be edited and are not.
+        if (includeElements && appId != null && keys.getGuid() != null) {
+            CacheKey cacheKey = CacheKey.publishedSurvey(appId, keys.getGuid(), keys.getCreatedOn());
+            survey = cacheProvider.getObject(cacheKey, Survey.class);
+            if (survey != null) {
+                // appId is not serialized with the survey
+                survey.setAppId(appId);
+            } else {
+                survey = surveyDao.getSurvey(appId, keys, includeElements);
+                if (survey != null && survey.isPublished() && isInApp(appId, survey)) {
+                    cacheProvider.setObject(cacheKey, survey, PUBLISHED_SURVEY_EXPIRE_IN_SECONDS);
+                }
+            }
+        } else {
+            survey = surveyDao.getSurvey(appId, keys, includeElements);
+        }
         if (!isInApp(appId, survey)) {
             if (throwException) {
                 throw new EntityNotFoundException(Survey.class);    
@@ -137,7 +170,9 @@ public class SurveyService {
             if (existing.isDeleted() && !survey.isDeleted()) {
                 existing = surveyDao.getSurvey(appId, survey, true); // get all the children for the update
                 existing.setDeleted(false);
-                return surveyDao.updateSurvey(appId, existing);
+                Survey updated = surveyDao.updateSurvey(appId, existing);
+                removePublishedSurveyFromCache(appId, existing);
+                return updated;
             } else {
                 throw new PublishedSurveyException(survey);
             }
@@ -168,7 +203,9 @@ public class SurveyService {
         }
         Validate.entityThrowingException(publishValidator, existing);
 
-        return surveyDao.publishSurvey(appId, existing, newSchemaRev);
+        Survey published = surveyDao.publishSurvey(appId, existing, newSchemaRev);
+        removePublishedSurveyFromCache(appId, keys);
+        return published;
     }
 
     /**
@@ -204,6 +241,7 @@ public class SurveyService {
         verifySharedModuleExistence(keys);
 
         surveyDao.deleteSurvey(existing);
+        removePublishedSurveyFromCache(appId, keys);
     }
 
     /**
@@ -227,6 +265,7 @@ public class SurveyService {
         }
         checkConstraintsBeforePhysicalDelete(appId, keys);
         surveyDao.deleteSurveyPermanently(appId, keys);
+        removePublishedSurveyFromCache(appId, keys);
     }
 
     // Helper method to verify if there is any shared module related to specified survey
@@ -294,7 +333,19 @@ public class SurveyService {
         checkNotNull(appId, Validate.CANNOT_BE_NULL, "appId");
         checkArgument(isNotBlank(guid), Validate.CANNOT_BE_BLANK, "survey guid");
 
-        Survey survey = surveyDao.getSurveyMostRecentlyPublishedVersion(appId, guid, includeElements);
+        Survey survey = null;
+        if (includeElements) {
+            // Find the version through the cached list of published surveys, then load it through the published 
+            // survey cache. Identifier lookups (and anything not in the list) go to the database.
+            Survey listed = getAllSurveysMostRecentlyPublishedVersion(appId, false).stream()
+                    .filter(oneSurvey -> guid.equals(oneSurvey.getGuid())).findFirst().orElse(null);
+            if (listed != null) {
+                survey = getSurvey(appId, listed, true, false);
+            }
+        }
+        if (survey == null) {
+            survey = surveyDao.getSurveyMostRecentlyPublishedVersion(appId, guid, includeElements);
+        }
         if (survey == null || !isInApp(appId, survey)) {
             throw new EntityNotFoundException(Survey.class);
         }
@@ -308,7 +359,17 @@ public class SurveyService {
     public List<Survey> getAllSurveysMostRecentlyPublishedVersion(String appId, boolean includeDeleted) {
         checkNotNull(appId, Validate.CANNOT_BE_NULL, "appId");
 
-        return surveyDao.getAllSurveysMostRecentlyPublishedVersion(appId, includeDeleted);
+        CacheKey cacheKey = CacheKey.mostRecentlyPublishedSurveys(appId, includeDeleted);
+        List<Survey> surveys = cacheProvider.getObject(cacheKey, SURVEY_LIST_TYPE);
+        if (surveys != null) {
+            for (Survey survey : surveys) {
+                survey.setAppId(appId);
+            }
+            return surveys;
+        }
+        surveys = surveyDao.getAllSurveysMostRecentlyPublishedVersion(appId, includeDeleted);
+        cacheProvider.setObject(cacheKey, surveys, PUBLISHED_SURVEY_LIST_EXPIRE_IN_SECONDS);
+        return surveys;
     }
 
     /**
@@ -323,6 +384,20 @@ public class SurveyService {
         return surveyDao.getAllSurveysMostRecentVersion(appId, includeDeleted);
     }
 
+    /**
+     * Remove everything cached about the published versions of this survey: the version itself, the reference 
+     * resolved for schedules, and the app's lists of most recently published surveys.
+     */
+    private void removePublishedSurveyFromCache(String appId, GuidCreatedOnVersionHolder keys) {
+        if (appId == null) {
+            return;
+        }
+        cacheProvider.removeObject(CacheKey.publishedSurvey(appId, keys.getGuid(), keys.getCreatedOn()));
+        cacheProvider.removeObject(CacheKey.resolvedSurveyReference(appId, keys.getGuid()));
+        cacheProvider.removeObject(CacheKey.mostRecentlyPublishedSurveys(appId, true));
+        cacheProvider.removeObject(CacheKey.mostRecentlyPublishedSurveys(appId, false));
+    }
+
     /**
      * Callers must operate on a survey in their own app. However our code has allowed administrators to delete 
      * shared apps (which are not in the admin's app). For backwards compatibility, do not enforce the same 
@@ -9,6 +9,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.TemplateDao;
 import org.sagebionetworks.bridge.dao.TemplateRevisionDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -27,6 +29,8 @@ public class TemplateRevisionService {
     
     private TemplateRevisionDao templateRevisionDao;
     
+    private CacheProvider cacheProvider;
+    
     @Autowired
     final void setTemplateDao(TemplateDao templateDao) {
         this.templateDao = templateDao;
@@ -37,6 +41,11 @@ public class TemplateRevisionService {
         this.templateRevisionDao = templateRevisionDao;
     }
     
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
     public PagedResourceList<? extends TemplateRevision> getTemplateRevisions(String appId,
             String templateGuid, Integer offset, Integer pageSize) {
         checkNotNull(appId);
@@ -113,6 +122,8 @@ public class TemplateRevisionService {
         
         template.setPublishedCreatedOn(createdOn);
         templateDao.updateTemplate(template);
+        // The cached templates point to the previously published revision
+        cacheProvider.removeObject(CacheKey.templateList(appId, template.getTemplateType()));
     }
     
     protected String getUserId() {
@@ -29,6 +29,7 @@ import java.util.Set;
 
 import javax.annotation.PostConstruct;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Triple;
@@ -41,6 +42,8 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.CriteriaDao;
 import org.sagebionetworks.bridge.dao.TemplateDao;
 import org.sagebionetworks.bridge.dao.TemplateRevisionDao;
@@ -64,6 +67,11 @@ import org.sagebionetworks.bridge.validators.Validate;
 @Component
 public class TemplateService {
     private static final Logger LOG = LoggerFactory.getLogger(TemplateService.class);
+    static final int TEMPLATE_LIST_EXPIRE_IN_SECONDS = 15*60;
+    static final int TEMPLATE_REVISION_EXPIRE_IN_SECONDS = 60*60;
+    static final String TEMPLATE_LIST_CACHE_REGION = "template_list";
+    static final String TEMPLATE_REVISION_CACHE_REGION = "template_revision";
+    private static final TypeReference<List<Template>> TEMPLATE_LIST_TYPE = new TypeReference<List<Template>>() {};
 
     private Map<TemplateType,Triple<String,String,MimeType>> defaultTemplatesMap = new HashMap<>();
     
@@ -72,6 +80,7 @@ public class TemplateService {
     private CriteriaDao criteriaDao;
     private AppService appService;
     private StudyService studyService;
+    private CacheProvider cacheProvider;
     
     private String defaultEmailVerificationTemplate;
     private String defaultEmailVerificationTemplateSubject;
@@ -112,6 +121,10 @@ public class TemplateService {
     final void setStudyService(StudyService studyService) {
         this.studyService = studyService;
     }
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
 
     @Value("classpath:conf/app-defaults/email-verification.txt")
     final void setDefaultEmailVerificationTemplate(org.springframework.core.io.Resource resource) throws IOException {
@@ -218,22 +231,16 @@ public class TemplateService {
 
         Template template = getTemplateForUser(app, context, type)
                 .orElseThrow(() -> new EntityNotFoundException(Template.class));
-        return templateRevisionDao.getTemplateRevision(template.getGuid(), template.getPublishedCreatedOn())
-                .orElseThrow(() -> new EntityNotFoundException(TemplateRevision.class));
+        return getPublishedRevision(template);
     }
     
-    @SuppressWarnings("unchecked")
     Optional<Template> getTemplateForUser(App app, CriteriaContext context, TemplateType type) {
         checkNotNull(context);
         checkNotNull(type);
 
-        ResourceList<Template> results = (ResourceList<Template>)templateDao.getTemplates(
-                context.getAppId(), type, null, null, false);
-        for (Template template : results.getItems()) {
-            loadCriteria(template);
-        }
+        List<Template> templates = getTemplatesWithCriteria(context.getAppId(), type);
 
-        List<Template> templateMatches = CriteriaUtils.filterByCriteria(context, results.getItems(), null);
+        List<Template> templateMatches = CriteriaUtils.filterByCriteria(context, templates, null);
         
         // The ideal case: one and only one template matches the user's context
         if (templateMatches.size() == 1) {
@@ -242,8 +249,13 @@ public class TemplateService {
         // If not, fall back to the default specified for this app, if it exists. 
         String defaultGuid = app.getDefaultTemplates().get(type.name().toLowerCase());
         if (defaultGuid != null) {
+            // The default is normally one of the templates of this type. 
+            Optional<Template> optional = templates.stream()
+                    .filter(template -> defaultGuid.equals(template.getGuid())).findFirst();
+            if (!optional.isPresent()) {
+                optional = templateDao.getTemplate(context.getAppId(), defaultGuid);
+            }
             // Specified default may not exist, log as integrity violation, but continue
-            Optional<Template> optional = templateDao.getTemplate(context.getAppId(), defaultGuid);
             if (optional.isPresent()) {
                 return optional;
             }
@@ -255,14 +267,59 @@ public class TemplateService {
             return Optional.of(templateMatches.get(0));
         }
         // Return any template
-        if (results.getItems().size() > 0) {
+        if (templates.size() > 0) {
             LOG.warn("Template matching failed with no default, returning first template found without matching");
-            return Optional.of(results.getItems().get(0));
+            return Optional.of(templates.get(0));
         }
         // There is nothing to return
         return Optional.empty();
     }
     
+    /**
+     * The undeleted templates of this type with their criteria. These are cached, so that selecting a template for
+     * a user usually doesn't touch the database.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Template> getTemplatesWithCriteria(String appId, TemplateType type) {
+        CacheKey cacheKey = CacheKey.templateList(appId, type);
+        List<Template> templates = cacheProvider.getObject(cacheKey, TEMPLATE_LIST_TYPE);
+        RequestContext.recordCacheResult(TEMPLATE_LIST_CACHE_REGION, templates != null);
+        if (templates != null) {
+            // App ID is not serialized
+            for (Template template : templates) {
+                template.setAppId(appId);
+            }
+            return templates;
+        }
+        ResourceList<Template> results = (ResourceList<Template>)templateDao.getTemplates(
+                appId, type, null, null, false);
+        for (Template template : results.getItems()) {
+            loadCriteria(template);
+        }
+        cacheProvider.setObject(cacheKey, results.getItems(), TEMPLATE_LIST_EXPIRE_IN_SECONDS);
+        return results.getItems();
+    }
+    
+    /**
+     * The published revision of a template, including its document content from S3. Revisions can't be changed, 
+     * so a cached revision is never stale.
+     */
+    private TemplateRevision getPublishedRevision(Template template) {
+        CacheKey cacheKey = CacheKey.templateRevision(template.getGuid(),
+                template.getPublishedCreatedOn().getMillis());
+        TemplateRevision revision = cacheProvider.getObject(cacheKey, TemplateRevision.class);
+        RequestContext.recordCacheResult(TEMPLATE_REVISION_CACHE_REGION, revision != null);
+        if (revision != null) {
+            // Template GUID is not serialized
+            revision.setTemplateGuid(template.getGuid());
+            return revision;
+        }
+        revision = templateRevisionDao.getTemplateRevision(template.getGuid(), template.getPublishedCreatedOn())
+                .orElseThrow(() -> new EntityNotFoundException(TemplateRevision.class));
+        cacheProvider.setObject(cacheKey, revision, TEMPLATE_REVISION_EXPIRE_IN_SECONDS);
+        return revision;
+    }
+    
     public PagedResourceList<? extends Template> getTemplatesForType(String appId, TemplateType type,
             Integer offset, Integer pageSize, boolean includeDeleted) {
         checkNotNull(appId);
@@ -337,6 +394,7 @@ public class TemplateService {
 
         templateDao.createTemplate(template);
         templateRevisionDao.createTemplateRevision(revision);
+        removeTemplateListFromCache(app.getIdentifier(), template.getTemplateType());
         return new GuidVersionHolder(template.getGuid(), Long.valueOf(template.getVersion()));
     }
     
@@ -368,6 +426,7 @@ public class TemplateService {
         
         persistCriteria(template);
         templateDao.updateTemplate(template);
+        removeTemplateListFromCache(appId, template.getTemplateType());
         
         return new GuidVersionHolder(template.getGuid(), Long.valueOf(template.getVersion()));
     }
@@ -388,6 +447,7 @@ public class TemplateService {
         existing.setModifiedOn(getTimestamp());
         
         templateDao.updateTemplate(existing);
+        removeTemplateListFromCache(appId, existing.getTemplateType());
     }
     
     public void deleteTemplatePermanently(String appId, String guid) {
@@ -396,10 +456,20 @@ public class TemplateService {
 
         templateDao.deleteTemplatePermanently(appId, guid);
         criteriaDao.deleteCriteria(getKey(template));
+        removeTemplateListFromCache(appId, template.getTemplateType());
     }
     
     public void deleteTemplatesForApp(String appId) {
         templateDao.deleteTemplatesForApp(appId);
+        for (TemplateType type : TemplateType.values()) {
+            removeTemplateListFromCache(appId, type);
+        }
+    }
+    
+    void removeTemplateListFromCache(String appId, TemplateType type) {
+        if (type != null) {
+            cacheProvider.removeObject(CacheKey.templateList(appId, type));
+        }
     }
 
     private boolean isDefaultTemplate(Template template, String appId) {
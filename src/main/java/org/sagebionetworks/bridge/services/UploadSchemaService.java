@@ -19,6 +19,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -41,6 +43,7 @@ import org.sagebionetworks.bridge.validators.Validate;
 public class UploadSchemaService {
     private SharedModuleMetadataService sharedModuleMetadataService;
     private UploadSchemaDao uploadSchemaDao;
+    private CacheProvider cacheProvider;
 
     /** DAO for upload schemas. This is configured by Spring. */
     @Autowired
@@ -53,6 +56,12 @@ public class UploadSchemaService {
         this.sharedModuleMetadataService = sharedModuleMetadataService;
     }
 
+    /** Cache provider, used to remove schema revisions resolved for scheduled activities. */
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
     /**
      * Creates a schema revision using the new V4 semantics. The schema ID and revision will be taken from the
      * UploadSchema object. If the revision isn't specified, we'll get the latest schema rev for the schema ID and use
@@ -78,7 +87,9 @@ public class UploadSchemaService {
         Validate.entityThrowingException(UploadSchemaValidator.INSTANCE, schema);
 
         // call through to DAO
-        return uploadSchemaDao.createSchemaRevision(schema);
+        UploadSchema created = uploadSchemaDao.createSchemaRevision(schema);
+        removeResolvedSchemaReferences(appId, schema.getSchemaId());
+        return created;
     }
 
     /**
@@ -114,7 +125,9 @@ public class UploadSchemaService {
         Validate.entityThrowingException(UploadSchemaValidator.INSTANCE, schema);
 
         // call through to DAO
-        return uploadSchemaDao.createSchemaRevision(schema);
+        UploadSchema created = uploadSchemaDao.createSchemaRevision(schema);
+        removeResolvedSchemaReferences(appId, schema.getSchemaId());
+        return created;
     }
 
     /**
@@ -219,6 +232,7 @@ public class UploadSchemaService {
 
         List<UploadSchema> schemaList = getSchemaRevisionsForDelete(appId, schemaId);
         uploadSchemaDao.deleteUploadSchemas(schemaList);
+        removeResolvedSchemaReferences(appId, schemaId);
     }
 
     public void deleteUploadSchemaByIdPermanently(String appId, String schemaId) {
@@ -226,6 +240,7 @@ public class UploadSchemaService {
 
         List<UploadSchema> schemaList = getSchemaRevisionsForDelete(appId, schemaId);
         uploadSchemaDao.deleteUploadSchemasPermanently(schemaList);
+        removeResolvedSchemaReferences(appId, schemaId);
     }
 
     protected List<UploadSchema> getSchemaRevisionsForDelete(String appId, String schemaId) {
@@ -259,7 +274,8 @@ public class UploadSchemaService {
         if (schema == null || schema.isDeleted()) {
             throw new EntityNotFoundException(UploadSchema.class);
         }
-        uploadSchemaDao.deleteUploadSchemas(ImmutableList.of(schema));    
+        uploadSchemaDao.deleteUploadSchemas(ImmutableList.of(schema));
+        removeResolvedSchemaReferences(appId, schemaId);
     }
     
     public void deleteUploadSchemaByIdAndRevisionPermanently(String appId, String schemaId, int rev) {
@@ -269,7 +285,8 @@ public class UploadSchemaService {
         if (schema == null) {
             throw new EntityNotFoundException(UploadSchema.class);
         }
-        uploadSchemaDao.deleteUploadSchemasPermanently(ImmutableList.of(schema));    
+        uploadSchemaDao.deleteUploadSchemasPermanently(ImmutableList.of(schema));
+        removeResolvedSchemaReferences(appId, schemaId);
     }
 
     /** Returns all revisions of all schemas. */
@@ -512,7 +529,15 @@ public class UploadSchemaService {
         }
 
         // Call through to the DAO
-        return uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        UploadSchema updated = uploadSchemaDao.updateSchemaRevision(schemaToUpdate);
+        removeResolvedSchemaReferences(appId, schemaId);
+        return updated;
+    }
+
+    // Any change to any revision of a schema can change which revision a client resolves to, so we remove the 
+    // resolutions for every client.
+    private void removeResolvedSchemaReferences(String appId, String schemaId) {
+        cacheProvider.removeSetOfCacheKeys(CacheKey.resolvedSchemaReferenceSet(appId, schemaId));
     }
 
     // Helper method to get a map of fields by name for an Upload Schema. Returns a TreeMap so our error messaging has
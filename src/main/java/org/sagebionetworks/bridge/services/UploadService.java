@@ -34,15 +34,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.Validator;
 
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.dao.UploadDedupeDao;
+import org.sagebionetworks.bridge.dynamodb.DynamoUploadDedupeDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.NotFoundException;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
+import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.upload.Upload;
@@ -64,11 +69,29 @@ public class UploadService {
     
     // package-scoped to be available in unit tests
     static final String CONFIG_KEY_UPLOAD_BUCKET = "upload.bucket";
+    static final String CONFIG_KEY_UPLOAD_DEDUPE_SKIP_UNMARKED = "upload.dedupe.skip.unmarked";
+
+    /**
+     * Nearly all uploads are not dupes. When upload.dedupe.skip.unmarked is set (for a cache that never evicts), an 
+     * upload registered in the dedupe table also gets a marker in the cache, and only uploads with a marker are 
+     * checked against the dedupe table. Markers outlive the dedupe window by a day. A missing marker only rules out a
+     * dupe once markers have been written for a whole dedupe window (see CacheKey.uploadDedupeCoverage); before 
+     * that, or if the cache has been cleared, every upload is checked. Coverage expires with the last marker written
+     * under it, and is cleared if a marker can't be written. When the setting is off, no markers are written and 
+     * every upload is checked.
+     */
+    static final int UPLOAD_DEDUPE_EXPIRE_IN_SECONDS = (DynamoUploadDedupeDao.NUM_DAYS_BEFORE + 1) * 24 * 60 * 60;
+    static final String DEDUPE_RESULT_SKIPPED = "skipped";
+    static final String DEDUPE_RESULT_DUPLICATE = "duplicate";
+    static final String DEDUPE_RESULT_FALSE_POSITIVE = "false_positive";
+    static final String DEDUPE_RESULT_CHECKED = "checked";
 
     private HealthDataService healthDataService;
     private AmazonS3 s3UploadClient;
+    private CacheProvider cacheProvider;
     private AmazonS3 s3Client;
     private String uploadBucket;
+    private boolean skipUnmarkedUploads;
     private UploadDao uploadDao;
     private UploadSessionCredentialsService uploadCredentailsService;
     private UploadDedupeDao uploadDedupeDao;
@@ -85,6 +108,7 @@ public class UploadService {
     @Autowired
     final void setConfig(BridgeConfig config) {
         uploadBucket = config.getProperty(CONFIG_KEY_UPLOAD_BUCKET);
+        skipUnmarkedUploads = Boolean.parseBoolean(config.getProperty(CONFIG_KEY_UPLOAD_DEDUPE_SKIP_UNMARKED));
     }
 
     /**
@@ -96,6 +120,11 @@ public class UploadService {
         this.healthDataService = healthDataService;
     }
 
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
     @Resource(name = "s3Client")
     public void setS3UploadClient(AmazonS3 s3UploadClient) {
         this.s3UploadClient = s3UploadClient;
@@ -160,8 +189,20 @@ public class UploadService {
         // same uploads over and over again with each test run.
         if (!API_APP_ID.equals(appId)) {
             try {
-                originalUploadId = uploadDedupeDao.getDuplicate(participant.getHealthCode(), uploadMd5,
+                Boolean marked = isMarkedAsRegistered(appId, participant.getHealthCode(), uploadMd5,
                         uploadRequestedOn);
+                if (Boolean.FALSE.equals(marked)) {
+                    setUploadDedupeResult(DEDUPE_RESULT_SKIPPED);
+                } else {
+                    originalUploadId = uploadDedupeDao.getDuplicate(participant.getHealthCode(), uploadMd5,
+                            uploadRequestedOn);
+                    if (originalUploadId != null) {
+                        setUploadDedupeResult(DEDUPE_RESULT_DUPLICATE);
+                    } else {
+                        // Only a marker that didn't lead to a dupe is a false positive.
+                        setUploadDedupeResult(marked != null ? DEDUPE_RESULT_FALSE_POSITIVE : DEDUPE_RESULT_CHECKED);
+                    }
+                }
                 if (originalUploadId != null) {
                     Upload originalUpload = uploadDao.getUpload(originalUploadId);
                     originalUploadStatus = originalUpload.getStatus();
@@ -191,6 +232,10 @@ public class UploadService {
                 try {
                     // Not a dupe. Register this dupe so we can detect dupes of this.
                     uploadDedupeDao.registerUpload(participant.getHealthCode(), uploadMd5, uploadRequestedOn, uploadId);
+                    if (skipUnmarkedUploads) {
+                        markUploadRegistered(appId, participant.getHealthCode(), uploadMd5, uploadRequestedOn,
+                                uploadId);
+                    }
                 } catch (RuntimeException ex) {
                     // Don't want dedupe logic to fail the upload. Log an error and swallow the exception.
                     logger.error("Error registering upload " + uploadId + " in dedupe table: " + ex.getMessage(), ex);
@@ -222,6 +267,59 @@ public class UploadService {
         return new UploadSession(uploadId, url, expiration.getTime());
     }
 
+    // Returns true if the cache has a marker for an upload with this MD5 for this health code, and false if the 
+    // cache shows that no such upload was registered within the dedupe window. Returns null if the cache wasn't 
+    // consulted or can't answer, in which case the upload may be a dupe.
+    private Boolean isMarkedAsRegistered(String appId, String healthCode, String uploadMd5,
+            DateTime uploadRequestedOn) {
+        if (!skipUnmarkedUploads) {
+            return null;
+        }
+        try {
+            Long coverageStart = cacheProvider.getObject(CacheKey.uploadDedupeCoverage(appId), Long.class);
+            long windowStart = uploadRequestedOn.minusDays(DynamoUploadDedupeDao.NUM_DAYS_BEFORE).getMillis();
+            if (coverageStart == null || coverageStart > windowStart) {
+                return null;
+            }
+            return cacheProvider.getObject(CacheKey.uploadDedupe(healthCode, uploadMd5), String.class) != null;
+        } catch (RuntimeException ex) {
+            logger.warn("Error checking upload dedupe cache: " + ex.getMessage(), ex);
+            return null;
+        }
+    }
+
+    private void markUploadRegistered(String appId, String healthCode, String uploadMd5,
+            DateTime uploadRequestedOn, String uploadId) {
+        CacheKey coverageKey = CacheKey.uploadDedupeCoverage(appId);
+        try {
+            cacheProvider.setObject(CacheKey.uploadDedupe(healthCode, uploadMd5), uploadId,
+                    UPLOAD_DEDUPE_EXPIRE_IN_SECONDS);
+            // Coverage starts with the first marker written, and expires with the last one, so if the cache is 
+            // cleared, coverage starts over.
+            if (cacheProvider.getObject(coverageKey, Long.class) == null) {
+                cacheProvider.setObject(coverageKey, uploadRequestedOn.getMillis(), UPLOAD_DEDUPE_EXPIRE_IN_SECONDS);
+            } else {
+                cacheProvider.setExpiration(coverageKey, UPLOAD_DEDUPE_EXPIRE_IN_SECONDS);
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Error writing upload " + uploadId + " to dedupe cache: " + ex.getMessage(), ex);
+            // This upload has no marker, so uploads can't be skipped until markers cover a whole window again.
+            try {
+                cacheProvider.removeObject(coverageKey);
+            } catch (RuntimeException removeEx) {
+                logger.error("Error clearing upload dedupe coverage for app " + appId + ": " + removeEx.getMessage(),
+                        removeEx);
+            }
+        }
+    }
+
+    private static void setUploadDedupeResult(String result) {
+        Metrics metrics = RequestContext.get().getMetrics();
+        if (metrics != null) {
+            metrics.setUploadDedupeResult(result);
+        }
+    }
+
     /**
      * <p>
      * Get upload service handler. This isn't currently exposed directly to the users, but is currently used by the
@@ -347,6 +445,17 @@ public class UploadService {
      */
     public UploadValidationStatus getUploadValidationStatus(@Nonnull String uploadId) {
         Upload upload = getUpload(uploadId);
+        return getValidationStatusForUpload(upload);
+    }
+
+    /**
+     * Gets validation status for an upload that the caller has already loaded (for example, to check that it belongs
+     * to the caller), so the upload isn't read from DynamoDB a second time. See
+     * {@link #getUploadValidationStatus(String)}.
+     */
+    public UploadValidationStatus getValidationStatusForUpload(@Nonnull Upload upload) {
+        checkNotNull(upload);
+        String uploadId = upload.getUploadId();
 
         // get record, if it exists
         HealthDataRecord record = null;
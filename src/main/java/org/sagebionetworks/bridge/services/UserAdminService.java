@@ -2,14 +2,42 @@ package org.sagebionetworks.bridge.services;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toSet;
+import static org.joda.time.DateTimeZone.UTC;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.CORE;
 import static org.sagebionetworks.bridge.models.accounts.SharingScope.NO_SHARING;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionStage.ACCOUNT;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionStatus.COMPLETED;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionStatus.FAILED;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionStatus.IN_PROGRESS;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Resource;
 
 import org.apache.commons.lang3.StringUtils;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.async.AsyncHandler;
+import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.dynamodb.DynamoBulkDeleter;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.ConsentRequiredException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.CriteriaContext;
 import org.sagebionetworks.bridge.models.accounts.Account;
@@ -18,8 +46,11 @@ import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
 import org.sagebionetworks.bridge.models.accounts.IdentifierHolder;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserDeletionJob;
+import org.sagebionetworks.bridge.models.accounts.UserDeletionStage;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.apps.App;
+import org.sagebionetworks.bridge.models.studies.Enrollment;
 import org.sagebionetworks.bridge.models.subpopulations.ConsentSignature;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 import org.sagebionetworks.bridge.validators.SignInValidator;
@@ -30,6 +61,18 @@ import org.springframework.stereotype.Component;
 
 @Component("userAdminService")
 public class UserAdminService {
+    private static final Logger LOG = LoggerFactory.getLogger(UserAdminService.class);
+    
+    /** Deletion jobs are kept for a day, so callers can check that a deletion completed. */
+    static final int JOB_EXPIRE_SECONDS = 24 * 60 * 60;
+    /** An in-progress job that has not been updated in this long can be resumed. */
+    static final int STALE_JOB_MINUTES = 60;
+    /** While a job is running, it is updated this often, even if no stage has completed. */
+    static final int JOB_HEARTBEAT_SECONDS = 5 * 60;
+    /** The longest that starting (or resuming) a user's deletion can hold the lock on that user's job. */
+    static final int JOB_START_LOCK_EXPIRE_SECONDS = 60;
+    static final String JOB_START_CONFLICT_MSG = "The deletion of this user is already being started.";
+    static final String JOB_QUEUE_FULL_MSG = "Too many users are being deleted. Please try again later.";
 
     private AuthenticationService authenticationService;
     private NotificationsService notificationsService;
@@ -43,6 +86,8 @@ public class UserAdminService {
     private CacheProvider cacheProvider;
     private UploadService uploadService;
     private RequestInfoService requestInfoService;
+    private ExecutorService userDeletionExecutorService;
+    private ExecutorService userDeletionStageExecutorService;
 
     @Autowired
     final void setAuthenticationService(AuthenticationService authenticationService) {
@@ -95,6 +140,16 @@ public class UserAdminService {
     final void setRequestInfoService(RequestInfoService requestInfoService) {
         this.requestInfoService = requestInfoService;
     }
+    /** Runs deletion jobs in the background. */
+    @Resource(name = "userDeletionExecutorService")
+    final void setUserDeletionExecutorService(ExecutorService userDeletionExecutorService) {
+        this.userDeletionExecutorService = userDeletionExecutorService;
+    }
+    /** Runs the stages of deletion jobs in parallel. */
+    @Resource(name = "userDeletionStageExecutorService")
+    final void setUserDeletionStageExecutorService(ExecutorService userDeletionStageExecutorService) {
+        this.userDeletionStageExecutorService = userDeletionStageExecutorService;
+    }
     
     /**
      * Create a user and optionally consent the user and/or sign the user in. If a specific subpopulation 
@@ -183,7 +238,119 @@ public class UserAdminService {
     }
 
     /**
-     * Delete the target user.
+     * Start deleting the target user in the background, and return the deletion job so the caller can check on its
+     * progress. If the user is already being deleted, or has been deleted, the existing job is returned. If an 
+     * earlier job failed (or stopped making progress), it is resumed, skipping the stages that completed.
+     *
+     * @param app
+     *      target user's app
+     * @param id
+     *      target user's ID
+     * @return the deletion job
+     * @throws EntityNotFoundException
+     *      if the user does not exist and there is no earlier deletion job for the user
+     * @throws ConcurrentModificationException
+     *      if another request is starting the deletion of the same user
+     * @throws ServiceUnavailableException
+     *      if too many deletion jobs are already waiting to run
+     */
+    public UserDeletionJob startUserDeletion(App app, String id) {
+        checkNotNull(app);
+        checkArgument(StringUtils.isNotBlank(id));
+        
+        // Only one request at a time can check and start a user's job, so a job is never run twice at once.
+        CacheKey lockKey = CacheKey.lock(app.getIdentifier() + ":" + id, UserDeletionJob.class);
+        if (!cacheProvider.setObjectIfAbsent(lockKey, id, JOB_START_LOCK_EXPIRE_SECONDS)) {
+            throw new ConcurrentModificationException(JOB_START_CONFLICT_MSG);
+        }
+        try {
+            return startUserDeletionWithLock(app, id);
+        } finally {
+            cacheProvider.removeObject(lockKey);
+        }
+    }
+    
+    // A job can wait in the queue long enough to look stale, and be resumed by another request. When it comes off 
+    // the queue, it only runs if no one else has updated it since it was queued, and it is updated so that any 
+    // other handler queued for it will not run.
+    private boolean claimQueuedJob(UserDeletionJob job, DateTime queuedModifiedOn) {
+        CacheKey lockKey = CacheKey.lock(job.getAppId() + ":" + job.getUserId(), UserDeletionJob.class);
+        if (!cacheProvider.setObjectIfAbsent(lockKey, job.getUserId(), JOB_START_LOCK_EXPIRE_SECONDS)) {
+            // Another request is resuming this job, and will run it.
+            return false;
+        }
+        try {
+            UserDeletionJob savedJob = cacheProvider.getObject(
+                    CacheKey.userDeletionJob(job.getAppId(), job.getUserId()), UserDeletionJob.class);
+            if (savedJob != null && (savedJob.getModifiedOn() == null || queuedModifiedOn == null
+                    || savedJob.getModifiedOn().getMillis() != queuedModifiedOn.getMillis())) {
+                return false;
+            }
+            synchronized (job) {
+                job.setModifiedOn(DateTime.now(UTC));
+            }
+            saveJob(job);
+            return true;
+        } finally {
+            cacheProvider.removeObject(lockKey);
+        }
+    }
+    
+    private UserDeletionJob startUserDeletionWithLock(App app, String id) {
+        UserDeletionJob job = cacheProvider.getObject(CacheKey.userDeletionJob(app.getIdentifier(), id),
+                UserDeletionJob.class);
+        if (job != null && (job.getStatus() == COMPLETED || (job.getStatus() == IN_PROGRESS && !isStale(job)))) {
+            return job;
+        }
+        if (job == null) {
+            Account account = accountService.getAccount(AccountId.forId(app.getIdentifier(), id), CORE);
+            if (account == null) {
+                throw new EntityNotFoundException(Account.class);
+            }
+            job = createJob(app.getIdentifier(), account);
+        }
+        // remove this first so if account is partially deleted, re-authenticating will pick
+        // up accurate information about the state of the account (as we can recover it)
+        cacheProvider.removeSessionByUserId(id);
+        requestInfoService.removeRequestInfo(id);
+        
+        job.setStatus(IN_PROGRESS);
+        job.setErrorMessage(null);
+        job.setModifiedOn(DateTime.now(UTC));
+        saveJob(job);
+        
+        try {
+            userDeletionExecutorService.execute(new UserDeletionHandler(RequestContext.get(), job));
+        } catch (RejectedExecutionException e) {
+            job.setStatus(FAILED);
+            job.setErrorMessage(JOB_QUEUE_FULL_MSG);
+            saveJob(job);
+            throw new ServiceUnavailableException(JOB_QUEUE_FULL_MSG);
+        }
+        return job;
+    }
+    
+    /**
+     * Get the most recent deletion job for the target user.
+     * 
+     * @throws EntityNotFoundException
+     *      if the user has not been deleted, or the job has expired
+     */
+    public UserDeletionJob getUserDeletionJob(String appId, String id) {
+        checkArgument(StringUtils.isNotBlank(appId));
+        checkArgument(StringUtils.isNotBlank(id));
+        
+        UserDeletionJob job = cacheProvider.getObject(CacheKey.userDeletionJob(appId, id), UserDeletionJob.class);
+        if (job == null) {
+            throw new EntityNotFoundException(UserDeletionJob.class);
+        }
+        return job;
+    }
+
+    /**
+     * Delete the target user, waiting for the deletion to complete. The user's data is still deleted from each store 
+     * in parallel, and the job is recorded as for {@link #startUserDeletion(App, String)}, but the deletes are not 
+     * paced, so the caller's thread is not held by the bulk delete rate limit.
      *
      * @param app
      *      target user's app
@@ -195,25 +362,190 @@ public class UserAdminService {
         checkArgument(StringUtils.isNotBlank(id));
         
         AccountId accountId = AccountId.forId(app.getIdentifier(), id);
-        Account account = accountService.getAccount(accountId);
+        Account account = accountService.getAccount(accountId, CORE);
         if (account != null) {
             // remove this first so if account is partially deleted, re-authenticating will pick
             // up accurate information about the state of the account (as we can recover it)
             cacheProvider.removeSessionByUserId(account.getId());
             requestInfoService.removeRequestInfo(account.getId());
             
-            String healthCode = account.getHealthCode();
-            healthDataService.deleteRecordsForHealthCode(healthCode);
-            healthDataEx3Service.deleteRecordsForHealthCode(healthCode);
-            notificationsService.deleteAllRegistrations(app.getIdentifier(), healthCode);
-            uploadService.deleteUploadsForHealthCode(healthCode);
-            scheduledActivityService.deleteActivitiesForUser(healthCode);
-            account.getEnrollments().forEach(
-                    en -> activityEventService.deleteActivityEvents(en.getStudyId(), healthCode));
-            activityEventService.deleteActivityEvents(null, healthCode);
-            // AccountSecret records and Enrollment records are are deleted on a 
-            // cascading delete from Account
-            accountService.deleteAccount(accountId);
+            UserDeletionJob job = createJob(app.getIdentifier(), account);
+            saveJob(job);
+            runJob(RequestContext.get(), job, false);
+        }
+    }
+    
+    private UserDeletionJob createJob(String appId, Account account) {
+        DateTime now = DateTime.now(UTC);
+        
+        UserDeletionJob job = new UserDeletionJob();
+        job.setAppId(appId);
+        job.setUserId(account.getId());
+        job.setHealthCode(account.getHealthCode());
+        job.setStudyIds(account.getEnrollments().stream().map(Enrollment::getStudyId).collect(toSet()));
+        job.setStatus(IN_PROGRESS);
+        job.setStartedOn(now);
+        job.setModifiedOn(now);
+        return job;
+    }
+    
+    // A job that is in progress but has not been updated recently was most likely lost when a server shut down.
+    private boolean isStale(UserDeletionJob job) {
+        return job.getModifiedOn() == null
+                || job.getModifiedOn().plusMinutes(STALE_JOB_MINUTES).isBefore(DateTime.now(UTC));
+    }
+    
+    // Synchronized on the job, because stages running in parallel each record their completion.
+    private void saveJob(UserDeletionJob job) {
+        synchronized (job) {
+            cacheProvider.setObject(CacheKey.userDeletionJob(job.getAppId(), job.getUserId()), job,
+                    JOB_EXPIRE_SECONDS);
+        }
+    }
+    
+    /**
+     * Run the incomplete stages of a deletion job. All stages but the account are run in parallel; the account is 
+     * deleted once they have all completed. If any stage fails, the job is marked as failed and the exception from 
+     * the first failed stage is thrown. Bulk deletes are only paced when the job runs in the background, as a 
+     * caller waiting on the job would otherwise be held for the whole paced delete. Package-scoped for unit tests.
+     */
+    void runJob(RequestContext requestContext, UserDeletionJob job, boolean paced) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (UserDeletionStage stage : UserDeletionStage.values()) {
+            if (stage != ACCOUNT && !job.getCompletedStages().contains(stage)) {
+                futures.add(userDeletionStageExecutorService.submit(() -> {
+                    runStage(requestContext, job, stage, paced);
+                    return null;
+                }));
+            }
+        }
+        Throwable failure = null;
+        for (Future<?> future : futures) {
+            try {
+                waitForStage(job, future);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                failure = e;
+                break;
+            }
+        }
+        if (failure == null) {
+            try {
+                runStage(requestContext, job, ACCOUNT, paced);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        synchronized (job) {
+            job.setStatus(failure == null ? COMPLETED : FAILED);
+            job.setErrorMessage(failure == null ? null : failure.getMessage());
+            job.setModifiedOn(DateTime.now(UTC));
+        }
+        saveJob(job);
+        
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw new BridgeServiceException(failure);
+        }
+    }
+    
+    // A stage can take longer than STALE_JOB_MINUTES for a user with a lot of data, so the job is updated while
+    // it waits. Otherwise a repeated request would take the running job to be stale and run it a second time.
+    private void waitForStage(UserDeletionJob job, Future<?> future) throws ExecutionException, InterruptedException {
+        while (true) {
+            try {
+                future.get(JOB_HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                return;
+            } catch (TimeoutException e) {
+                synchronized (job) {
+                    job.setModifiedOn(DateTime.now(UTC));
+                }
+                try {
+                    saveJob(job);
+                } catch (RuntimeException saveException) {
+                    LOG.warn("Error updating deletion job for user " + job.getUserId() + ": "
+                            + saveException.getMessage(), saveException);
+                }
+            }
+        }
+    }
+    
+    private void runStage(RequestContext requestContext, UserDeletionJob job, UserDeletionStage stage,
+            boolean paced) {
+        // Stages run in parallel, and can outlive the request, so each gets its own copy of the caller's context 
+        // with its own Metrics (Metrics are not thread-safe, and the request's may already have been logged). If 
+        // this runs on a caller's thread, restore that thread's context afterwards.
+        RequestContext previousContext = RequestContext.get();
+        RequestContext.set(requestContext.toBuilder().withMetrics(null).build());
+        try {
+            if (paced) {
+                deleteStage(job, stage);
+            } else {
+                DynamoBulkDeleter.runUnpaced(() -> deleteStage(job, stage));
+            }
+        } finally {
+            RequestContext.set(previousContext);
+        }
+        synchronized (job) {
+            job.getCompletedStages().add(stage);
+            job.setModifiedOn(DateTime.now(UTC));
+        }
+        saveJob(job);
+    }
+    
+    private void deleteStage(UserDeletionJob job, UserDeletionStage stage) {
+        String healthCode = job.getHealthCode();
+        switch (stage) {
+            case HEALTH_DATA:
+                healthDataService.deleteRecordsForHealthCode(healthCode);
+                break;
+            case EXPORTER_3_HEALTH_DATA:
+                healthDataEx3Service.deleteRecordsForHealthCode(healthCode);
+                break;
+            case NOTIFICATION_REGISTRATIONS:
+                notificationsService.deleteAllRegistrations(job.getAppId(), healthCode);
+                break;
+            case UPLOADS:
+                uploadService.deleteUploadsForHealthCode(healthCode);
+                break;
+            case SCHEDULED_ACTIVITIES:
+                scheduledActivityService.deleteActivitiesForUser(healthCode);
+                break;
+            case ACTIVITY_EVENTS:
+                job.getStudyIds().forEach(studyId -> activityEventService.deleteActivityEvents(studyId, healthCode));
+                activityEventService.deleteActivityEvents(null, healthCode);
+                break;
+            case ACCOUNT:
+                // AccountSecret records and Enrollment records are are deleted on a 
+                // cascading delete from Account
+                accountService.deleteAccount(AccountId.forId(job.getAppId(), job.getUserId()));
+                break;
+        }
+    }
+    
+    /** Runs a deletion job in the background. Package-scoped for unit tests. */
+    class UserDeletionHandler extends AsyncHandler {
+        private final RequestContext requestContext;
+        private final UserDeletionJob job;
+        private final DateTime queuedModifiedOn;
+        
+        UserDeletionHandler(RequestContext requestContext, UserDeletionJob job) {
+            this.requestContext = requestContext;
+            this.job = job;
+            this.queuedModifiedOn = job.getModifiedOn();
+        }
+        
+        @Override
+        protected void handle() {
+            if (claimQueuedJob(job, queuedModifiedOn)) {
+                runJob(requestContext, job, true);
+            }
         }
     }
 }
@@ -4,27 +4,37 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sagebionetworks.bridge.BridgeConstants.BRIDGE_SESSION_EXPIRE_IN_SECONDS;
 import static org.sagebionetworks.bridge.BridgeConstants.SESSION_TOKEN_HEADER;
 import static org.sagebionetworks.bridge.Roles.ADMINISTRATIVE_ROLES;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
 import static org.springframework.http.HttpHeaders.USER_AGENT;
 
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nonnull;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.ImmutableSet;
 
 import org.apache.commons.lang3.StringUtils;
 import org.sagebionetworks.bridge.spring.util.HttpUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.WebUtils;
 
 import org.sagebionetworks.bridge.BridgeUtils;
@@ -69,6 +79,10 @@ public abstract class BaseController {
     }
     
     protected final static ObjectMapper MAPPER = BridgeObjectMapper.get();
+    
+    static final MediaType NDJSON_MEDIA_TYPE = MediaType.parseMediaType("application/x-ndjson");
+    
+    static final String GZIP_ENCODING = "gzip";
 
     CacheProvider cacheProvider;
     
@@ -350,6 +364,37 @@ public abstract class BaseController {
         }
     }
     
+    /**
+     * Stream items to the response as newline-delimited JSON (one JSON object per line), optionally gzipped. 
+     * The items are consumed (and, for DynamoDB-backed iterables, loaded) as the response is written, so server 
+     * memory does not grow with the number of items. Any access checks must be done before calling this method.
+     */
+    protected <T> ResponseEntity<StreamingResponseBody> streamNdjson(Iterable<T> items, ObjectWriter writer,
+            boolean gzip) {
+        // Don't flush the response after every record
+        ObjectWriter recordWriter = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        
+        StreamingResponseBody body = (outputStream) -> {
+            OutputStream out = (gzip) ? new GZIPOutputStream(outputStream) : outputStream;
+            try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                boolean written = false;
+                for (T item : items) {
+                    recordWriter.writeValue(generator, item);
+                    written = true;
+                }
+                if (written) {
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(NDJSON_MEDIA_TYPE);
+        if (gzip) {
+            builder.header(CONTENT_ENCODING, GZIP_ENCODING);
+        }
+        return builder.body(body);
+    }
+    
     /**
      * Retrieves the metrics object from the cache. Can be null if the metrics is not in the cache.
      */
@@ -104,6 +104,7 @@ import org.sagebionetworks.bridge.models.healthdata.HealthDataSubmission;
 import org.sagebionetworks.bridge.models.reports.ReportData;
 import org.sagebionetworks.bridge.services.GBFOrderService;
 import org.sagebionetworks.bridge.services.HealthDataService;
+import org.sagebionetworks.bridge.services.OutboundHttpClient;
 import org.sagebionetworks.bridge.services.ParticipantService;
 import org.sagebionetworks.bridge.services.ReportService;
 import org.sagebionetworks.bridge.upload.UploadValidationException;
@@ -175,6 +176,8 @@ public class CRCController extends BaseController {
 
     private GBFOrderService gbfOrderService;
 
+    private OutboundHttpClient outboundHttpClient;
+
     @Autowired
     final void setParticipantService(ParticipantService participantService) {
         this.participantService = participantService;
@@ -195,6 +198,11 @@ public class CRCController extends BaseController {
         this.gbfOrderService = GBFOrderService;
     }
 
+    @Autowired
+    final void setOutboundHttpClient(OutboundHttpClient outboundHttpClient) {
+        this.outboundHttpClient = outboundHttpClient;
+    }
+
     DateTime getTimestamp() {
         return DateTime.now().withZone(DateTimeZone.UTC);
     }
@@ -587,11 +595,11 @@ public class CRCController extends BaseController {
     HttpResponse put(String url, String bodyJson, Account account) throws IOException {
         Request request = Request.Put(url).bodyString(bodyJson, APPLICATION_JSON);
         request = addAuthorizationHeader(request, account);
-        return request.execute().returnResponse();
+        return outboundHttpClient.execute("cuimc", request);
     }
     
     HttpResponse get(String url) throws IOException {
-        return Request.Get(url).execute().returnResponse();
+        return outboundHttpClient.execute("geocode", Request.Get(url));
     }
 
 //    HttpResponse get(String url, Account account) throws IOException {
@@ -603,7 +611,7 @@ public class CRCController extends BaseController {
     HttpResponse post(String url, Account account, String body) throws IOException {
         Request request = Request.Post(url).bodyString(body, APPLICATION_FORM_URLENCODED);
         request = addAuthorizationHeader(request, account);
-        return request.execute().returnResponse();
+        return outboundHttpClient.execute("cuimc", request);
     }
 
     private Request addAuthorizationHeader(Request request, Account account) {
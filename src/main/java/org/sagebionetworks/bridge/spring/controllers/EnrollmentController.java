@@ -5,6 +5,7 @@ import static org.sagebionetworks.bridge.AuthEvaluatorField.STUDY_ID;
 import static org.sagebionetworks.bridge.AuthUtils.CAN_EDIT_STUDY_PARTICIPANTS;
 import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
 import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
 
 import java.util.List;
 
@@ -25,6 +26,7 @@ import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.StatusMessage;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
@@ -50,7 +52,8 @@ public class EnrollmentController extends BaseController {
             @RequestParam(required = false) String offsetBy, 
             @RequestParam(required = false) String pageSize,
             @RequestParam(required = false) String enrollmentFilter,
-            @RequestParam(required = false) String includeTesters) {
+            @RequestParam(required = false) String includeTesters,
+            @RequestParam(required = false) String totalCount) {
         UserSession session = getAdministrativeSession();
         
         CAN_EDIT_STUDY_PARTICIPANTS.checkAndThrow(STUDY_ID, studyId);
@@ -59,9 +62,10 @@ public class EnrollmentController extends BaseController {
         int offsetByInt = BridgeUtils.getIntOrDefault(offsetBy, 0);
         int pageSizeInt = BridgeUtils.getIntOrDefault(pageSize, API_DEFAULT_PAGE_SIZE);
         boolean includeTestersBool = Boolean.valueOf(includeTesters);
+        TotalCount totalCountEnum = BridgeUtils.getEnumOrDefault(totalCount, TotalCount.class, EXACT);
 
         return service.getEnrollmentsForStudy(session.getAppId(), studyId, filter, includeTestersBool, offsetByInt,
-                pageSizeInt);
+                pageSizeInt, totalCountEnum);
     }
     
     @PostMapping("/v5/studies/{studyId}/enrollments")
@@ -7,6 +7,7 @@ import static org.sagebionetworks.bridge.BridgeUtils.getIntOrDefault;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.RESEARCHER;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
 import static org.apache.http.HttpStatus.SC_GONE;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,7 @@ import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.StatusMessage;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifierInfo;
 import org.sagebionetworks.bridge.models.accounts.GeneratedPassword;
@@ -56,15 +58,17 @@ public class ExternalIdControllerV4 extends BaseController {
     @GetMapping("/v5/studies/{studyId}/externalids")
     public PagedResourceList<ExternalIdentifierInfo> getExternalIdentifiersForStudy(@PathVariable String studyId,
             @RequestParam(required = false) String offsetBy, @RequestParam(required = false) String pageSize,
-            @RequestParam(required = false) String idFilter) {
+            @RequestParam(required = false) String idFilter, @RequestParam(required = false) String totalCount) {
         UserSession session = getAdministrativeSession();
 
         CAN_READ_EXTERNAL_IDS.checkAndThrow(STUDY_ID, studyId);
         
         int offsetByInt = BridgeUtils.getIntOrDefault(offsetBy, 0);
         int pageSizeInt = getIntOrDefault(pageSize, API_DEFAULT_PAGE_SIZE);
+        TotalCount totalCountEnum = BridgeUtils.getEnumOrDefault(totalCount, TotalCount.class, EXACT);
 
-        return externalIdService.getPagedExternalIds(session.getAppId(), studyId, idFilter, offsetByInt, pageSizeInt);
+        return externalIdService.getPagedExternalIds(session.getAppId(), studyId, idFilter, offsetByInt, pageSizeInt,
+                totalCountEnum);
     }
 
     @PostMapping("/v4/externalids")
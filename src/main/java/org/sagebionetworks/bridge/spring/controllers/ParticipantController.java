@@ -30,6 +30,7 @@ import com.google.common.collect.Sets;
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -38,6 +39,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
@@ -454,6 +456,26 @@ public class ParticipantController extends BaseController {
             scheduledOnEnd, offsetBy, offsetKey, pageSize);
     }
 
+    /**
+     * Export the full history of an activity in a time range as newline-delimited JSON. Unlike the paged 
+     * history APIs, the activities are streamed to the caller in one request.
+     */
+    @GetMapping("/v3/participants/{userId}/activities/{activityGuid}/export")
+    public ResponseEntity<StreamingResponseBody> exportActivityHistory(@PathVariable String userId,
+            @PathVariable String activityGuid, @RequestParam(required = false) String scheduledOnStart,
+            @RequestParam(required = false) String scheduledOnEnd, @RequestParam(defaultValue = "false") boolean gzip) {
+        UserSession session = getAdministrativeSession();
+        CAN_EDIT_PARTICIPANTS.checkAndThrow(USER_ID, userId);
+        App app = appService.getApp(session.getAppId());
+        
+        DateTime scheduledOnStartObj = getDateTimeOrDefault(scheduledOnStart, null);
+        DateTime scheduledOnEndObj = getDateTimeOrDefault(scheduledOnEnd, null);
+        
+        Iterable<ScheduledActivity> activities = participantService.streamActivityHistory(app, userId,
+                activityGuid, scheduledOnStartObj, scheduledOnEndObj);
+        return streamNdjson(activities, ScheduledActivity.RESEARCHER_SCHEDULED_ACTIVITY_WRITER, gzip);
+    }
+
     @GetMapping(path="/v3/participants/{userId}/activities/{activityType}/{referentGuid}", produces={APPLICATION_JSON_UTF8_VALUE})
     public String getActivityHistoryV3(@PathVariable String userId, @PathVariable String activityType,
             @PathVariable String referentGuid, @RequestParam(required = false) String scheduledOnStart,
@@ -10,12 +10,18 @@ import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.WORKER;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import com.fasterxml.jackson.databind.JsonNode;
 
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,6 +30,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
@@ -144,6 +151,29 @@ public class ParticipantReportController extends BaseController {
         return getParticipantReportInternal(appId, userId, reportId, startDate, endDate);
     }
 
+    /**
+     * Export all the records of a participant report in a date range as newline-delimited JSON. The range is 
+     * not limited in size and the records are streamed to the caller.
+     */
+    @GetMapping("/v3/participants/{userId}/reports/{identifier}/export")
+    public ResponseEntity<StreamingResponseBody> exportParticipantReport(@PathVariable String userId,
+            @PathVariable String identifier, @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate, @RequestParam(defaultValue = "false") boolean gzip) {
+        UserSession session = getAdministrativeSession();
+        CAN_EDIT_PARTICIPANTS.checkAndThrow(USER_ID, userId);
+        
+        LocalDate startDateObj = getLocalDateOrDefault(startDate, null);
+        LocalDate endDateObj = getLocalDateOrDefault(endDate, null);
+        
+        Account account = accountService.getAccount(AccountId.forId(session.getAppId(), userId));
+        if (account == null) {
+            throw new EntityNotFoundException(Account.class);
+        }
+        Iterable<? extends ReportData> records = reportService.streamParticipantReport(session.getAppId(),
+                identifier, account.getHealthCode(), startDateObj, endDateObj);
+        return streamNdjson(records, MAPPER.writer(), gzip);
+    }
+
     private DateRangeResourceList<? extends ReportData> getParticipantReportInternal(String appId, String userId, String reportId,
             String startDateString, String endDateString) {
         LocalDate startDate = getLocalDateOrDefault(startDateString, null);
@@ -242,6 +272,57 @@ public class ParticipantReportController extends BaseController {
         return new StatusMessage("Report data saved.");
     }
     
+    /**
+     * Save a batch of report records for one participant in one call. The JSON is an array of report data.
+     */
+    @PostMapping("/v4/participants/{userId}/reports/{identifier}/records")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StatusMessage saveParticipantReportRecords(@PathVariable String userId, @PathVariable String identifier) {
+        UserSession session = getAuthenticatedSession(DEVELOPER);
+        App app = appService.getApp(session.getAppId());
+
+        Account account = accountService.getAccount(AccountId.forId(app.getIdentifier(), userId));
+        if (account == null) {
+            throw new EntityNotFoundException(Account.class);
+        }
+        List<ReportData> reportDataList = parseJson(ReportData.REPORT_DATA_LIST);
+        reportDataList.forEach(reportData -> reportData.setKey(null));
+        
+        reportService.saveParticipantReportRecords(session.getAppId(), identifier, 
+                account.getHealthCode(), reportDataList);
+        
+        return new StatusMessage("Report data saved.");
+    }
+    
+    /**
+     * Save a batch of report records for many participants in one call. As with the single record worker API, 
+     * each element of the JSON array must include a healthCode field.
+     */
+    @PostMapping("/v3/participants/reports/{identifier}/records")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StatusMessage saveParticipantReportRecordsForWorker(@PathVariable String identifier) {
+        UserSession session = getAuthenticatedSession(WORKER);
+        
+        JsonNode node = parseJson(JsonNode.class);
+        if (!node.isArray()) {
+            throw new BadRequestException("An array of report data is required.");
+        }
+        Map<String, List<ReportData>> reportDataByHealthCode = new HashMap<>();
+        for (JsonNode element : node) {
+            if (!element.has("healthCode")) {
+                throw new BadRequestException("A health code is required to save report data.");
+            }
+            String healthCode = element.get("healthCode").asText();
+            
+            ReportData reportData = parseJson(element, ReportData.class);
+            reportData.setKey(null); // set in service, but just so no future use depends on it
+            reportDataByHealthCode.computeIfAbsent(healthCode, (hc) -> new ArrayList<>()).add(reportData);
+        }
+        reportService.saveParticipantReportRecords(session.getAppId(), identifier, reportDataByHealthCode);
+        
+        return new StatusMessage("Report data saved.");
+    }
+    
     /**
      * Developers and workers can delete participant report data (though worker accounts are unlikely 
      * to know the user ID for records). This deletes all reports for all users. This is not 
@@ -10,10 +10,13 @@ import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.sagebionetworks.bridge.models.reports.ReportType.PARTICIPANT;
 import static org.sagebionetworks.bridge.models.reports.ReportType.STUDY;
 
+import java.util.List;
+
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,6 +25,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
@@ -89,6 +93,25 @@ public class StudyReportController extends BaseController {
         return reportService.getStudyReport(session.getAppId(), identifier, startDateObj, endDateObj);
     }
     
+    /**
+     * Export all the records of a study report in a date range as newline-delimited JSON. The range is not 
+     * limited in size and the records are streamed to the caller, so this can be used to retrieve a large 
+     * report in one request. 
+     */
+    @GetMapping("/v3/reports/{identifier}/export")
+    public ResponseEntity<StreamingResponseBody> exportStudyReport(@PathVariable String identifier,
+            @RequestParam(required = false) String startDate, @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        UserSession session = getAuthenticatedSession();
+        
+        LocalDate startDateObj = getLocalDateOrDefault(startDate, null);
+        LocalDate endDateObj = getLocalDateOrDefault(endDate, null);
+        
+        Iterable<? extends ReportData> records = reportService.streamStudyReport(session.getAppId(), identifier,
+                startDateObj, endDateObj);
+        return streamNdjson(records, MAPPER.writer(), gzip);
+    }
+    
     /**
      * Get a study report *if* it is marked public, as this call does not require the user to be authenticated.
      */
@@ -158,6 +181,40 @@ public class StudyReportController extends BaseController {
         return SAVED_MSG;
     }
     
+    /**
+     * Save a batch of study report records in one call. Report study data can be saved by developers or by 
+     * worker processes.
+     */
+    @PostMapping("/v4/reports/{identifier}/records")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StatusMessage saveStudyReportRecords(@PathVariable String identifier) {
+        UserSession session = getAuthenticatedSession(DEVELOPER, WORKER);
+        
+        List<ReportData> reportDataList = parseJson(ReportData.REPORT_DATA_LIST);
+        reportDataList.forEach(reportData -> reportData.setKey(null));
+        
+        reportService.saveStudyReportRecords(session.getAppId(), identifier, reportDataList);
+        
+        return SAVED_MSG;
+    }
+    
+    /**
+     * A similar method as above but specifying app id only for WORKER
+     */
+    @PostMapping("/v1/apps/{appId}/reports/{identifier}/records")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StatusMessage saveStudyReportRecordsForWorker(@PathVariable String appId,
+            @PathVariable String identifier) {
+        getAuthenticatedSession(WORKER);
+        
+        List<ReportData> reportDataList = parseJson(ReportData.REPORT_DATA_LIST);
+        reportDataList.forEach(reportData -> reportData.setKey(null));
+        
+        reportService.saveStudyReportRecords(appId, identifier, reportDataList);
+        
+        return SAVED_MSG;
+    }
+    
     /**
      * Developers and workers can delete study report data. This is not performant for large data sets and 
      * should only be done during testing.
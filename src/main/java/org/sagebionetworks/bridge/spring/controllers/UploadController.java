@@ -68,14 +68,12 @@ public class UploadController extends BaseController {
         UserSession session = getAuthenticatedAndConsentedSession();
         
         // If not a researcher, validate that this user owns the upload
-        if (!session.isInRole(Roles.RESEARCHER)) {
-            Upload upload = uploadService.getUpload(uploadId);
-            if (!session.getHealthCode().equals(upload.getHealthCode())) {
-                throw new UnauthorizedException();
-            }
+        Upload upload = uploadService.getUpload(uploadId);
+        if (!session.isInRole(Roles.RESEARCHER) && !session.getHealthCode().equals(upload.getHealthCode())) {
+            throw new UnauthorizedException();
         }
         
-        UploadValidationStatus validationStatus = uploadService.getUploadValidationStatus(uploadId);
+        UploadValidationStatus validationStatus = uploadService.getValidationStatusForUpload(upload);
         
         // Upload validation status may contain the health data record. Use the filter to filter out health code.
         return HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(validationStatus);
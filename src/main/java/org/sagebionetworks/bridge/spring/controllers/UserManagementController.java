@@ -3,13 +3,16 @@ package org.sagebionetworks.bridge.spring.controllers;
 import static org.sagebionetworks.bridge.BridgeConstants.API_APP_ID;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionJob.PUBLIC_JOB_WRITER;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -21,6 +24,7 @@ import org.sagebionetworks.bridge.models.CriteriaContext;
 import org.sagebionetworks.bridge.models.StatusMessage;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserDeletionJob;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.accounts.UserSessionInfo;
 import org.sagebionetworks.bridge.models.apps.App;
@@ -30,7 +34,6 @@ import org.sagebionetworks.bridge.services.UserAdminService;
 @RestController
 public class UserManagementController extends BaseController {
 
-    static final StatusMessage DELETED_MSG = new StatusMessage("User deleted.");
     static final StatusMessage CREATED_MSG = new StatusMessage("User created.");
     private static final String CONSENT_FIELD = "consent";
 
@@ -128,13 +131,27 @@ public class UserManagementController extends BaseController {
         return CREATED_MSG;
     }
 
+    /**
+     * Deletes the user in the background and returns the deletion job. Calling this again for the same user returns 
+     * the job's progress, or resumes the job if it failed.
+     */
     @DeleteMapping("/v3/users/{userId}")
-    public StatusMessage deleteUser(@PathVariable String userId) {
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public String deleteUser(@PathVariable String userId) throws JsonProcessingException {
         UserSession session = getAuthenticatedSession(ADMIN);
         App app = appService.getApp(session.getAppId());
         
-        userAdminService.deleteUser(app, userId);
+        UserDeletionJob job = userAdminService.startUserDeletion(app, userId);
+        
+        return PUBLIC_JOB_WRITER.writeValueAsString(job);
+    }
+    
+    @GetMapping("/v3/users/{userId}/deletion")
+    public String getUserDeletionJob(@PathVariable String userId) throws JsonProcessingException {
+        UserSession session = getAuthenticatedSession(ADMIN);
+        
+        UserDeletionJob job = userAdminService.getUserDeletionJob(session.getAppId(), userId);
         
-        return DELETED_MSG;
+        return PUBLIC_JOB_WRITER.writeValueAsString(job);
     }
 }
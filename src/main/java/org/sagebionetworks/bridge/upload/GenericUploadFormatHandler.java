@@ -3,8 +3,10 @@ package org.sagebionetworks.bridge.upload;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 import javax.annotation.Nonnull;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -207,40 +209,50 @@ public class GenericUploadFormatHandler implements UploadValidationHandler {
         }
 
         Map<String, File> sanitizedUnzippedDataFileMap = UploadUtil.sanitizeFieldNames(unzippedDataFileMap);
-        Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache = new HashMap<>();
+        Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache = context.getParsedSanitizedJsonFileCache();
+        uploadFileHelper.parseJsonFilesForFields(uploadId, sanitizedUnzippedDataFileMap, schema.getFieldDefinitions(),
+                parsedSanitizedJsonFileCache);
+        // Attachments for this record upload concurrently. They must all finish before the record is used.
+        List<Future<?>> pendingAttachmentUploads = new ArrayList<>();
 
-        // Using schema, copy fields over to data map. Or if it's an attachment, add it to the attachment map.
-        for (UploadFieldDefinition oneFieldDef : schema.getFieldDefinitions()) {
-            String fieldName = oneFieldDef.getName();
-            JsonNode fieldNode;
+        try {
+            // Using schema, copy fields over to data map. Or if it's an attachment, add it to the attachment map.
+            for (UploadFieldDefinition oneFieldDef : schema.getFieldDefinitions()) {
+                String fieldName = oneFieldDef.getName();
+                JsonNode fieldNode;
 
-            if (dataFileNode.has(fieldName)) {
-                // If it's in the submitted data file, just use it.
-                JsonNode fieldNodeFromDataFile = dataFileNode.get(fieldName);
+                if (dataFileNode.has(fieldName)) {
+                    // If it's in the submitted data file, just use it.
+                    JsonNode fieldNodeFromDataFile = dataFileNode.get(fieldName);
 
-                if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
-                    fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(fieldNodeFromDataFile, uploadId,
-                            fieldName);
+                    if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
+                        fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(fieldNodeFromDataFile, uploadId,
+                                fieldName, pendingAttachmentUploads);
+                    } else {
+                        fieldNode = fieldNodeFromDataFile;
+                    }
                 } else {
-                    fieldNode = fieldNodeFromDataFile;
+                    fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap,
+                            oneFieldDef, parsedSanitizedJsonFileCache, pendingAttachmentUploads);
                 }
-            } else {
-                fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap, oneFieldDef,
-                        parsedSanitizedJsonFileCache);
-            }
 
-            if (fieldNode != null && !fieldNode.isNull()) {
-                dataMap.set(fieldName, fieldNode);
-            } else if (UploadUtil.FIELD_ANSWERS.equals(fieldName) && !dataFileNode.isNull()) {
-                // Special case: This is the auto-generated "answers" field for surveys. Since surveys are usually
-                // submitted using the dataFile, this should be populated by just copying over the dataFile.
-                if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
-                    fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(dataFileNode, uploadId, fieldName);
-                } else {
-                    fieldNode = dataFileNode;
+                if (fieldNode != null && !fieldNode.isNull()) {
+                    dataMap.set(fieldName, fieldNode);
+                } else if (UploadUtil.FIELD_ANSWERS.equals(fieldName) && !dataFileNode.isNull()) {
+                    // Special case: This is the auto-generated "answers" field for surveys. Since surveys are
+                    // usually submitted using the dataFile, this should be populated by just copying over the
+                    // dataFile.
+                    if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
+                        fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(dataFileNode, uploadId, fieldName,
+                                pendingAttachmentUploads);
+                    } else {
+                        fieldNode = dataFileNode;
+                    }
+                    dataMap.set(fieldName, fieldNode);
                 }
-                dataMap.set(fieldName, fieldNode);
             }
+        } finally {
+            uploadFileHelper.waitForAttachmentUploads(uploadId, pendingAttachmentUploads);
         }
     }
 }
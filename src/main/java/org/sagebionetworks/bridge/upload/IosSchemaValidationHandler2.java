@@ -3,10 +3,13 @@ package org.sagebionetworks.bridge.upload;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
@@ -426,31 +429,40 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
             Map<String, JsonNode> surveyAnswerMap, Map<String, File> unzippedDataFileMap, UploadSchema schema,
             ObjectNode dataMap) throws UploadValidationException {
         Map<String, File> sanitizedUnzippedDataFileMap = UploadUtil.sanitizeFieldNames(unzippedDataFileMap);
-        Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache = new HashMap<>();
-
-        // Using schema, copy fields over to data map. Or if it's an attachment, add it to the attachment map.
-        for (UploadFieldDefinition oneFieldDef : schema.getFieldDefinitions()) {
-            String fieldName = oneFieldDef.getName();
-            JsonNode fieldNode;
-
-            if (surveyAnswerMap.containsKey(fieldName)) {
-                // The field has already been parsed as a survey.
-                JsonNode surveyAnswerNode = surveyAnswerMap.get(fieldName);
-
-                if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
-                    // Attachments in a survey. This is unusual, but there's nothing in our schema system that prevents
-                    // this. We should handle it just to be safe.
-                    fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(surveyAnswerNode, uploadId, fieldName);
+        Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache = context.getParsedSanitizedJsonFileCache();
+        uploadFileHelper.parseJsonFilesForFields(uploadId, sanitizedUnzippedDataFileMap, schema.getFieldDefinitions(),
+                parsedSanitizedJsonFileCache);
+        // Attachments for this record upload concurrently. They must all finish before the record is used.
+        List<Future<?>> pendingAttachmentUploads = new ArrayList<>();
+
+        try {
+            // Using schema, copy fields over to data map. Or if it's an attachment, add it to the attachment map.
+            for (UploadFieldDefinition oneFieldDef : schema.getFieldDefinitions()) {
+                String fieldName = oneFieldDef.getName();
+                JsonNode fieldNode;
+
+                if (surveyAnswerMap.containsKey(fieldName)) {
+                    // The field has already been parsed as a survey.
+                    JsonNode surveyAnswerNode = surveyAnswerMap.get(fieldName);
+
+                    if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(oneFieldDef.getType())) {
+                        // Attachments in a survey. This is unusual, but there's nothing in our schema system that
+                        // prevents this. We should handle it just to be safe.
+                        fieldNode = uploadFileHelper.uploadJsonNodeAsAttachment(surveyAnswerNode, uploadId,
+                                fieldName, pendingAttachmentUploads);
+                    } else {
+                        fieldNode = surveyAnswerNode;
+                    }
                 } else {
-                    fieldNode = surveyAnswerNode;
+                    fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap,
+                            oneFieldDef, parsedSanitizedJsonFileCache, pendingAttachmentUploads);
                 }
-            } else {
-                fieldNode = uploadFileHelper.findValueForField(uploadId, sanitizedUnzippedDataFileMap, oneFieldDef,
-                        parsedSanitizedJsonFileCache);
-            }
 
-            // Copy the field to the record.
-            copyJsonField(context, uploadId, fieldNode, oneFieldDef, dataMap);
+                // Copy the field to the record.
+                copyJsonField(context, uploadId, fieldNode, oneFieldDef, dataMap);
+            }
+        } finally {
+            uploadFileHelper.waitForAttachmentUploads(uploadId, pendingAttachmentUploads);
         }
     }
 
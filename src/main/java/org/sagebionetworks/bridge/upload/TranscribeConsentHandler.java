@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.upload;
 
 import static org.sagebionetworks.bridge.BridgeUtils.collectExternalIds;
 import static org.sagebionetworks.bridge.BridgeUtils.mapStudyMemberships;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.UPLOAD_METADATA;
 
 import java.util.Set;
 
@@ -16,18 +17,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.SharingScope;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
+import org.sagebionetworks.bridge.models.upload.ParticipantUploadMetadata;
 import org.sagebionetworks.bridge.services.AccountService;
 import org.sagebionetworks.bridge.services.ParticipantService;
 import org.sagebionetworks.bridge.time.DateUtils;
 
 @Component
 public class TranscribeConsentHandler implements UploadValidationHandler {
+    /**
+     * Participants can upload many files in a short period of time, and each upload needs the same participant 
+     * information. Updates to the account or to the events that determine the study start time remove this from 
+     * the cache, so the expiration only bounds how long an untracked change (e.g. a deleted external ID) is missed.
+     */
+    static final int METADATA_EXPIRE_IN_SECONDS = 5*60;
+
     private AccountService accountService;
     private ParticipantService participantService;
+    private CacheProvider cacheProvider;
 
     @Autowired
     public final void setAccountService(AccountService accountService) {
@@ -39,28 +51,28 @@ public class TranscribeConsentHandler implements UploadValidationHandler {
         this.participantService = participantService;
     }
 
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
     @Override
     public void handle(@Nonnull UploadValidationContext context) {
         HealthDataRecord record = context.getHealthDataRecord();
 
-        AccountId accountId = AccountId.forHealthCode(context.getAppId(), context.getHealthCode());
-        Account account = accountService.getAccount(accountId);
-        if (account != null) {
-            
-            Set<String> externalIds = collectExternalIds(account);
-            String externalId = Iterables.getFirst(externalIds, null);
-            
+        ParticipantUploadMetadata metadata = getMetadata(context.getAppId(), context.getHealthCode());
+        if (metadata != null) {
             // write user info to health data record
-            record.setUserSharingScope(account.getSharingScope());
-            record.setUserExternalId(externalId);
-            record.setUserDataGroups(account.getDataGroups());
-            record.setUserStudyMemberships( mapStudyMemberships(account) );
+            record.setUserSharingScope(metadata.getSharingScope());
+            record.setUserExternalId(metadata.getExternalId());
+            record.setUserDataGroups(metadata.getDataGroups());
+            record.setUserStudyMemberships(metadata.getStudyMemberships());
 
             // Calculate dayInStudy.
             // Snap to a calendar date in the local time zone. For example, a participant has an
             // activities_retrieved with calendar date 2019-07-24. Therefore, 2019-07-24 would be day 1, 2019-07-25
             // would be day 2, etc.
-            DateTime studyStartTime = participantService.getStudyStartTime(accountId);
+            DateTime studyStartTime = metadata.getStudyStartTime();
             LocalDate studyStartDate = studyStartTime.withZone(BridgeConstants.LOCAL_TIME_ZONE).toLocalDate();
             LocalDate todayLocalDate = DateUtils.getCurrentCalendarDateInLocalTime();
 
@@ -72,4 +84,32 @@ public class TranscribeConsentHandler implements UploadValidationHandler {
             record.setUserSharingScope(SharingScope.NO_SHARING);
         }
     }
+
+    /**
+     * Returns the participant information for this health code, from the cache if possible, or null if the 
+     * account does not exist (which is not cached).
+     */
+    private ParticipantUploadMetadata getMetadata(String appId, String healthCode) {
+        CacheKey cacheKey = CacheKey.participantUploadMetadata(appId, healthCode);
+        ParticipantUploadMetadata metadata = cacheProvider.getObject(cacheKey, ParticipantUploadMetadata.class);
+        if (metadata != null) {
+            return metadata;
+        }
+        
+        Account account = accountService.getAccount(AccountId.forHealthCode(appId, healthCode), UPLOAD_METADATA);
+        if (account == null) {
+            return null;
+        }
+        Set<String> externalIds = collectExternalIds(account);
+        
+        metadata = new ParticipantUploadMetadata();
+        metadata.setSharingScope(account.getSharingScope());
+        metadata.setExternalId(Iterables.getFirst(externalIds, null));
+        metadata.setDataGroups(account.getDataGroups());
+        metadata.setStudyMemberships(mapStudyMemberships(account));
+        metadata.setStudyStartTime(participantService.getStudyStartTime(account));
+        
+        cacheProvider.setObject(cacheKey, metadata, METADATA_EXPIRE_IN_SECONDS);
+        return metadata;
+    }
 }
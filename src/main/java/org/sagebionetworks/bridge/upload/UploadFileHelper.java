@@ -4,15 +4,29 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.google.common.base.Charsets;
-import org.apache.commons.codec.binary.Hex;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,12 +53,23 @@ public class UploadFileHelper {
     static final String ATTACHMENT_BUCKET = BridgeConfigFactory.getConfig().getProperty("attachment.bucket");
     static final String KEY_CUSTOM_CONTENT_MD5 = "Custom-Content-MD5";
 
+    private ExecutorService attachmentUploadExecutorService = MoreExecutors.newDirectExecutorService();
     private FileHelper fileHelper;
     private int inlineFileSizeLimit = UploadUtil.FILE_SIZE_LIMIT_INLINE_FIELD;
-    private DigestUtils md5DigestUtils;
     private int parsedJsonFileSizeLimit = UploadUtil.FILE_SIZE_LIMIT_PARSED_JSON;
     private int parsedJsonWarningLimit = UploadUtil.WARNING_LIMIT_PARSED_JSON;
+    private long multipartUploadThreshold = UploadUtil.MULTIPART_UPLOAD_THRESHOLD;
     private S3Helper s3Helper;
+    private TransferManager transferManager;
+
+    /**
+     * Executor used to upload the attachments of a record concurrently. Defaults to running uploads on the calling 
+     * thread.
+     */
+    @Resource(name = "attachmentUploadExecutorService")
+    public final void setAttachmentUploadExecutorService(ExecutorService attachmentUploadExecutorService) {
+        this.attachmentUploadExecutorService = attachmentUploadExecutorService;
+    }
 
     /** File helper, used to check file sizes before parsing them into memory. */
     @Autowired
@@ -57,12 +82,6 @@ public class UploadFileHelper {
         this.inlineFileSizeLimit = inlineFileSizeLimit;
     }
 
-    /** Used to calculate the MD5 hash, used to submit S3 file metadata. */
-    @Resource(name = "md5DigestUtils")
-    public final void setMd5DigestUtils(DigestUtils md5DigestUtils) {
-        this.md5DigestUtils = md5DigestUtils;
-    }
-
     /** Sets the file size limit for parsed JSON files. This setter is to allow unit tests to override. */
     final void setParsedJsonFileSizeLimit(@SuppressWarnings("SameParameterValue") int parsedJsonFileSizeLimit) {
         this.parsedJsonFileSizeLimit = parsedJsonFileSizeLimit;
@@ -75,12 +94,26 @@ public class UploadFileHelper {
         this.parsedJsonWarningLimit = parsedJsonWarningLimit;
     }
 
+    /**
+     * Sets the file size above which attachments are sent to S3 as multipart uploads. This setter is to allow unit 
+     * tests to override.
+     */
+    final void setMultipartUploadThreshold(@SuppressWarnings("SameParameterValue") long multipartUploadThreshold) {
+        this.multipartUploadThreshold = multipartUploadThreshold;
+    }
+
     /** S3 Helper, used to upload attachments. */
     @Resource(name = "s3Helper")
     public final void setS3Helper(S3Helper s3Helper) {
         this.s3Helper = s3Helper;
     }
 
+    /** Transfer manager, used to upload large attachments in parts. */
+    @Resource(name = "attachmentTransferManager")
+    public final void setTransferManager(TransferManager transferManager) {
+        this.transferManager = transferManager;
+    }
+
     /**
      * Given some upload parameters and a list of files, find the value that matches the given upload schema field. The
      * field definition could refer to a file, or it can refer to the top-level key within a JSON file.
@@ -102,6 +135,18 @@ public class UploadFileHelper {
     public JsonNode findValueForField(String uploadId, Map<String, File> sanitizedUnzippedDataFileMap,
             UploadFieldDefinition fieldDef, Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache)
             throws UploadValidationException {
+        return findValueForField(uploadId, sanitizedUnzippedDataFileMap, fieldDef, parsedSanitizedJsonFileCache,
+                null);
+    }
+
+    /**
+     * As above, but if pendingUploads is not null, any attachment upload is started in the background and added to
+     * that list, rather than completing before this method returns. The caller must then call 
+     * {@link #waitForAttachmentUploads} before the record is used (or its files are cleaned up).
+     */
+    public JsonNode findValueForField(String uploadId, Map<String, File> sanitizedUnzippedDataFileMap,
+            UploadFieldDefinition fieldDef, Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache,
+            List<Future<?>> pendingUploads) throws UploadValidationException {
         String fieldName = fieldDef.getName();
         boolean isAttachment = UploadFieldType.ATTACHMENT_TYPE_SET.contains(fieldDef.getType());
         JsonNode fieldNode;
@@ -116,11 +161,18 @@ public class UploadFileHelper {
                     String attachmentFilename = uploadId + '-' + fieldName;
                     fieldNode = TextNode.valueOf(attachmentFilename);
 
-                    try {
-                        uploadFileAsAttachment(attachmentFilename, fieldFile);
-                    } catch (IOException ex) {
-                        throw new UploadValidationException("Error uploading file as attachment, uploadId=" +
-                                uploadId + ", fieldName=" + fieldName, ex);
+                    if (pendingUploads != null) {
+                        pendingUploads.add(attachmentUploadExecutorService.submit(() -> {
+                            uploadFileAsAttachment(attachmentFilename, fieldFile);
+                            return null;
+                        }));
+                    } else {
+                        try {
+                            uploadFileAsAttachment(attachmentFilename, fieldFile);
+                        } catch (IOException ex) {
+                            throw new UploadValidationException("Error uploading file as attachment, uploadId=" +
+                                    uploadId + ", fieldName=" + fieldName, ex);
+                        }
                     }
                 } else {
                     // Case 1b: The file is an empty attachment. Skip and return null.
@@ -212,7 +264,7 @@ public class UploadFileHelper {
                 fieldNode = null;
             } else if (isAttachment) {
                 // Case 2b: This is an attachment. Write the found value as bytes and upload it.
-                fieldNode = uploadJsonNodeAsAttachment(foundValue, uploadId, fieldName);
+                fieldNode = uploadJsonNodeAsAttachment(foundValue, uploadId, fieldName, pendingUploads);
             } else {
                 // Case 2c: Not an attachment. The field value is just the value we found.
                 fieldNode = foundValue;
@@ -222,29 +274,143 @@ public class UploadFileHelper {
         return fieldNode;
     }
 
+    /**
+     * Parses the JSON files whose top-level keys are referenced by the given fields, and adds the sanitized values
+     * to parsedSanitizedJsonFileCache, so that {@link #findValueForField} doesn't need to parse them. Each file is
+     * tokenized once, and only the values of referenced keys are read into memory. Other keys are skipped, which
+     * matters for the large JSON files some apps send. Files that are over the size limit are left alone, and are
+     * handled (and logged) by findValueForField.
+     *
+     * @param uploadId
+     *         upload ID, used for logging
+     * @param sanitizedUnzippedDataFileMap
+     *         map of upload files by name; the file names should be sanitized
+     * @param fieldDefList
+     *         field definitions of the schema the upload is being validated against
+     * @param parsedSanitizedJsonFileCache
+     *         cache of parsed sanitized JSON nodes, which is then passed to findValueForField
+     */
+    public void parseJsonFilesForFields(String uploadId, Map<String, File> sanitizedUnzippedDataFileMap,
+            List<UploadFieldDefinition> fieldDefList, Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache) {
+        for (Map.Entry<String, File> oneFileEntry : sanitizedUnzippedDataFileMap.entrySet()) {
+            String parsedFilename = oneFileEntry.getKey();
+            if (parsedSanitizedJsonFileCache.containsKey(parsedFilename)) {
+                // Already parsed.
+                continue;
+            }
+
+            // Find the top-level key names in this file that fields refer to. (Fields that refer to a whole file are
+            // not parsed here.) See findValueForField for how the key name is determined.
+            Set<String> keyNameSet = new HashSet<>();
+            for (UploadFieldDefinition oneFieldDef : fieldDefList) {
+                String fieldName = oneFieldDef.getName();
+                if (!sanitizedUnzippedDataFileMap.containsKey(fieldName) && fieldName.startsWith(parsedFilename)
+                        && fieldName.length() > parsedFilename.length()) {
+                    keyNameSet.add(fieldName.substring(parsedFilename.length() + 1));
+                }
+            }
+            if (keyNameSet.isEmpty()) {
+                continue;
+            }
+
+            File parsedFile = oneFileEntry.getValue();
+            if (fileHelper.fileSize(parsedFile) > parsedJsonFileSizeLimit) {
+                continue;
+            }
+
+            Map<String, JsonNode> sanitizedParsedJsonNodeMap = new HashMap<>();
+            try (InputStream parsedFileInputStream = fileHelper.getInputStream(parsedFile);
+                    JsonParser parser = BridgeObjectMapper.get().getFactory().createParser(parsedFileInputStream)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String sanitizedKey = SchemaUtils.sanitizeFieldName(parser.getCurrentName());
+                        parser.nextToken();
+                        if (keyNameSet.contains(sanitizedKey)) {
+                            JsonNode valueNode = parser.readValueAsTree();
+                            sanitizedParsedJsonNodeMap.put(sanitizedKey, valueNode != null ? valueNode :
+                                    NullNode.instance);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            } catch (IOException ex) {
+                // Assume we have the wrong file. Log a warning and proceed. None of its keys will be found.
+                LOG.warn("Error parsing JSON file, uploadId=" + uploadId + ", fileName=" + parsedFilename);
+                sanitizedParsedJsonNodeMap = ImmutableMap.of();
+            }
+            parsedSanitizedJsonFileCache.put(parsedFilename, sanitizedParsedJsonNodeMap);
+        }
+    }
+
     /**
      * Uploads a JSON node as an upload attachment, then returns a JsonNode containing the attachment's filename in S3,
      * ready for use in a health data record.
      */
     public JsonNode uploadJsonNodeAsAttachment(JsonNode node, String uploadId, String fieldName)
             throws UploadValidationException {
+        return uploadJsonNodeAsAttachment(node, uploadId, fieldName, null);
+    }
+
+    /**
+     * As above, but if pendingUploads is not null, the upload is started in the background and added to that list.
+     * See {@link #waitForAttachmentUploads}.
+     */
+    public JsonNode uploadJsonNodeAsAttachment(JsonNode node, String uploadId, String fieldName,
+            List<Future<?>> pendingUploads) throws UploadValidationException {
         String filename = uploadId + '-' + fieldName;
-        String jsonText = node.toString();
+        byte[] bytes = node.toString().getBytes(Charsets.UTF_8);
         
-        try {
-            uploadBytesAsAttachment(filename, jsonText.getBytes(Charsets.UTF_8));
-        } catch (IOException ex) {
-            throw new UploadValidationException("Error writing attachment to S3, uploadId=" + uploadId +
-                    ", fieldName=" + fieldName, ex);
+        if (pendingUploads != null) {
+            pendingUploads.add(attachmentUploadExecutorService.submit(() -> {
+                uploadBytesAsAttachment(filename, bytes);
+                return null;
+            }));
+        } else {
+            try {
+                uploadBytesAsAttachment(filename, bytes);
+            } catch (IOException ex) {
+                throw new UploadValidationException("Error writing attachment to S3, uploadId=" + uploadId +
+                        ", fieldName=" + fieldName, ex);
+            }
         }
         return TextNode.valueOf(filename);
     }
 
+    /**
+     * Waits for all the attachment uploads that were started for a record. Every upload is waited for, even if an 
+     * earlier one failed, so that no upload is still reading files when the caller cleans them up.
+     *
+     * @throws UploadValidationException
+     *         if any of the uploads failed
+     */
+    public void waitForAttachmentUploads(String uploadId, List<Future<?>> pendingUploads)
+            throws UploadValidationException {
+        UploadValidationException firstException = null;
+        for (Future<?> oneUpload : pendingUploads) {
+            try {
+                oneUpload.get();
+            } catch (ExecutionException | InterruptedException ex) {
+                if (ex instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                if (firstException == null) {
+                    Throwable cause = (ex instanceof ExecutionException) ? ex.getCause() : ex;
+                    firstException = new UploadValidationException("Error writing attachment to S3, uploadId=" +
+                            uploadId, cause);
+                }
+            }
+        }
+        pendingUploads.clear();
+        if (firstException != null) {
+            throw firstException;
+        }
+    }
+
     /** Upload bytes to the attachment bucket and apply the correct metadata. */
     public void uploadBytesAsAttachment(String filename, byte[] bytes) throws IOException {
         // Calculate MD5 (hex-encoded).
-        byte[] md5 = md5DigestUtils.digest(bytes);
-        String md5HexEncoded = Hex.encodeHexString(md5);
+        String md5HexEncoded = DigestUtils.md5Hex(bytes);
 
         // S3 Metadata must include encryption and MD5. Note that for some reason setContentMD5() doesn't work, so we
         // have to use addUserMetadata().
@@ -254,11 +420,26 @@ public class UploadFileHelper {
         s3Helper.writeBytesToS3(ATTACHMENT_BUCKET, filename, bytes, metadata);
     }
 
-    /** Upload a file to the attachment bucket and apply the correct metadata. */
+    /**
+     * Upload a file to the attachment bucket and apply the correct metadata. The MD5 has to be known before the 
+     * upload starts, so files under the multipart threshold are read from disk once and uploaded from memory. Larger 
+     * files are hashed and then uploaded in parts.
+     */
     public void uploadFileAsAttachment(String filename, File file) throws IOException {
+        if (fileHelper.fileSize(file) <= multipartUploadThreshold) {
+            byte[] bytes;
+            try (InputStream fileInputStream = fileHelper.getInputStream(file)) {
+                bytes = ByteStreams.toByteArray(fileInputStream);
+            }
+            uploadBytesAsAttachment(filename, bytes);
+            return;
+        }
+
         // Calculate MD5 (hex-encoded).
-        byte[] md5 = md5DigestUtils.digest(file);
-        String md5HexEncoded = Hex.encodeHexString(md5);
+        String md5HexEncoded;
+        try (InputStream fileInputStream = fileHelper.getInputStream(file)) {
+            md5HexEncoded = DigestUtils.md5Hex(fileInputStream);
+        }
 
         // S3 Metadata must include encryption and MD5. Note that for some reason setContentMD5() doesn't work, so we
         // have to use addUserMetadata().
@@ -266,6 +447,14 @@ public class UploadFileHelper {
         LOG.info("Writing MD5 for attachment " + filename + ": " + md5HexEncoded);
         metadata.addUserMetadata(KEY_CUSTOM_CONTENT_MD5, md5HexEncoded);
         metadata.setSSEAlgorithm(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
-        s3Helper.writeFileToS3(ATTACHMENT_BUCKET, filename, file, metadata);
+        try {
+            transferManager.upload(new PutObjectRequest(ATTACHMENT_BUCKET, filename, file).withMetadata(metadata))
+                    .waitForCompletion();
+        } catch (AmazonClientException ex) {
+            throw new IOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        }
     }
 }
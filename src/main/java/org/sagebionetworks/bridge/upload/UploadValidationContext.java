@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.upload;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +24,7 @@ public class UploadValidationContext {
     private File decryptedDataFile;
     private Map<String, File> unzippedDataFileMap;
     private JsonNode infoJsonNode;
+    private Map<String, Map<String, JsonNode>> parsedSanitizedJsonFileCache;
     private HealthDataRecord healthDataRecord;
     private String recordId;
 
@@ -155,6 +157,18 @@ public class UploadValidationContext {
         this.infoJsonNode = infoJsonNode;
     }
 
+    /**
+     * Parsed JSON data files, keyed by sanitized filename, and then by sanitized top-level key. This is populated
+     * lazily by UploadFileHelper as the format handlers look up schema fields, so that each file is only parsed once
+     * per upload. Only keys referenced by the schema are kept in memory.
+     */
+    public Map<String, Map<String, JsonNode>> getParsedSanitizedJsonFileCache() {
+        if (parsedSanitizedJsonFileCache == null) {
+            parsedSanitizedJsonFileCache = new HashMap<>();
+        }
+        return parsedSanitizedJsonFileCache;
+    }
+
     /**
      * Health Data Record, created from the uploaded data. This is initially created by InitRecordHandler, is further
      * updated by UploadFormatHandler and its inner handlers and by TranscribeConsentHandler, and is finalized and
@@ -206,6 +220,7 @@ public class UploadValidationContext {
         copy.decryptedDataFile = this.decryptedDataFile;
         copy.unzippedDataFileMap = this.unzippedDataFileMap;
         copy.infoJsonNode = this.infoJsonNode;
+        copy.parsedSanitizedJsonFileCache = this.getParsedSanitizedJsonFileCache();
         copy.healthDataRecord = this.healthDataRecord;
         copy.recordId = this.recordId;
 
@@ -435,3 +435,20 @@ ALTER TABLE `Substudies`
 ADD COLUMN `clientData` mediumtext COLLATE utf8_unicode_ci;
 
 
+-- changeset bridge:25
+
+-- The highest revision of each assessment in an app, maintained by HibernateAssessmentDao so that 
+-- listing assessments does not need to group all revisions.
+CREATE TABLE `AssessmentLatestRevisions` (
+  `appId` varchar(255) NOT NULL,
+  `identifier` varchar(255) NOT NULL,
+  `guid` varchar(255) NOT NULL,
+  PRIMARY KEY (`appId`, `identifier`),
+  CONSTRAINT `fk_latest_revision_assessment` FOREIGN KEY (`guid`) REFERENCES `Assessments` (`guid`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+
+INSERT INTO `AssessmentLatestRevisions` (`appId`, `identifier`, `guid`)
+SELECT a.appId, a.identifier, a.guid FROM Assessments AS a
+INNER JOIN (SELECT appId, identifier, MAX(revision) AS rev FROM Assessments GROUP BY appId, identifier) AS latest
+ON a.appId = latest.appId AND a.identifier = latest.identifier AND a.revision = latest.rev;
+
@@ -524,6 +524,28 @@ public class BridgeUtilsTest {
         assertEquals(result, "foo Belgium bar Belgium Albuquerque ${unused}");
     }
     
+    @Test
+    public void templateResolverDoesNotResolveValues() {
+        Map<String,String> map = Maps.newHashMap();
+        map.put("name", "${appId}");
+        map.put("appId", "api");
+        
+        String result = BridgeUtils.resolveTemplate("${name} ${appId}", map);
+        assertEquals(result, "${appId} api");
+    }
+    
+    @Test
+    public void templateResolverHandlesAdjacentAndPartialVariables() {
+        Map<String,String> map = Maps.newHashMap();
+        map.put("a", "1");
+        map.put("b", "2");
+        
+        assertEquals(BridgeUtils.resolveTemplate("${a}${b}", map), "12");
+        assertEquals(BridgeUtils.resolveTemplate("${c${a}", map), "${c1");
+        assertEquals(BridgeUtils.resolveTemplate("${a} ${b", map), "1 ${b");
+        assertEquals(BridgeUtils.resolveTemplate("no variables", map), "no variables");
+    }
+    
     @Test
     public void templateResolverHandlesSomeJunkValues() {
         Map<String,String> map = Maps.newHashMap();
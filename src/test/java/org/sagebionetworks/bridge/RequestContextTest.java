@@ -35,6 +35,7 @@ import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.services.SponsorService;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableSet;
 
@@ -327,4 +328,24 @@ public class RequestContextTest extends Mockito {
         
         assertEquals(RequestContext.get().getCallerEnrolledStudies(), ImmutableSet.of("study1"));
     }
+
+    @Test
+    public void recordCacheResult() {
+        Metrics metrics = new Metrics(REQUEST_ID);
+        RequestContext.set(new RequestContext.Builder().withMetrics(metrics).build());
+        
+        RequestContext.recordCacheResult("study", true);
+        RequestContext.recordCacheResult("study", false);
+        RequestContext.recordCacheResult("study", true);
+        
+        JsonNode node = metrics.getJson().get("cache_results").get("study");
+        assertEquals(node.get("hits").intValue(), 2);
+        assertEquals(node.get("misses").intValue(), 1);
+    }
+    
+    @Test
+    public void recordCacheResultWithoutMetrics() {
+        // Does not throw an exception.
+        RequestContext.recordCacheResult("study", true);
+    }
 }
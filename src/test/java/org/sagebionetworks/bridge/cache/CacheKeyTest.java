@@ -12,6 +12,7 @@ import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.models.ThrottleRequestType;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+import org.sagebionetworks.bridge.models.templates.TemplateType;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
 
@@ -127,6 +128,54 @@ public class CacheKeyTest {
         assertEquals(CacheKey.app(TEST_APP_ID).toString(), TEST_APP_ID + ":App");
     }    
     
+    @Test
+    public void resolvedSurveyReference() {
+        assertEquals(CacheKey.resolvedSurveyReference(TEST_APP_ID, "guid").toString(),
+                "guid:" + TEST_APP_ID + ":ResolvedSurveyReference");
+    }
+
+    @Test
+    public void publishedSurvey() {
+        assertEquals(CacheKey.publishedSurvey(TEST_APP_ID, "guid", 1000L).toString(),
+                "guid:1000:" + TEST_APP_ID + ":PublishedSurvey");
+    }
+
+    @Test
+    public void mostRecentlyPublishedSurveys() {
+        assertEquals(CacheKey.mostRecentlyPublishedSurveys(TEST_APP_ID, true).toString(),
+                TEST_APP_ID + ":true:MostRecentlyPublishedSurveys");
+    }
+    
+    @Test
+    public void resolvedSchemaReference() {
+        assertEquals(CacheKey.resolvedSchemaReference(TEST_APP_ID, "schemaId", "iPhone OS", 10).toString(),
+                "schemaId:iPhone OS:10:" + TEST_APP_ID + ":ResolvedSchemaReference");
+    }
+    
+    @Test
+    public void resolvedSchemaReferenceUnknownClient() {
+        assertEquals(CacheKey.resolvedSchemaReference(TEST_APP_ID, "schemaId", null, null).toString(),
+                "schemaId:null:null:" + TEST_APP_ID + ":ResolvedSchemaReference");
+    }
+    
+    @Test
+    public void resolvedSchemaReferenceSet() {
+        assertEquals(CacheKey.resolvedSchemaReferenceSet(TEST_APP_ID, "schemaId").toString(),
+                "schemaId:" + TEST_APP_ID + ":ResolvedSchemaReferenceSet");
+    }
+    
+    @Test
+    public void compoundActivityDefinition() {
+        assertEquals(CacheKey.compoundActivityDefinition(TEST_APP_ID, "taskId").toString(),
+                "taskId:" + TEST_APP_ID + ":CompoundActivityDefinition");
+    }
+    
+    @Test
+    public void participantUploadMetadata() {
+        assertEquals(CacheKey.participantUploadMetadata(TEST_APP_ID, "healthCode").toString(),
+                "healthCode:" + TEST_APP_ID + ":ParticipantUploadMetadata");
+    }
+    
     @Test
     public void subpop() {
         assertEquals(CacheKey.subpop(SUBPOP_GUID, TEST_APP_ID).toString(), "guid:" + TEST_APP_ID + ":Subpopulation");
@@ -147,6 +196,60 @@ public class CacheKeyTest {
         assertEquals(CacheKey.viewKey(StringBuilder.class, "a", "b").toString(), "a:b:StringBuilder:view");
     }
     
+    @Test
+    public void uploadDedupe() {
+        assertEquals(CacheKey.uploadDedupe("healthCode", "md5").toString(), "healthCode:md5:UploadDedupe");
+    }
+    
+    @Test
+    public void uploadDedupeCoverage() {
+        assertEquals(CacheKey.uploadDedupeCoverage(TEST_APP_ID).toString(), TEST_APP_ID + ":UploadDedupeCoverage");
+    }
+    
+    @Test
+    public void templateList() {
+        assertEquals(CacheKey.templateList(TEST_APP_ID, TemplateType.EMAIL_SIGN_IN).toString(),
+                "EMAIL_SIGN_IN:" + TEST_APP_ID + ":TemplateList");
+    }
+    
+    @Test
+    public void templateRevision() {
+        assertEquals(CacheKey.templateRevision("guid", 1000L).toString(), "guid:1000:TemplateRevision");
+    }
+    
+    @Test
+    public void study() {
+        assertEquals(CacheKey.study(TEST_APP_ID, "studyId").toString(), "studyId:" + TEST_APP_ID + ":Study");
+    }
+    
+    @Test
+    public void studyIdList() {
+        assertEquals(CacheKey.studyIdList(TEST_APP_ID).toString(), TEST_APP_ID + ":StudyIdList");
+    }
+    
+    @Test
+    public void organization() {
+        assertEquals(CacheKey.organization(TEST_APP_ID, "orgId").toString(),
+                "orgId:" + TEST_APP_ID + ":Organization");
+    }
+    
+    @Test
+    public void scheduledActivitiesVersion() {
+        assertEquals(CacheKey.scheduledActivitiesVersion("healthCode").toString(),
+                "healthCode:ScheduledActivitiesVersion");
+    }
+    
+    @Test
+    public void schedulePlansVersion() {
+        assertEquals(CacheKey.schedulePlansVersion(TEST_APP_ID).toString(), TEST_APP_ID + ":SchedulePlansVersion");
+    }
+    
+    @Test
+    public void userDeletionJob() {
+        assertEquals(CacheKey.userDeletionJob(TEST_APP_ID, "userId").toString(),
+                "userId:" + TEST_APP_ID + ":UserDeletionJob");
+    }
+    
     @Test
     public void userIdToSession() {
         assertEquals(CacheKey.userIdToSession("userId").toString(), "userId:session2:user");
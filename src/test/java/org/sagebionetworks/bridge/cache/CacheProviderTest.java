@@ -470,6 +470,22 @@ public class CacheProviderTest {
         verify(jedisOps).set(CACHE_KEY.toString(), "\"test\"");
     }
     
+    @Test
+    public void setObjectIfAbsent() {
+        when(jedisOps.setnx(CACHE_KEY.toString(), "\"test\"")).thenReturn(1L);
+        
+        assertTrue(cacheProvider.setObjectIfAbsent(CACHE_KEY, "test", 100));
+        verify(jedisOps).expire(CACHE_KEY.toString(), 100);
+    }
+    
+    @Test
+    public void setObjectIfAbsentAlreadySet() {
+        when(jedisOps.setnx(CACHE_KEY.toString(), "\"test\"")).thenReturn(0L);
+        
+        assertFalse(cacheProvider.setObjectIfAbsent(CACHE_KEY, "test", 100));
+        verify(jedisOps, never()).expire(anyString(), anyInt());
+    }
+    
     @Test
     public void setObjectWithExpire() throws Exception {
         OAuthProvider provider = new OAuthProvider("clientId", "secret", "endpoint",
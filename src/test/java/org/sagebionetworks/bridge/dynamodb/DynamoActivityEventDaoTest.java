@@ -18,9 +18,13 @@ import java.util.List;
 import java.util.Map;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -31,6 +35,8 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.models.activities.ActivityEvent;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -75,37 +81,33 @@ public class DynamoActivityEventDaoTest extends Mockito {
     @Captor
     ArgumentCaptor<List<DynamoActivityEvent>> listCaptor;
     
+    @Captor
+    ArgumentCaptor<DynamoDBSaveExpression> saveExpressionCaptor;
+    
+    @Captor
+    ArgumentCaptor<List<Object>> objectListCaptor;
+    
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
+        dao.setDynamoBulkDeleter(new DynamoBulkDeleter(new DynamoThrottleController(10, 1000, 25), 1000));
     }
     
     @Test
-    public void publishEventIsNew() {
+    public void publishEventIsNewOrLater() {
         boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
         assertTrue(result);
         
-        verify(mockMapper).load(eventCaptor.capture());
-        DynamoActivityEvent loadKey = eventCaptor.getValue();
-        assertEquals(loadKey.getHealthCode(), HEALTH_CODE);
-        assertEquals(loadKey.getEventId(), "survey:AAA-BBB-CCC:finished");
-        
-        verify(mockMapper).save(eventCaptor.capture());
+        verify(mockMapper).save(eventCaptor.capture(), saveExpressionCaptor.capture());
         assertSame(eventCaptor.getValue(), SURVEY_FINISHED_EVENT);
-    }
-    
-    @Test
-    public void publishEventIsMutableAndLater() {
-        DynamoActivityEvent earlierEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(SURVEY).withEventType(FINISHED).withTimestamp(TIMESTAMP.minusHours(1))
-                .withObjectId("AAA-BBB-CCC").build();
-        when(mockMapper.load(any())).thenReturn(earlierEvent);
         
-        boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
-        assertTrue(result);
+        DynamoDBSaveExpression expr = saveExpressionCaptor.getValue();
+        assertEquals(expr.getConditionExpression(), "attribute_not_exists(eventId) OR #ts < :ts");
+        assertEquals(expr.getExpressionAttributeNames().get("#ts"), "timestamp");
+        assertEquals(expr.getExpressionAttributeValues().get(":ts").getN(), Long.toString(TIMESTAMP.getMillis()));
         
-        verify(mockMapper).save(eventCaptor.capture());
-        assertSame(eventCaptor.getValue(), SURVEY_FINISHED_EVENT);
+        // No read before the write
+        verify(mockMapper, never()).load(any());
     }
     
     @Test
@@ -113,25 +115,85 @@ public class DynamoActivityEventDaoTest extends Mockito {
         boolean result = dao.publishEvent(ENROLLMENT_EVENT_WITH_STUDY_ID);
         assertTrue(result);
         
-        verify(mockMapper).save(eventCaptor.capture());
+        verify(mockMapper).save(eventCaptor.capture(), saveExpressionCaptor.capture());
         
         DynamoActivityEvent event = eventCaptor.getValue();
         assertEquals(event.getEventId(), "enrollment");
         assertEquals(event.getStudyId(), TEST_STUDY_ID);
         assertEquals(event.getHealthCode(), HEALTH_CODE + ":" + TEST_STUDY_ID);
+        assertSame(saveExpressionCaptor.getValue(), DynamoActivityEventDao.DOES_NOT_EXIST_EXPRESSION);
     }
     
     @Test
     public void publishEventIsEarlierFails() {
-        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(SURVEY).withEventType(FINISHED).withTimestamp(TIMESTAMP.plusHours(1))
-                .withObjectId("AAA-BBB-CCC").build();
-        when(mockMapper.load(any())).thenReturn(laterEvent);
+        doThrow(new ConditionalCheckFailedException("")).when(mockMapper).save(any(),
+                any(DynamoDBSaveExpression.class));
         
         boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
         assertFalse(result);
+    }
+    
+    @Test
+    public void publishEvents() {
+        List<ActivityEvent> events = ImmutableList.of(SURVEY_FINISHED_EVENT, ACTIVITY_FINISHED_EVENT);
+        
+        dao.publishEvents(events);
+        
+        verify(mockMapper).batchSave(events);
+    }
+    
+    @Test
+    public void publishEventsSkipsEventsThatAreNotLater() {
+        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
+                .withObjectType(SURVEY).withEventType(FINISHED).withObjectId("AAA-BBB-CCC")
+                .withTimestamp(TIMESTAMP.plusDays(1)).build();
+        when(mockMapper.batchLoad(any(List.class))).thenReturn(ImmutableMap.<String, List<Object>>of("TaskEvent",
+                ImmutableList.of(laterEvent, ENROLLMENT_EVENT)));
+        
+        DynamoActivityEvent newEnrollmentEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
+                .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP.plusDays(2)).build();
+        dao.publishEvents(ImmutableList.of(SURVEY_FINISHED_EVENT, ACTIVITY_FINISHED_EVENT, newEnrollmentEvent));
+        
+        // The survey event is earlier than the recorded event, and enrollment is immutable.
+        verify(mockMapper).batchSave(ImmutableList.of(ACTIVITY_FINISHED_EVENT));
+        
+        verify(mockMapper).batchLoad(objectListCaptor.capture());
+        List<Object> keys = objectListCaptor.getValue();
+        assertEquals(keys.size(), 3);
+        DynamoActivityEvent key = (DynamoActivityEvent) keys.get(0);
+        assertEquals(key.getHealthCode(), HEALTH_CODE);
+        assertEquals(key.getEventId(), SURVEY_FINISHED_EVENT.getEventId());
+    }
+    
+    @Test
+    public void publishEventsNothingLater() {
+        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
+                .withObjectType(SURVEY).withEventType(FINISHED).withObjectId("AAA-BBB-CCC")
+                .withTimestamp(TIMESTAMP).build();
+        when(mockMapper.batchLoad(any(List.class))).thenReturn(ImmutableMap.<String, List<Object>>of("TaskEvent",
+                ImmutableList.of(laterEvent)));
+        
+        dao.publishEvents(ImmutableList.of(SURVEY_FINISHED_EVENT));
+        
+        verify(mockMapper, never()).batchSave(any(List.class));
+    }
+    
+    @Test
+    public void publishEventsEmptyList() {
+        dao.publishEvents(ImmutableList.of());
+        
+        verify(mockMapper, never()).batchSave(any(List.class));
+    }
+    
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void publishEventsFailureThrowsException() {
+        FailedBatch failure = new FailedBatch();
+        failure.setException(new RuntimeException());
+        failure.setUnprocessedItems(ImmutableMap.of());
+        List<ActivityEvent> events = ImmutableList.of(SURVEY_FINISHED_EVENT);
+        when(mockMapper.batchSave(events)).thenReturn(ImmutableList.of(failure));
         
-        verify(mockMapper, never()).save(any());
+        dao.publishEvents(events);
     }
     
     @Test
@@ -215,8 +277,9 @@ public class DynamoActivityEventDaoTest extends Mockito {
     public void deleteActivityEventsGlobal() {
         List<DynamoActivityEvent> savedEvents = ImmutableList.of(ENROLLMENT_EVENT, SURVEY_FINISHED_EVENT,
                 QUESTION_ANSWERED_EVENT, ACTIVITY_FINISHED_EVENT);
-        when(queryResults.toArray()).thenReturn(savedEvents.toArray());
-        when(mockMapper.query(eq(DynamoActivityEvent.class), any())).thenReturn(queryResults);
+        when(queryResults.iterator()).thenReturn(savedEvents.iterator());
+        when(mockMapper.query(eq(DynamoActivityEvent.class), any(), eq(DynamoBulkDeleter.STREAMING_CONFIG)))
+                .thenReturn(queryResults);
         
         dao.deleteActivityEvents(HEALTH_CODE, null);
         
@@ -229,12 +292,14 @@ public class DynamoActivityEventDaoTest extends Mockito {
     public void deleteActivityEventsStudyScoped() {
         List<DynamoActivityEvent> savedEvents = ImmutableList.of(ENROLLMENT_EVENT, SURVEY_FINISHED_EVENT,
                 QUESTION_ANSWERED_EVENT, ACTIVITY_FINISHED_EVENT);
-        when(queryResults.toArray()).thenReturn(savedEvents.toArray());
-        when(mockMapper.query(eq(DynamoActivityEvent.class), any())).thenReturn(queryResults);
+        when(queryResults.iterator()).thenReturn(savedEvents.iterator());
+        when(mockMapper.query(eq(DynamoActivityEvent.class), any(), eq(DynamoBulkDeleter.STREAMING_CONFIG)))
+                .thenReturn(queryResults);
         
         dao.deleteActivityEvents(HEALTH_CODE, TEST_STUDY_ID);
         
-        verify(mockMapper).query(eq(DynamoActivityEvent.class), queryCaptor.capture());
+        verify(mockMapper).query(eq(DynamoActivityEvent.class), queryCaptor.capture(),
+                eq(DynamoBulkDeleter.STREAMING_CONFIG));
         assertEquals(queryCaptor.getValue().getHashKeyValues().getHealthCode(), 
                 HEALTH_CODE + ":" + TEST_STUDY_ID);
         verify(mockMapper).batchDelete(listCaptor.capture());
@@ -244,7 +309,8 @@ public class DynamoActivityEventDaoTest extends Mockito {
     
     @Test
     public void publishEventIsImmutableFails() {
-        when(mockMapper.load(any())).thenReturn(ENROLLMENT_EVENT);
+        doThrow(new ConditionalCheckFailedException("")).when(mockMapper).save(any(),
+                any(DynamoDBSaveExpression.class));
 
         DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
                 .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP.plusHours(1)).build();
@@ -252,6 +318,6 @@ public class DynamoActivityEventDaoTest extends Mockito {
         boolean result = dao.publishEvent(laterEvent);
         assertFalse(result);
 
-        verify(mockMapper, never()).save(any());
+        verify(mockMapper).save(any(), eq(DynamoActivityEventDao.DOES_NOT_EXIST_EXPRESSION));
     }
-}    
+}
@@ -0,0 +1,106 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class DynamoBulkDeleterTest {
+    private DynamoDBMapper mockMapper;
+    private DynamoBulkDeleter deleter;
+
+    @BeforeMethod
+    public void before() {
+        mockMapper = mock(DynamoDBMapper.class);
+        when(mockMapper.batchDelete(any(List.class))).thenReturn(ImmutableList.of());
+
+        DynamoThrottleController controller = new DynamoThrottleController(10, 1000, 25);
+        controller.setRetryDelayMillis(0, 0);
+        deleter = new DynamoBulkDeleter(controller, 1000);
+    }
+
+    @Test
+    public void deletesInBatches() {
+        List<DynamoUpload2> keys = makeKeys(60);
+
+        int count = deleter.delete(mockMapper, DynamoUpload2.class, keys);
+        assertEquals(count, 60);
+
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockMapper, times(3)).batchDelete(captor.capture());
+        List<List> batches = captor.getAllValues();
+        assertEquals(batches.get(0), keys.subList(0, 25));
+        assertEquals(batches.get(1), keys.subList(25, 50));
+        assertEquals(batches.get(2), keys.subList(50, 60));
+    }
+
+    @Test
+    public void noKeys() {
+        int count = deleter.delete(mockMapper, DynamoUpload2.class, ImmutableList.of());
+        assertEquals(count, 0);
+        verify(mockMapper, never()).batchDelete(any(List.class));
+    }
+
+    @Test
+    public void failedBatchStopsDelete() {
+        FailedBatch failure = new FailedBatch();
+        failure.setException(new Exception("dummy exception message"));
+        failure.setUnprocessedItems(ImmutableMap.of());
+        when(mockMapper.batchDelete(any(List.class))).thenReturn(ImmutableList.of(failure));
+
+        try {
+            deleter.delete(mockMapper, DynamoUpload2.class, makeKeys(60));
+            fail("expected exception");
+        } catch (BridgeServiceException e) {
+            assertEquals(e.getMessage(), "dummy exception message, ");
+        }
+        // The remaining batches are not deleted.
+        verify(mockMapper, times(1)).batchDelete(any(List.class));
+    }
+
+    @Test(timeOut = 5000)
+    public void unpacedDeleteDoesNotWaitForRateLimit() {
+        // At one item per second, pacing these deletes would take almost a minute.
+        DynamoBulkDeleter slowDeleter = new DynamoBulkDeleter(new DynamoThrottleController(10, 0, 25), 1);
+        List<DynamoUpload2> keys = makeKeys(60);
+
+        AtomicInteger count = new AtomicInteger();
+        DynamoBulkDeleter.runUnpaced(() -> count.set(slowDeleter.delete(mockMapper, DynamoUpload2.class, keys)));
+
+        assertEquals(count.get(), 60);
+        verify(mockMapper, times(3)).batchDelete(any(List.class));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rateMustBePositive() {
+        new DynamoBulkDeleter(new DynamoThrottleController(10, 1000, 25), 0);
+    }
+
+    private static List<DynamoUpload2> makeKeys(int count) {
+        ImmutableList.Builder<DynamoUpload2> builder = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            DynamoUpload2 upload = new DynamoUpload2();
+            upload.setUploadId("upload" + i);
+            builder.add(upload);
+        }
+        return builder.build();
+    }
+}
@@ -80,6 +80,7 @@ public class DynamoHealthDataDaoTest {
         DynamoHealthDataDao dao = new DynamoHealthDataDao();
         dao.setMapper(mockMapper);
         dao.setHealthCodeIndex(mockIndexHelper);
+        dao.setDynamoBulkDeleter(new DynamoBulkDeleter(new DynamoThrottleController(10, 1000, 25), 1000));
         int numDeleted = dao.deleteRecordsForHealthCode("test health code");
         assertEquals(numDeleted, 1);
 
@@ -121,6 +122,7 @@ public class DynamoHealthDataDaoTest {
         DynamoHealthDataDao dao = new DynamoHealthDataDao();
         dao.setMapper(mockMapper);
         dao.setHealthCodeIndex(mockIndexHelper);
+        dao.setDynamoBulkDeleter(new DynamoBulkDeleter(new DynamoThrottleController(10, 1000, 25), 1000));
 
         // execute and validate exception
         Exception thrownEx = null;
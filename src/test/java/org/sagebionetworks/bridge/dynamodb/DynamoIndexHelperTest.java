@@ -139,6 +139,15 @@ public class DynamoIndexHelperTest {
         assertEquals(thingMap.get("jkl; key"), "jkl; value");
     }
     
+    @Test
+    public void iterateKeys() {
+        RangeKeyCondition rangeKeyCondition = new RangeKeyCondition("antwerp").eq("belgium");
+        mockResultsOfQuery(rangeKeyCondition);
+        
+        Iterable<Thing> keys = helper.iterateKeys(Thing.class, "test key", "test value", rangeKeyCondition);
+        validateKeyObjects(Lists.newArrayList(keys));
+    }
+    
     @Test
     public void testCount() {
         mockResultsOfQuery(null);
@@ -8,19 +8,27 @@ import static org.sagebionetworks.bridge.models.reports.ReportType.STUDY;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -34,6 +42,7 @@ import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.DateRangeResourceList;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -48,6 +57,7 @@ public class DynamoReportDataDaoTest extends Mockito {
     static final DateTime END_TIME = DateTime.parse("2016-03-31T17:16:28.711-07:00");
     static final String REPORT_ID = "aReportId";
     static final String OFFSET_KEY = "anOffsetKey";
+    static final int MAX_BATCH_ATTEMPTS = 3;
     static final ReportDataKey STUDY_REPORT_KEY = new ReportDataKey.Builder().withIdentifier(REPORT_ID)
             .withReportType(STUDY).withAppId(TEST_APP_ID).build();
     static final ReportDataKey PARTICIPANT_REPORT_KEY = new ReportDataKey.Builder().withIdentifier(REPORT_ID)
@@ -88,6 +98,11 @@ public class DynamoReportDataDaoTest extends Mockito {
     public void beforeMethod() {
         MockitoAnnotations.initMocks(this);
         
+        DynamoThrottleController dynamoThrottleController = new DynamoThrottleController(10, 1000, 25);
+        dynamoThrottleController.setMaxBatchAttempts(MAX_BATCH_ATTEMPTS);
+        dynamoThrottleController.setRetryDelayMillis(0, 0);
+        dao.setDynamoThrottleController(dynamoThrottleController);
+        
         report0 = createReport(DateTime.parse("2016-03-28T17:16:28.711-07:00"), "g", "h");
         report1 = createReport(DateTime.parse("2016-03-29T17:16:28.711-07:00"), "a", "b");
         report2 = createReport(DateTime.parse("2016-03-30T17:16:28.711-07:00"), "c", "d");
@@ -183,6 +198,29 @@ public class DynamoReportDataDaoTest extends Mockito {
         assertEquals(result.getNextPageOffsetKey(), list.get(5).getDate()); // 5 is the next offsetKey
     }    
     
+    @Test
+    public void streamReportData() {
+        when(mockMapper.query(eq(DynamoReportData.class), any(), eq(DynamoReportDataDao.STREAMING_CONFIG)))
+                .thenReturn(mockQueryList);
+        
+        Iterable<? extends ReportData> result = dao.streamReportData(STUDY_REPORT_KEY, START_DATE, END_DATE);
+        assertSame(result, mockQueryList);
+        
+        verify(mockMapper).query(eq(DynamoReportData.class), queryCaptor.capture(),
+                eq(DynamoReportDataDao.STREAMING_CONFIG));
+        DynamoDBQueryExpression<DynamoReportData> query = queryCaptor.getValue();
+        assertEquals(query.getHashKeyValues().getKey(), STUDY_REPORT_KEY.getKeyString());
+        Condition dateCondition = query.getRangeKeyConditions().get("date");
+        assertEquals(dateCondition.getComparisonOperator(), BETWEEN.name());
+        assertEquals(dateCondition.getAttributeValueList().get(0).getS(), START_DATE.toString());
+        // Includes records saved with a DateTime on the end date
+        String endKey = dateCondition.getAttributeValueList().get(1).getS();
+        assertEquals(endKey, END_DATE.toString() + DynamoReportDataDao.END_OF_DAY_SUFFIX);
+        String lastTimeOnEndDate = END_DATE.toDateTimeAtStartOfDay(DateTimeZone.UTC).plusDays(1).minusMillis(1)
+                .toString();
+        assertTrue(lastTimeOnEndDate.compareTo(endKey) < 0);
+    }
+    
     @Test
     public void saveReportData() {
         dao.saveReportData(report0);
@@ -193,6 +231,65 @@ public class DynamoReportDataDaoTest extends Mockito {
         assertEquals(reportData.getDateTime().getZone(), DateTimeZone.UTC);
     }
     
+    @Test
+    public void saveReportDataRecords() {
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of());
+        
+        List<ReportData> records = ImmutableList.of(report0, report1);
+        dao.saveReportDataRecords(records);
+        
+        verify(mockMapper).batchSave(records);
+        assertEquals(report0.getDateTime().getZone(), DateTimeZone.UTC);
+        assertEquals(report1.getDateTime().getZone(), DateTimeZone.UTC);
+    }
+    
+    @Test
+    public void saveReportDataRecordsRetriesUnprocessedItems() {
+        Map<String, AttributeValue> item = ImmutableMap.of("key", new AttributeValue("value"));
+        FailedBatch failedBatch = createFailedBatch(item);
+        List<ReportData> records = ImmutableList.of(report0, report1);
+        when(mockMapper.batchSave(records)).thenReturn(ImmutableList.of(failedBatch));
+        when(mockMapper.marshallIntoObject(DynamoReportData.class, item)).thenReturn(report1);
+        when(mockMapper.batchSave(ImmutableList.of(report1))).thenReturn(ImmutableList.of());
+        
+        dao.saveReportDataRecords(records);
+        
+        verify(mockMapper).batchSave(records);
+        verify(mockMapper).batchSave(ImmutableList.of(report1));
+    }
+    
+    @Test
+    public void saveReportDataRecordsThrowsWhenRetriesExhausted() {
+        Map<String, AttributeValue> item = ImmutableMap.of("key", new AttributeValue("value"));
+        FailedBatch failedBatch = createFailedBatch(item);
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of(failedBatch));
+        when(mockMapper.marshallIntoObject(DynamoReportData.class, item)).thenReturn(report1);
+        
+        try {
+            dao.saveReportDataRecords(ImmutableList.of(report0, report1));
+            fail("Should have thrown exception");
+        } catch (BridgeServiceException e) {
+            // expected
+        }
+        verify(mockMapper, times(MAX_BATCH_ATTEMPTS)).batchSave(any(List.class));
+    }
+    
+    @Test
+    public void saveReportDataRecordsNoUnprocessedItemsThrowsWithoutRetry() {
+        FailedBatch failedBatch = new FailedBatch();
+        failedBatch.setUnprocessedItems(ImmutableMap.of());
+        failedBatch.setException(new RuntimeException("Failure"));
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of(failedBatch));
+        
+        try {
+            dao.saveReportDataRecords(ImmutableList.of(report0));
+            fail("Should have thrown exception");
+        } catch (BridgeServiceException e) {
+            assertTrue(e.getMessage().contains("Failure"));
+        }
+        verify(mockMapper, times(1)).batchSave(any(List.class));
+    }
+    
     @Test
     public void deleteReportData() {
         when(mockMapper.query(eq(DynamoReportData.class), any())).thenReturn(mockQueryList);
@@ -251,4 +348,12 @@ public class DynamoReportDataDaoTest extends Mockito {
         report.setDateTime(date);
         return report;
     }    
+    
+    private FailedBatch createFailedBatch(Map<String, AttributeValue> item) {
+        WriteRequest request = new WriteRequest().withPutRequest(new PutRequest().withItem(item));
+        FailedBatch failedBatch = new FailedBatch();
+        failedBatch.setUnprocessedItems(ImmutableMap.of("ReportData", ImmutableList.of(request)));
+        failedBatch.setException(new RuntimeException("Failure"));
+        return failedBatch;
+    }
 }
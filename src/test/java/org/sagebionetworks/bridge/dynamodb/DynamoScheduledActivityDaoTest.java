@@ -92,6 +92,7 @@ public class DynamoScheduledActivityDaoTest {
         when(mapper.load(any(DynamoScheduledActivity.class))).thenReturn(testSchActivity);
         activityDao = new DynamoScheduledActivityDao();
         activityDao.setDdbMapper(mapper);
+        activityDao.setDynamoBulkDeleter(new DynamoBulkDeleter(new DynamoThrottleController(10, 1000, 25), 1000));
     }
 
     @AfterMethod
@@ -328,6 +329,39 @@ public class DynamoScheduledActivityDaoTest {
         assertEquals(results.getRequestParams().get("scheduledOnEnd"), SCHEDULED_ON_END.toString());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamActivityHistory() {
+        ArgumentCaptor<DynamoDBQueryExpression<DynamoScheduledActivity>> queryCaptor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        
+        DynamoScheduledActivity activity1 = new DynamoScheduledActivity();
+        DynamoScheduledActivity activity2 = new DynamoScheduledActivity();
+        PaginatedQueryList<DynamoScheduledActivity> queryResults = mock(PaginatedQueryList.class);
+        when(queryResults.iterator()).thenReturn(ImmutableList.of(activity1, activity2).iterator());
+        when(mapper.query(eq(DynamoScheduledActivity.class), any(),
+                eq(DynamoScheduledActivityDao.STREAMING_CONFIG))).thenReturn(queryResults);
+        
+        Iterable<ScheduledActivity> results = activityDao.streamActivityHistory(HEALTH_CODE, ACTIVITY_GUID,
+                SCHEDULED_ON_START, SCHEDULED_ON_END);
+        
+        verify(mapper).query(eq(DynamoScheduledActivity.class), queryCaptor.capture(),
+                eq(DynamoScheduledActivityDao.STREAMING_CONFIG));
+        DynamoDBQueryExpression<DynamoScheduledActivity> query = queryCaptor.getValue();
+        assertEquals(query.getHashKeyValues().getHealthCode(), HEALTH_CODE);
+        assertNull(query.getLimit());
+        assertEquals(query.isScanIndexForward(), Boolean.FALSE);
+        Condition condition = query.getRangeKeyConditions().get("guid");
+        assertEquals(condition.getAttributeValueList().get(0).getS(),
+                ACTIVITY_GUID + ":" + SCHEDULED_ON_START.toLocalDateTime().toString());
+        assertEquals(condition.getAttributeValueList().get(1).getS(),
+                ACTIVITY_GUID + ":" + SCHEDULED_ON_END.toLocalDateTime().toString());
+        
+        List<ScheduledActivity> activities = ImmutableList.copyOf(results);
+        assertEquals(activities.size(), 2);
+        assertEquals(activities.get(0).getTimeZone(), SCHEDULED_ON_START.getZone());
+        assertEquals(activities.get(1).getTimeZone(), SCHEDULED_ON_START.getZone());
+    }
+    
     @Test(expectedExceptions = BadRequestException.class)
     public void getActivityHistoryV2PageBelowMinSize() {
         activityDao.getActivityHistoryV2(HEALTH_CODE, ACTIVITY_GUID, SCHEDULED_ON_START, SCHEDULED_ON_END, OFFSET_KEY,
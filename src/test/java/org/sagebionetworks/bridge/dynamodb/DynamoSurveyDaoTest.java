@@ -106,6 +106,7 @@ public class DynamoSurveyDaoTest extends Mockito {
         // These are not injected correctly
         dao.setSurveyMapper(mockSurveyMapper);
         dao.setSurveyElementMapper(mockSurveyElementMapper);
+        dao.setDynamoThrottleController(new DynamoThrottleController(10, 1000, 25));
         
         doReturn(GUID).when(dao).generateGuid();
         DateTimeUtils.setCurrentMillisFixed(CREATED_ON);
@@ -0,0 +1,294 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTimeUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.models.Metrics;
+
+public class DynamoThrottleControllerTest {
+    private static final String TABLE = "local-test-Upload2";
+    private static final String OTHER_TABLE = "local-test-HealthCode";
+    private static final long NOW = 1600000000000L;
+    private static final Map<String, AttributeValue> ITEM = ImmutableMap.of("key", new AttributeValue("value"));
+
+    private DynamoThrottleController controller;
+
+    @BeforeMethod
+    public void before() {
+        DateTimeUtils.setCurrentMillisFixed(NOW);
+        controller = new DynamoThrottleController(10, 0, 25);
+        controller.setMaxBatchAttempts(3);
+        controller.setRetryDelayMillis(0, 0);
+    }
+
+    @AfterMethod
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+        RequestContext.set(null);
+    }
+
+    @Test
+    public void getItemCountsByTable() {
+        assertEquals(DynamoThrottleController.getItemCountsByTable(new GetItemRequest().withTableName(TABLE)),
+                ImmutableMap.of(TABLE, 1));
+
+        BatchWriteItemRequest batchRequest = new BatchWriteItemRequest().withRequestItems(ImmutableMap.of(
+                TABLE, ImmutableList.of(putRequest(), putRequest()),
+                OTHER_TABLE, ImmutableList.of(putRequest())));
+        assertEquals(DynamoThrottleController.getItemCountsByTable(batchRequest),
+                ImmutableMap.of(TABLE, 2, OTHER_TABLE, 1));
+
+        assertTrue(DynamoThrottleController.getItemCountsByTable(new DescribeTableRequest(TABLE)).isEmpty());
+    }
+
+    @Test
+    public void beforeExecutionRequestsConsumedCapacity() {
+        GetItemRequest request = new GetItemRequest().withTableName(TABLE);
+        controller.beforeExecution(request);
+
+        assertEquals(request.getReturnConsumedCapacity(), ReturnConsumedCapacity.TOTAL.toString());
+        assertEquals(request.getHandlerContext(DynamoThrottleController.START_MILLIS), Long.valueOf(NOW));
+    }
+
+    @Test
+    public void tableIsNotPacedUntilThrottled() {
+        callTable(TABLE, 1000);
+        Request<?> request = mockRequest(new GetItemRequest().withTableName(TABLE));
+        controller.afterResponse(request, new Response<>(new GetItemResult(), null));
+
+        assertEquals(controller.getRate(TABLE), 0.0);
+    }
+
+    @Test
+    public void throttledBatchPacesTableAtHalfItsCallRate() {
+        callTable(TABLE, 1000);
+        BatchWriteItemRequest batchRequest = new BatchWriteItemRequest().withRequestItems(ImmutableMap.of(
+                TABLE, ImmutableList.of(putRequest(), putRequest()),
+                OTHER_TABLE, ImmutableList.of(putRequest())));
+        BatchWriteItemResult result = new BatchWriteItemResult()
+                .withUnprocessedItems(ImmutableMap.of(TABLE, ImmutableList.of(putRequest())));
+
+        controller.afterResponse(mockRequest(batchRequest), new Response<>(result, null));
+
+        assertEquals(controller.getRate(TABLE), 500.0);
+        assertEquals(controller.getRate(OTHER_TABLE), 0.0);
+    }
+
+    @Test
+    public void callRateIsTakenFromTheBusierInterval() {
+        callTable(TABLE, 200);
+        DateTimeUtils.setCurrentMillisFixed(NOW + 1500);
+        callTable(TABLE, 10);
+
+        controller.afterError(mockRequest(new GetItemRequest().withTableName(TABLE)), null, throttlingException());
+
+        assertEquals(controller.getRate(TABLE), 100.0);
+    }
+
+    @Test
+    public void rateChangesAtMostOncePerInterval() {
+        callTable(TABLE, 1000);
+        Request<?> request = mockRequest(new GetItemRequest().withTableName(TABLE));
+        AmazonServiceException ex = throttlingException();
+
+        controller.afterError(request, null, ex);
+        controller.afterError(request, null, ex);
+        assertEquals(controller.getRate(TABLE), 500.0);
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + DynamoThrottleController.RATE_CHANGE_INTERVAL_MILLIS);
+        controller.afterError(request, null, ex);
+        assertEquals(controller.getRate(TABLE), 250.0);
+    }
+
+    @Test
+    public void successIncreasesRateUntilTableIsNoLongerPaced() {
+        callTable(TABLE, 100);
+        Request<?> request = mockRequest(new GetItemRequest().withTableName(TABLE));
+        controller.afterError(request, null, throttlingException());
+        assertEquals(controller.getRate(TABLE), 50.0);
+
+        // Too soon after the decrease
+        controller.afterResponse(request, new Response<>(new GetItemResult(), null));
+        assertEquals(controller.getRate(TABLE), 50.0);
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + DynamoThrottleController.RATE_CHANGE_INTERVAL_MILLIS);
+        controller.afterResponse(request, new Response<>(new GetItemResult(), null));
+        assertEquals(controller.getRate(TABLE), 75.0);
+
+        // Back up to the rate that was throttled
+        DateTimeUtils.setCurrentMillisFixed(NOW + 2 * DynamoThrottleController.RATE_CHANGE_INTERVAL_MILLIS);
+        controller.afterResponse(request, new Response<>(new GetItemResult(), null));
+        assertEquals(controller.getRate(TABLE), 0.0);
+    }
+
+    @Test
+    public void rateNeverFallsBelowMin() {
+        Request<?> request = mockRequest(new GetItemRequest().withTableName(TABLE));
+        for (int i = 0; i < 10; i++) {
+            DateTimeUtils.setCurrentMillisFixed(NOW + i * DynamoThrottleController.RATE_CHANGE_INTERVAL_MILLIS);
+            controller.afterError(request, null, throttlingException());
+        }
+        assertEquals(controller.getRate(TABLE), 10.0);
+    }
+
+    @Test
+    public void otherErrorsDoNotPaceTable() {
+        AmazonServiceException ex = new AmazonServiceException("Bad request");
+        ex.setErrorCode("ValidationException");
+        ex.setStatusCode(400);
+
+        controller.afterError(mockRequest(new GetItemRequest().withTableName(TABLE)), null, ex);
+
+        assertEquals(controller.getRate(TABLE), 0.0);
+    }
+
+    @Test
+    public void configuredMaxCapsRate() {
+        controller = new DynamoThrottleController(10, 1000, 25);
+        Request<?> request = mockRequest(new GetItemRequest().withTableName(TABLE));
+        assertEquals(controller.getRate(TABLE), 1000.0);
+
+        controller.afterError(request, null, throttlingException());
+        assertEquals(controller.getRate(TABLE), 500.0);
+
+        for (int i = 1; i <= 30; i++) {
+            DateTimeUtils.setCurrentMillisFixed(NOW + i * DynamoThrottleController.RATE_CHANGE_INTERVAL_MILLIS);
+            controller.afterResponse(request, new Response<>(new GetItemResult(), null));
+        }
+        assertEquals(controller.getRate(TABLE), 1000.0);
+    }
+
+    @Test
+    public void recordsLatencyAndConsumedCapacity() {
+        Metrics metrics = new Metrics("12345");
+        RequestContext.set(new RequestContext.Builder().withMetrics(metrics).build());
+
+        GetItemRequest getRequest = new GetItemRequest().withTableName(TABLE);
+        controller.beforeExecution(getRequest);
+        DateTimeUtils.setCurrentMillisFixed(NOW + 15);
+        GetItemResult result = new GetItemResult().withConsumedCapacity(
+                new ConsumedCapacity().withTableName(TABLE).withCapacityUnits(0.5));
+        controller.afterResponse(mockRequest(getRequest), new Response<>(result, null));
+
+        JsonNode node = metrics.getJson().get("dynamo_requests").get(TABLE);
+        assertEquals(node.get("count").intValue(), 1);
+        assertEquals(node.get("elapsedMillis").longValue(), 15L);
+        assertEquals(node.get("consumedCapacity").doubleValue(), 0.5);
+    }
+
+    @Test
+    public void batchSaveResubmitsUnprocessedItems() {
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        DynamoReportData record = new DynamoReportData();
+        DynamoReportData unprocessed = new DynamoReportData();
+        List<DynamoReportData> records = ImmutableList.of(record, unprocessed);
+        when(mockMapper.batchSave(records)).thenReturn(ImmutableList.of(failedBatch(putRequest(), null)));
+        when(mockMapper.marshallIntoObject(DynamoReportData.class, ITEM)).thenReturn(unprocessed);
+        when(mockMapper.batchSave(ImmutableList.of(unprocessed))).thenReturn(ImmutableList.of());
+
+        List<FailedBatch> failures = controller.batchSave(mockMapper, DynamoReportData.class, records);
+
+        assertTrue(failures.isEmpty());
+        verify(mockMapper).batchSave(ImmutableList.of(unprocessed));
+    }
+
+    @Test
+    public void batchDeleteResubmitsThrottledItemsUntilMaxAttempts() {
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        DynamoReportData record = new DynamoReportData();
+        List<DynamoReportData> records = ImmutableList.of(record);
+        WriteRequest deleteRequest = new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(ITEM));
+        List<FailedBatch> failedBatches = ImmutableList.of(failedBatch(deleteRequest, throttlingException()));
+        when(mockMapper.batchDelete(records)).thenReturn(failedBatches);
+        when(mockMapper.marshallIntoObject(DynamoReportData.class, ITEM)).thenReturn(record);
+
+        List<FailedBatch> failures = controller.batchDelete(mockMapper, DynamoReportData.class, records);
+
+        assertEquals(failures, failedBatches);
+        verify(mockMapper, times(3)).batchDelete(records);
+    }
+
+    @Test
+    public void batchSaveDoesNotResubmitBadRequests() {
+        AmazonServiceException ex = new AmazonServiceException("Bad request");
+        ex.setErrorCode("ValidationException");
+        ex.setStatusCode(400);
+
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        List<DynamoReportData> records = ImmutableList.of(new DynamoReportData());
+        List<FailedBatch> failedBatches = ImmutableList.of(failedBatch(putRequest(), ex));
+        when(mockMapper.batchSave(records)).thenReturn(failedBatches);
+
+        List<FailedBatch> failures = controller.batchSave(mockMapper, DynamoReportData.class, records);
+
+        assertEquals(failures, failedBatches);
+        verify(mockMapper, times(1)).batchSave(records);
+    }
+
+    // Makes calls to the table that read or write this many items.
+    private void callTable(String tableName, int items) {
+        List<WriteRequest> writes = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            writes.add(putRequest());
+        }
+        controller.beforeExecution(new BatchWriteItemRequest().withRequestItems(ImmutableMap.of(tableName, writes)));
+    }
+
+    private static Request<?> mockRequest(AmazonWebServiceRequest originalRequest) {
+        Request<?> request = mock(Request.class);
+        when(request.getOriginalRequest()).thenReturn(originalRequest);
+        return request;
+    }
+
+    private static WriteRequest putRequest() {
+        return new WriteRequest().withPutRequest(new PutRequest().withItem(ITEM));
+    }
+
+    private static FailedBatch failedBatch(WriteRequest request, Exception ex) {
+        FailedBatch failedBatch = new FailedBatch();
+        failedBatch.setUnprocessedItems(ImmutableMap.of(TABLE, ImmutableList.of(request)));
+        failedBatch.setException(ex);
+        return failedBatch;
+    }
+
+    private static AmazonServiceException throttlingException() {
+        AmazonServiceException ex = new AmazonServiceException("Throughput exceeded");
+        ex.setErrorCode("ProvisionedThroughputExceededException");
+        ex.setStatusCode(400);
+        return ex;
+    }
+}
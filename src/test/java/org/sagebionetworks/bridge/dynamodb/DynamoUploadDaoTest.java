@@ -4,6 +4,7 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
@@ -125,6 +126,7 @@ public class DynamoUploadDaoTest {
         dao.setDdbMapper(mockMapper);
         dao.setHealthCodeDao(healthCodeDao);
         dao.setHealthCodeRequestedOnIndex(mockIndexHelper);
+        dao.setDynamoBulkDeleter(new DynamoBulkDeleter(new DynamoThrottleController(10, 1000, 25), 1000));
     }
 
     @Test
@@ -196,6 +198,28 @@ public class DynamoUploadDaoTest {
         assertEquals(retVal.getAppId(), TEST_APP_ID);
     }
 
+    @Test
+    public void getUploadWithoutAppIdRemembersAppId() {
+        when(mockMapper.load(any(DynamoUpload2.class))).thenAnswer(invocation -> {
+            DynamoUpload2 upload = new DynamoUpload2();
+            upload.setHealthCode("healthCode");
+            return upload;
+        });
+        when(healthCodeDao.getAppId("healthCode")).thenReturn(TEST_APP_ID);
+
+        assertEquals(dao.getUpload("upload-1").getAppId(), TEST_APP_ID);
+        assertEquals(dao.getUpload("upload-2").getAppId(), TEST_APP_ID);
+        verify(healthCodeDao, times(1)).getAppId("healthCode");
+
+        // Deleting the health code's uploads forgets the app ID.
+        when(mockIndexHelper.iterateKeys(DynamoUpload2.class, "healthCode", "healthCode", null))
+                .thenReturn(ImmutableList.of());
+        dao.deleteUploadsForHealthCode("healthCode");
+
+        assertEquals(dao.getUpload("upload-3").getAppId(), TEST_APP_ID);
+        verify(healthCodeDao, times(2)).getAppId("healthCode");
+    }
+
     @Test(expectedExceptions = EntityNotFoundException.class)
     public void getUploadWithoutAppIdAndNoHealthCodeRecord() {
         DynamoUpload2 upload = new DynamoUpload2();
@@ -480,23 +504,23 @@ public class DynamoUploadDaoTest {
     @Test
     public void deleteUploadsForHealthCode() {
         List<DynamoUpload2> uploads = ImmutableList.of(new DynamoUpload2());
-        when(mockIndexHelper.queryKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null)).thenReturn(uploads);
+        when(mockIndexHelper.iterateKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null)).thenReturn(uploads);
 
         dao.deleteUploadsForHealthCode("oneHealthCode");
 
-        verify(mockIndexHelper).queryKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null);
+        verify(mockIndexHelper).iterateKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null);
         verify(mockMapper).batchDelete(uploads);
     }
 
     @SuppressWarnings("unchecked")
     @Test
     public void deleteUploadsForHealthCodeFailsSilently() {
-        when(mockIndexHelper.queryKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null))
+        when(mockIndexHelper.iterateKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null))
                 .thenReturn(ImmutableList.of());
 
         dao.deleteUploadsForHealthCode("oneHealthCode");
         
-        verify(mockIndexHelper).queryKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null);
+        verify(mockIndexHelper).iterateKeys(DynamoUpload2.class, "healthCode", "oneHealthCode", null);
         verify(mockMapper, never()).batchDelete(any(List.class));
     }
 
@@ -9,6 +9,9 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_ORG_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY_ID;
 import static org.sagebionetworks.bridge.dao.AccountDao.MIGRATION_VERSION;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.CORE;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.FULL;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.UPLOAD_METADATA;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.ENABLED;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.UNVERIFIED;
 import static org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM;
@@ -30,6 +33,10 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
+import org.hibernate.collection.internal.PersistentList;
+import org.hibernate.collection.internal.PersistentMap;
+import org.hibernate.collection.internal.PersistentSet;
+import org.hibernate.collection.spi.PersistentCollection;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.mockito.ArgumentCaptor;
@@ -47,6 +54,7 @@ import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
+import org.sagebionetworks.bridge.models.TotalCount;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.AccountSummary;
@@ -137,7 +145,7 @@ public class HibernateAccountDaoTest extends Mockito {
     @Test
     public void getByEmail() throws Exception {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
-        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any()))
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any(), any()))
                 .thenReturn(ImmutableList.of(hibernateAccount));
 
         Account account = dao.getAccount(ACCOUNT_ID_WITH_EMAIL).get();
@@ -210,7 +218,8 @@ public class HibernateAccountDaoTest extends Mockito {
         // mock hibernate
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
         hibernateAccount.setHealthCode("original-" + HEALTH_CODE);
-        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID))).thenReturn(hibernateAccount);
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), any()))
+                .thenReturn(hibernateAccount);
 
         // execute and validate - just validate ID, app, and email, and health code mapping
         Account account = dao.getAccount(ACCOUNT_ID_WITH_ID).get();
@@ -229,7 +238,8 @@ public class HibernateAccountDaoTest extends Mockito {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
         // Clear these fields to verify that they are created
         hibernateAccount.setHealthCode(null);
-        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID))).thenReturn(hibernateAccount);
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), any()))
+                .thenReturn(hibernateAccount);
         when(mockHibernateHelper.update(any())).thenReturn(hibernateAccount);
         
         // execute and validate - just validate ID, app, and email, and health code mapping
@@ -246,7 +256,7 @@ public class HibernateAccountDaoTest extends Mockito {
     @Test
     public void getByIdNotFound() {
         // mock hibernate
-        when(mockHibernateHelper.getById(HibernateAccount.class, ACCOUNT_ID)).thenReturn(null);
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), any())).thenReturn(null);
 
         // execute and validate
         Optional<Account> opt = dao.getAccount(ACCOUNT_ID_WITH_ID);
@@ -258,14 +268,16 @@ public class HibernateAccountDaoTest extends Mockito {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
         hibernateAccount.setHealthCode(null);
         hibernateAccount.setAppId(TEST_APP_ID);
-        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID))).thenReturn(hibernateAccount);
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), any()))
+                .thenReturn(hibernateAccount);
 
         // execute and validate
         AccountId wrongApp = AccountId.forId("wrong-app", ACCOUNT_ID);
         Optional<Account> opt = dao.getAccount(wrongApp);
         assertFalse(opt.isPresent());
         
-        verify(mockHibernateHelper).getById(eq(HibernateAccount.class), eq(wrongApp.getUnguardedAccountId().getId()));
+        verify(mockHibernateHelper).getById(eq(HibernateAccount.class), eq(wrongApp.getUnguardedAccountId().getId()),
+                any());
     }
     
     @Test
@@ -277,7 +289,7 @@ public class HibernateAccountDaoTest extends Mockito {
         // mock hibernate
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
         hibernateAccount.setHealthCode("original-" + HEALTH_CODE);
-        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any()))
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any(), any()))
                 .thenReturn(ImmutableList.of(hibernateAccount));
 
         // execute and validate - just validate ID, app, and email, and health code mapping
@@ -289,7 +301,7 @@ public class HibernateAccountDaoTest extends Mockito {
 
         // verify hibernate query
         verify(mockHibernateHelper).queryGet(eq(expQuery), eq(EMAIL_QUERY_PARAMS), isNull(), isNull(),
-                eq(HibernateAccount.class));
+                eq(HibernateAccount.class), any());
 
         // We don't create a new health code mapping nor update the account.
         verify(mockHibernateHelper, never()).update(any());
@@ -307,7 +319,7 @@ public class HibernateAccountDaoTest extends Mockito {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
         // Clear these fields to verify that they are created
         hibernateAccount.setHealthCode(null);
-        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any()))
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any(), any()))
                 .thenReturn(ImmutableList.of(hibernateAccount));
 
         when(mockHibernateHelper.update(any())).thenReturn(hibernateAccount);
@@ -320,7 +332,8 @@ public class HibernateAccountDaoTest extends Mockito {
         assertEquals(account.getHealthCode(), HEALTH_CODE);
 
         // verify hibernate query
-        verify(mockHibernateHelper).queryGet(eq(expQuery), eq(EMAIL_QUERY_PARAMS), isNull(), isNull(), eq(HibernateAccount.class));
+        verify(mockHibernateHelper).queryGet(eq(expQuery), eq(EMAIL_QUERY_PARAMS), isNull(), isNull(), eq(HibernateAccount.class),
+                any());
         
         // Verify we create the new health code mapping
         verifyCreatedHealthCode();
@@ -329,7 +342,7 @@ public class HibernateAccountDaoTest extends Mockito {
     @Test
     public void getByEmailNotFound() {
         // mock hibernate
-        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any())).thenReturn(ImmutableList.of());
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any(), any())).thenReturn(ImmutableList.of());
 
         // execute and validate
         Optional<Account> opt = dao.getAccount(ACCOUNT_ID_WITH_EMAIL);
@@ -345,7 +358,7 @@ public class HibernateAccountDaoTest extends Mockito {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
         // mock hibernate
         when(mockHibernateHelper.queryGet(eq(expQuery), eq(PHONE_QUERY_PARAMS), isNull(), isNull(),
-                eq(HibernateAccount.class))).thenReturn(ImmutableList.of(hibernateAccount));
+                eq(HibernateAccount.class), any())).thenReturn(ImmutableList.of(hibernateAccount));
 
         // execute and validate
         Account account = dao.getAccount(ACCOUNT_ID_WITH_PHONE).get();
@@ -367,7 +380,7 @@ public class HibernateAccountDaoTest extends Mockito {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
         // mock hibernate
         when(mockHibernateHelper.queryGet(eq(expQuery), eq(SYNAPSE_QUERY_PARAMS), isNull(), isNull(),
-                eq(HibernateAccount.class))).thenReturn(ImmutableList.of(hibernateAccount));
+                eq(HibernateAccount.class), any())).thenReturn(ImmutableList.of(hibernateAccount));
 
         // execute and validate
         Account account = dao.getAccount(ACCOUNT_ID_WITH_SYNID).get();
@@ -390,7 +403,7 @@ public class HibernateAccountDaoTest extends Mockito {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
         // mock hibernate
         when(mockHibernateHelper.queryGet(eq(expQuery), eq(HEALTHCODE_QUERY_PARAMS), isNull(), isNull(),
-                eq(HibernateAccount.class))).thenReturn(ImmutableList.of(hibernateAccount));
+                eq(HibernateAccount.class), any())).thenReturn(ImmutableList.of(hibernateAccount));
 
         // execute and validate
         Account account = dao.getAccount(ACCOUNT_ID_WITH_HEALTHCODE).get();
@@ -413,7 +426,7 @@ public class HibernateAccountDaoTest extends Mockito {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
         // mock hibernate
         when(mockHibernateHelper.queryGet(eq(expQuery), eq(EXTID_QUERY_PARAMS), isNull(), isNull(),
-                eq(HibernateAccount.class))).thenReturn(ImmutableList.of(hibernateAccount));
+                eq(HibernateAccount.class), any())).thenReturn(ImmutableList.of(hibernateAccount));
 
         // execute and validate
         Account account = dao.getAccount(ACCOUNT_ID_WITH_EXTID).get();
@@ -426,6 +439,95 @@ public class HibernateAccountDaoTest extends Mockito {
         assertFalse(opt.isPresent());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getByIdInitializesProfileCollections() throws Exception {
+        HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), any()))
+                .thenReturn(hibernateAccount);
+
+        dao.getAccount(ACCOUNT_ID_WITH_ID, CORE);
+
+        ArgumentCaptor<Consumer<HibernateAccount>> initializerCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockHibernateHelper).getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), initializerCaptor.capture());
+
+        HibernateAccount lazyAccount = makeLazyHibernateAccount();
+        initializerCaptor.getValue().accept(lazyAccount);
+        verify((PersistentCollection)lazyAccount.getEnrollments()).forceInitialization();
+        verify((PersistentCollection)lazyAccount.getDataGroups(), never()).forceInitialization();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getByEmailInitializesProfileCollections() throws Exception {
+        HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any(), any()))
+                .thenReturn(ImmutableList.of(hibernateAccount));
+
+        dao.getAccount(ACCOUNT_ID_WITH_EMAIL, UPLOAD_METADATA);
+
+        ArgumentCaptor<Consumer<HibernateAccount>> initializerCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockHibernateHelper).queryGet(any(), any(), isNull(), isNull(), eq(HibernateAccount.class),
+                initializerCaptor.capture());
+
+        HibernateAccount lazyAccount = makeLazyHibernateAccount();
+        initializerCaptor.getValue().accept(lazyAccount);
+        verify((PersistentCollection)lazyAccount.getEnrollments()).forceInitialization();
+        verify((PersistentCollection)lazyAccount.getDataGroups()).forceInitialization();
+        verify((PersistentCollection)lazyAccount.getAttributes(), never()).forceInitialization();
+    }
+
+    @Test
+    public void initializeCollectionsCore() {
+        HibernateAccount account = makeLazyHibernateAccount();
+
+        dao.initializeCollections(account, CORE);
+
+        verify((PersistentCollection)account.getEnrollments()).forceInitialization();
+        verify((PersistentCollection)account.getDataGroups(), never()).forceInitialization();
+        verify((PersistentCollection)account.getAttributes(), never()).forceInitialization();
+        verify((PersistentCollection)account.getConsents(), never()).forceInitialization();
+        verify((PersistentCollection)account.getRoles(), never()).forceInitialization();
+        verify((PersistentCollection)account.getLanguages(), never()).forceInitialization();
+    }
+
+    @Test
+    public void initializeCollectionsUploadMetadata() {
+        HibernateAccount account = makeLazyHibernateAccount();
+
+        dao.initializeCollections(account, UPLOAD_METADATA);
+
+        verify((PersistentCollection)account.getEnrollments()).forceInitialization();
+        verify((PersistentCollection)account.getDataGroups()).forceInitialization();
+        verify((PersistentCollection)account.getAttributes(), never()).forceInitialization();
+        verify((PersistentCollection)account.getConsents(), never()).forceInitialization();
+        verify((PersistentCollection)account.getRoles(), never()).forceInitialization();
+        verify((PersistentCollection)account.getLanguages(), never()).forceInitialization();
+    }
+
+    @Test
+    public void initializeCollectionsFull() {
+        HibernateAccount account = makeLazyHibernateAccount();
+
+        dao.initializeCollections(account, FULL);
+
+        verify((PersistentCollection)account.getEnrollments()).forceInitialization();
+        verify((PersistentCollection)account.getDataGroups()).forceInitialization();
+        verify((PersistentCollection)account.getAttributes()).forceInitialization();
+        verify((PersistentCollection)account.getConsents()).forceInitialization();
+        verify((PersistentCollection)account.getRoles()).forceInitialization();
+        verify((PersistentCollection)account.getLanguages()).forceInitialization();
+    }
+
+    @Test
+    public void getAccountLoadsFullProfile() throws Exception {
+        doReturn(Optional.empty()).when(dao).getAccount(ACCOUNT_ID_WITH_ID, FULL);
+
+        dao.getAccount(ACCOUNT_ID_WITH_ID);
+
+        verify(dao).getAccount(ACCOUNT_ID_WITH_ID, FULL);
+    }
+
     @Test
     public void deleteWithId() throws Exception {
         HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
@@ -466,8 +568,10 @@ public class HibernateAccountDaoTest extends Mockito {
 
         when(mockHibernateHelper.queryGet(expQuery, APP_QUERY_PARAMS, 10, 5, String.class))
                 .thenReturn(ImmutableList.of("account-1", "account-2"));
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-1")).thenReturn(hibernateAccount1);        
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-2")).thenReturn(hibernateAccount2);
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq("account-1"), any()))
+                .thenReturn(hibernateAccount1);        
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq("account-2"), any()))
+                .thenReturn(hibernateAccount2);
         when(mockHibernateHelper.queryCount(eq(expCountQuery), any())).thenReturn(12);
 
         // execute and validate
@@ -503,11 +607,59 @@ public class HibernateAccountDaoTest extends Mockito {
 
         // verify hibernate calls
         verify(mockHibernateHelper).queryGet(eq(expQuery), eq(APP_QUERY_PARAMS), eq(10), eq(5), eq(String.class));
-        verify(mockHibernateHelper).getById(HibernateAccount.class, "account-1");
-        verify(mockHibernateHelper).getById(HibernateAccount.class, "account-2");
+        verify(mockHibernateHelper).getById(eq(HibernateAccount.class), eq("account-1"), any());
+        verify(mockHibernateHelper).getById(eq(HibernateAccount.class), eq("account-2"), any());
         verify(mockHibernateHelper).queryCount(expCountQuery, APP_QUERY_PARAMS);
     }
 
+    @Test
+    public void getPagedWithoutTotal() throws Exception {
+        List<String> ids = ImmutableList.of("account-1", "account-2", "account-3");
+        when(mockHibernateHelper.queryGet(any(), any(), eq(0), eq(3), eq(String.class))).thenReturn(ids);
+        for (String id : ids) {
+            HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
+            hibernateAccount.setId(id);
+            when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(id), any()))
+                    .thenReturn(hibernateAccount);
+        }
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(2)
+                .withTotalCount(TotalCount.NONE).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+
+        // The extra account is only used to determine that there's a next page.
+        assertEquals(page.getItems().size(), 2);
+        assertEquals(page.getItems().get(1).getId(), "account-2");
+        assertTrue(page.hasNext());
+        assertNull(page.getTotal());
+        assertEquals(page.getRequestParams().get("totalCount"), TotalCount.NONE);
+
+        verify(mockHibernateHelper, never()).getById(eq(HibernateAccount.class), eq("account-3"), any());
+        verify(mockHibernateHelper, never()).queryCount(any(), any());
+        verify(mockHibernateHelper, never()).queryEstimatedCount(any(), any());
+    }
+
+    @Test
+    public void getPagedWithEstimatedTotal() throws Exception {
+        HibernateAccount hibernateAccount = makeValidHibernateAccount(false);
+        hibernateAccount.setId("account-1");
+        when(mockHibernateHelper.queryGet(any(), any(), eq(0), eq(3), eq(String.class)))
+                .thenReturn(ImmutableList.of("account-1"));
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq("account-1"), any()))
+                .thenReturn(hibernateAccount);
+        when(mockHibernateHelper.queryEstimatedCount(any(), any())).thenReturn(20);
+
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(2)
+                .withTotalCount(TotalCount.ESTIMATED).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+
+        assertEquals(page.getItems().size(), 1);
+        assertFalse(page.hasNext());
+        assertEquals(page.getTotal(), (Integer) 20);
+
+        verify(mockHibernateHelper, never()).queryCount(any(), any());
+    }
+
     @Test
     public void getPagedRemovesStudiesNotInCaller() throws Exception {
         RequestContext.set(new RequestContext.Builder()
@@ -526,8 +678,10 @@ public class HibernateAccountDaoTest extends Mockito {
         hibernateAccount2.setEnrollments(set);
         when(mockHibernateHelper.queryGet(any(), any(), any(), any(), any()))
                 .thenReturn(ImmutableList.of("account-1", "account-2"));
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-1")).thenReturn(hibernateAccount1);
-        when(mockHibernateHelper.getById(HibernateAccount.class, "account-2")).thenReturn(hibernateAccount2);
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq("account-1"), any()))
+                .thenReturn(hibernateAccount1);
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq("account-2"), any()))
+                .thenReturn(hibernateAccount2);
 
         AccountSummarySearch search = new AccountSummarySearch.Builder().build();
         PagedResourceList<AccountSummary> accountSummaryResourceList = dao.getPagedAccountSummaries(TEST_APP_ID, search);
@@ -563,7 +717,7 @@ public class HibernateAccountDaoTest extends Mockito {
         // mock hibernate
         when(mockHibernateHelper.queryGet(eq(expQuery), any(), any(), any(), any()))
                 .thenReturn(ImmutableList.of(ACCOUNT_ID));
-        when(mockHibernateHelper.getById(HibernateAccount.class, ACCOUNT_ID))
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), any()))
                 .thenReturn(makeValidHibernateAccount(false));
         when(mockHibernateHelper.queryCount(eq(expCountQuery), any())).thenReturn(11);
 
@@ -608,7 +762,7 @@ public class HibernateAccountDaoTest extends Mockito {
         params.put("orgId", TEST_ORG_ID);
 
         verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(10), eq(5), eq(String.class));
-        verify(mockHibernateHelper).getById(HibernateAccount.class, ACCOUNT_ID);
+        verify(mockHibernateHelper).getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), any());
         verify(mockHibernateHelper).queryCount(eq(expCountQuery), paramCaptor.capture());
 
         Map<String, Object> capturedParams = paramCaptor.getAllValues().get(0);
@@ -681,7 +835,7 @@ public class HibernateAccountDaoTest extends Mockito {
         // mock hibernate
         when(mockHibernateHelper.queryGet(eq(expQuery), any(), any(), any(), any()))
                 .thenReturn(ImmutableList.of(ACCOUNT_ID));
-        when(mockHibernateHelper.getById(HibernateAccount.class, ACCOUNT_ID))
+        when(mockHibernateHelper.getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), any()))
             .thenReturn(makeValidHibernateAccount(false));
         when(mockHibernateHelper.queryCount(any(), any())).thenReturn(11);
 
@@ -716,7 +870,7 @@ public class HibernateAccountDaoTest extends Mockito {
         params.put("language", "de");
 
         verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(10), eq(5), eq(String.class));
-        verify(mockHibernateHelper).getById(HibernateAccount.class, ACCOUNT_ID);
+        verify(mockHibernateHelper).getById(eq(HibernateAccount.class), eq(ACCOUNT_ID), any());
         verify(mockHibernateHelper).queryCount(eq(expCountQuery), paramCaptor.capture());
 
         Map<String, Object> capturedParams = paramCaptor.getAllValues().get(0);
@@ -1098,6 +1252,19 @@ public class HibernateAccountDaoTest extends Mockito {
         return genericAccount;
     }
 
+    // Create a Hibernate account whose collections have not been loaded.
+    @SuppressWarnings("unchecked")
+    private static HibernateAccount makeLazyHibernateAccount() {
+        HibernateAccount hibernateAccount = new HibernateAccount();
+        hibernateAccount.setAttributes(mock(PersistentMap.class));
+        hibernateAccount.setConsents(mock(PersistentMap.class));
+        hibernateAccount.setRoles(mock(PersistentSet.class));
+        hibernateAccount.setDataGroups(mock(PersistentSet.class));
+        hibernateAccount.setLanguages(mock(PersistentList.class));
+        hibernateAccount.setEnrollments(mock(PersistentSet.class));
+        return hibernateAccount;
+    }
+
     // Create minimal Hibernate account for everything that will be used by HibernateAccountDao.
     private static HibernateAccount makeValidHibernateAccount(boolean generatePasswordHash) throws Exception {
         HibernateAccount hibernateAccount = new HibernateAccount();
@@ -0,0 +1,164 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import static org.sagebionetworks.bridge.TestConstants.EMAIL;
+import static org.sagebionetworks.bridge.TestConstants.HEALTH_CODE;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY_ID;
+import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.CORE;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.FULL;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.UPLOAD_METADATA;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.expectThrows;
+
+import java.util.Properties;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.joda.time.DateTime;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.Roles;
+import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountId;
+import org.sagebionetworks.bridge.models.accounts.AccountLoadProfile;
+import org.sagebionetworks.bridge.models.accounts.AccountStatus;
+import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+
+/**
+ * Loads an account from an in-memory database under each AccountLoadProfile, and reads its collections after the
+ * session has closed, as callers of the DAO do. The unit tests of HibernateAccountDao mock the session, so they
+ * can't show which collections a real session leaves uninitialized.
+ */
+public class HibernateAccountLoadProfileTest {
+    private static final SubpopulationGuid SUBPOP_GUID = SubpopulationGuid.create("subpop-guid");
+    private static final long SIGNED_ON = 1600000000000L;
+
+    private SessionFactory sessionFactory;
+    private HibernateAccountDao dao;
+
+    @BeforeClass
+    public void beforeClass() {
+        Properties props = new Properties();
+        props.put("hibernate.connection.driver_class", "org.h2.Driver");
+        props.put("hibernate.connection.url", "jdbc:h2:mem:accounts;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        props.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        props.put("hibernate.hbm2ddl.auto", "create-drop");
+        StandardServiceRegistry reg = new StandardServiceRegistryBuilder().applySettings(props).build();
+
+        MetadataSources metadataSources = new MetadataSources(reg);
+        metadataSources.addAnnotatedClass(HibernateAccount.class);
+        metadataSources.addAnnotatedClass(HibernateEnrollment.class);
+        sessionFactory = metadataSources.buildMetadata().buildSessionFactory();
+
+        dao = new HibernateAccountDao();
+        dao.setHibernateHelper(new HibernateHelper(sessionFactory, new BasicPersistenceExceptionConverter()));
+        dao.createAccount(null, makeAccount());
+    }
+
+    @AfterClass
+    public void afterClass() {
+        sessionFactory.close();
+    }
+
+    @Test
+    public void coreProfile() {
+        Account account = getAccount(CORE);
+
+        assertEnrollmentLoaded(account);
+        assertNotLoaded(() -> account.getDataGroups().size());
+        assertNotLoaded(() -> account.getAttributes().size());
+        assertNotLoaded(() -> account.getConsentSignatureHistory(SUBPOP_GUID).size());
+        assertNotLoaded(() -> account.getRoles().size());
+        assertNotLoaded(() -> account.getLanguages().size());
+    }
+
+    @Test
+    public void uploadMetadataProfile() {
+        Account account = getAccount(UPLOAD_METADATA);
+
+        assertEnrollmentLoaded(account);
+        assertEquals(account.getDataGroups(), ImmutableSet.of("group1", "group2"));
+        assertNotLoaded(() -> account.getAttributes().size());
+        assertNotLoaded(() -> account.getConsentSignatureHistory(SUBPOP_GUID).size());
+        assertNotLoaded(() -> account.getRoles().size());
+        assertNotLoaded(() -> account.getLanguages().size());
+    }
+
+    @Test
+    public void fullProfile() {
+        assertFullyLoaded(getAccount(FULL));
+    }
+
+    @Test
+    public void fullProfileFromQuery() {
+        // Accounts found by anything other than ID are loaded with a query, rather than by ID.
+        Account account = dao.getAccount(AccountId.forEmail(TEST_APP_ID, EMAIL), FULL).get();
+
+        assertFullyLoaded(account);
+    }
+
+    private Account getAccount(AccountLoadProfile profile) {
+        return dao.getAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID), profile).get();
+    }
+
+    private static void assertFullyLoaded(Account account) {
+        assertEnrollmentLoaded(account);
+        assertEquals(account.getDataGroups(), ImmutableSet.of("group1", "group2"));
+        assertEquals(account.getAttributes(), ImmutableMap.of("attrKey", "attrValue"));
+        assertEquals(account.getConsentSignatureHistory(SUBPOP_GUID).size(), 1);
+        assertEquals(account.getConsentSignatureHistory(SUBPOP_GUID).get(0).getName(), "Test User");
+        assertEquals(account.getRoles(), ImmutableSet.of(Roles.DEVELOPER));
+        assertEquals(account.getLanguages(), ImmutableList.of("en", "fr"));
+    }
+
+    private static void assertEnrollmentLoaded(Account account) {
+        assertEquals(account.getEnrollments().size(), 1);
+        assertEquals(account.getEnrollments().iterator().next().getStudyId(), TEST_STUDY_ID);
+    }
+
+    private static void assertNotLoaded(Runnable read) {
+        expectThrows(LazyInitializationException.class, read::run);
+    }
+
+    private static HibernateAccount makeAccount() {
+        HibernateAccount account = new HibernateAccount();
+        account.setId(TEST_USER_ID);
+        account.setAppId(TEST_APP_ID);
+        account.setEmail(EMAIL);
+        account.setHealthCode(HEALTH_CODE);
+        account.setStatus(AccountStatus.ENABLED);
+        account.setCreatedOn(DateTime.now());
+        account.setModifiedOn(DateTime.now());
+        // Hibernate replaces these with its own collections, so they must be mutable.
+        account.setDataGroups(Sets.newHashSet("group1", "group2"));
+        account.setAttributes(Maps.newHashMap(ImmutableMap.of("attrKey", "attrValue")));
+        account.setRoles(Sets.newHashSet(Roles.DEVELOPER));
+        account.setLanguages(Lists.newArrayList("en", "fr"));
+
+        HibernateAccountConsent consent = new HibernateAccountConsent();
+        consent.setBirthdate("1980-01-01");
+        consent.setConsentCreatedOn(SIGNED_ON);
+        consent.setName("Test User");
+        account.setConsents(Maps.newHashMap(ImmutableMap.of(
+                new HibernateAccountConsentKey(SUBPOP_GUID.getGuid(), SIGNED_ON), consent)));
+
+        HibernateEnrollment enrollment = new HibernateEnrollment();
+        enrollment.setAppId(TEST_APP_ID);
+        enrollment.setStudyId(TEST_STUDY_ID);
+        enrollment.setAccountId(TEST_USER_ID);
+        account.setEnrollments(Sets.newHashSet(enrollment));
+        return account;
+    }
+}
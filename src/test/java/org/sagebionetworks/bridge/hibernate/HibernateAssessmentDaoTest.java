@@ -4,6 +4,7 @@ import static org.sagebionetworks.bridge.TestConstants.GUID;
 import static org.sagebionetworks.bridge.TestConstants.IDENTIFIER;
 import static org.sagebionetworks.bridge.hibernate.HibernateAssessmentDao.DELETE_CONFIG_SQL;
 import static org.sagebionetworks.bridge.hibernate.HibernateAssessmentDao.DELETE_RESOURCES_SQL;
+import static org.sagebionetworks.bridge.hibernate.HibernateAssessmentDao.UPDATE_LATEST_REVISION_SQL;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
@@ -24,6 +25,7 @@ import org.hibernate.SessionFactory;
 import org.hibernate.query.NativeQuery;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -42,24 +44,18 @@ import org.sagebionetworks.bridge.models.assessments.config.HibernateAssessmentC
 
 public class HibernateAssessmentDaoTest extends Mockito {
     
-    private static final String QUERY_SQL_EXC_DELETED = "FROM ( SELECT DISTINCT "
-            +"identifier as id, MAX(revision) AS rev FROM Assessments WHERE appId = :appId "
-            +"GROUP BY identifier) AS latest_assessments INNER JOIN Assessments AS a ON "
-            +"a.identifier = latest_assessments.id AND a.revision = latest_assessments.rev "
-            +"WHERE appId = :appId AND deleted = 0 ORDER BY createdOn DESC";
+    private static final String QUERY_SQL_EXC_DELETED = "FROM AssessmentLatestRevisions AS latest "
+            +"INNER JOIN Assessments AS a ON a.guid = latest.guid WHERE latest.appId = :appId AND "
+            +"a.deleted = 0 ORDER BY a.createdOn DESC";
 
-    private static final String QUERY_SQL_INC_DELETED = "FROM ( SELECT DISTINCT "
-            +"identifier as id, MAX(revision) AS rev FROM Assessments WHERE appId = :appId "
-            +"GROUP BY identifier) AS latest_assessments INNER JOIN Assessments AS a ON "+
-            "a.identifier = latest_assessments.id AND a.revision = latest_assessments.rev "
-            +"WHERE appId = :appId ORDER BY createdOn DESC";
+    private static final String QUERY_SQL_INC_DELETED = "FROM AssessmentLatestRevisions AS latest "
+            +"INNER JOIN Assessments AS a ON a.guid = latest.guid WHERE latest.appId = :appId "
+            +"ORDER BY a.createdOn DESC";
     
-    private static final String QUERY_SQL_WITH_TAGS = "FROM ( SELECT DISTINCT "
-            +"identifier as id, MAX(revision) AS rev FROM Assessments WHERE appId = :appId "
-            +"GROUP BY identifier) AS latest_assessments INNER JOIN Assessments AS a ON "
-            +"a.identifier = latest_assessments.id AND a.revision = latest_assessments.rev "
-            +"WHERE appId = :appId AND guid IN (SELECT DISTINCT assessmentGuid FROM "
-            +"AssessmentTags WHERE tagValue IN :tags) AND deleted = 0 ORDER BY createdOn DESC";
+    private static final String QUERY_SQL_WITH_TAGS = "FROM AssessmentLatestRevisions AS latest "
+            +"INNER JOIN Assessments AS a ON a.guid = latest.guid WHERE latest.appId = :appId AND "
+            +"a.guid IN (SELECT DISTINCT assessmentGuid FROM AssessmentTags WHERE tagValue IN :tags) "
+            +"AND a.deleted = 0 ORDER BY a.createdOn DESC";
     
     private static final String QUERY_GET_REVISIONS_EXC_DELETED = "FROM HibernateAssessment WHERE "
             +"appId = :appId AND identifier = :identifier AND deleted = 0 ORDER BY "
@@ -102,6 +98,9 @@ public class HibernateAssessmentDaoTest extends Mockito {
     @Mock
     NativeQuery<?> mockDelConfigQuery;
     
+    @Mock
+    NativeQuery<?> mockLatestRevisionQuery;
+    
     @InjectMocks
     @Spy
     HibernateAssessmentDao dao;
@@ -114,6 +113,15 @@ public class HibernateAssessmentDaoTest extends Mockito {
             Function<Session,HibernateAssessment> func = answer.getArgument(1);
             return func.apply(mockSession);
         });
+        when(mockSession.createNativeQuery(UPDATE_LATEST_REVISION_SQL)).thenReturn(mockLatestRevisionQuery);
+    }
+    
+    private void verifyLatestRevisionUpdated(String appId, String identifier) {
+        InOrder inOrder = inOrder(mockSession, mockLatestRevisionQuery);
+        inOrder.verify(mockSession).flush();
+        inOrder.verify(mockLatestRevisionQuery).setParameter("appId", appId);
+        inOrder.verify(mockLatestRevisionQuery).setParameter("identifier", identifier);
+        inOrder.verify(mockLatestRevisionQuery).executeUpdate();
     }
 
     @Test
@@ -126,7 +134,7 @@ public class HibernateAssessmentDaoTest extends Mockito {
         
         PagedResourceList<Assessment> page = dao.getAssessments(APP_ID_VALUE, 0, 20, null, false);
         assertEquals(queryCaptor.getAllValues().get(0), "SELECT count(*) " + QUERY_SQL_EXC_DELETED);
-        assertEquals(queryCaptor.getAllValues().get(1), "SELECT * " + QUERY_SQL_EXC_DELETED);
+        assertEquals(queryCaptor.getAllValues().get(1), "SELECT a.* " + QUERY_SQL_EXC_DELETED);
         
         Map<String,Object> params = paramsCaptor.getValue();
         assertEquals(params.get("appId"), APP_ID_VALUE);
@@ -142,7 +150,7 @@ public class HibernateAssessmentDaoTest extends Mockito {
         
         dao.getAssessments(APP_ID_VALUE, 0, 20, null, true);
         assertEquals(queryCaptor.getAllValues().get(0), "SELECT count(*) " + QUERY_SQL_INC_DELETED);
-        assertEquals(queryCaptor.getAllValues().get(1), "SELECT * " + QUERY_SQL_INC_DELETED);
+        assertEquals(queryCaptor.getAllValues().get(1), "SELECT a.* " + QUERY_SQL_INC_DELETED);
     }
     
     @Test
@@ -153,7 +161,7 @@ public class HibernateAssessmentDaoTest extends Mockito {
         
         dao.getAssessments(APP_ID_VALUE, 0, 20, ImmutableSet.of("tagA", "tagB"), false);
         assertEquals(queryCaptor.getAllValues().get(0), "SELECT count(*) " + QUERY_SQL_WITH_TAGS);
-        assertEquals(queryCaptor.getAllValues().get(1), "SELECT * " + QUERY_SQL_WITH_TAGS);
+        assertEquals(queryCaptor.getAllValues().get(1), "SELECT a.* " + QUERY_SQL_WITH_TAGS);
     }
     
     @Test
@@ -249,16 +257,19 @@ public class HibernateAssessmentDaoTest extends Mockito {
         
         verify(mockSession).merge(assessmentCaptor.capture());
         assertEquals(assessmentCaptor.getValue().getGuid(), GUID);
+        
+        verifyLatestRevisionUpdated(APP_ID_VALUE, IDENTIFIER);
     }
 
     @Test
     public void updateAssessment() throws Exception {
         when(mockSession.merge(any())).thenReturn(HIBERNATE_ASSESSMENT);
         
-        Assessment returnValue = dao.updateAssessment(APP_ID_VALUE, new Assessment());
+        Assessment returnValue = dao.updateAssessment(APP_ID_VALUE, AssessmentTest.createAssessment());
         assertNotNull(returnValue);
         
         verify(mockSession).merge(any(HibernateAssessment.class));
+        verifyLatestRevisionUpdated(APP_ID_VALUE, IDENTIFIER);
     }
     
     // I discovered a ClassCastException because we're not converting and returning
@@ -306,6 +317,7 @@ public class HibernateAssessmentDaoTest extends Mockito {
         verify(mockDelConfigQuery).setParameter("guid", GUID);
         verify(mockDelConfigQuery).executeUpdate();
         verify(mockSession).remove(any());
+        verifyLatestRevisionUpdated(APP_ID_VALUE, IDENTIFIER);
     }
 
     @Test
@@ -327,6 +339,7 @@ public class HibernateAssessmentDaoTest extends Mockito {
         verify(mockDelConfigQuery).executeUpdate();
         
         verify(mockSession).remove(any());
+        verifyLatestRevisionUpdated(APP_ID_VALUE, IDENTIFIER);
     }
     
     @Test
@@ -342,6 +355,8 @@ public class HibernateAssessmentDaoTest extends Mockito {
         verify(mockHelper).executeWithExceptionHandling(any(HibernateAssessment.class), any());
         verify(mockSession).saveOrUpdate(any(HibernateAssessmentConfig.class));
         verify(mockSession).saveOrUpdate(any(HibernateAssessment.class));
+        // The published revision is in the shared app
+        verifyLatestRevisionUpdated("shared", IDENTIFIER);
     }
     
     @Test
@@ -355,6 +370,7 @@ public class HibernateAssessmentDaoTest extends Mockito {
         verify(mockHelper).executeWithExceptionHandling(any(HibernateAssessment.class), any());
         verify(mockSession).saveOrUpdate(any(HibernateAssessmentConfig.class));
         verify(mockSession).merge(any(HibernateAssessment.class));
+        verifyLatestRevisionUpdated(APP_ID_VALUE, IDENTIFIER);
     }
 
     @Test
@@ -5,14 +5,19 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.sagebionetworks.bridge.hibernate.HibernateEnrollmentDao.REF_QUERY;
+import static org.sagebionetworks.bridge.models.TotalCount.ESTIMATED;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
 import static org.sagebionetworks.bridge.models.studies.EnrollmentFilter.ENROLLED;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
 
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -59,16 +64,19 @@ public class HibernateEnrollmentDaoTest extends Mockito {
         when(mockHelper.queryGet(any(), any(), any(), any(), eq(HibernateEnrollment.class))).thenReturn(page);
         
         HibernateAccount account1 = new HibernateAccount();
+        account1.setId("id1");
         account1.setLastName("account1");
         HibernateAccount account2 = new HibernateAccount();
+        account2.setId("id2");
         account2.setLastName("account2");
         HibernateAccount account3 = new HibernateAccount();
+        account3.setId("id3");
         account3.setLastName("account3");
         
-        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), eq(1), eq(HibernateAccount.class)))
-            .thenReturn(ImmutableList.of(account1), ImmutableList.of(account2), ImmutableList.of(account3));
+        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), isNull(), eq(HibernateAccount.class)))
+            .thenReturn(ImmutableList.of(account1, account2, account3));
         
-        PagedResourceList<EnrollmentDetail> retValue = dao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, 10, 75);
+        PagedResourceList<EnrollmentDetail> retValue = dao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, 10, 75, EXACT);
         assertEquals(retValue.getTotal(), Integer.valueOf(20));
         assertEquals(retValue.getItems().size(), 2);
         
@@ -90,6 +98,26 @@ public class HibernateEnrollmentDaoTest extends Mockito {
         assertEquals(paramsCaptor.getValue().get("studyId"), TEST_STUDY_ID);
     }
     
+    @Test
+    public void getEnrollmentsForStudyWithEstimatedTotal() {
+        List<HibernateEnrollment> page = ImmutableList.of(new HibernateEnrollment(), new HibernateEnrollment());
+        when(mockHelper.queryEstimatedCount(any(), any())).thenReturn(20);
+        when(mockHelper.queryGet(any(), any(), eq(10), eq(3), eq(HibernateEnrollment.class))).thenReturn(page);
+        when(mockHelper.queryGet(any(), any(), any(), any(), eq(HibernateAccount.class)))
+            .thenReturn(ImmutableList.of());
+        
+        PagedResourceList<EnrollmentDetail> retValue = dao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null,
+                true, 10, 2, ESTIMATED);
+        assertEquals(retValue.getTotal(), Integer.valueOf(20));
+        assertFalse(retValue.hasNext());
+        assertEquals(retValue.getItems().size(), 2);
+        
+        verify(mockHelper).queryEstimatedCount(
+                "SELECT COUNT(*) FROM HibernateEnrollment AS h WHERE h.appId = :appId AND h.studyId = :studyId",
+                ImmutableMap.<String, Object>of("appId", TEST_APP_ID, "studyId", TEST_STUDY_ID));
+        verify(mockHelper, never()).queryCount(any(), any());
+    }
+    
     @SuppressWarnings("unchecked")
     @Test
     public void getEnrollmentsForStudyWithArguments() {
@@ -104,17 +132,20 @@ public class HibernateEnrollmentDaoTest extends Mockito {
         when(mockHelper.queryGet(any(), any(), any(), any(), eq(HibernateEnrollment.class))).thenReturn(page);
         
         HibernateAccount account1 = new HibernateAccount();
+        account1.setId("id1");
         account1.setLastName("account1");
         HibernateAccount account2 = new HibernateAccount();
+        account2.setId("id2");
         account2.setLastName("account2");
         HibernateAccount account3 = new HibernateAccount();
+        account3.setId("id3");
         account3.setLastName("account3");
         
-        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), eq(1), eq(HibernateAccount.class)))
-            .thenReturn(ImmutableList.of(account1), ImmutableList.of(account2), ImmutableList.of(account3));
+        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), isNull(), eq(HibernateAccount.class)))
+            .thenReturn(ImmutableList.of(account1, account2, account3));
         
         PagedResourceList<EnrollmentDetail> retValue = dao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED,
-                true, 10, 75);
+                true, 10, 75, EXACT);
         assertEquals(retValue.getTotal(), Integer.valueOf(20));
         assertEquals(retValue.getItems().size(), 2);
         
@@ -151,17 +182,20 @@ public class HibernateEnrollmentDaoTest extends Mockito {
         when(mockHelper.queryGet(any(), any(), any(), any(), eq(HibernateEnrollment.class))).thenReturn(page);
         
         HibernateAccount account1 = new HibernateAccount();
+        account1.setId("id1");
         account1.setLastName("account1");
         HibernateAccount account2 = new HibernateAccount();
+        account2.setId("id2");
         account2.setLastName("account2");
         HibernateAccount account3 = new HibernateAccount();
+        account3.setId("id3");
         account3.setLastName("account3");
         
-        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), eq(1), eq(HibernateAccount.class)))
-            .thenReturn(ImmutableList.of(account1), ImmutableList.of(account2), ImmutableList.of(account3));
+        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), isNull(), eq(HibernateAccount.class)))
+            .thenReturn(ImmutableList.of(account1, account2, account3));
         
         PagedResourceList<EnrollmentDetail> retValue = dao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED,
-                false, 10, 75);
+                false, 10, 75, EXACT);
         assertEquals(retValue.getTotal(), Integer.valueOf(20));
         assertEquals(retValue.getItems().size(), 2);
         
@@ -200,14 +234,17 @@ public class HibernateEnrollmentDaoTest extends Mockito {
         when(mockHelper.queryGet(any(), any(), isNull(), isNull(), eq(HibernateEnrollment.class))).thenReturn(page);
         
         HibernateAccount account1 = new HibernateAccount();
+        account1.setId("id1");
         account1.setLastName("account1");
         HibernateAccount account2 = new HibernateAccount();
+        account2.setId("id2");
         account2.setLastName("account2");
         HibernateAccount account3 = new HibernateAccount();
+        account3.setId("id3");
         account3.setLastName("account3");
         
-        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), eq(1), eq(HibernateAccount.class)))
-            .thenReturn(ImmutableList.of(account1), ImmutableList.of(account2), ImmutableList.of(account3));
+        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), isNull(), eq(HibernateAccount.class)))
+            .thenReturn(ImmutableList.of(account1, account2, account3));
         
         List<EnrollmentDetail> retValue = dao.getEnrollmentsForUser(TEST_APP_ID, TEST_USER_ID);
         EnrollmentDetail detail1 = retValue.get(0);
@@ -222,5 +259,85 @@ public class HibernateEnrollmentDaoTest extends Mockito {
         assertEquals(paramsCaptor.getValue().get("appId"), TEST_APP_ID);
         assertEquals(paramsCaptor.getValue().get("userId"), TEST_USER_ID);
     }
-
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void accountRefsResolvedInOneQuery() {
+        HibernateEnrollment en1 = new HibernateEnrollment();
+        en1.setAccountId("id1");
+        en1.setEnrolledBy("admin");
+        HibernateEnrollment en2 = new HibernateEnrollment();
+        en2.setAccountId("id2");
+        en2.setEnrolledBy("admin");
+        en2.setWithdrawnBy("id2");
+        HibernateEnrollment en3 = new HibernateEnrollment();
+        en3.setAccountId("missing");
+        List<HibernateEnrollment> page = ImmutableList.of(en1, en2, en3);
+        
+        when(mockHelper.queryCount(any(), any())).thenReturn(3);
+        when(mockHelper.queryGet(any(), any(), any(), any(), eq(HibernateEnrollment.class))).thenReturn(page);
+        
+        HibernateAccount account1 = new HibernateAccount();
+        account1.setId("id1");
+        HibernateAccount account2 = new HibernateAccount();
+        account2.setId("id2");
+        HibernateAccount admin = new HibernateAccount();
+        admin.setId("admin");
+        admin.setLastName("admin");
+        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), isNull(), eq(HibernateAccount.class)))
+            .thenReturn(ImmutableList.of(account1, account2, admin));
+        
+        PagedResourceList<EnrollmentDetail> retValue = dao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null,
+                true, null, null, EXACT);
+        
+        verify(mockHelper).queryGet(eq(REF_QUERY), paramsCaptor.capture(), isNull(), isNull(),
+                eq(HibernateAccount.class));
+        assertEquals(paramsCaptor.getValue().get("appId"), TEST_APP_ID);
+        assertEquals(paramsCaptor.getValue().get("ids"), ImmutableSet.of("id1", "id2", "admin", "missing"));
+        
+        List<EnrollmentDetail> details = retValue.getItems();
+        assertEquals(details.get(0).getParticipant().getIdentifier(), "id1");
+        assertEquals(details.get(0).getEnrolledBy().getLastName(), "admin");
+        assertEquals(details.get(1).getParticipant().getIdentifier(), "id2");
+        assertEquals(details.get(1).getEnrolledBy().getLastName(), "admin");
+        assertEquals(details.get(1).getWithdrawnBy().getIdentifier(), "id2");
+        assertNull(details.get(2).getParticipant());
+        assertNull(details.get(2).getEnrolledBy());
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void staffAccountRefsAreCached() {
+        HibernateEnrollment en1 = new HibernateEnrollment();
+        en1.setAccountId("id1");
+        en1.setEnrolledBy("admin");
+        HibernateEnrollment en2 = new HibernateEnrollment();
+        en2.setAccountId("id2");
+        en2.setEnrolledBy("admin");
+        
+        when(mockHelper.queryGet(any(), any(), isNull(), isNull(), eq(HibernateEnrollment.class)))
+            .thenReturn(ImmutableList.of(en1), ImmutableList.of(en2));
+        
+        HibernateAccount account1 = new HibernateAccount();
+        account1.setId("id1");
+        HibernateAccount account2 = new HibernateAccount();
+        account2.setId("id2");
+        HibernateAccount admin = new HibernateAccount();
+        admin.setId("admin");
+        admin.setLastName("admin");
+        when(mockHelper.queryGet(eq(REF_QUERY), any(), isNull(), isNull(), eq(HibernateAccount.class)))
+            .thenReturn(ImmutableList.of(account1, admin), ImmutableList.of(account2));
+        
+        dao.getEnrollmentsForUser(TEST_APP_ID, "id1");
+        List<EnrollmentDetail> retValue = dao.getEnrollmentsForUser(TEST_APP_ID, "id2");
+        
+        // The admin is only looked up the first time, but participants are always looked up
+        verify(mockHelper, times(2)).queryGet(eq(REF_QUERY), paramsCaptor.capture(), isNull(), isNull(),
+                eq(HibernateAccount.class));
+        assertEquals(paramsCaptor.getAllValues().get(0).get("ids"), ImmutableSet.of("id1", "admin"));
+        assertEquals(paramsCaptor.getAllValues().get(1).get("ids"), ImmutableSet.of("id2"));
+        
+        assertEquals(retValue.get(0).getParticipant().getIdentifier(), "id2");
+        assertEquals(retValue.get(0).getEnrolledBy().getLastName(), "admin");
+    }
 }
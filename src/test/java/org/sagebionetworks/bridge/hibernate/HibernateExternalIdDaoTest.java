@@ -3,6 +3,8 @@ package org.sagebionetworks.bridge.hibernate;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
+import static org.sagebionetworks.bridge.models.TotalCount.NONE;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
@@ -87,7 +89,7 @@ public class HibernateExternalIdDaoTest extends Mockito {
         
         when(mockHelper.queryCount(any(), any())).thenReturn(100);
         
-        PagedResourceList<ExternalIdentifierInfo> retValue = dao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 100, 50);
+        PagedResourceList<ExternalIdentifierInfo> retValue = dao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 100, 50, EXACT);
         assertEquals(retValue.getTotal(), new Integer(100));
         
         ExternalIdentifierInfo info1 = retValue.getItems().get(0);
@@ -118,6 +120,26 @@ public class HibernateExternalIdDaoTest extends Mockito {
         assertEquals(params2.get("idFilter"), "idFilter%");
     }
     
+    @Test
+    public void getPagedExternalIdsWithoutTotal() {
+        HibernateEnrollment en1 = new HibernateEnrollment();
+        en1.setExternalId("extId1");
+        HibernateEnrollment en2 = new HibernateEnrollment();
+        en2.setExternalId("extId2");
+        when(mockHelper.queryGet(any(), any(), eq(100), eq(2), eq(HibernateEnrollment.class)))
+            .thenReturn(ImmutableList.of(en1, en2));
+        
+        PagedResourceList<ExternalIdentifierInfo> retValue = dao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID,
+                null, 100, 1, NONE);
+        assertNull(retValue.getTotal());
+        assertTrue(retValue.hasNext());
+        assertEquals(retValue.getItems().size(), 1);
+        assertEquals(retValue.getItems().get(0).getIdentifier(), "extId1");
+        
+        verify(mockHelper, never()).queryCount(any(), any());
+        verify(mockHelper, never()).queryEstimatedCount(any(), any());
+    }
+    
     @Test
     public void getPagedExternalIdsNoIdFilter() {
         List<HibernateEnrollment> list = ImmutableList.of();
@@ -125,7 +147,7 @@ public class HibernateExternalIdDaoTest extends Mockito {
             .thenReturn(list);
         when(mockHelper.queryCount(any(), any())).thenReturn(100);
         
-        dao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 100, 50);
+        dao.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 100, 50, EXACT);
         
         verify(mockHelper).queryGet(queryCaptor.capture(), paramsCaptor.capture(), eq(100), eq(50), eq(HibernateEnrollment.class));
         verify(mockHelper).queryCount(queryCaptor.capture(), paramsCaptor.capture());
@@ -8,16 +8,19 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.fail;
 
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import javax.persistence.OptimisticLockException;
@@ -132,6 +135,26 @@ public class HibernateHelperTest {
         assertSame(helperOutput, hibernateOutput);
     }
 
+    @Test
+    public void getByIdWithInitializer() {
+        Object hibernateOutput = new Object();
+        when(mockSession.get(Object.class, "test-id")).thenReturn(hibernateOutput);
+        Consumer<Object> mockInitializer = mock(Consumer.class);
+
+        Object helperOutput = helper.getById(Object.class, "test-id", mockInitializer);
+        assertSame(helperOutput, hibernateOutput);
+        verify(mockInitializer).accept(hibernateOutput);
+    }
+
+    @Test
+    public void getByIdWithInitializerNotFound() {
+        Consumer<Object> mockInitializer = mock(Consumer.class);
+
+        Object helperOutput = helper.getById(Object.class, "test-id", mockInitializer);
+        assertNull(helperOutput);
+        verify(mockInitializer, never()).accept(any());
+    }
+
     @Test
     public void queryCountSuccess() {
         // mock query
@@ -174,6 +197,31 @@ public class HibernateHelperTest {
         verify(mockQuery).setParameter("id", 10L);
     }
 
+    @Test
+    public void queryEstimatedCountIsRemembered() {
+        Query<Long> mockQuery = mock(Query.class);
+        when(mockQuery.uniqueResult()).thenReturn(42L, 43L);
+        when(mockSession.createQuery(QUERY, Long.class)).thenReturn(mockQuery);
+
+        assertEquals(helper.queryEstimatedCount(QUERY, PARAMETERS), 42);
+        assertEquals(helper.queryEstimatedCount(QUERY, PARAMETERS), 42);
+        verify(mockQuery, times(1)).uniqueResult();
+        
+        // The exact count still queries the database.
+        assertEquals(helper.queryCount(QUERY, PARAMETERS), 43);
+    }
+
+    @Test
+    public void queryEstimatedCountDiffersByParameters() {
+        Query<Long> mockQuery = mock(Query.class);
+        when(mockQuery.uniqueResult()).thenReturn(42L, 43L);
+        when(mockSession.createQuery(QUERY, Long.class)).thenReturn(mockQuery);
+
+        assertEquals(helper.queryEstimatedCount(QUERY, PARAMETERS), 42);
+        assertEquals(helper.queryEstimatedCount(QUERY, ImmutableMap.<String, Object>of("appId", TEST_APP_ID)), 43);
+        verify(mockQuery, times(2)).uniqueResult();
+    }
+
     @Test
     public void queryGetSuccess() {
         // mock query
@@ -188,6 +236,21 @@ public class HibernateHelperTest {
         assertSame(helperOutputList, hibernateOutputList);
     }
 
+    @Test
+    public void queryGetWithInitializer() {
+        Object result1 = new Object();
+        Object result2 = new Object();
+        Query<Object> mockQuery = mock(Query.class);
+        when(mockQuery.list()).thenReturn(ImmutableList.of(result1, result2));
+        when(mockSession.createQuery(QUERY, Object.class)).thenReturn(mockQuery);
+        Consumer<Object> mockInitializer = mock(Consumer.class);
+
+        List<Object> helperOutputList = helper.queryGet(QUERY, null, null, null, Object.class, mockInitializer);
+        assertEquals(helperOutputList, ImmutableList.of(result1, result2));
+        verify(mockInitializer).accept(result1);
+        verify(mockInitializer).accept(result2);
+    }
+
     @Test
     public void queryGetOffsetAndLimit() {
         // mock query
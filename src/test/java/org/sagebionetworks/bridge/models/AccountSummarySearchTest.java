@@ -13,6 +13,7 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Sets;
@@ -80,7 +81,8 @@ public class AccountSummarySearchTest {
             // but they can all be tested for serialization at one time.
             .withOrgMembership(TEST_ORG_ID)
             .withAdminOnly(true)
-            .withEnrolledInStudyId(TEST_STUDY_ID).build();
+            .withEnrolledInStudyId(TEST_STUDY_ID)
+            .withTotalCount(TotalCount.NONE).build();
         
         String json = BridgeObjectMapper.get().writeValueAsString(search);
         JsonNode node = BridgeObjectMapper.get().readTree(json);
@@ -102,6 +104,7 @@ public class AccountSummarySearchTest {
         assertEquals(deser.getOrgMembership(), TEST_ORG_ID);
         assertTrue(deser.isAdminOnly());
         assertEquals(deser.getEnrolledInStudyId(), TEST_STUDY_ID);
+        assertEquals(deser.getTotalCount(), TotalCount.NONE);
     }
     
     @Test
@@ -121,7 +124,8 @@ public class AccountSummarySearchTest {
             .withEndTime(endTime)
             .withAdminOnly(false)
             .withOrgMembership(TEST_ORG_ID)
-            .withEnrolledInStudyId(TEST_STUDY_ID).build();
+            .withEnrolledInStudyId(TEST_STUDY_ID)
+            .withTotalCount(TotalCount.ESTIMATED).build();
 
         AccountSummarySearch copy = new AccountSummarySearch.Builder().copyOf(search).build();
         assertEquals(copy.getOffsetBy(), 10);
@@ -136,11 +140,38 @@ public class AccountSummarySearchTest {
         assertEquals(copy.getOrgMembership(), TEST_ORG_ID);
         assertEquals(copy.isAdminOnly(), Boolean.FALSE);
         assertEquals(copy.getEnrolledInStudyId(), TEST_STUDY_ID);
+        assertEquals(copy.getTotalCount(), TotalCount.ESTIMATED);
     }
     
     @Test
     public void setsDefaults() {
         assertEquals(AccountSummarySearch.EMPTY_SEARCH.getOffsetBy(), 0);
         assertEquals(AccountSummarySearch.EMPTY_SEARCH.getPageSize(), BridgeConstants.API_DEFAULT_PAGE_SIZE);
+        assertEquals(AccountSummarySearch.EMPTY_SEARCH.getTotalCount(), TotalCount.EXACT);
+    }
+    
+    @Test
+    public void totalCountIsCaseInsensitive() throws Exception {
+        // As with the totalCount query parameter
+        for (String value : new String[] { "estimated", "ESTIMATED", "Estimated" }) {
+            String json = "{\"totalCount\":\"" + value + "\"}";
+            AccountSummarySearch search = BridgeObjectMapper.get().readValue(json, AccountSummarySearch.class);
+            assertEquals(search.getTotalCount(), TotalCount.ESTIMATED);
+            
+            search = new ObjectMapper().readValue(json, AccountSummarySearch.class);
+            assertEquals(search.getTotalCount(), TotalCount.ESTIMATED);
+        }
+    }
+    
+    @Test
+    public void totalCountDefaultsWhenBlank() throws Exception {
+        String json = "{\"totalCount\":\"\"}";
+        AccountSummarySearch search = BridgeObjectMapper.get().readValue(json, AccountSummarySearch.class);
+        assertEquals(search.getTotalCount(), TotalCount.EXACT);
+    }
+    
+    @Test(expectedExceptions = JsonMappingException.class)
+    public void totalCountInvalid() throws Exception {
+        BridgeObjectMapper.get().readValue("{\"totalCount\":\"rough\"}", AccountSummarySearch.class);
     }
 }
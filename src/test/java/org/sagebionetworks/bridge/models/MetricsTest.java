@@ -106,6 +106,67 @@ public class MetricsTest {
         assertTrue(json.contains("\"app_id\":\""+TEST_APP_ID+"\""));
     }
 
+    @Test
+    public void testSetUploadDedupeResult() {
+        Metrics metrics = new Metrics("12345");
+        metrics.setUploadDedupeResult("skipped");
+        String json = metrics.toJsonString();
+        assertTrue(json.contains("\"upload_dedupe_result\":\"skipped\""));
+    }
+
+    @Test
+    public void testSetScheduleCacheResult() {
+        Metrics metrics = new Metrics("12345");
+        metrics.setScheduleCacheResult("hit");
+        String json = metrics.toJsonString();
+        assertTrue(json.contains("\"schedule_cache_result\":\"hit\""));
+    }
+
+    @Test
+    public void testRecordOutboundRequest() {
+        Metrics metrics = new Metrics("12345");
+        metrics.recordOutboundRequest("gbf", 100L);
+        metrics.recordOutboundRequest("gbf", 50L);
+        metrics.recordOutboundRequest("oauth", 20L);
+        
+        JsonNode node = metrics.getJson().get("outbound_requests");
+        assertEquals(node.get("gbf").get("count").intValue(), 2);
+        assertEquals(node.get("gbf").get("elapsedMillis").longValue(), 150L);
+        assertEquals(node.get("oauth").get("count").intValue(), 1);
+        assertEquals(node.get("oauth").get("elapsedMillis").longValue(), 20L);
+    }
+
+    @Test
+    public void testRecordDynamoRequest() {
+        Metrics metrics = new Metrics("12345");
+        metrics.recordDynamoRequest("Upload2", 10L, 0.5);
+        metrics.recordDynamoRequest("Upload2", 5L, 1.0);
+        metrics.recordDynamoRequest("HealthCode", 2L, 0.5);
+        
+        JsonNode node = metrics.getJson().get("dynamo_requests");
+        assertEquals(node.get("Upload2").get("count").intValue(), 2);
+        assertEquals(node.get("Upload2").get("elapsedMillis").longValue(), 15L);
+        assertEquals(node.get("Upload2").get("consumedCapacity").doubleValue(), 1.5);
+        assertEquals(node.get("HealthCode").get("count").intValue(), 1);
+        assertEquals(node.get("HealthCode").get("elapsedMillis").longValue(), 2L);
+        assertEquals(node.get("HealthCode").get("consumedCapacity").doubleValue(), 0.5);
+    }
+
+    @Test
+    public void testRecordCacheResult() {
+        Metrics metrics = new Metrics("12345");
+        metrics.recordCacheResult("study", true);
+        metrics.recordCacheResult("study", true);
+        metrics.recordCacheResult("study", false);
+        metrics.recordCacheResult("organization", false);
+        
+        JsonNode node = metrics.getJson().get("cache_results");
+        assertEquals(node.get("study").get("hits").intValue(), 2);
+        assertEquals(node.get("study").get("misses").intValue(), 1);
+        assertEquals(node.get("organization").get("misses").intValue(), 1);
+        assertFalse(node.get("organization").has("hits"));
+    }
+
     @Test
     public void testSetSession() {
         String requestId = "12345";
@@ -5,6 +5,7 @@ import static org.sagebionetworks.bridge.TestConstants.SUMMARY1;
 import static org.sagebionetworks.bridge.TestConstants.SUMMARY2;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 import java.util.List;
 import java.util.Map;
@@ -108,9 +109,29 @@ public class PagedResourceListTest {
         assertNull(node.get("endTime"));
     }
     
-    @Test(expectedExceptions = NullPointerException.class)
-    public void totalCannotBeNull() throws Exception {
+    @Test
+    public void totalNotCounted() throws Exception {
+        List<AccountSummary> accounts = Lists.newArrayListWithCapacity(2);
+        PagedResourceList<AccountSummary> page = new PagedResourceList<AccountSummary>(accounts, null, true)
+                .withHasNext(true);
+        
+        JsonNode node = BridgeObjectMapper.get().valueToTree(page);
+        assertNull(node.get("total"));
+        assertTrue(node.get("hasNext").booleanValue());
+        
+        PagedResourceList<AccountSummary> deser = BridgeObjectMapper.get().readValue(node.toString(),
+                new TypeReference<PagedResourceList<AccountSummary>>() {});
+        assertNull(deser.getTotal());
+        assertTrue(deser.hasNext());
+    }
+    
+    @Test
+    public void hasNextOmittedWhenTotalCounted() throws Exception {
         List<AccountSummary> accounts = Lists.newArrayListWithCapacity(2);
-        new PagedResourceList<AccountSummary>(accounts, null);
+        PagedResourceList<AccountSummary> page = new PagedResourceList<AccountSummary>(accounts, 2, true);
+        
+        JsonNode node = BridgeObjectMapper.get().valueToTree(page);
+        assertEquals(node.get("total").intValue(), 2);
+        assertNull(node.get("hasNext"));
     }
 }
@@ -12,6 +12,7 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_ORG_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.sagebionetworks.bridge.dao.AccountDao.MIGRATION_VERSION;
 import static org.sagebionetworks.bridge.models.AccountSummarySearch.EMPTY_SEARCH;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.CORE;
 import static org.sagebionetworks.bridge.models.accounts.AccountSecretType.REAUTH;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.DISABLED;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.ENABLED;
@@ -50,6 +51,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.dao.AccountSecretDao;
 import org.sagebionetworks.bridge.exceptions.AccountDisabledException;
@@ -104,6 +107,9 @@ public class AccountServiceTest extends Mockito {
     
     @Mock
     ActivityEventService activityEventService;
+    
+    @Mock
+    CacheProvider mockCacheProvider;
 
     @Mock
     PagedResourceList<AccountSummary> mockAccountSummaries;
@@ -247,6 +253,7 @@ public class AccountServiceTest extends Mockito {
         service.updateAccount(account);
         
         verify(mockAccountDao).updateAccount(account);
+        verify(mockCacheProvider).removeObject(CacheKey.participantUploadMetadata(TEST_APP_ID, HEALTH_CODE));
     }
     
     @Test
@@ -276,6 +283,7 @@ public class AccountServiceTest extends Mockito {
         InOrder inOrder = inOrder(mockConsumer, mockAccountDao);
         inOrder.verify(mockConsumer).accept(account);
         inOrder.verify(mockAccountDao).updateAccount(account);
+        verify(mockCacheProvider).removeObject(CacheKey.participantUploadMetadata(TEST_APP_ID, HEALTH_CODE));
     }
 
     @Test
@@ -284,6 +292,7 @@ public class AccountServiceTest extends Mockito {
 
         verify(mockConsumer, never()).accept(any());
         verify(mockAccountDao, never()).updateAccount(any());
+        verify(mockCacheProvider, never()).removeObject(any());
     }
 
     @Test
@@ -295,12 +304,29 @@ public class AccountServiceTest extends Mockito {
         verify(mockAccountDao).getAccount(ACCOUNT_ID);
     }
 
+    @Test
+    public void getAccountWithLoadProfile() throws Exception {
+        Account account = mockGetAccountById(ACCOUNT_ID, false);
+
+        Account returnVal = service.getAccount(ACCOUNT_ID, CORE);
+        assertEquals(returnVal, account);
+        verify(mockAccountDao).getAccount(ACCOUNT_ID, CORE);
+        verify(mockAccountDao, never()).getAccount(ACCOUNT_ID);
+    }
+
+    @Test
+    public void getAccountWithLoadProfileNotFound() {
+        assertNull(service.getAccount(ACCOUNT_ID, CORE));
+    }
+
     @Test
     public void deleteAccount() throws Exception {
         mockGetAccountById(ACCOUNT_ID, false);
 
         service.deleteAccount(ACCOUNT_ID);
+        verify(mockAccountDao).getAccount(ACCOUNT_ID, CORE);
         verify(mockAccountDao).deleteAccount(TEST_USER_ID);
+        verify(mockCacheProvider).removeObject(CacheKey.participantUploadMetadata(TEST_APP_ID, HEALTH_CODE));
     }
     
     @Test
@@ -325,16 +351,16 @@ public class AccountServiceTest extends Mockito {
 
         String healthCode = service.getHealthCodeForAccount(ACCOUNT_ID);
         assertEquals(healthCode, HEALTH_CODE);
-        verify(mockAccountDao).getAccount(ACCOUNT_ID);
+        verify(mockAccountDao).getAccount(ACCOUNT_ID, CORE);
     }
     
     @Test
     public void getHealthCodeForAccountNoAccount() {
-        when(mockAccountDao.getAccount(ACCOUNT_ID)).thenReturn(Optional.empty());
+        when(mockAccountDao.getAccount(ACCOUNT_ID, CORE)).thenReturn(Optional.empty());
         
         String healthCode = service.getHealthCodeForAccount(ACCOUNT_ID);
         assertNull(healthCode);
-        verify(mockAccountDao).getAccount(ACCOUNT_ID);
+        verify(mockAccountDao).getAccount(ACCOUNT_ID, CORE);
     }    
 
     @Test
@@ -842,6 +868,7 @@ public class AccountServiceTest extends Mockito {
         Account persistedAccount = Account.create();
         persistedAccount.setId(TEST_USER_ID);
         persistedAccount.setAppId(TEST_APP_ID);
+        persistedAccount.setHealthCode(HEALTH_CODE);
         persistedAccount.setCreatedOn(MOCK_DATETIME);
         persistedAccount.setEmailVerified(TRUE);
         persistedAccount.setPhoneVerified(TRUE);
@@ -1103,6 +1130,7 @@ public class AccountServiceTest extends Mockito {
             account.setPasswordHash(DEFAULT_PASSWORD_ALGORITHM.generateHash(DUMMY_PASSWORD));
         }
         when(mockAccountDao.getAccount(accountId)).thenReturn(Optional.of(account));
+        when(mockAccountDao.getAccount(eq(accountId), any())).thenReturn(Optional.of(account));
         return account;
     }
 
@@ -34,6 +34,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.time.DateUtils;
@@ -64,9 +66,15 @@ public class ActivityEventServiceTest {
     @Mock
     private ParticipantService mockParticipantService;
     
+    @Mock
+    private CacheProvider mockCacheProvider;
+    
     @Captor
     private ArgumentCaptor<ActivityEvent> eventCaptor;
     
+    @Captor
+    private ArgumentCaptor<List<ActivityEvent>> eventListCaptor;
+    
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
@@ -75,6 +83,7 @@ public class ActivityEventServiceTest {
         activityEventService.setActivityEventDao(activityEventDao);
         activityEventService.setAppService(mockAppService);
         activityEventService.setParticipantService(mockParticipantService);
+        activityEventService.setCacheProvider(mockCacheProvider);
     }
 
     @Test
@@ -129,14 +138,16 @@ public class ActivityEventServiceTest {
 
         activityEventService.publishCustomEvent(app, null, HEALTH_CODE, "myEvent", timestamp1);
 
-        verify(activityEventDao, times(2)).publishEvent(any());
+        verify(activityEventDao, times(1)).publishEvent(any());
 
-        ActivityEvent activityEvent = activityEventArgumentCaptor.getAllValues().get(0);
+        ActivityEvent activityEvent = activityEventArgumentCaptor.getValue();
         assertEquals(activityEvent.getEventId(), "custom:myEvent");
         assertEquals(activityEvent.getHealthCode(), HEALTH_CODE);
         assertEquals(activityEvent.getTimestamp().longValue(), timestamp1.getMillis());
 
-        activityEvent = activityEventArgumentCaptor.getAllValues().get(1);
+        verify(activityEventDao).publishEvents(eventListCaptor.capture());
+        assertEquals(eventListCaptor.getValue().size(), 1);
+        activityEvent = eventListCaptor.getValue().get(0);
         assertEquals(activityEvent.getEventId(), "custom:3-days-after-enrollment");
         assertEquals(activityEvent.getHealthCode(), HEALTH_CODE);
         assertEquals(activityEvent.getTimestamp().longValue(), timestamp2.getMillis());
@@ -378,7 +389,8 @@ public class ActivityEventServiceTest {
         activityEventService.publishEnrollmentEvent(app, TEST_STUDY_ID, HEALTH_CODE, signature.getSignedOnAsDateTime());
         
         ArgumentCaptor<ActivityEvent> argument = ArgumentCaptor.forClass(ActivityEvent.class);
-        verify(activityEventDao, times(4)).publishEvent(argument.capture());
+        verify(activityEventDao, times(2)).publishEvent(argument.capture());
+        verify(activityEventDao, times(2)).publishEvents(eventListCaptor.capture());
         
         ActivityEvent event1 = argument.getAllValues().get(0);
         assertEquals(event1.getEventId(), "enrollment");
@@ -386,19 +398,19 @@ public class ActivityEventServiceTest {
         assertNull(event1.getStudyId());
         assertEquals(event1.getHealthCode(), HEALTH_CODE);
 
-        ActivityEvent event2 = argument.getAllValues().get(1);
+        ActivityEvent event2 = eventListCaptor.getAllValues().get(0).get(0);
         assertEquals(event2.getEventId(), "custom:3-days-after");
         assertEquals(event2.getTimestamp(), new Long(now3DaysLater.getMillis()));
         assertNull(event2.getStudyId());
         assertEquals(event2.getHealthCode(), HEALTH_CODE);
 
-        ActivityEvent event3 = argument.getAllValues().get(2);
+        ActivityEvent event3 = argument.getAllValues().get(1);
         assertEquals(event3.getEventId(), "enrollment");
         assertEquals(event3.getTimestamp(), new Long(now.getMillis()));
         assertEquals(event3.getStudyId(), TEST_STUDY_ID);
         assertEquals(event3.getHealthCode(), HEALTH_CODE + ":" + TEST_STUDY_ID);
 
-        ActivityEvent event4 = argument.getAllValues().get(3);
+        ActivityEvent event4 = eventListCaptor.getAllValues().get(1).get(0);
         assertEquals(event4.getEventId(), "custom:3-days-after");
         assertEquals(event4.getTimestamp(), new Long(now3DaysLater.getMillis()));
         assertEquals(event4.getStudyId(), TEST_STUDY_ID);
@@ -453,30 +465,31 @@ public class ActivityEventServiceTest {
         // Execute
         activityEventService.publishEnrollmentEvent(app,null, "AAA-BBB-CCC", signature.getSignedOnAsDateTime());
 
-        // Verify published events (4)
-        ArgumentCaptor<ActivityEvent> publishedEventCaptor = ArgumentCaptor.forClass(ActivityEvent.class);
-        verify(activityEventDao, times(4)).publishEvent(publishedEventCaptor.capture());
+        // Verify published event, and the automatic events published as one batch (3)
+        verify(activityEventDao).publishEvent(eventCaptor.capture());
+        verify(activityEventDao).publishEvents(eventListCaptor.capture());
+
+        assertEquals(eventCaptor.getValue().getEventId(), "enrollment");
+        assertEquals(eventCaptor.getValue().getTimestamp().longValue(), enrollment.getMillis());
+        assertEquals(eventCaptor.getValue().getHealthCode(), "AAA-BBB-CCC");
 
-        List<ActivityEvent> publishedEventList = publishedEventCaptor.getAllValues();
+        List<ActivityEvent> publishedEventList = eventListCaptor.getValue();
+        assertEquals(publishedEventList.size(), 3);
 
-        assertEquals(publishedEventList.get(0).getEventId(), "enrollment");
-        assertEquals(publishedEventList.get(0).getTimestamp().longValue(), enrollment.getMillis());
+        assertEquals(publishedEventList.get(0).getEventId(), "custom:3-days-after");
+        assertEquals(publishedEventList.get(0).getTimestamp().longValue(),
+                DateUtils.convertToMillisFromEpoch("2018-04-07T16:00-0700"));
         assertEquals(publishedEventList.get(0).getHealthCode(), "AAA-BBB-CCC");
 
-        assertEquals(publishedEventList.get(1).getEventId(), "custom:3-days-after");
+        assertEquals(publishedEventList.get(1).getEventId(), "custom:1-week-after");
         assertEquals(publishedEventList.get(1).getTimestamp().longValue(),
-                DateUtils.convertToMillisFromEpoch("2018-04-07T16:00-0700"));
+                DateUtils.convertToMillisFromEpoch("2018-04-11T16:00-0700"));
         assertEquals(publishedEventList.get(1).getHealthCode(), "AAA-BBB-CCC");
 
-        assertEquals(publishedEventList.get(2).getEventId(), "custom:1-week-after");
+        assertEquals(publishedEventList.get(2).getEventId(), "custom:13-weeks-after");
         assertEquals(publishedEventList.get(2).getTimestamp().longValue(),
-                DateUtils.convertToMillisFromEpoch("2018-04-11T16:00-0700"));
-        assertEquals(publishedEventList.get(2).getHealthCode(), "AAA-BBB-CCC");
-
-        assertEquals(publishedEventList.get(3).getEventId(), "custom:13-weeks-after");
-        assertEquals(publishedEventList.get(3).getTimestamp().longValue(),
                 DateUtils.convertToMillisFromEpoch("2018-07-04T16:00-0700"));
-        assertEquals(publishedEventList.get(3).getHealthCode(), "AAA-BBB-CCC");
+        assertEquals(publishedEventList.get(2).getHealthCode(), "AAA-BBB-CCC");
     }
     
     @Test
@@ -499,6 +512,7 @@ public class ActivityEventServiceTest {
         
         // Only happens once, none of the other custom events are published.
         verify(activityEventDao, times(1)).publishEvent(any());
+        verify(activityEventDao, never()).publishEvents(any());
     }
     
     @Test
@@ -520,6 +534,7 @@ public class ActivityEventServiceTest {
         
         // Only happens once, none of the other custom events are published.
         verify(activityEventDao, times(1)).publishEvent(any());
+        verify(activityEventDao, never()).publishEvents(any());
     }
     
     @Test
@@ -542,6 +557,7 @@ public class ActivityEventServiceTest {
         
         // Only happens once, none of the other custom events are published.
         verify(activityEventDao, times(1)).publishEvent(any());
+        verify(activityEventDao, never()).publishEvents(any());
     }
 
     @Test
@@ -561,6 +577,7 @@ public class ActivityEventServiceTest {
         
         // Only happens once, none of the other custom events are published.
         verify(activityEventDao, times(1)).publishEvent(any());
+        verify(activityEventDao, never()).publishEvents(any());
     }
     
     @Test
@@ -584,30 +601,31 @@ public class ActivityEventServiceTest {
         // Execute
         activityEventService.publishActivitiesRetrieved(app, null, "AAA-BBB-CCC", retrieved);
 
-        // Verify published events (4)
-        ArgumentCaptor<ActivityEvent> publishedEventCaptor = ArgumentCaptor.forClass(ActivityEvent.class);
-        verify(activityEventDao, times(4)).publishEvent(publishedEventCaptor.capture());
+        // Verify published event, and the automatic events published as one batch (3)
+        verify(activityEventDao).publishEvent(eventCaptor.capture());
+        verify(activityEventDao).publishEvents(eventListCaptor.capture());
+
+        assertEquals(eventCaptor.getValue().getEventId(), "activities_retrieved");
+        assertEquals(eventCaptor.getValue().getTimestamp().longValue(), retrieved.getMillis());
+        assertEquals(eventCaptor.getValue().getHealthCode(), "AAA-BBB-CCC");
 
-        List<ActivityEvent> publishedEventList = publishedEventCaptor.getAllValues();
+        List<ActivityEvent> publishedEventList = eventListCaptor.getValue();
+        assertEquals(publishedEventList.size(), 3);
 
-        assertEquals(publishedEventList.get(0).getEventId(), "activities_retrieved");
-        assertEquals(publishedEventList.get(0).getTimestamp().longValue(), retrieved.getMillis());
+        assertEquals(publishedEventList.get(0).getEventId(), "custom:3-days-after");
+        assertEquals(publishedEventList.get(0).getTimestamp().longValue(),
+                DateUtils.convertToMillisFromEpoch("2018-04-07T16:00-0700"));
         assertEquals(publishedEventList.get(0).getHealthCode(), "AAA-BBB-CCC");
 
-        assertEquals(publishedEventList.get(1).getEventId(), "custom:3-days-after");
+        assertEquals(publishedEventList.get(1).getEventId(), "custom:1-week-after");
         assertEquals(publishedEventList.get(1).getTimestamp().longValue(),
-                DateUtils.convertToMillisFromEpoch("2018-04-07T16:00-0700"));
+                DateUtils.convertToMillisFromEpoch("2018-04-11T16:00-0700"));
         assertEquals(publishedEventList.get(1).getHealthCode(), "AAA-BBB-CCC");
 
-        assertEquals(publishedEventList.get(2).getEventId(), "custom:1-week-after");
+        assertEquals(publishedEventList.get(2).getEventId(), "custom:13-weeks-after");
         assertEquals(publishedEventList.get(2).getTimestamp().longValue(),
-                DateUtils.convertToMillisFromEpoch("2018-04-11T16:00-0700"));
-        assertEquals(publishedEventList.get(2).getHealthCode(), "AAA-BBB-CCC");
-
-        assertEquals(publishedEventList.get(3).getEventId(), "custom:13-weeks-after");
-        assertEquals(publishedEventList.get(3).getTimestamp().longValue(),
                 DateUtils.convertToMillisFromEpoch("2018-07-04T16:00-0700"));
-        assertEquals(publishedEventList.get(3).getHealthCode(), "AAA-BBB-CCC");
+        assertEquals(publishedEventList.get(2).getHealthCode(), "AAA-BBB-CCC");
     }
     
     @Test
@@ -628,12 +646,13 @@ public class ActivityEventServiceTest {
 
         ArgumentCaptor<ActivityEvent> publishedEventCaptor = ArgumentCaptor.forClass(ActivityEvent.class);
         
-        verify(activityEventDao, times(4)).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao, times(2)).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao, times(2)).publishEvents(eventListCaptor.capture());
         
         ActivityEvent event1 = publishedEventCaptor.getAllValues().get(0);
-        ActivityEvent event2 = publishedEventCaptor.getAllValues().get(1);
-        ActivityEvent event3 = publishedEventCaptor.getAllValues().get(2);
-        ActivityEvent event4 = publishedEventCaptor.getAllValues().get(3);
+        ActivityEvent event2 = eventListCaptor.getAllValues().get(0).get(0);
+        ActivityEvent event3 = publishedEventCaptor.getAllValues().get(1);
+        ActivityEvent event4 = eventListCaptor.getAllValues().get(1).get(0);
         
         assertEquals(event1.getEventId(), "activities_retrieved");
         assertEquals(event1.getTimestamp().longValue(), retrieved.getMillis());
@@ -704,25 +723,117 @@ public class ActivityEventServiceTest {
         // Execute
         activityEventService.publishCustomEvent(app, null, "AAA-BBB-CCC", "myEvent", timestamp);
 
-        // Verify published events (3)
-        ArgumentCaptor<ActivityEvent> publishedEventCaptor = ArgumentCaptor.forClass(ActivityEvent.class);
-        verify(activityEventDao, times(3)).publishEvent(publishedEventCaptor.capture());
+        // Verify published event, and the automatic events published as one batch (2)
+        verify(activityEventDao).publishEvent(eventCaptor.capture());
+        verify(activityEventDao).publishEvents(eventListCaptor.capture());
 
-        List<ActivityEvent> publishedEventList = publishedEventCaptor.getAllValues();
+        assertEquals(eventCaptor.getValue().getEventId(), "custom:myEvent");
+        assertEquals(eventCaptor.getValue().getTimestamp().longValue(), timestamp.getMillis());
+        assertEquals(eventCaptor.getValue().getHealthCode(), "AAA-BBB-CCC");
+
+        List<ActivityEvent> publishedEventList = eventListCaptor.getValue();
+        assertEquals(publishedEventList.size(), 2);
         
-        assertEquals(publishedEventList.get(0).getEventId(), "custom:myEvent");
-        assertEquals(publishedEventList.get(0).getTimestamp().longValue(), timestamp.getMillis());
+        assertEquals(publishedEventList.get(0).getEventId(), "custom:3-days-after");
+        assertEquals(publishedEventList.get(0).getTimestamp().longValue(),
+                DateUtils.convertToMillisFromEpoch("2018-04-07T16:00-0700"));
         assertEquals(publishedEventList.get(0).getHealthCode(), "AAA-BBB-CCC");
 
-        assertEquals(publishedEventList.get(1).getEventId(), "custom:3-days-after");
+        assertEquals(publishedEventList.get(1).getEventId(), "custom:1-week-after");
         assertEquals(publishedEventList.get(1).getTimestamp().longValue(),
-                DateUtils.convertToMillisFromEpoch("2018-04-07T16:00-0700"));
+                DateUtils.convertToMillisFromEpoch("2018-04-11T16:00-0700"));
         assertEquals(publishedEventList.get(1).getHealthCode(), "AAA-BBB-CCC");
+    }
 
-        assertEquals(publishedEventList.get(2).getEventId(), "custom:1-week-after");
-        assertEquals(publishedEventList.get(2).getTimestamp().longValue(),
-                DateUtils.convertToMillisFromEpoch("2018-04-11T16:00-0700"));
-        assertEquals(publishedEventList.get(2).getHealthCode(), "AAA-BBB-CCC");
+    @Test
+    public void activitiesRetrievedIsOnlyPublishedOncePerUser() {
+        when(activityEventDao.publishEvent(any())).thenReturn(true);
+        
+        activityEventService.publishActivitiesRetrieved(App.create(), TEST_STUDY_ID, HEALTH_CODE, ACTIVITIES_RETRIEVED);
+        activityEventService.publishActivitiesRetrieved(App.create(), TEST_STUDY_ID, HEALTH_CODE,
+                ACTIVITIES_RETRIEVED.plusDays(1));
+        
+        // Global and study-scoped events, once each.
+        verify(activityEventDao, times(2)).publishEvent(any());
+    }
+    
+    @Test
+    public void activitiesRetrievedIsRememberedWhenAlreadyRecorded() {
+        when(activityEventDao.publishEvent(any())).thenReturn(false);
+        
+        activityEventService.publishActivitiesRetrieved(App.create(), null, HEALTH_CODE, ACTIVITIES_RETRIEVED);
+        activityEventService.publishActivitiesRetrieved(App.create(), null, HEALTH_CODE, ACTIVITIES_RETRIEVED);
+        
+        verify(activityEventDao, times(1)).publishEvent(any());
+    }
+    
+    @Test
+    public void activitiesRetrievedIsPublishedAgainAfterEventsDeleted() {
+        when(activityEventDao.publishEvent(any())).thenReturn(true);
+        
+        activityEventService.publishActivitiesRetrieved(App.create(), null, HEALTH_CODE, ACTIVITIES_RETRIEVED);
+        activityEventService.deleteActivityEvents(null, HEALTH_CODE);
+        activityEventService.publishActivitiesRetrieved(App.create(), null, HEALTH_CODE, ACTIVITIES_RETRIEVED);
+        
+        verify(activityEventDao, times(2)).publishEvent(any());
+    }
+
+    @Test
+    public void publishingEnrollmentRemovesUploadMetadataFromCache() {
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(activityEventDao.publishEvent(any())).thenReturn(true);
+        
+        activityEventService.publishEnrollmentEvent(app, TEST_STUDY_ID, HEALTH_CODE, ACTIVITIES_RETRIEVED);
+        
+        // Only the global event affects the study start time.
+        verify(mockCacheProvider).removeObject(CacheKey.participantUploadMetadata(TEST_APP_ID, HEALTH_CODE));
+        // Both events change the schedule.
+        verify(mockCacheProvider, times(2)).removeObject(CacheKey.scheduledActivitiesVersion(HEALTH_CODE));
+        verifyNoMoreInteractions(mockCacheProvider);
+    }
+    
+    @Test
+    public void publishingActivitiesRetrievedRemovesUploadMetadataFromCache() {
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(activityEventDao.publishEvent(any())).thenReturn(true);
+        
+        activityEventService.publishActivitiesRetrieved(app, TEST_STUDY_ID, HEALTH_CODE, ACTIVITIES_RETRIEVED);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.participantUploadMetadata(TEST_APP_ID, HEALTH_CODE));
+        verify(mockCacheProvider, times(2)).removeObject(CacheKey.scheduledActivitiesVersion(HEALTH_CODE));
+        verifyNoMoreInteractions(mockCacheProvider);
+    }
+    
+    @Test
+    public void existingEnrollmentDoesNotRemoveUploadMetadataFromCache() {
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        when(activityEventDao.publishEvent(any())).thenReturn(false);
+        
+        activityEventService.publishEnrollmentEvent(app, null, HEALTH_CODE, ACTIVITIES_RETRIEVED);
+        
+        verify(mockCacheProvider, never()).removeObject(any());
+    }
+
+    @Test
+    public void publishingCustomEventRemovesScheduleVersionFromCache() {
+        App app = App.create();
+        app.setIdentifier(TEST_APP_ID);
+        app.setActivityEventKeys(ImmutableSet.of("myEvent"));
+        when(activityEventDao.publishEvent(any())).thenReturn(true);
+        
+        activityEventService.publishCustomEvent(app, null, HEALTH_CODE, "myEvent", ACTIVITIES_RETRIEVED);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.scheduledActivitiesVersion(HEALTH_CODE));
+    }
+    
+    @Test
+    public void deletingActivityEventsRemovesScheduleVersionFromCache() {
+        activityEventService.deleteActivityEvents(null, HEALTH_CODE);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.scheduledActivitiesVersion(HEALTH_CODE));
     }
 
     @Test
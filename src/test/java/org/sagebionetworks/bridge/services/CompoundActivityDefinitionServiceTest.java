@@ -19,6 +19,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.CompoundActivityDefinitionDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
@@ -41,6 +43,7 @@ public class CompoundActivityDefinitionServiceTest {
     private SchedulePlanService schedulePlanService;
     private CompoundActivityDefinitionDao dao;
     private CompoundActivityDefinitionService service;
+    private CacheProvider cacheProvider;
 
     @BeforeMethod
     public void setup() {
@@ -49,6 +52,8 @@ public class CompoundActivityDefinitionServiceTest {
         service = new CompoundActivityDefinitionService();
         service.setSchedulePlanService(schedulePlanService);
         service.setCompoundActivityDefDao(dao);
+        cacheProvider = mock(CacheProvider.class);
+        service.setCacheProvider(cacheProvider);
     }
 
     // CREATE
@@ -73,6 +78,9 @@ public class CompoundActivityDefinitionServiceTest {
 
         // Validate that the service result is the same as the dao result.
         assertSame(serviceResult, daoResult);
+
+        // Validate that any cached copy of the definition is removed.
+        verify(cacheProvider).removeObject(CacheKey.compoundActivityDefinition(TEST_APP_ID, TASK_ID));
     }
 
     @Test
@@ -106,6 +114,17 @@ public class CompoundActivityDefinitionServiceTest {
         verify(dao).deleteCompoundActivityDefinition(TEST_APP_ID, TASK_ID);
     }
 
+    @Test
+    public void deleteRemovesCachedDefinition() {
+        when(schedulePlanService.getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, true))
+                .thenReturn(ImmutableList.of());
+
+        service.deleteCompoundActivityDefinition(TEST_APP_ID, TASK_ID);
+
+        verify(dao).deleteCompoundActivityDefinition(TEST_APP_ID, TASK_ID);
+        verify(cacheProvider).removeObject(CacheKey.compoundActivityDefinition(TEST_APP_ID, TASK_ID));
+    }
+
     @Test
     public void deleteNullTaskId() {
         deleteBadRequest(null);
@@ -251,6 +270,9 @@ public class CompoundActivityDefinitionServiceTest {
 
         // Validate that the service result is the same as the dao result.
         assertSame(serviceResult, daoResult);
+
+        // Validate that any cached copy of the definition is removed.
+        verify(cacheProvider).removeObject(CacheKey.compoundActivityDefinition(TEST_APP_ID, TASK_ID));
     }
 
     @Test
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
@@ -14,10 +15,13 @@ import static org.testng.Assert.assertTrue;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -34,6 +38,8 @@ public class EmailVerificationServiceTest {
 
     private static final String EMAIL_ADDRESS = "foo@foo.com";
     
+    private static final long NOW = DateTime.parse("2020-05-01T12:00:00.000Z").getMillis();
+    
     private static final CacheKey EMAIL_ADDRESS_KEY = CacheKey.emailVerification(EMAIL_ADDRESS);
 
     @Mock
@@ -57,6 +63,12 @@ public class EmailVerificationServiceTest {
         service.setAmazonSimpleEmailServiceClient(sesClient);
         service.setAsyncExecutorService(asyncExecutorService);
         service.setCacheProvider(cacheProvider);
+        DateTimeUtils.setCurrentMillisFixed(NOW);
+    }
+    
+    @AfterMethod
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
     }
     
     private void mockSession(String status) {
@@ -200,6 +212,75 @@ public class EmailVerificationServiceTest {
         verify(cacheProvider).setObject(eq(EMAIL_ADDRESS_KEY), eq("UNVERIFIED"), anyInt());
     }
 
+    @Test
+    public void isVerifiedCachedLocally() {
+        when(cacheProvider.getObject(EMAIL_ADDRESS_KEY, String.class)).thenReturn("VERIFIED");
+
+        assertTrue(service.isVerified(EMAIL_ADDRESS));
+        assertTrue(service.isVerified(EMAIL_ADDRESS));
+
+        verify(cacheProvider, times(1)).getObject(EMAIL_ADDRESS_KEY, String.class);
+        verify(asyncExecutorService, never()).execute(any());
+    }
+
+    @Test
+    public void verifyEmailAddressUpdatesLocalCache() {
+        mockSession("Success");
+        service.verifyEmailAddress(EMAIL_ADDRESS);
+
+        assertTrue(service.isVerified(EMAIL_ADDRESS));
+        verify(cacheProvider, never()).getObject(EMAIL_ADDRESS_KEY, String.class);
+    }
+
+    @Test
+    public void staleVerifiedStatusRefreshedInBackground() {
+        when(cacheProvider.getObject(EMAIL_ADDRESS_KEY, String.class)).thenReturn("VERIFIED", "UNVERIFIED");
+        assertTrue(service.isVerified(EMAIL_ADDRESS));
+
+        // Not stale yet.
+        DateTimeUtils.setCurrentMillisFixed(NOW + EmailVerificationService.VERIFIED_STATUS_REFRESH_MILLIS);
+        assertTrue(service.isVerified(EMAIL_ADDRESS));
+        verify(asyncExecutorService, never()).execute(any());
+
+        // Stale. The cached status is returned and one refresh is scheduled.
+        DateTimeUtils.setCurrentMillisFixed(NOW + EmailVerificationService.VERIFIED_STATUS_REFRESH_MILLIS + 1);
+        assertTrue(service.isVerified(EMAIL_ADDRESS));
+        assertTrue(service.isVerified(EMAIL_ADDRESS));
+
+        ArgumentCaptor<EmailVerificationService.AsyncStatusRefreshHandler> handlerCaptor = ArgumentCaptor.forClass(
+                EmailVerificationService.AsyncStatusRefreshHandler.class);
+        verify(asyncExecutorService, times(1)).execute(handlerCaptor.capture());
+        assertEquals(handlerCaptor.getValue().getEmailAddress(), EMAIL_ADDRESS);
+
+        // Run the refresh. The new status is used from now on.
+        handlerCaptor.getValue().run();
+        assertFalse(service.isVerified(EMAIL_ADDRESS));
+        verify(cacheProvider, times(2)).getObject(EMAIL_ADDRESS_KEY, String.class);
+    }
+
+    @Test
+    public void staleUnverifiedStatusRefreshedSooner() {
+        when(cacheProvider.getObject(EMAIL_ADDRESS_KEY, String.class)).thenReturn("PENDING");
+        assertFalse(service.isVerified(EMAIL_ADDRESS));
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + EmailVerificationService.UNVERIFIED_STATUS_REFRESH_MILLIS + 1);
+        assertFalse(service.isVerified(EMAIL_ADDRESS));
+
+        verify(asyncExecutorService).execute(any(EmailVerificationService.AsyncStatusRefreshHandler.class));
+    }
+
+    @Test
+    public void expiredStatusReloadedBeforeReturning() {
+        when(cacheProvider.getObject(EMAIL_ADDRESS_KEY, String.class)).thenReturn("VERIFIED", "UNVERIFIED");
+        assertTrue(service.isVerified(EMAIL_ADDRESS));
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + EmailVerificationService.LOCAL_STATUS_EXPIRE_MILLIS + 1);
+        assertFalse(service.isVerified(EMAIL_ADDRESS));
+
+        verify(cacheProvider, times(2)).getObject(EMAIL_ADDRESS_KEY, String.class);
+        verify(asyncExecutorService, never()).execute(any());
+    }
+
     private void verifyAsyncHandler() {
         ArgumentCaptor<EmailVerificationService.AsyncSnsTopicHandler> handlerCaptor = ArgumentCaptor.forClass(
                 EmailVerificationService.AsyncSnsTopicHandler.class);
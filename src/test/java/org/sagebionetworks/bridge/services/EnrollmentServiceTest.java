@@ -16,6 +16,8 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.sagebionetworks.bridge.models.ResourceList.ENROLLMENT_FILTER;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
+import static org.sagebionetworks.bridge.models.ResourceList.TOTAL_COUNT;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
 import static org.sagebionetworks.bridge.models.studies.EnrollmentFilter.ENROLLED;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -86,15 +88,16 @@ public class EnrollmentServiceTest extends Mockito {
                 .withCallerRoles(ImmutableSet.of(ADMIN)).build());
         
         PagedResourceList<EnrollmentDetail> page = new PagedResourceList<>(ImmutableList.of(), 10);
-        when(mockEnrollmentDao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 10, 50)).thenReturn(page);
+        when(mockEnrollmentDao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 10, 50, EXACT)).thenReturn(page);
         
-        PagedResourceList<EnrollmentDetail> retValue = service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 10, 50);
+        PagedResourceList<EnrollmentDetail> retValue = service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 10, 50, EXACT);
         assertSame(retValue, page);
         assertEquals(retValue.getRequestParams().get(OFFSET_BY), Integer.valueOf(10));
         assertEquals(retValue.getRequestParams().get(PAGE_SIZE), Integer.valueOf(50));
         assertEquals(retValue.getRequestParams().get(ENROLLMENT_FILTER), EnrollmentFilter.ENROLLED);
+        assertEquals(retValue.getRequestParams().get(TOTAL_COUNT), EXACT);
         
-        verify(mockEnrollmentDao).getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 10, 50);
+        verify(mockEnrollmentDao).getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 10, 50, EXACT);
     }
     
     @Test
@@ -103,12 +106,12 @@ public class EnrollmentServiceTest extends Mockito {
                 .withCallerRoles(ImmutableSet.of(ADMIN)).build());
         
         PagedResourceList<EnrollmentDetail> page = new PagedResourceList<>(ImmutableList.of(), 10);
-        when(mockEnrollmentDao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, null, null)).thenReturn(page);
+        when(mockEnrollmentDao.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, null, null, EXACT)).thenReturn(page);
         
-        PagedResourceList<EnrollmentDetail> retValue = service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, null, null);
+        PagedResourceList<EnrollmentDetail> retValue = service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, null, null, EXACT);
         assertSame(retValue, page);
         
-        verify(mockEnrollmentDao).getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, null, null);
+        verify(mockEnrollmentDao).getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, null, null, EXACT);
     }
         
     @Test(expectedExceptions = UnauthorizedException.class)
@@ -118,7 +121,7 @@ public class EnrollmentServiceTest extends Mockito {
                 .withCallerOrgMembership(TEST_ORG_ID).build());
         when(mockSponsorService.isStudySponsoredBy(TEST_STUDY_ID, TEST_ORG_ID)).thenReturn(false);
         
-        service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, 10, 50);
+        service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, 10, 50, EXACT);
     }
 
     @Test(expectedExceptions = BadRequestException.class, expectedExceptionsMessageRegExp = NEGATIVE_OFFSET_ERROR)
@@ -126,7 +129,7 @@ public class EnrollmentServiceTest extends Mockito {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN)).build());
 
-        service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, -1, 50);
+        service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, -1, 50, EXACT);
     }
 
     @Test(expectedExceptions = BadRequestException.class, expectedExceptionsMessageRegExp = PAGE_SIZE_ERROR)
@@ -134,7 +137,7 @@ public class EnrollmentServiceTest extends Mockito {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN)).build());
 
-        service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, 0, 0);
+        service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, 0, 0, EXACT);
     }
     
     @Test(expectedExceptions = BadRequestException.class, expectedExceptionsMessageRegExp = PAGE_SIZE_ERROR)
@@ -142,7 +145,7 @@ public class EnrollmentServiceTest extends Mockito {
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN)).build());
 
-        service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, 0, 1000);
+        service.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, true, 0, 1000, EXACT);
     }
     
     @Test
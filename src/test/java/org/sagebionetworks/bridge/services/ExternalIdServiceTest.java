@@ -4,6 +4,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.BridgeConstants.NEGATIVE_OFFSET_ERROR;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
 import static org.testng.Assert.assertSame;
 
 import java.util.List;
@@ -75,13 +76,13 @@ public class ExternalIdServiceTest {
                 new ExternalIdentifierInfo(null, null, true));
         PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(list, 100);
         
-        when(mockExternalIdDao.getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, 50))
+        when(mockExternalIdDao.getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, 50, EXACT))
             .thenReturn(page);
         
-        PagedResourceList<ExternalIdentifierInfo> retValue = externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, 50);
+        PagedResourceList<ExternalIdentifierInfo> retValue = externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, 50, EXACT);
         assertSame(retValue, page);
         
-        verify(mockExternalIdDao).getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, 50);
+        verify(mockExternalIdDao).getPagedExternalIds(TEST_APP_ID, STUDY_ID, "idFilter", 10, 50, EXACT);
     }
     
     @Test
@@ -90,29 +91,29 @@ public class ExternalIdServiceTest {
                 new ExternalIdentifierInfo(null, null, true));
         PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(list, 100);
         
-        when(mockExternalIdDao.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null)).thenReturn(page);
+        when(mockExternalIdDao.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null, EXACT)).thenReturn(page);
         
-        PagedResourceList<ExternalIdentifierInfo> retValue = externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null);
+        PagedResourceList<ExternalIdentifierInfo> retValue = externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null, EXACT);
         assertSame(retValue, page);
         
-        verify(mockExternalIdDao).getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null);
+        verify(mockExternalIdDao).getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, null, EXACT);
     }
     
     @Test(expectedExceptions = BadRequestException.class, expectedExceptionsMessageRegExp = NEGATIVE_OFFSET_ERROR)
     public void getPagedExternalIdsNegativeOffset() {
-        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, -5, null);
+        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, -5, null, EXACT);
     }
     
     @Test(expectedExceptions = BadRequestException.class, 
             expectedExceptionsMessageRegExp = ExternalIdService.PAGE_SIZE_ERROR)
     public void getPagedExternalIdsPageTooSmall() {
-        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, 0);
+        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, 0, EXACT);
     }
     
     @Test(expectedExceptions = BadRequestException.class, 
             expectedExceptionsMessageRegExp = ExternalIdService.PAGE_SIZE_ERROR)
     public void getPagedExternalIdsPageTooLarge() {
-        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, 10000);
+        externalIdService.getPagedExternalIds(TEST_APP_ID, STUDY_ID, null, null, 10000, EXACT);
     }
     
     @Test
@@ -12,6 +12,7 @@ import static org.sagebionetworks.bridge.TestConstants.MODIFIED_ON;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.USER_DATA_GROUPS;
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.sagebionetworks.bridge.services.OrganizationService.ORGANIZATION_EXPIRE_IN_SECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
@@ -201,6 +202,8 @@ public class OrganizationServiceTest extends Mockito {
         assertEquals(retValue.getName(), NAME);
         assertEquals(retValue.getCreatedOn(), CREATED_ON);
         assertEquals(retValue.getModifiedOn(), MODIFIED_ON);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.organization(TEST_APP_ID, IDENTIFIER));
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class, 
@@ -240,6 +243,22 @@ public class OrganizationServiceTest extends Mockito {
         assertSame(retValue, org);
         
         verify(mockOrgDao).getOrganization(TEST_APP_ID, IDENTIFIER);
+        verify(mockCacheProvider).setObject(CacheKey.organization(TEST_APP_ID, IDENTIFIER), org,
+                ORGANIZATION_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void getOrganizationFromCache() {
+        Organization org = Organization.create();
+        org.setIdentifier(IDENTIFIER);
+        when(mockCacheProvider.getObject(CacheKey.organization(TEST_APP_ID, IDENTIFIER), Organization.class))
+            .thenReturn(org);
+        
+        Organization retValue = service.getOrganization(TEST_APP_ID, IDENTIFIER);
+        assertSame(retValue, org);
+        assertEquals(retValue.getAppId(), TEST_APP_ID);
+        
+        verify(mockOrgDao, never()).getOrganization(any(), any());
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class, 
@@ -249,6 +268,8 @@ public class OrganizationServiceTest extends Mockito {
             .thenReturn(Optional.empty());
         
         service.getOrganization(TEST_APP_ID, IDENTIFIER);
+        
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
     }
     
     @Test
@@ -270,6 +291,7 @@ public class OrganizationServiceTest extends Mockito {
         service.deleteOrganization(TEST_APP_ID, IDENTIFIER);
         
         verify(mockOrgDao).deleteOrganization(org);
+        verify(mockCacheProvider).removeObject(CacheKey.organization(TEST_APP_ID, IDENTIFIER));
         verify(mockCacheProvider).removeObject(CacheKey.orgSponsoredStudies(TEST_APP_ID, IDENTIFIER));
     }
 
@@ -534,7 +556,16 @@ public class OrganizationServiceTest extends Mockito {
     
     @Test
     public void deleteAllOrganizations() {
+        Organization org1 = Organization.create();
+        org1.setIdentifier("org1");
+        Organization org2 = Organization.create();
+        org2.setIdentifier("org2");
+        when(mockOrgDao.getOrganizations(TEST_APP_ID, null, null))
+            .thenReturn(new PagedResourceList<>(ImmutableList.of(org1, org2), 2));
+        
         service.deleteAllOrganizations(TEST_APP_ID);
         verify(mockOrgDao).deleteAllOrganizations(TEST_APP_ID);
+        verify(mockCacheProvider).removeObject(CacheKey.organization(TEST_APP_ID, "org1"));
+        verify(mockCacheProvider).removeObject(CacheKey.organization(TEST_APP_ID, "org2"));
     }
 }
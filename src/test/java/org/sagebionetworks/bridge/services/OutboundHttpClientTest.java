@@ -0,0 +1,122 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.fluent.Request;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.models.Metrics;
+
+public class OutboundHttpClientTest {
+    
+    @Mock
+    CloseableHttpClient mockHttpClient;
+    
+    @Mock
+    ResponseHandler<String> mockHandler;
+    
+    Metrics metrics;
+    
+    OutboundHttpClient client;
+    
+    @BeforeMethod
+    public void beforeMethod() {
+        MockitoAnnotations.initMocks(this);
+        
+        metrics = new Metrics("request-id");
+        RequestContext.set(new RequestContext.Builder().withMetrics(metrics).build());
+        
+        client = new OutboundHttpClient();
+        client.setHttpClient(mockHttpClient);
+    }
+    
+    @AfterMethod
+    public void afterMethod() {
+        RequestContext.set(null);
+    }
+    
+    @Test
+    public void executeWithHandler() throws Exception {
+        HttpPost post = new HttpPost("https://example.com/token");
+        when(mockHttpClient.execute(post, mockHandler)).thenReturn("result");
+        
+        String result = client.execute("oauth", post, mockHandler);
+        assertEquals(result, "result");
+        
+        JsonNode node = metrics.getJson().get("outbound_requests").get("oauth");
+        assertEquals(node.get("count").intValue(), 1);
+        assertTrue(node.has("elapsedMillis"));
+    }
+    
+    @Test
+    public void executeWithHandlerRecordsFailedRequest() throws Exception {
+        HttpPost post = new HttpPost("https://example.com/token");
+        IOException ex = new IOException();
+        when(mockHttpClient.execute(post, mockHandler)).thenThrow(ex);
+        
+        try {
+            client.execute("oauth", post, mockHandler);
+            fail("Should have thrown exception");
+        } catch (IOException e) {
+            assertSame(e, ex);
+        }
+        assertEquals(metrics.getJson().get("outbound_requests").get("oauth").get("count").intValue(), 1);
+    }
+    
+    @Test
+    public void executeFluentRequest() throws Exception {
+        CloseableHttpResponse mockResponse = mock(CloseableHttpResponse.class);
+        when(mockResponse.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        when(mockResponse.getAllHeaders()).thenReturn(new Header[0]);
+        when(mockResponse.getEntity()).thenReturn(new StringEntity("body"));
+        when(mockHttpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenReturn(mockResponse);
+        
+        HttpResponse result = client.execute("gbf", Request.Post("https://example.com/order"));
+        assertEquals(result.getStatusLine().getStatusCode(), 200);
+        assertEquals(EntityUtils.toString(result.getEntity()), "body");
+        
+        ArgumentCaptor<HttpUriRequest> requestCaptor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(mockHttpClient).execute(requestCaptor.capture(), any(HttpContext.class));
+        assertEquals(requestCaptor.getValue().getURI().toString(), "https://example.com/order");
+        
+        assertEquals(metrics.getJson().get("outbound_requests").get("gbf").get("count").intValue(), 1);
+    }
+    
+    @Test
+    public void executeWithoutMetrics() throws Exception {
+        RequestContext.set(null);
+        HttpPost post = new HttpPost("https://example.com/token");
+        when(mockHttpClient.execute(post, mockHandler)).thenReturn("result");
+        
+        assertEquals(client.execute("oauth", post, mockHandler), "result");
+    }
+}
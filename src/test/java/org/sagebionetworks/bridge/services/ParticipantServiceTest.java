@@ -1141,6 +1141,18 @@ public class ParticipantServiceTest extends Mockito {
         assertEquals(result, CREATED_ON_DATETIME);
     }
 
+    @Test
+    public void getStudyStartTime_FromLoadedAccount() {
+        // Set up mocks.
+        when(activityEventService.getActivityEventMap(APP.getIdentifier(), null, HEALTH_CODE)).thenReturn(ImmutableMap.of(
+                ActivityEventObjectType.ACTIVITIES_RETRIEVED.name().toLowerCase(), ACTIVITIES_RETRIEVED_DATETIME));
+
+        // Execute and validate.
+        DateTime result = participantService.getStudyStartTime(account);
+        assertEquals(result, ACTIVITIES_RETRIEVED_DATETIME);
+        verify(accountService, never()).getAccount(any());
+    }
+
     @Test(expectedExceptions = EntityNotFoundException.class)
     public void signOutUserWhoDoesNotExist() {
         participantService.signUserOut(APP, ID, true);
@@ -1671,6 +1683,23 @@ public class ParticipantServiceTest extends Mockito {
         participantService.getActivityHistory(APP, ID, ACTIVITY_GUID, null, null, null, PAGE_SIZE);
     }
     
+    @Test
+    public void streamActivityHistory() {
+        mockHealthCodeAndAccountRetrieval();
+        DateTime scheduledOnStart = DateTime.now().minusDays(3);
+        DateTime scheduledOnEnd = scheduledOnStart.plusDays(6);
+        
+        participantService.streamActivityHistory(APP, ID, ACTIVITY_GUID, scheduledOnStart, scheduledOnEnd);
+        
+        verify(scheduledActivityService).streamActivityHistory(HEALTH_CODE, ACTIVITY_GUID, scheduledOnStart,
+                scheduledOnEnd);
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void streamActivityHistoryNoUserThrowsCorrectException() {
+        participantService.streamActivityHistory(APP, ID, ACTIVITY_GUID, null, null);
+    }
+    
     @Test
     public void deleteActivities() {
         mockHealthCodeAndAccountRetrieval();
@@ -1,5 +1,7 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -20,6 +22,8 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.schedules.Activity;
@@ -80,6 +84,9 @@ public class ReferenceResolverTest {
         UNRESOLVED_COMPOUND_ACTIVITY_DEF.setSchemaList(ImmutableList.of(UNRESOLVED_SCHEMA_REF));
     }
 
+    @Mock
+    CacheProvider cacheProvider;
+    
     @Mock
     CompoundActivityDefinitionService compoundActivityDefinitionService;
     
@@ -106,8 +113,8 @@ public class ReferenceResolverTest {
         MockitoAnnotations.initMocks(this);
         
         // All the dependencies are mocks or mutable maps, and can be adjusted per test
-        resolver = new ReferenceResolver(compoundActivityDefinitionService, schemaService, surveyService,
-                surveyReferences, schemaReferences, CLIENT_INFO, TEST_APP_ID);
+        resolver = new ReferenceResolver(cacheProvider, compoundActivityDefinitionService, schemaService,
+                surveyService, surveyReferences, schemaReferences, CLIENT_INFO, TEST_APP_ID);
         
         scheduledActivity = ScheduledActivity.create();
         
@@ -343,6 +350,85 @@ public class ReferenceResolverTest {
         verify(schemaService, times(1)).getLatestUploadSchemaRevisionForAppVersion(TEST_APP_ID, SCHEMA_ID, CLIENT_INFO);
     }
     
+    @Test
+    public void surveyResolvedFromServiceIsSharedThroughCache() {
+        scheduledActivity.setActivity(activityBuilder.withSurvey(UNRESOLVED_SURVEY_REF).build());
+        when(surveyService.getSurveyMostRecentlyPublishedVersion(TEST_APP_ID, SURVEY_GUID, false)).thenReturn(SURVEY);
+        
+        resolver.resolve(scheduledActivity);
+        
+        verify(cacheProvider).setObject(CacheKey.resolvedSurveyReference(TEST_APP_ID, SURVEY_GUID),
+                RESOLVED_SURVEY_REF, ReferenceResolver.REFERENCE_CACHE_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void surveyResolvedFromSharedCache() {
+        scheduledActivity.setActivity(activityBuilder.withSurvey(UNRESOLVED_SURVEY_REF).build());
+        when(cacheProvider.getObject(CacheKey.resolvedSurveyReference(TEST_APP_ID, SURVEY_GUID),
+                SurveyReference.class)).thenReturn(RESOLVED_SURVEY_REF);
+        
+        resolver.resolve(scheduledActivity);
+        
+        assertEquals(RESOLVED_SURVEY_REF, scheduledActivity.getActivity().getSurvey());
+        verifyNoMoreInteractions(surveyService);
+        verify(cacheProvider, never()).setObject(any(), any(), anyInt());
+    }
+    
+    @Test
+    public void schemaResolvedFromServiceIsSharedThroughCache() {
+        scheduledActivity.setActivity(activityBuilder.withTask(UNRESOLVED_TASK_REF).build());
+        when(schemaService.getLatestUploadSchemaRevisionForAppVersion(TEST_APP_ID, SCHEMA_ID, CLIENT_INFO)).thenReturn(SCHEMA);
+        
+        resolver.resolve(scheduledActivity);
+        
+        CacheKey cacheKey = CacheKey.resolvedSchemaReference(TEST_APP_ID, SCHEMA_ID, CLIENT_INFO.getOsName(),
+                CLIENT_INFO.getAppVersion());
+        verify(cacheProvider).setObject(cacheKey, RESOLVED_SCHEMA_REF,
+                ReferenceResolver.REFERENCE_CACHE_EXPIRE_IN_SECONDS);
+        verify(cacheProvider).addCacheKeyToSet(CacheKey.resolvedSchemaReferenceSet(TEST_APP_ID, SCHEMA_ID),
+                cacheKey.toString());
+    }
+    
+    @Test
+    public void schemaResolvedFromSharedCache() {
+        scheduledActivity.setActivity(activityBuilder.withTask(UNRESOLVED_TASK_REF).build());
+        CacheKey cacheKey = CacheKey.resolvedSchemaReference(TEST_APP_ID, SCHEMA_ID, CLIENT_INFO.getOsName(),
+                CLIENT_INFO.getAppVersion());
+        when(cacheProvider.getObject(cacheKey, SchemaReference.class)).thenReturn(RESOLVED_SCHEMA_REF);
+        
+        resolver.resolve(scheduledActivity);
+        
+        assertEquals(RESOLVED_SCHEMA_REF, scheduledActivity.getActivity().getTask().getSchema());
+        verifyNoMoreInteractions(schemaService);
+    }
+    
+    @Test
+    public void compoundActivityDefinitionResolvedFromSharedCache() {
+        scheduledActivity.setActivity(activityBuilder.withCompoundActivity(COMPOUND_ACTIVITY_SKINNY_REF).build());
+        when(cacheProvider.getObject(CacheKey.compoundActivityDefinition(TEST_APP_ID, TASK_ID),
+                CompoundActivity.class)).thenReturn(RESOLVED_COMPOUND_ACTIVITY);
+        
+        resolver.resolve(scheduledActivity);
+        
+        CompoundActivity compoundActivity = scheduledActivity.getActivity().getCompoundActivity();
+        assertEquals(RESOLVED_SCHEMA_REF, compoundActivity.getSchemaList().get(0));
+        assertEquals(RESOLVED_SURVEY_REF, compoundActivity.getSurveyList().get(0));
+        verifyNoMoreInteractions(compoundActivityDefinitionService);
+    }
+    
+    @Test
+    public void compoundActivityDefinitionIsSharedThroughCache() {
+        scheduledActivity.setActivity(activityBuilder.withCompoundActivity(COMPOUND_ACTIVITY_SKINNY_REF).build());
+        when(compoundActivityDefinitionService.getCompoundActivityDefinition(TEST_APP_ID, TASK_ID))
+                .thenReturn(RESOLVED_COMPOUND_ACTIVITY_DEF);
+        
+        resolver.resolve(scheduledActivity);
+        
+        verify(cacheProvider).setObject(CacheKey.compoundActivityDefinition(TEST_APP_ID, TASK_ID),
+                RESOLVED_COMPOUND_ACTIVITY_DEF.getCompoundActivity(),
+                ReferenceResolver.REFERENCE_CACHE_EXPIRE_IN_SECONDS);
+    }
+    
     @Test
     public void unresolvableSurveyReturnedAsIs() {
         scheduledActivity.setActivity(activityBuilder.withSurvey(UNRESOLVED_SURVEY_REF).build());
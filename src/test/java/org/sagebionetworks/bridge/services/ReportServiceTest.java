@@ -3,15 +3,18 @@ package org.sagebionetworks.bridge.services;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -46,6 +49,8 @@ import org.sagebionetworks.bridge.models.reports.ReportType;
 
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
@@ -339,6 +344,180 @@ public class ReportServiceTest {
         verify(mockReportIndexDao, never()).addIndex(any(), any());
     }
     
+    @Test
+    public void streamStudyReport() {
+        LocalDate startDate = LocalDate.parse("2015-01-01");
+        LocalDate endDate = LocalDate.parse("2015-12-31");
+        List<ReportData> records = ImmutableList.of(CANNED_REPORT);
+        doReturn(records).when(mockReportDataDao).streamReportData(STUDY_REPORT_DATA_KEY, startDate, endDate);
+        
+        // A year is well over the range limit of the other report APIs
+        Iterable<? extends ReportData> result = service.streamStudyReport(TEST_APP_ID, IDENTIFIER, startDate,
+                endDate);
+        assertEquals(result, records);
+        
+        verify(mockReportIndexDao).getIndex(STUDY_REPORT_DATA_KEY);
+        verify(mockReportDataDao).streamReportData(STUDY_REPORT_DATA_KEY, startDate, endDate);
+    }
+    
+    @Test
+    public void streamParticipantReport() {
+        List<ReportData> records = ImmutableList.of(CANNED_REPORT);
+        doReturn(records).when(mockReportDataDao).streamReportData(PARTICIPANT_REPORT_DATA_KEY, START_DATE,
+                END_DATE);
+        
+        Iterable<? extends ReportData> result = service.streamParticipantReport(TEST_APP_ID, IDENTIFIER,
+                HEALTH_CODE, START_DATE, END_DATE);
+        assertEquals(result, records);
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void streamStudyReportRequiresStartDate() {
+        service.streamStudyReport(TEST_APP_ID, IDENTIFIER, null, END_DATE);
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void streamStudyReportRequiresEndDate() {
+        service.streamStudyReport(TEST_APP_ID, IDENTIFIER, START_DATE, null);
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void streamParticipantReportStartAfterEnd() {
+        service.streamParticipantReport(TEST_APP_ID, IDENTIFIER, HEALTH_CODE, END_DATE, START_DATE);
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void streamStudyReportAuthorizes() {
+        setupMismatchedStudies(STUDY_REPORT_DATA_KEY);
+        
+        service.streamStudyReport(TEST_APP_ID, IDENTIFIER, START_DATE, END_DATE);
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void streamParticipantReportAuthorizes() {
+        setupMismatchedStudies(PARTICIPANT_REPORT_DATA_KEY);
+        
+        service.streamParticipantReport(TEST_APP_ID, IDENTIFIER, HEALTH_CODE, START_DATE, END_DATE);
+    }
+    
+    @Test
+    public void saveStudyReportRecords() {
+        ReportData data1 = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        ReportData data2 = createReport(LocalDate.parse("2015-02-11"), "Last", "Name");
+        List<ReportData> list = ImmutableList.of(data1, data2);
+        
+        service.saveStudyReportRecords(TEST_APP_ID, IDENTIFIER, list);
+        
+        verify(mockReportIndexDao, times(1)).getIndex(STUDY_REPORT_DATA_KEY);
+        verify(mockReportDataDao).saveReportDataRecords(list);
+        verify(mockReportDataDao, never()).saveReportData(any());
+        assertEquals(data1.getKey(), STUDY_REPORT_DATA_KEY.getKeyString());
+        assertEquals(data2.getKey(), STUDY_REPORT_DATA_KEY.getKeyString());
+        verify(mockReportIndexDao).addIndex(STUDY_REPORT_DATA_KEY, null);
+    }
+    
+    @Test
+    public void saveStudyReportRecordsDoesNotResaveIndex() {
+        when(mockReportIndexDao.getIndex(any())).thenReturn(ReportIndex.create());
+        
+        service.saveStudyReportRecords(TEST_APP_ID, IDENTIFIER,
+                ImmutableList.of(createReport(LocalDate.parse("2015-02-10"), "First", "Name")));
+        
+        verify(mockReportIndexDao, never()).addIndex(any(), any());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void saveStudyReportRecordsEmpty() {
+        service.saveStudyReportRecords(TEST_APP_ID, IDENTIFIER, ImmutableList.of());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void saveStudyReportRecordsTooMany() {
+        List<ReportData> list = new ArrayList<>();
+        for (int i=0; i <= ReportService.MAX_BATCH_SAVE_RECORDS; i++) {
+            list.add(createReport(DATE, "First", "Name"));
+        }
+        service.saveStudyReportRecords(TEST_APP_ID, IDENTIFIER, list);
+    }
+    
+    @Test
+    public void saveStudyReportRecordsDuplicateDate() {
+        ReportData data1 = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        ReportData data2 = createReport(LocalDate.parse("2015-02-10"), "Last", "Name");
+        
+        try {
+            service.saveStudyReportRecords(TEST_APP_ID, IDENTIFIER, ImmutableList.of(data1, data2));
+            fail("Should have thrown exception");
+        } catch (BadRequestException e) {
+            assertEquals(e.getMessage(),
+                    "Cannot save more than one report record for the same report and date in one call");
+        }
+        verify(mockReportDataDao, never()).saveReportDataRecords(any());
+        verify(mockReportIndexDao, never()).addIndex(any(), any());
+    }
+    
+    @Test
+    public void saveParticipantReportRecordsSameDateForDifferentParticipants() {
+        ReportData data1 = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        ReportData data2 = createReport(LocalDate.parse("2015-02-10"), "Last", "Name");
+        
+        service.saveParticipantReportRecords(TEST_APP_ID, IDENTIFIER,
+                ImmutableMap.of(HEALTH_CODE, ImmutableList.of(data1), "otherHealthCode", ImmutableList.of(data2)));
+        
+        verify(mockReportDataDao).saveReportDataRecords(ImmutableList.of(data1, data2));
+    }
+    
+    @Test
+    public void saveStudyReportRecordsValidatesAllBeforeSaving() {
+        ReportData data1 = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        ReportData data2 = createReport(LocalDate.parse("2015-02-11"), "Last", "Name");
+        data2.setData(null);
+        
+        try {
+            service.saveStudyReportRecords(TEST_APP_ID, IDENTIFIER, ImmutableList.of(data1, data2));
+            fail("Should have thrown exception");
+        } catch (InvalidEntityException e) {
+            // expected
+        }
+        verify(mockReportDataDao, never()).saveReportDataRecords(any());
+        verify(mockReportIndexDao, never()).addIndex(any(), any());
+    }
+    
+    @Test
+    public void saveParticipantReportRecords() {
+        ReportData data1 = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        ReportData data2 = createReport(LocalDate.parse("2015-02-11"), "Last", "Name");
+        
+        service.saveParticipantReportRecords(TEST_APP_ID, IDENTIFIER, HEALTH_CODE, ImmutableList.of(data1, data2));
+        
+        verify(mockReportIndexDao, times(1)).getIndex(any());
+        verify(mockReportDataDao).saveReportDataRecords(ImmutableList.of(data1, data2));
+        assertEquals(data1.getKey(), PARTICIPANT_REPORT_DATA_KEY.getKeyString());
+        assertEquals(data2.getKey(), PARTICIPANT_REPORT_DATA_KEY.getKeyString());
+        verify(mockReportIndexDao).addIndex(PARTICIPANT_REPORT_DATA_KEY, null);
+    }
+    
+    @Test
+    public void saveParticipantReportRecordsForManyParticipants() {
+        ReportData data1 = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        ReportData data2 = createReport(LocalDate.parse("2015-02-10"), "Last", "Name");
+        
+        service.saveParticipantReportRecords(TEST_APP_ID, IDENTIFIER, ImmutableMap.of(
+                HEALTH_CODE, ImmutableList.of(data1), "otherHealthCode", ImmutableList.of(data2)));
+        
+        // One index lookup for the whole batch
+        verify(mockReportIndexDao, times(1)).getIndex(any());
+        verify(mockReportDataDao).saveReportDataRecords(ImmutableList.of(data1, data2));
+        assertEquals(data1.getKey(), PARTICIPANT_REPORT_DATA_KEY.getKeyString());
+        assertEquals(data2.getKey(), "otherHealthCode:" + IDENTIFIER + ":" + TEST_APP_ID);
+        verify(mockReportIndexDao, times(1)).addIndex(any(), any());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void saveParticipantReportRecordsEmpty() {
+        service.saveParticipantReportRecords(TEST_APP_ID, IDENTIFIER, ImmutableMap.of());
+    }
+    
     @Test
     public void deleteStudyReport() {
         service.deleteStudyReport(TEST_APP_ID, IDENTIFIER);
@@ -839,6 +1018,28 @@ public class ReportServiceTest {
         service.saveParticipantReport(TEST_APP_ID, IDENTIFIER, HEALTH_CODE, data);
     }
     
+    @Test
+    public void saveStudyReportRecordsAuthorizes() {
+        setupMismatchedStudies(STUDY_REPORT_DATA_KEY);
+        
+        try {
+            service.saveStudyReportRecords(TEST_APP_ID, IDENTIFIER,
+                    ImmutableList.of(createReport(START_DATE, "value", "value2")));
+            fail("Should have thrown exception");
+        } catch (UnauthorizedException e) {
+            // expected
+        }
+        verify(mockReportDataDao, never()).saveReportDataRecords(any());
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void saveParticipantReportRecordsAuthorizes() {
+        setupMismatchedStudies(PARTICIPANT_REPORT_DATA_KEY);
+        
+        service.saveParticipantReportRecords(TEST_APP_ID, IDENTIFIER, HEALTH_CODE,
+                ImmutableList.of(createReport(START_DATE, "value", "value2")));
+    }
+    
     @Test(expectedExceptions = UnauthorizedException.class)
     public void deleteStudyReportAuthorizes() {
         setupMismatchedStudies(STUDY_REPORT_DATA_KEY);
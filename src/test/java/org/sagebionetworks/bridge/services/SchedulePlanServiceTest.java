@@ -23,6 +23,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.SchedulePlanDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoApp;
@@ -54,6 +56,7 @@ public class SchedulePlanServiceTest {
     private SchedulePlanDao mockSchedulePlanDao;
     private SurveyService mockSurveyService;
     private StudyService mockStudyService;
+    private CacheProvider mockCacheProvider;
     
     @BeforeMethod
     public void before() {
@@ -65,11 +68,13 @@ public class SchedulePlanServiceTest {
         mockSchedulePlanDao = mock(SchedulePlanDao.class);
         mockSurveyService = mock(SurveyService.class);
         mockStudyService = mock(StudyService.class);
+        mockCacheProvider = mock(CacheProvider.class);
         
         service = new SchedulePlanService();
         service.setSchedulePlanDao(mockSchedulePlanDao);
         service.setSurveyService(mockSurveyService);
         service.setStudyService(mockStudyService);
+        service.setCacheProvider(mockCacheProvider);
         
         Survey survey1 = new TestSurvey(SchedulePlanServiceTest.class, false);
         survey1.setIdentifier("identifier1");
@@ -123,6 +128,7 @@ public class SchedulePlanServiceTest {
         verify(mockSurveyService).getSurveyMostRecentlyPublishedVersion(any(), any(), anyBoolean());
         verify(mockSurveyService).getSurvey(eq(TEST_APP_ID), any(), eq(false), eq(true));
         verify(mockSchedulePlanDao).createSchedulePlan(any(), spCaptor.capture());
+        verify(mockCacheProvider).removeObject(CacheKey.schedulePlansVersion(TEST_APP_ID));
         
         List<Activity> activities = spCaptor.getValue().getStrategy().getAllPossibleSchedules().get(0).getActivities();
         assertEquals(activities.get(0).getSurvey().getIdentifier(), "identifier1");
@@ -143,6 +149,7 @@ public class SchedulePlanServiceTest {
         verify(mockSurveyService).getSurvey(eq(TEST_APP_ID), any(), eq(false), eq(true));
         verify(mockSchedulePlanDao).getSchedulePlan(app.getIdentifier(), plan.getGuid());
         verify(mockSchedulePlanDao).updateSchedulePlan(any(), spCaptor.capture());
+        verify(mockCacheProvider).removeObject(CacheKey.schedulePlansVersion(TEST_APP_ID));
         
         List<Activity> activities = spCaptor.getValue().getStrategy().getAllPossibleSchedules().get(0).getActivities();
         assertEquals(activities.get(0).getSurvey().getIdentifier(), "identifier1");
@@ -296,6 +303,7 @@ public class SchedulePlanServiceTest {
         service.deleteSchedulePlan(TEST_APP_ID, "planGuid");
         
         verify(mockSchedulePlanDao).deleteSchedulePlan(TEST_APP_ID, "planGuid");
+        verify(mockCacheProvider).removeObject(CacheKey.schedulePlansVersion(TEST_APP_ID));
     }
     
     @Test
@@ -303,6 +311,7 @@ public class SchedulePlanServiceTest {
         service.deleteSchedulePlanPermanently(TEST_APP_ID, "planGuid");
         
         verify(mockSchedulePlanDao).deleteSchedulePlanPermanently(TEST_APP_ID, "planGuid");
+        verify(mockCacheProvider).removeObject(CacheKey.schedulePlansVersion(TEST_APP_ID));
     }
     
     private SchedulePlan constructorInvalidSchedulePlan() {
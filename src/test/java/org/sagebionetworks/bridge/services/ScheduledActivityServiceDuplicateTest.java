@@ -24,6 +24,7 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoScheduledActivity;
@@ -152,6 +153,9 @@ public class ScheduledActivityServiceDuplicateTest {
     @Mock
     AppConfigService appConfigService;
     
+    @Mock
+    CacheProvider cacheProvider;
+    
     @Mock
     App app;
     
@@ -170,6 +174,7 @@ public class ScheduledActivityServiceDuplicateTest {
         service.setActivityEventService(activityEventService);
         service.setSchedulePlanService(schedulePlanService);
         service.setAppConfigService(appConfigService);
+        service.setCacheProvider(cacheProvider);
         
         contextBuilder = new ScheduleContext.Builder()
                 .withClientInfo(ClientInfo.fromUserAgentCache("Lilly/25 (iPhone Simulator; iPhone OS/9.3) BridgeSDK/12"))
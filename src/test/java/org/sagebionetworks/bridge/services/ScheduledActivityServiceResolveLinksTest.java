@@ -23,6 +23,7 @@ import org.joda.time.DateTime;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.appconfig.AppConfig;
@@ -112,6 +113,7 @@ public class ScheduledActivityServiceResolveLinksTest {
         scheduledActivityService.setSchemaService(mockSchemaService);
         scheduledActivityService.setSurveyService(mockSurveyService);
         scheduledActivityService.setAppConfigService(appConfigService);
+        scheduledActivityService.setCacheProvider(mock(CacheProvider.class));
     }
 
     private void setupSchedulePlanServiceWithActivity(Activity activity) {
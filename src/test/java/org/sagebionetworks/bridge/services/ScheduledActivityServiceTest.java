@@ -4,6 +4,7 @@ import static java.util.stream.Collectors.toSet;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
@@ -19,6 +20,8 @@ import static org.sagebionetworks.bridge.validators.ScheduleContextValidator.MAX
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Arrays;
@@ -42,7 +45,10 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoScheduledActivity;
@@ -52,6 +58,7 @@ import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
+import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.schedules.Activity;
 import org.sagebionetworks.bridge.models.schedules.ActivityType;
@@ -118,6 +125,9 @@ public class ScheduledActivityServiceTest {
     @Mock
     private Survey survey;
     
+    @Mock
+    private CacheProvider cacheProvider;
+    
     @Mock
     private App app;
     
@@ -157,11 +167,13 @@ public class ScheduledActivityServiceTest {
         service.setActivityEventService(activityEventService);
         service.setSurveyService(surveyService);
         service.setAppConfigService(appConfigService);
+        service.setCacheProvider(cacheProvider);
     }
     
     @AfterMethod
     public void after() {
         DateTimeUtils.setCurrentMillisSystem();
+        RequestContext.set(null);
     }
     
     @Test(expectedExceptions = BadRequestException.class)
@@ -184,6 +196,32 @@ public class ScheduledActivityServiceTest {
         service.getActivityHistory(HEALTH_CODE, ACTIVITY_GUID, STARTS_ON, null, null, 40);
     }
     
+    @Test
+    public void streamActivityHistory() {
+        List<ScheduledActivity> activities = ImmutableList.of(ScheduledActivity.create());
+        when(activityDao.streamActivityHistory(HEALTH_CODE, ACTIVITY_GUID, STARTS_ON, ENDS_ON))
+                .thenReturn(activities);
+        
+        Iterable<ScheduledActivity> result = service.streamActivityHistory(HEALTH_CODE, ACTIVITY_GUID, STARTS_ON,
+                ENDS_ON);
+        assertSame(result, activities);
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void streamActivityHistoryRequiresStart() {
+        service.streamActivityHistory(HEALTH_CODE, ACTIVITY_GUID, null, ENDS_ON);
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void streamActivityHistoryRequiresEnd() {
+        service.streamActivityHistory(HEALTH_CODE, ACTIVITY_GUID, STARTS_ON, null);
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void streamActivityHistoryEnforcesEndAfterStart() {
+        service.streamActivityHistory(HEALTH_CODE, ACTIVITY_GUID, ENDS_ON, STARTS_ON);
+    }
+    
     @Test
     public void getScheduledActivitiesPublishesEvent() {
         ScheduleContext context = createScheduleContext(ENDS_ON).build();
@@ -202,6 +240,64 @@ public class ScheduledActivityServiceTest {
                 eq(app), eq(null), eq(HEALTH_CODE), any(DateTime.class));
     }
     
+    @Test
+    public void getScheduledActivitiesV4ReusesCachedSchedule() {
+        Map<String,String> cache = mockCacheProviderWithMap();
+        Metrics metrics = new Metrics("12345");
+        RequestContext.set(new RequestContext.Builder().withMetrics(metrics).build());
+        
+        ScheduleContext context = createScheduleContext(ENDS_ON).build();
+        List<ScheduledActivity> first = service.getScheduledActivitiesV4(app, context);
+        assertTrue(metrics.toJsonString().contains("\"schedule_cache_result\":\"miss\""));
+        assertNotNull(cache.get(CacheKey.scheduledActivitiesVersion(HEALTH_CODE).toString()));
+        assertNotNull(cache.get(CacheKey.schedulePlansVersion(TEST_APP_ID).toString()));
+        
+        List<ScheduledActivity> second = service.getScheduledActivitiesV4(app, createScheduleContext(ENDS_ON).build());
+        assertSame(second, first);
+        assertTrue(metrics.toJsonString().contains("\"schedule_cache_result\":\"hit\""));
+        
+        // The event is still published, but the schedule is only computed once.
+        verify(activityEventService, times(2)).publishActivitiesRetrieved(
+                eq(app), eq(null), eq(HEALTH_CODE), any(DateTime.class));
+        verify(schedulePlanService).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+    }
+    
+    @Test
+    public void getScheduledActivitiesV4RecomputesWhenUserVersionRemoved() {
+        Map<String,String> cache = mockCacheProviderWithMap();
+        
+        List<ScheduledActivity> first = service.getScheduledActivitiesV4(app, createScheduleContext(ENDS_ON).build());
+        cache.remove(CacheKey.scheduledActivitiesVersion(HEALTH_CODE).toString());
+        List<ScheduledActivity> second = service.getScheduledActivitiesV4(app, createScheduleContext(ENDS_ON).build());
+        
+        assertNotSame(second, first);
+        verify(schedulePlanService, times(2)).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+    }
+    
+    @Test
+    public void getScheduledActivitiesV4RecomputesWhenPlansVersionRemoved() {
+        Map<String,String> cache = mockCacheProviderWithMap();
+        
+        List<ScheduledActivity> first = service.getScheduledActivitiesV4(app, createScheduleContext(ENDS_ON).build());
+        cache.remove(CacheKey.schedulePlansVersion(TEST_APP_ID).toString());
+        List<ScheduledActivity> second = service.getScheduledActivitiesV4(app, createScheduleContext(ENDS_ON).build());
+        
+        assertNotSame(second, first);
+        verify(schedulePlanService, times(2)).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+    }
+    
+    @Test
+    public void getScheduledActivitiesV4RecomputesForDifferentContext() {
+        mockCacheProviderWithMap();
+        
+        List<ScheduledActivity> first = service.getScheduledActivitiesV4(app, createScheduleContext(ENDS_ON).build());
+        List<ScheduledActivity> second = service.getScheduledActivitiesV4(app,
+                createScheduleContext(ENDS_ON.plusDays(1)).build());
+        
+        assertNotSame(second, first);
+        verify(schedulePlanService, times(2)).getSchedulePlans(ClientInfo.UNKNOWN_CLIENT, TEST_APP_ID, false);
+    }
+    
     @Test
     public void activityHistoryDefaultsDateRange() {
         DateTimeUtils.setCurrentMillisFixed(STARTS_ON.getMillis());
@@ -291,6 +387,7 @@ public class ScheduledActivityServiceTest {
         
         verify(activityDao).updateActivities(eq("AAA"), scheduledActivityListCaptor.capture());
         assertEquals(scheduledActivityListCaptor.getValue().size(), size);
+        verify(cacheProvider).removeObject(CacheKey.scheduledActivitiesVersion("AAA"));
     }
     
     @Test
@@ -405,6 +502,7 @@ public class ScheduledActivityServiceTest {
         
         verify(activityDao).deleteActivitiesForUser("BBB");
         verifyNoMoreInteractions(activityDao);
+        verify(cacheProvider).removeObject(CacheKey.scheduledActivitiesVersion("BBB"));
     }
 
     @Test
@@ -1395,6 +1493,18 @@ public class ScheduledActivityServiceTest {
         return activities.stream().map(ScheduledActivity::getGuid).collect(toSet());
     }
     
+    // Backs the mock cache provider's string values with a map, so the schedule version tokens can be read back.
+    private Map<String,String> mockCacheProviderWithMap() {
+        Map<String,String> cache = Maps.newHashMap();
+        doAnswer(invocation -> {
+            cache.put(invocation.getArgument(0).toString(), invocation.getArgument(1));
+            return null;
+        }).when(cacheProvider).setObject(any(CacheKey.class), any(), anyInt());
+        when(cacheProvider.getObject(any(CacheKey.class), eq(String.class)))
+                .thenAnswer(invocation -> cache.get(invocation.getArgument(0).toString()));
+        return cache;
+    }
+    
     private ScheduleContext.Builder createScheduleContext(DateTime endsOn) {
         Map<String,DateTime> events = Maps.newHashMap();
         events.put("enrollment", ENROLLMENT);
@@ -1,11 +1,17 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.models.apps.MimeType.HTML;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.fail;
 
+import java.util.List;
+
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
@@ -17,13 +23,16 @@ import org.sagebionetworks.bridge.models.apps.MimeType;
 import org.sagebionetworks.bridge.models.templates.TemplateRevision;
 import org.sagebionetworks.bridge.services.email.BasicEmailProvider;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.simpleemail.AmazonSimpleEmailServiceClient;
+import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
 import com.amazonaws.services.simpleemail.model.SendRawEmailResult;
 
 public class SendMailViaAmazonServiceTest {
 
     private static final String SUPPORT_EMAIL = "email@email.com";
     private static final String RECIPIENT_EMAIL = "recipient@recipient.com";
+    private static final String RECIPIENT_EMAIL_2 = "recipient2@recipient.com";
     
     private SendMailViaAmazonService service;
     
@@ -49,6 +58,9 @@ public class SendMailViaAmazonServiceTest {
         service = new SendMailViaAmazonService();
         service.setEmailClient(emailClient);
         service.setEmailVerificationService(emailVerificationService);
+        service.setSendRateLimit(1000);
+        service.setMaxSendTries(3);
+        service.setRetryDelayMillis(0);
     }
     
     @Test
@@ -71,6 +83,7 @@ public class SendMailViaAmazonServiceTest {
         } catch(BridgeServiceException e) {
             assertEquals(e.getMessage(), SendMailViaAmazonService.UNVERIFIED_EMAIL_ERROR);
         }
+        verify(emailClient, never()).sendRawEmail(any());
     }
     
     @Test
@@ -89,5 +102,82 @@ public class SendMailViaAmazonServiceTest {
                 .withTemplateRevision(revision)
                 .build();
         service.sendEmail(provider);
+        
+        verify(emailClient).sendRawEmail(any());
+    }
+    
+    @Test
+    public void sendsToEachRecipient() {
+        when(emailClient.sendRawEmail(any())).thenReturn(result);
+        when(emailVerificationService.isVerified(SUPPORT_EMAIL)).thenReturn(true);
+        
+        service.sendEmail(makeProvider(RECIPIENT_EMAIL, RECIPIENT_EMAIL_2));
+        
+        ArgumentCaptor<SendRawEmailRequest> requestCaptor = ArgumentCaptor.forClass(SendRawEmailRequest.class);
+        verify(emailClient, times(2)).sendRawEmail(requestCaptor.capture());
+        List<SendRawEmailRequest> requests = requestCaptor.getAllValues();
+        assertEquals(requests.get(0).getDestinations().get(0), RECIPIENT_EMAIL);
+        assertEquals(requests.get(1).getDestinations().get(0), RECIPIENT_EMAIL_2);
+    }
+    
+    @Test
+    public void sendFailureIsThrownToCaller() {
+        AmazonServiceException ex = new AmazonServiceException("Bad request");
+        ex.setStatusCode(400);
+        when(emailClient.sendRawEmail(any())).thenThrow(ex);
+        when(emailVerificationService.isVerified(SUPPORT_EMAIL)).thenReturn(true);
+        
+        try {
+            service.sendEmail(makeProvider(RECIPIENT_EMAIL));
+            fail("Should have thrown exception");
+        } catch(BridgeServiceException e) {
+            assertEquals(e.getCause(), ex);
+        }
+        // Not retried.
+        verify(emailClient).sendRawEmail(any());
+    }
+    
+    @Test
+    public void throttledSendIsRetried() {
+        AmazonServiceException ex = new AmazonServiceException("Maximum sending rate exceeded.");
+        ex.setStatusCode(400);
+        ex.setErrorCode("Throttling");
+        when(emailClient.sendRawEmail(any())).thenThrow(ex).thenReturn(result);
+        when(emailVerificationService.isVerified(SUPPORT_EMAIL)).thenReturn(true);
+        
+        service.sendEmail(makeProvider(RECIPIENT_EMAIL));
+        
+        verify(emailClient, times(2)).sendRawEmail(any());
+    }
+    
+    @Test
+    public void serverErrorIsRetriedUntilMaxTries() {
+        AmazonServiceException ex = new AmazonServiceException("Service unavailable");
+        ex.setStatusCode(503);
+        when(emailClient.sendRawEmail(any())).thenThrow(ex);
+        when(emailVerificationService.isVerified(SUPPORT_EMAIL)).thenReturn(true);
+        
+        try {
+            service.sendEmail(makeProvider(RECIPIENT_EMAIL));
+            fail("Should have thrown exception");
+        } catch(BridgeServiceException e) {
+            assertEquals(e.getCause(), ex);
+        }
+        verify(emailClient, times(3)).sendRawEmail(any());
+    }
+    
+    private BasicEmailProvider makeProvider(String... recipients) {
+        TemplateRevision revision = TemplateRevision.create();
+        revision.setSubject("subject");
+        revision.setDocumentContent("body");
+        revision.setMimeType(HTML);
+        
+        BasicEmailProvider.Builder builder = new BasicEmailProvider.Builder()
+                .withApp(app)
+                .withTemplateRevision(revision);
+        for (String recipient : recipients) {
+            builder.withRecipientEmail(recipient);
+        }
+        return builder.build();
     }
 }
@@ -2,19 +2,24 @@ package org.sagebionetworks.bridge.services;
 
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.same;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.CORE;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.amazonaws.services.sns.AmazonSNSClient;
 import com.amazonaws.services.sns.model.CheckIfPhoneNumberIsOptedOutRequest;
@@ -23,22 +28,27 @@ import com.amazonaws.services.sns.model.OptInPhoneNumberRequest;
 import com.amazonaws.services.sns.model.PublishRequest;
 import com.amazonaws.services.sns.model.PublishResult;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.joda.time.DateTimeZone;
 import org.mockito.ArgumentCaptor;
 import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.dao.SmsMessageDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.apps.App;
@@ -68,14 +78,19 @@ public class SmsServiceTest {
         REVISION.setDocumentContent(MESSAGE_BODY);
     }
 
-    private static final StudyParticipant PARTICIPANT_WITH_TIME_ZONE = new StudyParticipant.Builder()
-            .withId(USER_ID).withHealthCode(HEALTH_CODE).withTimeZone(TIME_ZONE).build();
-    private static final StudyParticipant PARTICIPANT_WITHOUT_TIME_ZONE = new StudyParticipant.Builder()
-            .withId(USER_ID).withHealthCode(HEALTH_CODE).build();
+    private static final Account ACCOUNT_WITH_TIME_ZONE = Account.create();
+    private static final Account ACCOUNT_WITHOUT_TIME_ZONE = Account.create();
+    static {
+        ACCOUNT_WITH_TIME_ZONE.setId(USER_ID);
+        ACCOUNT_WITH_TIME_ZONE.setHealthCode(HEALTH_CODE);
+        ACCOUNT_WITH_TIME_ZONE.setTimeZone(TIME_ZONE);
+        ACCOUNT_WITHOUT_TIME_ZONE.setId(USER_ID);
+        ACCOUNT_WITHOUT_TIME_ZONE.setHealthCode(HEALTH_CODE);
+    }
 
     private HealthDataService mockHealthDataService;
     private SmsMessageDao mockMessageDao;
-    private ParticipantService mockParticipantService;
+    private AccountService mockAccountService;
     private UploadSchemaService mockSchemaService;
     private AmazonSNSClient mockSnsClient;
     private App app;
@@ -106,15 +121,21 @@ public class SmsServiceTest {
         // Mock other DAOs and services.
         mockHealthDataService = mock(HealthDataService.class);
         mockMessageDao = mock(SmsMessageDao.class);
-        mockParticipantService = mock(ParticipantService.class);
+        mockAccountService = mock(AccountService.class);
 
         // Set up service.
         svc = new SmsService();
         svc.setHealthDataService(mockHealthDataService);
         svc.setMessageDao(mockMessageDao);
-        svc.setParticipantService(mockParticipantService);
+        svc.setAccountService(mockAccountService);
         svc.setSchemaService(mockSchemaService);
         svc.setSnsClient(mockSnsClient);
+        svc.setSmsExecutorService(MoreExecutors.newDirectExecutorService());
+    }
+
+    @AfterMethod
+    public void after() {
+        RequestContext.set(null);
     }
 
     @AfterClass
@@ -124,9 +145,9 @@ public class SmsServiceTest {
 
     @Test
     public void sendTransactionalSMSMessageOK() throws Exception {
-        // Mock participant service.
-        when(mockParticipantService.getParticipant(any(), anyString(), eq(false))).thenReturn(
-                PARTICIPANT_WITH_TIME_ZONE);
+        // Mock account service.
+        when(mockAccountService.getAccount(any(), eq(CORE))).thenReturn(
+                ACCOUNT_WITH_TIME_ZONE);
 
         // Set up test and execute.
         SmsMessageProvider provider = new SmsMessageProvider.Builder()
@@ -150,14 +171,17 @@ public class SmsServiceTest {
 
         // We log the SMS message to DDB and to health data.
         verifyLoggedSmsMessage(HEALTH_CODE, MESSAGE_BODY, SmsType.TRANSACTIONAL);
-        verifyHealthData(PARTICIPANT_WITH_TIME_ZONE, TIME_ZONE, SmsType.TRANSACTIONAL, MESSAGE_BODY);
+        verifyHealthData(ACCOUNT_WITH_TIME_ZONE, TIME_ZONE, SmsType.TRANSACTIONAL, MESSAGE_BODY);
+
+        // Only the core of the account is loaded.
+        verify(mockAccountService).getAccount(AccountId.forId(TEST_APP_ID, HEALTH_CODE), CORE);
     }
 
     @Test
     public void sendPromotionalSMSMessageOK() throws Exception {
-        // Mock participant service.
-        when(mockParticipantService.getParticipant(any(), anyString(), eq(false))).thenReturn(
-                PARTICIPANT_WITH_TIME_ZONE);
+        // Mock account service.
+        when(mockAccountService.getAccount(any(), eq(CORE))).thenReturn(
+                ACCOUNT_WITH_TIME_ZONE);
 
         // Set up test and execute.
         SmsMessageProvider provider = new SmsMessageProvider.Builder()
@@ -180,7 +204,7 @@ public class SmsServiceTest {
 
         // We log the SMS message to DDB and to health data.
         verifyLoggedSmsMessage(HEALTH_CODE, MESSAGE_BODY, SmsType.PROMOTIONAL);
-        verifyHealthData(PARTICIPANT_WITH_TIME_ZONE, TIME_ZONE, SmsType.PROMOTIONAL, MESSAGE_BODY);
+        verifyHealthData(ACCOUNT_WITH_TIME_ZONE, TIME_ZONE, SmsType.PROMOTIONAL, MESSAGE_BODY);
     }
 
     @Test
@@ -203,8 +227,8 @@ public class SmsServiceTest {
     // branch coverage
     @Test
     public void sendSmsMessage_NoParticipant() throws Exception {
-        // Mock participant service.
-        when(mockParticipantService.getParticipant(any(), anyString(), eq(false))).thenReturn(null);
+        // Mock account service.
+        when(mockAccountService.getAccount(any(), eq(CORE))).thenReturn(null);
 
         // Set up test and execute.
         SmsMessageProvider provider = new SmsMessageProvider.Builder()
@@ -223,9 +247,9 @@ public class SmsServiceTest {
 
     @Test
     public void sendSmsMessage_ParticipantHasNoTimeZone() throws Exception {
-        // Mock participant service.
-        when(mockParticipantService.getParticipant(any(), anyString(), eq(false))).thenReturn(
-                PARTICIPANT_WITHOUT_TIME_ZONE);
+        // Mock account service.
+        when(mockAccountService.getAccount(any(), eq(CORE))).thenReturn(
+                ACCOUNT_WITHOUT_TIME_ZONE);
 
         // Set up test and execute.
         SmsMessageProvider provider = new SmsMessageProvider.Builder()
@@ -236,14 +260,14 @@ public class SmsServiceTest {
         svc.sendSmsMessage(HEALTH_CODE, provider);
 
         // Everything else is verified. Just verify the timezone in the health data.
-        verifyHealthData(PARTICIPANT_WITHOUT_TIME_ZONE, DateTimeZone.UTC, SmsType.PROMOTIONAL, MESSAGE_BODY);
+        verifyHealthData(ACCOUNT_WITHOUT_TIME_ZONE, DateTimeZone.UTC, SmsType.PROMOTIONAL, MESSAGE_BODY);
     }
 
     @Test
     public void sendSmsMessage_SchemaDoesNotExist() {
-        // Mock participant service.
-        when(mockParticipantService.getParticipant(any(), anyString(), eq(false))).thenReturn(
-                PARTICIPANT_WITH_TIME_ZONE);
+        // Mock account service.
+        when(mockAccountService.getAccount(any(), eq(CORE))).thenReturn(
+                ACCOUNT_WITH_TIME_ZONE);
 
         // Schema Service has no schema (throws).
         when(mockSchemaService.getUploadSchemaByIdAndRev(TEST_APP_ID, SmsService.MESSAGE_LOG_SCHEMA_ID,
@@ -282,6 +306,98 @@ public class SmsServiceTest {
         assertTrue(fieldDefList.get(2).isUnboundedText());
     }
 
+    @Test
+    public void sendSmsMessage_LoggingIsQueued() {
+        ExecutorService mockExecutorService = mock(ExecutorService.class);
+        svc.setSmsExecutorService(mockExecutorService);
+
+        SmsMessageProvider provider = new SmsMessageProvider.Builder()
+                .withApp(app)
+                .withTemplateRevision(REVISION)
+                .withTransactionType()
+                .withPhone(TestConstants.PHONE).build();
+        svc.sendSmsMessage(USER_ID, provider);
+
+        // The message is sent, but nothing else happens until the handler runs.
+        verify(mockSnsClient).publish(any());
+        verify(mockExecutorService).execute(any(SmsService.SmsPostSendHandler.class));
+        verify(mockAccountService, never()).getAccount(any(), any());
+        verify(mockMessageDao, never()).logMessage(any());
+    }
+
+    @Test
+    public void sendSmsMessage_HandlerRunsWithRequestContext() throws Exception {
+        ExecutorService mockExecutorService = mock(ExecutorService.class);
+        svc.setSmsExecutorService(mockExecutorService);
+
+        RequestContext requestContext = new RequestContext.Builder().withRequestId("request-id").build();
+        RequestContext.set(requestContext);
+
+        SmsMessageProvider provider = new SmsMessageProvider.Builder()
+                .withApp(app)
+                .withTemplateRevision(REVISION)
+                .withTransactionType()
+                .withPhone(TestConstants.PHONE).build();
+        svc.sendSmsMessage(USER_ID, provider);
+
+        ArgumentCaptor<Runnable> handlerCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockExecutorService).execute(handlerCaptor.capture());
+
+        // Run the handler on a "thread" with a different context.
+        RequestContext otherContext = new RequestContext.Builder().withRequestId("other-request-id").build();
+        RequestContext.set(otherContext);
+        AtomicReference<RequestContext> handlerContext = new AtomicReference<>();
+        when(mockAccountService.getAccount(any(), eq(CORE))).thenAnswer(invocation -> {
+            handlerContext.set(RequestContext.get());
+            return ACCOUNT_WITH_TIME_ZONE;
+        });
+        handlerCaptor.getValue().run();
+
+        verifyLoggedSmsMessage(HEALTH_CODE, MESSAGE_BODY, SmsType.TRANSACTIONAL);
+        verifyHealthData(ACCOUNT_WITH_TIME_ZONE, TIME_ZONE, SmsType.TRANSACTIONAL, MESSAGE_BODY);
+        assertSame(RequestContext.get(), otherContext);
+        
+        // The handler runs with a copy of the sending request's context, with its own metrics.
+        assertEquals(handlerContext.get().getId(), "request-id");
+        assertNotNull(handlerContext.get().getMetrics());
+        assertNotSame(handlerContext.get().getMetrics(), requestContext.getMetrics());
+    }
+
+    @Test
+    public void sendSmsMessage_LoggingErrorNotPropagated() throws Exception {
+        when(mockAccountService.getAccount(any(), eq(CORE))).thenReturn(
+                ACCOUNT_WITH_TIME_ZONE);
+        when(mockHealthDataService.submitHealthData(any(), any(), any())).thenThrow(IOException.class);
+
+        SmsMessageProvider provider = new SmsMessageProvider.Builder()
+                .withApp(app)
+                .withTemplateRevision(REVISION)
+                .withTransactionType()
+                .withPhone(TestConstants.PHONE).build();
+
+        // Does not throw.
+        svc.sendSmsMessage(USER_ID, provider);
+        verifyLoggedSmsMessage(HEALTH_CODE, MESSAGE_BODY, SmsType.TRANSACTIONAL);
+    }
+
+    @Test
+    public void sendSmsMessage_SchemaCheckedOncePerApp() throws Exception {
+        when(mockAccountService.getAccount(any(), eq(CORE))).thenReturn(
+                ACCOUNT_WITH_TIME_ZONE);
+
+        SmsMessageProvider provider = new SmsMessageProvider.Builder()
+                .withApp(app)
+                .withTemplateRevision(REVISION)
+                .withTransactionType()
+                .withPhone(TestConstants.PHONE).build();
+        svc.sendSmsMessage(USER_ID, provider);
+        svc.sendSmsMessage(USER_ID, provider);
+
+        verify(mockSchemaService, times(1)).getUploadSchemaByIdAndRev(TEST_APP_ID, SmsService.MESSAGE_LOG_SCHEMA_ID,
+                SmsService.MESSAGE_LOG_SCHEMA_REV);
+        verify(mockHealthDataService, times(2)).submitHealthData(eq(TEST_APP_ID), any(), any());
+    }
+
     @Test(expectedExceptions = BridgeServiceException.class)
     public void sendSMSMessageTooLongInvalid() {
         TemplateRevision revision = TemplateRevision.create();
@@ -310,13 +426,19 @@ public class SmsServiceTest {
         assertEquals(loggedMessage.getAppId(), TEST_APP_ID);
     }
 
-    private void verifyHealthData(StudyParticipant expectedParticipant, DateTimeZone expectedTimeZone,
+    private void verifyHealthData(Account expectedAccount, DateTimeZone expectedTimeZone,
             SmsType expectedSmsType, String expectedMessage) throws Exception {
+        ArgumentCaptor<StudyParticipant> participantCaptor = ArgumentCaptor.forClass(StudyParticipant.class);
         ArgumentCaptor<HealthDataSubmission> healthDataCaptor = ArgumentCaptor.forClass(HealthDataSubmission.class);
-        verify(mockHealthDataService).submitHealthData(eq(TEST_APP_ID), same(expectedParticipant),
+        verify(mockHealthDataService).submitHealthData(eq(TEST_APP_ID), participantCaptor.capture(),
                 healthDataCaptor.capture());
         HealthDataSubmission healthData = healthDataCaptor.getValue();
 
+        // The participant is made from the account.
+        StudyParticipant participant = participantCaptor.getValue();
+        assertEquals(participant.getId(), expectedAccount.getId());
+        assertEquals(participant.getHealthCode(), expectedAccount.getHealthCode());
+
         // Verify simple attributes.
         assertEquals(healthData.getAppVersion(), SmsService.BRIDGE_SERVER_APP_VERSION);
         assertEquals(healthData.getPhoneInfo(), SmsService.BRIDGE_SERVER_PHONE_INFO);
@@ -1,6 +1,8 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -11,6 +13,8 @@ import static org.sagebionetworks.bridge.Roles.ORG_ADMIN;
 import static org.sagebionetworks.bridge.Roles.RESEARCHER;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_ORG_ID;
+import static org.sagebionetworks.bridge.services.StudyService.STUDY_EXPIRE_IN_SECONDS;
+import static org.sagebionetworks.bridge.services.StudyService.STUDY_ID_SET_TYPE_REF;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
@@ -31,12 +35,15 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.OrganizationDao;
 import org.sagebionetworks.bridge.dao.StudyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
+import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.VersionHolder;
 import org.sagebionetworks.bridge.models.studies.Study;
@@ -58,6 +65,9 @@ public class StudyServiceTest {
     @Mock
     private SponsorService sponsorService;
     
+    @Mock
+    private CacheProvider cacheProvider;
+    
     @Captor
     private ArgumentCaptor<Study> studyCaptor;
     
@@ -81,6 +91,8 @@ public class StudyServiceTest {
     
     @Test
     public void getStudy() {
+        Metrics metrics = new Metrics("12345");
+        RequestContext.set(new RequestContext.Builder().withMetrics(metrics).build());
         Study study = Study.create();
         when(studyDao.getStudy(TEST_APP_ID, "id")).thenReturn(study);
         
@@ -88,6 +100,25 @@ public class StudyServiceTest {
         assertEquals(returnedValue, study);
         
         verify(studyDao).getStudy(TEST_APP_ID, "id");
+        verify(cacheProvider).setObject(CacheKey.study(TEST_APP_ID, "id"), study, STUDY_EXPIRE_IN_SECONDS);
+        assertEquals(metrics.getJson().get("cache_results").get("study").get("misses").intValue(), 1);
+    }
+    
+    @Test
+    public void getStudyFromCache() {
+        Metrics metrics = new Metrics("12345");
+        RequestContext.set(new RequestContext.Builder().withMetrics(metrics).build());
+        Study study = Study.create();
+        study.setIdentifier("id");
+        when(cacheProvider.getObject(CacheKey.study(TEST_APP_ID, "id"), Study.class)).thenReturn(study);
+        
+        Study returnedValue = service.getStudy(TEST_APP_ID, "id", true);
+        assertEquals(returnedValue, study);
+        assertEquals(returnedValue.getAppId(), TEST_APP_ID);
+        
+        verify(studyDao, never()).getStudy(any(), any());
+        verify(cacheProvider, never()).setObject(any(), any(), anyInt());
+        assertEquals(metrics.getJson().get("cache_results").get("study").get("hits").intValue(), 1);
     }
     
     @Test
@@ -105,6 +136,18 @@ public class StudyServiceTest {
         assertEquals(studyIds, ImmutableSet.of("studyA","studyB"));
         
         verify(studyDao).getStudies(TEST_APP_ID, null, null, null, false);
+        verify(cacheProvider).setObject(CacheKey.studyIdList(TEST_APP_ID), studyIds, STUDY_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void getStudyIdsFromCache() {
+        when(cacheProvider.getObject(CacheKey.studyIdList(TEST_APP_ID), STUDY_ID_SET_TYPE_REF))
+                .thenReturn(ImmutableSet.of("studyA"));
+        
+        Set<String> studyIds = service.getStudyIds(TEST_APP_ID);
+        assertEquals(studyIds, ImmutableSet.of("studyA"));
+        
+        verify(studyDao, never()).getStudies(any(), any(), any(), any(), anyBoolean());
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -116,6 +159,8 @@ public class StudyServiceTest {
     public void getStudyNotFoundNotThrowingException() {
         Study study = service.getStudy(TEST_APP_ID, "id", false);
         assertNull(study);
+        
+        verify(cacheProvider, never()).setObject(any(), any(), anyInt());
     }
     
     @Test
@@ -243,6 +288,7 @@ public class StudyServiceTest {
         assertNotEquals(persisted.getModifiedOn(), timestamp);
         
         verify(sponsorService).createStudyWithSponsorship(TEST_APP_ID, "oneId", TEST_ORG_ID);
+        verify(cacheProvider).removeObject(CacheKey.studyIdList(TEST_APP_ID));
     }
     
     @Test
@@ -322,6 +368,9 @@ public class StudyServiceTest {
         assertEquals(returnedValue.getName(), "newName");
         assertNotNull(returnedValue.getCreatedOn());
         assertNotNull(returnedValue.getModifiedOn());
+        
+        verify(cacheProvider).removeObject(CacheKey.study(TEST_APP_ID, "oneId"));
+        verify(cacheProvider).removeObject(CacheKey.studyIdList(TEST_APP_ID));
     }
     
     @Test(expectedExceptions = InvalidEntityException.class)
@@ -363,6 +412,9 @@ public class StudyServiceTest {
         Study persisted = studyCaptor.getValue();
         assertTrue(persisted.isDeleted());
         assertNotNull(persisted.getModifiedOn());
+        
+        verify(cacheProvider).removeObject(CacheKey.study(TEST_APP_ID, "id"));
+        verify(cacheProvider).removeObject(CacheKey.studyIdList(TEST_APP_ID));
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -377,6 +429,8 @@ public class StudyServiceTest {
         service.deleteStudyPermanently(TEST_APP_ID, "id");
         
         verify(studyDao).deleteStudyPermanently(TEST_APP_ID, "id");
+        verify(cacheProvider).removeObject(CacheKey.study(TEST_APP_ID, "id"));
+        verify(cacheProvider).removeObject(CacheKey.studyIdList(TEST_APP_ID));
     }    
 
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -386,7 +440,17 @@ public class StudyServiceTest {
     
     @Test
     public void deleteAllStudies() {
+        Study studyA = Study.create();
+        studyA.setIdentifier("studyA");
+        Study studyB = Study.create();
+        studyB.setIdentifier("studyB");
+        when(studyDao.getStudies(TEST_APP_ID, null, null, null, true))
+                .thenReturn(new PagedResourceList<>(ImmutableList.of(studyA, studyB), 2));
+        
         service.deleteAllStudies(TEST_APP_ID);
         verify(studyDao).deleteAllStudies(TEST_APP_ID);
+        verify(cacheProvider).removeObject(CacheKey.study(TEST_APP_ID, "studyA"));
+        verify(cacheProvider).removeObject(CacheKey.study(TEST_APP_ID, "studyB"));
+        verify(cacheProvider).removeObject(CacheKey.studyIdList(TEST_APP_ID));
     }
 }
@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.services;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.eq;
@@ -22,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
@@ -35,6 +37,8 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
@@ -90,6 +94,9 @@ public class SurveyServiceTest {
     @Mock
     AppService mockAppService;
     
+    @Mock
+    CacheProvider mockCacheProvider;
+    
     @Captor
     ArgumentCaptor<GuidCreatedOnVersionHolder> keysCaptor;
     
@@ -122,6 +129,7 @@ public class SurveyServiceTest {
         service.setSchedulePlanService(mockSchedulePlanService);
         service.setSharedModuleMetadataService(mockSharedModuleMetadataService);
         service.setPublishValidator(mockSurveyPublishValidator);
+        service.setCacheProvider(mockCacheProvider);
     }
 
     @Test
@@ -213,6 +221,96 @@ public class SurveyServiceTest {
         verify(mockSurveyDao).getAllSurveysMostRecentlyPublishedVersion(TEST_APP_ID, false);
     }
     
+    @Test
+    public void getAllSurveysMostRecentlyPublishedVersionCachesList() {
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        List<Survey> list = ImmutableList.of(survey);
+        when(mockSurveyDao.getAllSurveysMostRecentlyPublishedVersion(TEST_APP_ID, false)).thenReturn(list);
+        
+        List<Survey> results = service.getAllSurveysMostRecentlyPublishedVersion(TEST_APP_ID, false);
+        assertSame(results, list);
+        
+        verify(mockCacheProvider).setObject(CacheKey.mostRecentlyPublishedSurveys(TEST_APP_ID, false), list,
+                SurveyService.PUBLISHED_SURVEY_LIST_EXPIRE_IN_SECONDS);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getAllSurveysMostRecentlyPublishedVersionFromCache() {
+        Survey survey = Survey.create();
+        List<Survey> list = ImmutableList.of(survey);
+        when(mockCacheProvider.getObject(eq(CacheKey.mostRecentlyPublishedSurveys(TEST_APP_ID, true)),
+                any(TypeReference.class))).thenReturn(list);
+        
+        List<Survey> results = service.getAllSurveysMostRecentlyPublishedVersion(TEST_APP_ID, true);
+        assertSame(results, list);
+        // appId is not serialized, so it is restored
+        assertEquals(results.get(0).getAppId(), TEST_APP_ID);
+        
+        verify(mockSurveyDao, never()).getAllSurveysMostRecentlyPublishedVersion(any(), anyBoolean());
+    }
+    
+    @Test
+    public void getSurveyWithElementsCachesPublishedSurvey() {
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        survey.setPublished(true);
+        when(mockSurveyDao.getSurvey(TEST_APP_ID, SURVEY_KEYS, true)).thenReturn(survey);
+        
+        Survey result = service.getSurvey(TEST_APP_ID, SURVEY_KEYS, true, true);
+        assertSame(result, survey);
+        
+        verify(mockCacheProvider).setObject(CacheKey.publishedSurvey(TEST_APP_ID, SURVEY_GUID, 1337L), survey,
+                SurveyService.PUBLISHED_SURVEY_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void getSurveyWithElementsDoesNotCacheUnpublishedSurvey() {
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        when(mockSurveyDao.getSurvey(TEST_APP_ID, SURVEY_KEYS, true)).thenReturn(survey);
+        
+        service.getSurvey(TEST_APP_ID, SURVEY_KEYS, true, true);
+        
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
+    }
+    
+    @Test
+    public void getSurveyWithElementsFromCache() {
+        Survey survey = Survey.create();
+        survey.setPublished(true);
+        when(mockCacheProvider.getObject(CacheKey.publishedSurvey(TEST_APP_ID, SURVEY_GUID, 1337L), Survey.class))
+                .thenReturn(survey);
+        
+        Survey result = service.getSurvey(TEST_APP_ID, SURVEY_KEYS, true, true);
+        assertSame(result, survey);
+        assertEquals(result.getAppId(), TEST_APP_ID);
+        
+        verify(mockSurveyDao, never()).getSurvey(any(), any(), anyBoolean());
+    }
+    
+    @Test
+    public void getSurveyMostRecentlyPublishedWithElementsUsesCachedList() {
+        Survey listed = Survey.create();
+        listed.setAppId(TEST_APP_ID);
+        listed.setGuid(SURVEY_GUID);
+        listed.setCreatedOn(1337L);
+        when(mockSurveyDao.getAllSurveysMostRecentlyPublishedVersion(TEST_APP_ID, false))
+                .thenReturn(ImmutableList.of(listed));
+        
+        Survey survey = Survey.create();
+        survey.setAppId(TEST_APP_ID);
+        survey.setPublished(true);
+        when(mockCacheProvider.getObject(CacheKey.publishedSurvey(TEST_APP_ID, SURVEY_GUID, 1337L), Survey.class))
+                .thenReturn(survey);
+        
+        Survey result = service.getSurveyMostRecentlyPublishedVersion(TEST_APP_ID, SURVEY_GUID, true);
+        assertSame(result, survey);
+        
+        verify(mockSurveyDao, never()).getSurveyMostRecentlyPublishedVersion(any(), any(), anyBoolean());
+    }
+    
     @Test
     public void getAllSurveysMostRecentVersionIncludeDeleted() {
         service.getAllSurveysMostRecentVersion(TEST_APP_ID, true);
@@ -261,6 +359,11 @@ public class SurveyServiceTest {
         // execute and validate
         Survey retval = service.publishSurvey(TEST_APP_ID, SURVEY_KEYS, true);
         assertSame(retval, survey);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.resolvedSurveyReference(TEST_APP_ID, SURVEY_GUID));
+        verify(mockCacheProvider).removeObject(CacheKey.publishedSurvey(TEST_APP_ID, SURVEY_GUID, 1337L));
+        verify(mockCacheProvider).removeObject(CacheKey.mostRecentlyPublishedSurveys(TEST_APP_ID, true));
+        verify(mockCacheProvider).removeObject(CacheKey.mostRecentlyPublishedSurveys(TEST_APP_ID, false));
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -306,6 +409,8 @@ public class SurveyServiceTest {
         
         verify(mockSurveyDao).deleteSurvey(surveyCaptor.capture());
         assertEquals(surveyCaptor.getValue(), survey);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.resolvedSurveyReference(TEST_APP_ID, survey.getGuid()));
     }
     
     @Test
@@ -334,6 +439,8 @@ public class SurveyServiceTest {
         
         verify(mockSurveyDao).deleteSurveyPermanently(eq(TEST_APP_ID), keysCaptor.capture());
         assertEquals(keysCaptor.getValue(), survey);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.resolvedSurveyReference(TEST_APP_ID, survey.getGuid()));
     }
 
     @Test(expectedExceptions = BadRequestException.class)
@@ -27,6 +27,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.TemplateDao;
 import org.sagebionetworks.bridge.dao.TemplateRevisionDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -51,6 +53,9 @@ public class TemplateRevisionServiceTest extends Mockito {
     @Mock
     TemplateRevisionDao mockTemplateRevisionDao;
     
+    @Mock
+    CacheProvider mockCacheProvider;
+    
     @InjectMocks
     @Spy
     TemplateRevisionService service;
@@ -188,6 +193,8 @@ public class TemplateRevisionServiceTest extends Mockito {
         
         verify(mockTemplateDao).updateTemplate(templateCaptor.capture());
         assertEquals(templateCaptor.getValue().getPublishedCreatedOn(), CREATED_ON);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.templateList(TEST_APP_ID, SMS_PHONE_SIGN_IN));
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class, expectedExceptionsMessageRegExp = "Template not found.")
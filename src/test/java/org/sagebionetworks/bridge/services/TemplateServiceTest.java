@@ -31,6 +31,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -51,6 +52,8 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.CriteriaDao;
 import org.sagebionetworks.bridge.dao.TemplateDao;
 import org.sagebionetworks.bridge.dao.TemplateRevisionDao;
@@ -88,6 +91,9 @@ public class TemplateServiceTest extends Mockito {
     @Mock
     StudyService mockStudyService;
     
+    @Mock
+    CacheProvider mockCacheProvider;
+    
     @InjectMocks
     @Spy
     TemplateService service;
@@ -210,6 +216,57 @@ public class TemplateServiceTest extends Mockito {
         
         Template template = service.getTemplateForUser(app, makeContext("fr"), EMAIL_RESET_PASSWORD).get();
         assertEquals(template, t2);
+        
+        // The default was found in the list of templates
+        verify(mockTemplateDao, never()).getTemplate(any(), any());
+    }
+    
+    // The default is not among the templates of this type, so it is loaded
+    @Test
+    public void getTemplateForUserMatchesManyLoadsDefault() {
+        Template t1 = makeTemplate(GUID1, "fr");
+        Template t2 = makeTemplate(GUID2, "fr");
+        mockGetTemplates(ImmutableList.of(t1));
+        
+        mockTemplateDefault(GUID2);
+        
+        Template template = service.getTemplateForUser(app, makeContext("fr"), EMAIL_RESET_PASSWORD).get();
+        assertEquals(template, t2);
+    }
+    
+    @Test
+    public void getTemplateForUserCachesTemplates() {
+        Template t1 = makeTemplate(GUID1, "en");
+        Template t2 = makeTemplate(GUID2, "fr");
+        List<Template> list = ImmutableList.of(t1, t2);
+        mockGetTemplates(list);
+        
+        service.getTemplateForUser(app, makeContext("fr"), EMAIL_RESET_PASSWORD);
+        
+        verify(mockCacheProvider).setObject(CacheKey.templateList(TEST_APP_ID, EMAIL_RESET_PASSWORD), list,
+                TemplateService.TEMPLATE_LIST_EXPIRE_IN_SECONDS);
+        assertEquals(t1.getCriteria().getLanguage(), "en");
+        assertEquals(t2.getCriteria().getLanguage(), "fr");
+    }
+    
+    @Test
+    public void getTemplateForUserFromCache() {
+        Template t1 = Template.create();
+        t1.setGuid(GUID1);
+        t1.setCriteria(makeCriteria(GUID1, "en"));
+        Template t2 = Template.create();
+        t2.setGuid(GUID2);
+        t2.setCriteria(makeCriteria(GUID2, "fr"));
+        when(mockCacheProvider.getObject(eq(CacheKey.templateList(TEST_APP_ID, EMAIL_RESET_PASSWORD)),
+                any(TypeReference.class))).thenReturn(ImmutableList.of(t1, t2));
+        
+        Template template = service.getTemplateForUser(app, makeContext("fr"), EMAIL_RESET_PASSWORD).get();
+        assertEquals(template, t2);
+        assertEquals(template.getAppId(), TEST_APP_ID);
+        
+        verify(mockTemplateDao, never()).getTemplates(any(), any(), any(), any(), anyBoolean());
+        verify(mockCriteriaDao, never()).getCriteria(any());
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
     }
     
     // More than one template matches, but the default is broken so the first matcher is returned
@@ -427,6 +484,8 @@ public class TemplateServiceTest extends Mockito {
         assertEquals(revision.getSubject(), EMAIL_RESET_PASSWORD.name());
         assertEquals(revision.getDocumentContent(), EMAIL_RESET_PASSWORD.name());
         assertEquals(revision.getMimeType(), HTML);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.templateList(TEST_APP_ID, EMAIL_RESET_PASSWORD));
     }
         
     @Test
@@ -486,6 +545,7 @@ public class TemplateServiceTest extends Mockito {
         
         verify(mockCriteriaDao).createOrUpdateCriteria(criteria);
         verify(mockTemplateDao).updateTemplate(template);
+        verify(mockCacheProvider).removeObject(CacheKey.templateList(TEST_APP_ID, EMAIL_RESET_PASSWORD));
     }
     
     @Test
@@ -555,6 +615,8 @@ public class TemplateServiceTest extends Mockito {
         Template persisted = templateCaptor.getValue();
         assertTrue(persisted.isDeleted());
         assertEquals(persisted.getModifiedOn(), TIMESTAMP);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.templateList(TEST_APP_ID, EMAIL_ACCOUNT_EXISTS));
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -587,6 +649,7 @@ public class TemplateServiceTest extends Mockito {
 
         verify(mockCriteriaDao).deleteCriteria("template:"+GUID1);
         verify(mockTemplateDao).deleteTemplatePermanently(TEST_APP_ID, GUID1);
+        verify(mockCacheProvider).removeObject(CacheKey.templateList(TEST_APP_ID, EMAIL_ACCOUNT_EXISTS));
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -651,6 +714,9 @@ public class TemplateServiceTest extends Mockito {
         TemplateRevision retrieved = service.getRevisionForUser(app, EMAIL_RESET_PASSWORD);
         assertSame(retrieved, r2);
         
+        verify(mockCacheProvider).setObject(CacheKey.templateRevision(GUID2, createdOn.plusHours(1).getMillis()),
+                r2, TemplateService.TEMPLATE_REVISION_EXPIRE_IN_SECONDS);
+        
         verify(service).getTemplateForUser(eq(app), contextCaptor.capture(), eq(EMAIL_RESET_PASSWORD));
         
         CriteriaContext context = contextCaptor.getValue();
@@ -677,10 +743,33 @@ public class TemplateServiceTest extends Mockito {
         service.getRevisionForUser(app, EMAIL_RESET_PASSWORD);
     }
     
+    @Test
+    public void getRevisionForUserFromCache() throws Exception {
+        RequestContext.set(new RequestContext.Builder().withCallerLanguages(LANGUAGES).build());
+        
+        DateTime createdOn = DateTime.now();
+        Template t1 = makeTemplate(GUID1, "en");
+        t1.setPublishedCreatedOn(createdOn);
+        mockGetTemplates(ImmutableList.of(t1));
+        
+        TemplateRevision revision = TemplateRevision.create();
+        when(mockCacheProvider.getObject(CacheKey.templateRevision(GUID1, createdOn.getMillis()),
+                TemplateRevision.class)).thenReturn(revision);
+        
+        TemplateRevision retrieved = service.getRevisionForUser(app, EMAIL_RESET_PASSWORD);
+        assertSame(retrieved, revision);
+        assertEquals(retrieved.getTemplateGuid(), GUID1);
+        
+        verify(mockTemplateRevisionDao, never()).getTemplateRevision(any(), any());
+    }
+    
     @Test
     public void deleteTemplatesForApp() {
         service.deleteTemplatesForApp(TEST_APP_ID);
         
         verify(mockTemplateDao).deleteTemplatesForApp(TEST_APP_ID);
+        for (TemplateType type : TemplateType.values()) {
+            verify(mockCacheProvider).removeObject(CacheKey.templateList(TEST_APP_ID, type));
+        }
     }
 }
@@ -15,6 +15,7 @@ import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.models.surveys.DataType;
@@ -45,6 +46,7 @@ public class UploadSchemaServiceFromSurveyTest {
         dao = mock(UploadSchemaDao.class);
         svc = new UploadSchemaService();
         svc.setUploadSchemaDao(dao);
+        svc.setCacheProvider(mock(CacheProvider.class));
     }
 
     @Test
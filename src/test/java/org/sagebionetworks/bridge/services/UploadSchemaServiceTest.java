@@ -29,6 +29,8 @@ import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
@@ -53,6 +55,7 @@ public class UploadSchemaServiceTest {
     private UploadSchemaDao dao;
     private UploadSchemaService svc;
     private SharedModuleMetadataService mockSharedModuleMetadataService;
+    private CacheProvider mockCacheProvider;
 
     @Captor
     ArgumentCaptor<String> queryCaptor;
@@ -70,6 +73,8 @@ public class UploadSchemaServiceTest {
         svc = new UploadSchemaService();
         svc.setUploadSchemaDao(dao);
         svc.setSharedModuleMetadataService(mockSharedModuleMetadataService);
+        mockCacheProvider = mock(CacheProvider.class);
+        svc.setCacheProvider(mockCacheProvider);
     }
 
     @Test(expectedExceptions = BadRequestException.class)
@@ -142,6 +147,15 @@ public class UploadSchemaServiceTest {
         assertSame(svcOutputSchema, daoOutputSchema);
     }
 
+    @Test
+    public void createV4RemovesResolvedSchemaReferences() {
+        when(dao.createSchemaRevision(any())).thenReturn(makeSimpleSchema());
+
+        svc.createSchemaRevisionV4(TEST_APP_ID, svcInputSchema);
+
+        verify(mockCacheProvider).removeSetOfCacheKeys(CacheKey.resolvedSchemaReferenceSet(TEST_APP_ID, SCHEMA_ID));
+    }
+
     @Test(expectedExceptions = BadRequestException.class)
     public void createOrUpdateNullSchemaId() {
         svcInputSchema.setSchemaId(null);
@@ -294,6 +308,7 @@ public class UploadSchemaServiceTest {
         // execute and verify delete call
         svc.deleteUploadSchemaById(TEST_APP_ID, SCHEMA_ID);
         verify(dao).deleteUploadSchemas(schemaListToDelete);
+        verify(mockCacheProvider).removeSetOfCacheKeys(CacheKey.resolvedSchemaReferenceSet(TEST_APP_ID, SCHEMA_ID));
 
         // verify query args
         verify(mockSharedModuleMetadataService).queryAllMetadata(eq(false), eq(false), queryCaptor.capture(),
@@ -981,6 +996,9 @@ public class UploadSchemaServiceTest {
 
         // Validate DAO input is also svcOutput.
         assertSame(svcOutputSchema, daoOutputSchema);
+
+        // Validate resolved schema references are removed from the cache.
+        verify(mockCacheProvider).removeSetOfCacheKeys(CacheKey.resolvedSchemaReferenceSet(TEST_APP_ID, SCHEMA_ID));
     }
 
     private static UploadSchema makeSimpleSchema() {
@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.services;
 import static com.amazonaws.services.s3.Headers.SERVER_SIDE_ENCRYPTION;
 import static com.amazonaws.services.s3.model.ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
@@ -10,6 +11,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.BridgeConstants.API_APP_ID;
 import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
@@ -46,6 +48,9 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.dao.UploadDedupeDao;
@@ -55,6 +60,7 @@ import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.NotFoundException;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
+import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
@@ -115,6 +121,9 @@ public class UploadServiceTest {
     @Mock
     BridgeConfig mockConfig;
     
+    @Mock
+    CacheProvider mockCacheProvider;
+    
     @Captor
     ArgumentCaptor<GeneratePresignedUrlRequest> requestCaptor;
     
@@ -130,12 +139,15 @@ public class UploadServiceTest {
         svc.setS3UploadClient(mockS3UploadClient);
         
         when(mockConfig.getProperty(UploadService.CONFIG_KEY_UPLOAD_BUCKET)).thenReturn(UPLOAD_BUCKET_NAME);
+        when(mockConfig.getProperty(UploadService.CONFIG_KEY_UPLOAD_DEDUPE_SKIP_UNMARKED)).thenReturn("true");
         svc.setConfig(mockConfig);
+        svc.setCacheProvider(mockCacheProvider);
     }
     
     @AfterMethod
     public void after() {
         DateTimeUtils.setCurrentMillisSystem();
+        RequestContext.set(null);
     }
     
     @Test(expectedExceptions = BadRequestException.class)
@@ -219,6 +231,27 @@ public class UploadServiceTest {
         assertEquals(status.getMessageList().get(0), "getStatusWithRecord - message");
     }
 
+    @Test
+    public void getValidationStatusForUpload() {
+        DynamoUpload2 upload = new DynamoUpload2();
+        upload.setHealthCode("getValidationStatusForUpload");
+        upload.setRecordId("test-record-id");
+        upload.setStatus(UploadStatus.SUCCEEDED);
+        upload.setUploadId("with-record-id");
+
+        HealthDataRecord dummyRecord = HealthDataRecord.create();
+        when(mockHealthDataService.getRecordById("test-record-id")).thenReturn(dummyRecord);
+
+        // execute and validate
+        UploadValidationStatus status = svc.getValidationStatusForUpload(upload);
+        assertEquals(status.getId(), "with-record-id");
+        assertEquals(status.getStatus(), UploadStatus.SUCCEEDED);
+        assertSame(status.getRecord(), dummyRecord);
+
+        // The upload is already loaded.
+        verify(mockUploadDao, never()).getUpload(any());
+    }
+
     // branch coverage
     @Test
     public void getStatusRecordIdWithNoRecord() {
@@ -493,6 +526,165 @@ public class UploadServiceTest {
         assertEquals(request.getRequestParameters().get(SERVER_SIDE_ENCRYPTION), AES_256_SERVER_SIDE_ENCRYPTION);
     }
 
+    @Test
+    public void createUploadRegistersDedupeMarker() throws Exception {
+        mockCreateUpload(null);
+        
+        svc.createUpload(TEST_APP_ID, PARTICIPANT, constructUploadRequest());
+        
+        verify(mockUploadDedupeDao).registerUpload(HEALTH_CODE, "md5-value", TIMESTAMP, NEW_UPLOAD_ID);
+        verify(mockCacheProvider).setObject(CacheKey.uploadDedupeCoverage(TEST_APP_ID), TIMESTAMP.getMillis(),
+                UploadService.UPLOAD_DEDUPE_EXPIRE_IN_SECONDS);
+        verify(mockCacheProvider).setObject(CacheKey.uploadDedupe(HEALTH_CODE, "md5-value"), NEW_UPLOAD_ID,
+                UploadService.UPLOAD_DEDUPE_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void createUploadDoesNotResetDedupeCoverage() throws Exception {
+        when(mockCacheProvider.getObject(CacheKey.uploadDedupeCoverage(TEST_APP_ID), Long.class))
+                .thenReturn(TIMESTAMP.getMillis());
+        mockCreateUpload(null);
+        
+        svc.createUpload(TEST_APP_ID, PARTICIPANT, constructUploadRequest());
+        
+        verify(mockCacheProvider, never()).setObject(eq(CacheKey.uploadDedupeCoverage(TEST_APP_ID)), any(),
+                anyInt());
+        verify(mockCacheProvider).setExpiration(CacheKey.uploadDedupeCoverage(TEST_APP_ID),
+                UploadService.UPLOAD_DEDUPE_EXPIRE_IN_SECONDS);
+        verify(mockCacheProvider).setObject(CacheKey.uploadDedupe(HEALTH_CODE, "md5-value"), NEW_UPLOAD_ID,
+                UploadService.UPLOAD_DEDUPE_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void createUploadClearsDedupeCoverageWhenMarkerFails() throws Exception {
+        doThrow(new RuntimeException()).when(mockCacheProvider).setObject(
+                CacheKey.uploadDedupe(HEALTH_CODE, "md5-value"), NEW_UPLOAD_ID,
+                UploadService.UPLOAD_DEDUPE_EXPIRE_IN_SECONDS);
+        mockCreateUpload(null);
+        
+        UploadSession session = svc.createUpload(TEST_APP_ID, PARTICIPANT, constructUploadRequest());
+        assertEquals(session.getId(), NEW_UPLOAD_ID);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.uploadDedupeCoverage(TEST_APP_ID));
+    }
+    
+    @Test
+    public void createUploadSkipsDedupeTableWithoutMarker() throws Exception {
+        Metrics metrics = setupMetrics();
+        when(mockCacheProvider.getObject(CacheKey.uploadDedupeCoverage(TEST_APP_ID), Long.class))
+                .thenReturn(TIMESTAMP.minusDays(30).getMillis());
+        mockCreateUpload(null);
+        
+        UploadSession session = svc.createUpload(TEST_APP_ID, PARTICIPANT, constructUploadRequest());
+        assertEquals(session.getId(), NEW_UPLOAD_ID);
+        
+        verify(mockUploadDedupeDao, never()).getDuplicate(any(), any(), any());
+        assertEquals(metrics.getJson().get("upload_dedupe_result").textValue(), UploadService.DEDUPE_RESULT_SKIPPED);
+    }
+    
+    @Test
+    public void createUploadChecksDedupeTableWithoutMarkerWhenNotSkippingUnmarked() throws Exception {
+        // The cache may evict markers, so a missing marker doesn't rule out a dupe, and no markers are written.
+        when(mockConfig.getProperty(UploadService.CONFIG_KEY_UPLOAD_DEDUPE_SKIP_UNMARKED)).thenReturn("false");
+        svc.setConfig(mockConfig);
+        Metrics metrics = setupMetrics();
+        when(mockCacheProvider.getObject(CacheKey.uploadDedupeCoverage(TEST_APP_ID), Long.class))
+                .thenReturn(TIMESTAMP.minusDays(30).getMillis());
+        mockCreateUpload(null);
+        
+        svc.createUpload(TEST_APP_ID, PARTICIPANT, constructUploadRequest());
+        
+        verify(mockUploadDedupeDao).getDuplicate(eq(HEALTH_CODE), eq("md5-value"), any());
+        verify(mockUploadDedupeDao).registerUpload(HEALTH_CODE, "md5-value", TIMESTAMP, NEW_UPLOAD_ID);
+        verifyZeroInteractions(mockCacheProvider);
+        assertEquals(metrics.getJson().get("upload_dedupe_result").textValue(),
+                UploadService.DEDUPE_RESULT_CHECKED);
+    }
+    
+    @Test
+    public void createUploadFalsePositiveWithMarker() throws Exception {
+        // A marker that outlives its dedupe table entry leads to a check that finds no dupe.
+        Metrics metrics = setupMetrics();
+        when(mockCacheProvider.getObject(CacheKey.uploadDedupeCoverage(TEST_APP_ID), Long.class))
+                .thenReturn(TIMESTAMP.minusDays(30).getMillis());
+        when(mockCacheProvider.getObject(CacheKey.uploadDedupe(HEALTH_CODE, "md5-value"), String.class))
+                .thenReturn(ORIGINAL_UPLOAD_ID);
+        mockCreateUpload(null);
+        
+        svc.createUpload(TEST_APP_ID, PARTICIPANT, constructUploadRequest());
+        
+        verify(mockUploadDedupeDao).getDuplicate(eq(HEALTH_CODE), eq("md5-value"), any());
+        assertEquals(metrics.getJson().get("upload_dedupe_result").textValue(),
+                UploadService.DEDUPE_RESULT_FALSE_POSITIVE);
+    }
+    
+    @Test
+    public void createUploadChecksDedupeTableWhenCoverageIsRecent() throws Exception {
+        // Markers have been written for less than the dedupe window, so an older upload might not have one.
+        Metrics metrics = setupMetrics();
+        when(mockCacheProvider.getObject(CacheKey.uploadDedupeCoverage(TEST_APP_ID), Long.class))
+                .thenReturn(TIMESTAMP.minusHours(1).getMillis());
+        mockCreateUpload(null);
+        
+        svc.createUpload(TEST_APP_ID, PARTICIPANT, constructUploadRequest());
+        
+        verify(mockUploadDedupeDao).getDuplicate(eq(HEALTH_CODE), eq("md5-value"), any());
+        verify(mockCacheProvider, never()).getObject(CacheKey.uploadDedupe(HEALTH_CODE, "md5-value"), String.class);
+        assertEquals(metrics.getJson().get("upload_dedupe_result").textValue(),
+                UploadService.DEDUPE_RESULT_CHECKED);
+    }
+    
+    @Test
+    public void createUploadChecksDedupeTableWithMarker() throws Exception {
+        Metrics metrics = setupMetrics();
+        when(mockCacheProvider.getObject(CacheKey.uploadDedupeCoverage(TEST_APP_ID), Long.class))
+                .thenReturn(TIMESTAMP.minusDays(30).getMillis());
+        when(mockCacheProvider.getObject(CacheKey.uploadDedupe(HEALTH_CODE, "md5-value"), String.class))
+                .thenReturn(ORIGINAL_UPLOAD_ID);
+        when(mockUploadDedupeDao.getDuplicate(eq(HEALTH_CODE), eq("md5-value"), any())).thenReturn(ORIGINAL_UPLOAD_ID);
+        Upload originalUpload = mockCreateUpload(ORIGINAL_UPLOAD_ID);
+        when(mockUploadDao.getUpload(ORIGINAL_UPLOAD_ID)).thenReturn(originalUpload);
+        
+        UploadSession session = svc.createUpload(TEST_APP_ID, PARTICIPANT, constructUploadRequest());
+        assertEquals(session.getId(), ORIGINAL_UPLOAD_ID);
+        
+        verify(mockUploadDedupeDao, never()).registerUpload(any(), any(), any(), any());
+        assertEquals(metrics.getJson().get("upload_dedupe_result").textValue(), UploadService.DEDUPE_RESULT_DUPLICATE);
+    }
+    
+    @Test
+    public void createUploadChecksDedupeTableWhenCacheFails() throws Exception {
+        Metrics metrics = setupMetrics();
+        when(mockCacheProvider.getObject(CacheKey.uploadDedupeCoverage(TEST_APP_ID), Long.class))
+                .thenThrow(new RuntimeException());
+        mockCreateUpload(null);
+        
+        UploadSession session = svc.createUpload(TEST_APP_ID, PARTICIPANT, constructUploadRequest());
+        assertEquals(session.getId(), NEW_UPLOAD_ID);
+        
+        verify(mockUploadDedupeDao).getDuplicate(eq(HEALTH_CODE), eq("md5-value"), any());
+        verify(mockUploadDedupeDao).registerUpload(HEALTH_CODE, "md5-value", TIMESTAMP, NEW_UPLOAD_ID);
+        assertEquals(metrics.getJson().get("upload_dedupe_result").textValue(),
+                UploadService.DEDUPE_RESULT_CHECKED);
+    }
+    
+    private Metrics setupMetrics() {
+        Metrics metrics = new Metrics("request-id");
+        RequestContext.set(new RequestContext.Builder().withMetrics(metrics).build());
+        return metrics;
+    }
+    
+    private Upload mockCreateUpload(String originalUploadId) throws Exception {
+        Upload upload = new DynamoUpload2(constructUploadRequest(), HEALTH_CODE);
+        upload.setUploadId(originalUploadId == null ? NEW_UPLOAD_ID : originalUploadId);
+        when(mockUploadDao.createUpload(any(), eq(TEST_APP_ID), eq(HEALTH_CODE), eq(originalUploadId)))
+                .thenReturn(upload);
+        when(mockUploadCredentailsService.getSessionCredentials())
+                .thenReturn(new BasicSessionCredentials(null, null, null));
+        when(mockS3UploadClient.generatePresignedUrl(any())).thenReturn(new URL("https://ws.com/some-link"));
+        return upload;
+    }
+
     @Test
     public void getUploads() throws Exception {
         UploadRequest uploadRequest = constructUploadRequest();
@@ -2,21 +2,47 @@ package org.sagebionetworks.bridge.services;
 
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_EXTERNAL_ID;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.CORE;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionStatus.COMPLETED;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionStatus.FAILED;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionStatus.IN_PROGRESS;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.joda.time.DateTime;
 
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -31,10 +57,15 @@ import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.ConsentRequiredException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
@@ -42,6 +73,8 @@ import org.sagebionetworks.bridge.models.accounts.IdentifierHolder;
 import org.sagebionetworks.bridge.models.accounts.SharingScope;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserDeletionJob;
+import org.sagebionetworks.bridge.models.accounts.UserDeletionStage;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.studies.Enrollment;
@@ -50,6 +83,7 @@ import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class UserAdminServiceTest {
     
@@ -105,6 +139,15 @@ public class UserAdminServiceTest {
     
     @Captor
     private ArgumentCaptor<Account> accountCaptor;
+    
+    @Captor
+    private ArgumentCaptor<UserDeletionJob> jobCaptor;
+    
+    @Captor
+    private ArgumentCaptor<Runnable> handlerCaptor;
+    
+    @Mock
+    private ExecutorService mockUserDeletionExecutorService;
 
     @InjectMocks
     private UserAdminService service;
@@ -114,6 +157,9 @@ public class UserAdminServiceTest {
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
+        service.setUserDeletionExecutorService(mockUserDeletionExecutorService);
+        service.setUserDeletionStageExecutorService(MoreExecutors.newDirectExecutorService());
+        when(cacheProvider.setObjectIfAbsent(any(), any(), anyInt())).thenReturn(true);
         
         // Make a user with multiple consent statuses, and just verify that we call the 
         // consent service that many times.
@@ -324,7 +370,7 @@ public class UserAdminServiceTest {
         when(consentService.getConsentStatuses(any())).thenReturn(statuses);
         
         AccountId accountId = AccountId.forId(app.getIdentifier(), USER_ID);
-        when(accountService.getAccount(accountId)).thenReturn(account);
+        when(accountService.getAccount(accountId, CORE)).thenReturn(account);
         
         when(participantService.getParticipant(app, USER_ID, false))
                 .thenThrow(new IllegalStateException("System is unable to complete call"));        
@@ -351,7 +397,7 @@ public class UserAdminServiceTest {
         doReturn("healthCode").when(account).getHealthCode();
         doReturn(enrollments).when(account).getActiveEnrollments();
         doReturn(enrollments).when(account).getEnrollments();
-        doReturn(account).when(accountService).getAccount(accountId);
+        doReturn(account).when(accountService).getAccount(accountId, CORE);
         
         service.deleteUser(app, "userId");
         
@@ -369,6 +415,313 @@ public class UserAdminServiceTest {
         verify(accountService).deleteAccount(accountId);
         
         assertEquals(account.getHealthCode(), "healthCode");
+        
+        verify(cacheProvider, atLeastOnce()).setObject(eq(CacheKey.userDeletionJob(TEST_APP_ID, "userId")),
+                jobCaptor.capture(), eq(UserAdminService.JOB_EXPIRE_SECONDS));
+        UserDeletionJob job = jobCaptor.getValue();
+        assertEquals(job.getStatus(), COMPLETED);
+        assertEquals(job.getCompletedStages(), EnumSet.allOf(UserDeletionStage.class));
+        assertEquals(job.getStudyIds(), ImmutableSet.of("studyA", "studyB"));
+    }
+    
+    @Test
+    public void deleteUserFails() {
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        AccountId accountId = AccountId.forId(app.getIdentifier(), "userId");
+        
+        doReturn("userId").when(account).getId();
+        doReturn("healthCode").when(account).getHealthCode();
+        doReturn(account).when(accountService).getAccount(accountId, CORE);
+        doThrow(new IllegalStateException("Uploads not deleted")).when(uploadService)
+                .deleteUploadsForHealthCode("healthCode");
+        
+        try {
+            service.deleteUser(app, "userId");
+            fail("Should have thrown exception");
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "Uploads not deleted");
+        }
+        // The other stores are still cleared, but the account is kept so the deletion can be retried.
+        verify(healthDataService).deleteRecordsForHealthCode("healthCode");
+        verify(scheduledActivityService).deleteActivitiesForUser("healthCode");
+        verify(accountService, never()).deleteAccount(any());
+        
+        verify(cacheProvider, atLeastOnce()).setObject(eq(CacheKey.userDeletionJob(TEST_APP_ID, "userId")),
+                jobCaptor.capture(), eq(UserAdminService.JOB_EXPIRE_SECONDS));
+        UserDeletionJob job = jobCaptor.getValue();
+        assertEquals(job.getStatus(), FAILED);
+        assertEquals(job.getErrorMessage(), "Uploads not deleted");
+        assertFalse(job.getCompletedStages().contains(UserDeletionStage.UPLOADS));
+        assertFalse(job.getCompletedStages().contains(UserDeletionStage.ACCOUNT));
+    }
+    
+    @Test
+    public void startUserDeletion() {
+        RequestContext.set(new RequestContext.Builder().withCallerRoles(ImmutableSet.of(Roles.ADMIN)).build());
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        AccountId accountId = AccountId.forId(app.getIdentifier(), "userId");
+        
+        Set<Enrollment> enrollments = ImmutableSet.of(Enrollment.create(TEST_APP_ID, "studyA", "userId"));
+        doReturn("userId").when(account).getId();
+        doReturn("healthCode").when(account).getHealthCode();
+        doReturn(enrollments).when(account).getEnrollments();
+        doReturn(account).when(accountService).getAccount(accountId, CORE);
+        
+        UserDeletionJob job = service.startUserDeletion(app, "userId");
+        
+        verify(mockUserDeletionExecutorService).execute(handlerCaptor.capture());
+        // Nothing but the session is removed until the job runs
+        verify(cacheProvider).removeSessionByUserId("userId");
+        verify(requestInfoService).removeRequestInfo("userId");
+        verify(healthDataService, never()).deleteRecordsForHealthCode(any());
+        verify(accountService, never()).deleteAccount(any());
+        assertEquals(job.getStatus(), IN_PROGRESS);
+        assertEquals(job.getAppId(), TEST_APP_ID);
+        assertEquals(job.getUserId(), "userId");
+        assertEquals(job.getHealthCode(), "healthCode");
+        assertEquals(job.getStudyIds(), ImmutableSet.of("studyA"));
+        
+        handlerCaptor.getValue().run();
+        
+        verify(healthDataService).deleteRecordsForHealthCode("healthCode");
+        verify(activityEventService).deleteActivityEvents("studyA", "healthCode");
+        verify(activityEventService).deleteActivityEvents(null, "healthCode");
+        verify(accountService).deleteAccount(accountId);
+        assertEquals(job.getStatus(), COMPLETED);
+        
+        // Locked once to start the job, and once to claim it when it comes off the queue.
+        CacheKey lockKey = CacheKey.lock(TEST_APP_ID + ":userId", UserDeletionJob.class);
+        verify(cacheProvider, times(2)).setObjectIfAbsent(lockKey, "userId",
+                UserAdminService.JOB_START_LOCK_EXPIRE_SECONDS);
+        verify(cacheProvider, times(2)).removeObject(lockKey);
+    }
+    
+    @Test
+    public void startUserDeletionQueueFull() {
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        AccountId accountId = AccountId.forId(app.getIdentifier(), "userId");
+        doReturn("userId").when(account).getId();
+        doReturn("healthCode").when(account).getHealthCode();
+        doReturn(account).when(accountService).getAccount(accountId, CORE);
+        doThrow(new RejectedExecutionException()).when(mockUserDeletionExecutorService).execute(any());
+        
+        try {
+            service.startUserDeletion(app, "userId");
+            fail("Should have thrown exception");
+        } catch (ServiceUnavailableException e) {
+            assertEquals(e.getMessage(), UserAdminService.JOB_QUEUE_FULL_MSG);
+        }
+        verify(cacheProvider, atLeastOnce()).setObject(eq(CacheKey.userDeletionJob(TEST_APP_ID, "userId")),
+                jobCaptor.capture(), eq(UserAdminService.JOB_EXPIRE_SECONDS));
+        assertEquals(jobCaptor.getValue().getStatus(), FAILED);
+        assertEquals(jobCaptor.getValue().getErrorMessage(), UserAdminService.JOB_QUEUE_FULL_MSG);
+    }
+    
+    @Test
+    public void startUserDeletionQueuedJobResumedElsewhere() {
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        AccountId accountId = AccountId.forId(app.getIdentifier(), "userId");
+        doReturn("userId").when(account).getId();
+        doReturn("healthCode").when(account).getHealthCode();
+        doReturn(account).when(accountService).getAccount(accountId, CORE);
+        
+        service.startUserDeletion(app, "userId");
+        verify(mockUserDeletionExecutorService).execute(handlerCaptor.capture());
+        
+        // While this job waited in the queue, it looked stale, and another request resumed it.
+        UserDeletionJob resumed = new UserDeletionJob();
+        resumed.setStatus(IN_PROGRESS);
+        resumed.setModifiedOn(DateTime.now().plusMinutes(UserAdminService.STALE_JOB_MINUTES + 1));
+        when(cacheProvider.getObject(CacheKey.userDeletionJob(TEST_APP_ID, "userId"), UserDeletionJob.class))
+                .thenReturn(resumed);
+        
+        handlerCaptor.getValue().run();
+        
+        verify(healthDataService, never()).deleteRecordsForHealthCode(any());
+        verify(accountService, never()).deleteAccount(any());
+    }
+    
+    @Test
+    public void runJobGivesStagesTheirOwnMetrics() {
+        Metrics requestMetrics = new Metrics("requestId");
+        RequestContext requestContext = new RequestContext.Builder().withMetrics(requestMetrics)
+                .withCallerUserId("adminUserId").build();
+        RequestContext.set(requestContext);
+        
+        List<RequestContext> stageContexts = new ArrayList<>();
+        doAnswer(invocation -> {
+            stageContexts.add(RequestContext.get());
+            return null;
+        }).when(healthDataService).deleteRecordsForHealthCode("healthCode");
+        doAnswer(invocation -> {
+            stageContexts.add(RequestContext.get());
+            return null;
+        }).when(accountService).deleteAccount(any());
+        
+        UserDeletionJob job = new UserDeletionJob();
+        job.setAppId(TEST_APP_ID);
+        job.setUserId("userId");
+        job.setHealthCode("healthCode");
+        service.runJob(requestContext, job, true);
+        
+        assertEquals(stageContexts.size(), 2);
+        for (RequestContext stageContext : stageContexts) {
+            assertEquals(stageContext.getCallerUserId(), "adminUserId");
+            assertNotSame(stageContext.getMetrics(), requestMetrics);
+        }
+        // The caller's own context is restored.
+        assertSame(RequestContext.get(), requestContext);
+    }
+    
+    @Test
+    public void startUserDeletionAlreadyStarting() {
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        when(cacheProvider.setObjectIfAbsent(any(), any(), anyInt())).thenReturn(false);
+        
+        try {
+            service.startUserDeletion(app, "userId");
+            fail("Should have thrown exception");
+        } catch (ConcurrentModificationException e) {
+            assertEquals(e.getMessage(), UserAdminService.JOB_START_CONFLICT_MSG);
+        }
+        verify(mockUserDeletionExecutorService, never()).execute(any());
+        verify(cacheProvider, never()).getObject(any(), eq(UserDeletionJob.class));
+        verify(cacheProvider, never()).removeObject(any());
+    }
+    
+    @Test
+    public void startUserDeletionReleasesLockOnFailure() {
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        
+        try {
+            service.startUserDeletion(app, "userId");
+            fail("Should have thrown exception");
+        } catch (EntityNotFoundException e) {
+            // expected
+        }
+        verify(cacheProvider).removeObject(CacheKey.lock(TEST_APP_ID + ":userId", UserDeletionJob.class));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void runJobUpdatesJobWhileStageRuns() throws Exception {
+        ExecutorService mockStageExecutorService = mock(ExecutorService.class);
+        Future<Object> mockFuture = mock(Future.class);
+        doReturn(mockFuture).when(mockStageExecutorService).submit(any(Callable.class));
+        when(mockFuture.get(anyLong(), any())).thenThrow(new TimeoutException()).thenReturn(null);
+        service.setUserDeletionStageExecutorService(mockStageExecutorService);
+        
+        UserDeletionJob job = new UserDeletionJob();
+        job.setAppId(TEST_APP_ID);
+        job.setUserId("userId");
+        job.setHealthCode("healthCode");
+        job.setStatus(IN_PROGRESS);
+        DateTime startedOn = DateTime.now().minusMinutes(UserAdminService.STALE_JOB_MINUTES + 1);
+        job.setModifiedOn(startedOn);
+        for (UserDeletionStage stage : UserDeletionStage.values()) {
+            if (stage != UserDeletionStage.HEALTH_DATA && stage != UserDeletionStage.ACCOUNT) {
+                job.getCompletedStages().add(stage);
+            }
+        }
+        
+        service.runJob(RequestContext.NULL_INSTANCE, job, true);
+        
+        verify(mockFuture, times(2)).get(UserAdminService.JOB_HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        // Saved once while waiting, once when the account is deleted, and once when the job completes
+        verify(cacheProvider, times(3)).setObject(CacheKey.userDeletionJob(TEST_APP_ID, "userId"), job,
+                UserAdminService.JOB_EXPIRE_SECONDS);
+        assertTrue(job.getModifiedOn().isAfter(startedOn));
+        assertEquals(job.getStatus(), COMPLETED);
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void startUserDeletionNotFound() {
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        
+        service.startUserDeletion(app, "userId");
+    }
+    
+    @Test
+    public void startUserDeletionReturnsJobInProgress() {
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        UserDeletionJob existing = new UserDeletionJob();
+        existing.setStatus(IN_PROGRESS);
+        existing.setModifiedOn(DateTime.now());
+        when(cacheProvider.getObject(CacheKey.userDeletionJob(TEST_APP_ID, "userId"), UserDeletionJob.class))
+                .thenReturn(existing);
+        
+        UserDeletionJob job = service.startUserDeletion(app, "userId");
+        
+        assertSame(job, existing);
+        verify(mockUserDeletionExecutorService, never()).execute(any());
+        verify(accountService, never()).getAccount(any(), any());
+    }
+    
+    @Test
+    public void startUserDeletionResumesFailedJob() {
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        AccountId accountId = AccountId.forId(app.getIdentifier(), "userId");
+        
+        UserDeletionJob existing = new UserDeletionJob();
+        existing.setAppId(TEST_APP_ID);
+        existing.setUserId("userId");
+        existing.setHealthCode("healthCode");
+        existing.setStatus(FAILED);
+        existing.setErrorMessage("Uploads not deleted");
+        existing.getCompletedStages().addAll(EnumSet.of(UserDeletionStage.HEALTH_DATA,
+                UserDeletionStage.EXPORTER_3_HEALTH_DATA, UserDeletionStage.NOTIFICATION_REGISTRATIONS,
+                UserDeletionStage.SCHEDULED_ACTIVITIES, UserDeletionStage.ACTIVITY_EVENTS));
+        when(cacheProvider.getObject(CacheKey.userDeletionJob(TEST_APP_ID, "userId"), UserDeletionJob.class))
+                .thenReturn(existing);
+        
+        UserDeletionJob job = service.startUserDeletion(app, "userId");
+        assertSame(job, existing);
+        assertEquals(job.getStatus(), IN_PROGRESS);
+        assertNull(job.getErrorMessage());
+        
+        verify(mockUserDeletionExecutorService).execute(handlerCaptor.capture());
+        handlerCaptor.getValue().run();
+        
+        // Only the incomplete stages are run
+        verify(uploadService).deleteUploadsForHealthCode("healthCode");
+        verify(accountService).deleteAccount(accountId);
+        verify(healthDataService, never()).deleteRecordsForHealthCode(any());
+        verify(notificationsService, never()).deleteAllRegistrations(any(), any());
+        verify(activityEventService, never()).deleteActivityEvents(any(), any());
+        verify(accountService, never()).getAccount(any(), any());
+        assertEquals(job.getStatus(), COMPLETED);
+    }
+    
+    @Test
+    public void startUserDeletionResumesStaleJob() {
+        App app = TestUtils.getValidApp(UserAdminServiceTest.class);
+        
+        UserDeletionJob existing = new UserDeletionJob();
+        existing.setAppId(TEST_APP_ID);
+        existing.setUserId("userId");
+        existing.setHealthCode("healthCode");
+        existing.setStatus(IN_PROGRESS);
+        existing.setModifiedOn(DateTime.now().minusMinutes(UserAdminService.STALE_JOB_MINUTES + 1));
+        when(cacheProvider.getObject(CacheKey.userDeletionJob(TEST_APP_ID, "userId"), UserDeletionJob.class))
+                .thenReturn(existing);
+        
+        service.startUserDeletion(app, "userId");
+        
+        verify(mockUserDeletionExecutorService).execute(any());
+    }
+    
+    @Test
+    public void getUserDeletionJob() {
+        UserDeletionJob existing = new UserDeletionJob();
+        when(cacheProvider.getObject(CacheKey.userDeletionJob(TEST_APP_ID, "userId"), UserDeletionJob.class))
+                .thenReturn(existing);
+        
+        assertSame(service.getUserDeletionJob(TEST_APP_ID, "userId"), existing);
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void getUserDeletionJobNotFound() {
+        service.getUserDeletionJob(TEST_APP_ID, "userId");
     }
     
     @Test
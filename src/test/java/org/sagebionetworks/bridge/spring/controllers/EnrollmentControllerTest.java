@@ -13,6 +13,8 @@ import static org.sagebionetworks.bridge.TestUtils.assertDelete;
 import static org.sagebionetworks.bridge.TestUtils.assertGet;
 import static org.sagebionetworks.bridge.TestUtils.mockEditAccount;
 import static org.sagebionetworks.bridge.TestUtils.mockRequestBody;
+import static org.sagebionetworks.bridge.models.TotalCount.ESTIMATED;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
 import static org.sagebionetworks.bridge.models.studies.EnrollmentFilter.ENROLLED;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertSame;
@@ -104,13 +106,13 @@ public class EnrollmentControllerTest extends Mockito {
         EnrollmentDetail en1 = new EnrollmentDetail(Enrollment.create(TEST_APP_ID, TEST_STUDY_ID, "user1"), null, null, null);
         EnrollmentDetail en2 = new EnrollmentDetail(Enrollment.create(TEST_APP_ID, TEST_STUDY_ID, "user2"), null, null, null);
         PagedResourceList<EnrollmentDetail> page = new PagedResourceList<>(ImmutableList.of(en1, en2), 10);
-        when(mockService.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 5, 40)).thenReturn(page);
+        when(mockService.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 5, 40, ESTIMATED)).thenReturn(page);
         
         PagedResourceList<EnrollmentDetail> retValue = controller.getEnrollmentsForStudy(
-                TEST_STUDY_ID, "5", "40", "enrolled", "true");
+                TEST_STUDY_ID, "5", "40", "enrolled", "true", "estimated");
         assertSame(retValue, page);
         
-        verify(mockService).getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 5, 40);
+        verify(mockService).getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, ENROLLED, true, 5, 40, ESTIMATED);
     }
     
     @Test
@@ -118,13 +120,13 @@ public class EnrollmentControllerTest extends Mockito {
         EnrollmentDetail en1 = new EnrollmentDetail(Enrollment.create(TEST_APP_ID, TEST_STUDY_ID, "user1"), null, null, null);
         EnrollmentDetail en2 = new EnrollmentDetail(Enrollment.create(TEST_APP_ID, TEST_STUDY_ID, "user2"), null, null, null);
         PagedResourceList<EnrollmentDetail> page = new PagedResourceList<>(ImmutableList.of(en1, en2), 10);
-        when(mockService.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, 0, 50)).thenReturn(page);
+        when(mockService.getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, 0, 50, EXACT)).thenReturn(page);
         
         PagedResourceList<EnrollmentDetail> retValue = controller.getEnrollmentsForStudy(
-                TEST_STUDY_ID, null, null, null, null);
+                TEST_STUDY_ID, null, null, null, null, null);
         assertSame(retValue, page);
         
-        verify(mockService).getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, 0, 50);
+        verify(mockService).getEnrollmentsForStudy(TEST_APP_ID, TEST_STUDY_ID, null, false, 0, 50, EXACT);
     }
     
     @Test
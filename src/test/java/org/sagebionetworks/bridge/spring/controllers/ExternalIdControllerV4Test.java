@@ -14,6 +14,8 @@ import static org.sagebionetworks.bridge.TestUtils.assertDelete;
 import static org.sagebionetworks.bridge.TestUtils.assertGet;
 import static org.sagebionetworks.bridge.TestUtils.assertPost;
 import static org.sagebionetworks.bridge.TestUtils.mockRequestBody;
+import static org.sagebionetworks.bridge.models.TotalCount.EXACT;
+import static org.sagebionetworks.bridge.models.TotalCount.NONE;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.fail;
 
@@ -185,14 +187,14 @@ public class ExternalIdControllerV4Test extends Mockito {
                 .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
 
         PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(ImmutableList.of(), 1000, true);
-        when(mockService.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 1000, 50))
+        when(mockService.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 1000, 50, NONE))
             .thenReturn(page);
         
         PagedResourceList<ExternalIdentifierInfo> retValue = controller.getExternalIdentifiersForStudy(
-                TEST_STUDY_ID, "1000", "50", "idFilter");
+                TEST_STUDY_ID, "1000", "50", "idFilter", "none");
         assertEquals(retValue, page);
         
-        verify(mockService).getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 1000, 50);
+        verify(mockService).getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, "idFilter", 1000, 50, NONE);
     }
 
     @Test
@@ -204,13 +206,13 @@ public class ExternalIdControllerV4Test extends Mockito {
                 .withCallerRoles(ImmutableSet.of(STUDY_COORDINATOR)).build());
         
         PagedResourceList<ExternalIdentifierInfo> page = new PagedResourceList<>(ImmutableList.of(), 1000, true);
-        when(mockService.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 0, API_DEFAULT_PAGE_SIZE))
+        when(mockService.getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 0, API_DEFAULT_PAGE_SIZE, EXACT))
             .thenReturn(page);
         
         PagedResourceList<ExternalIdentifierInfo> retValue = controller.getExternalIdentifiersForStudy(
-                TEST_STUDY_ID, null, null, null);
+                TEST_STUDY_ID, null, null, null, null);
         assertEquals(retValue, page);
         
-        verify(mockService).getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 0, API_DEFAULT_PAGE_SIZE);        
+        verify(mockService).getPagedExternalIds(TEST_APP_ID, TEST_STUDY_ID, null, 0, API_DEFAULT_PAGE_SIZE, EXACT);        
     }
 }
@@ -46,6 +46,7 @@ import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.util.HashMap;
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -71,6 +72,8 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -310,6 +313,7 @@ public class ParticipantControllerTest extends Mockito {
         assertPost(ParticipantController.class, "requestResetPassword");
         assertGet(ParticipantController.class, "getActivityHistoryV2");
         assertGet(ParticipantController.class, "getActivityHistoryV3");
+        assertGet(ParticipantController.class, "exportActivityHistory");
         assertDelete(ParticipantController.class, "deleteActivities");
         assertPost(ParticipantController.class, "resendEmailVerification");
         assertPost(ParticipantController.class, "resendPhoneVerification");
@@ -990,6 +994,32 @@ public class ParticipantControllerTest extends Mockito {
         assertTrue(END_TIME.isEqual(endsOnCaptor.getValue()));
     }
 
+    @Test
+    public void exportActivityHistory() throws Exception {
+        DynamoScheduledActivity activity = new DynamoScheduledActivity();
+        activity.setActivity(ACTIVITY_1);
+        activity.setHealthCode(HEALTH_CODE);
+        activity.setSchedulePlanGuid("schedulePlanGuid");
+        doReturn(ImmutableList.of(activity, activity)).when(mockParticipantService).streamActivityHistory(eq(app),
+                eq(TEST_USER_ID), eq(ACTIVITY_GUID), any(), any());
+
+        ResponseEntity<StreamingResponseBody> result = controller.exportActivityHistory(TEST_USER_ID, ACTIVITY_GUID,
+                START_TIME.toString(), END_TIME.toString(), false);
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(lines.length, 2);
+        JsonNode node = MAPPER.readTree(lines[0]);
+        assertEquals(node.get("schedulePlanGuid").textValue(), "schedulePlanGuid");
+        assertNull(node.get("healthCode"));
+
+        verify(mockParticipantService).streamActivityHistory(eq(app), eq(TEST_USER_ID), eq(ACTIVITY_GUID),
+                startsOnCaptor.capture(), endsOnCaptor.capture());
+        assertTrue(START_TIME.isEqual(startsOnCaptor.getValue()));
+        assertTrue(END_TIME.isEqual(endsOnCaptor.getValue()));
+    }
+
     @Test
     public void canGetActivityHistoryV2WithOffsetKey() throws Exception {
         doReturn(createActivityResultsV2("200", 77)).when(mockParticipantService).getActivityHistory(eq(app),
@@ -109,6 +109,12 @@ public class ParticipantReportControllerTest extends Mockito {
     @Captor
     ArgumentCaptor<ReportIndex> reportDataIndex;
     
+    @Captor
+    ArgumentCaptor<List<ReportData>> reportDataListCaptor;
+    
+    @Captor
+    ArgumentCaptor<Map<String, List<ReportData>>> reportDataMapCaptor;
+    
     @Captor
     ArgumentCaptor<ReportDataKey> reportDataKeyCaptor;
     
@@ -175,6 +181,9 @@ public class ParticipantReportControllerTest extends Mockito {
         assertGet(ParticipantReportController.class, "getParticipantReportForWorkerV4");
         assertCreate(ParticipantReportController.class, "saveParticipantReport");
         assertCreate(ParticipantReportController.class, "saveParticipantReportForWorker");
+        assertCreate(ParticipantReportController.class, "saveParticipantReportRecords");
+        assertGet(ParticipantReportController.class, "exportParticipantReport");
+        assertCreate(ParticipantReportController.class, "saveParticipantReportRecordsForWorker");
         assertDelete(ParticipantReportController.class, "deleteParticipantReport");
         assertDelete(ParticipantReportController.class, "deleteParticipantReportRecord");
         assertDelete(ParticipantReportController.class, "deleteParticipantReportIndex");
@@ -450,6 +459,70 @@ public class ParticipantReportControllerTest extends Mockito {
         }
     }
     
+    @Test
+    public void saveParticipantReportRecords() throws Exception {
+        String json = TestUtils.createJson("[{'date':'2015-02-12','data':{'field1':'First'}},"
+                + "{'key':'someKey','date':'2015-02-13','data':{'field1':'Last'}}]");
+        mockRequestBody(mockRequest, json);
+
+        StatusMessage result = controller.saveParticipantReportRecords(OTHER_PARTICIPANT_ID, REPORT_ID);
+        assertEquals(result.getMessage(), "Report data saved.");
+
+        verify(mockReportService).saveParticipantReportRecords(eq(TEST_APP_ID), eq(REPORT_ID),
+                eq(OTHER_PARTICIPANT_HEALTH_CODE), reportDataListCaptor.capture());
+        List<ReportData> reportDataList = reportDataListCaptor.getValue();
+        assertEquals(reportDataList.size(), 2);
+        assertEquals(reportDataList.get(0).getDate(), "2015-02-12");
+        assertEquals(reportDataList.get(0).getData().get("field1").asText(), "First");
+        assertEquals(reportDataList.get(1).getDate(), "2015-02-13");
+        assertNull(reportDataList.get(1).getKey());
+    }
+    
+    @Test
+    public void saveParticipantReportRecordsForWorker() throws Exception {
+        String json = TestUtils.createJson("[{'healthCode':'"+OTHER_PARTICIPANT_HEALTH_CODE+
+                "','date':'2015-02-12','data':['A']},{'healthCode':'"+OTHER_PARTICIPANT_HEALTH_CODE+
+                "','date':'2015-02-13','data':['B']},{'healthCode':'"+HEALTH_CODE+
+                "','date':'2015-02-12','data':['C']}]");
+        mockRequestBody(mockRequest, json);
+
+        StatusMessage result = controller.saveParticipantReportRecordsForWorker(REPORT_ID);
+        assertEquals(result.getMessage(), "Report data saved.");
+        
+        verify(mockReportService).saveParticipantReportRecords(eq(TEST_APP_ID), eq(REPORT_ID),
+                reportDataMapCaptor.capture());
+        Map<String, List<ReportData>> map = reportDataMapCaptor.getValue();
+        assertEquals(map.size(), 2);
+        assertEquals(map.get(OTHER_PARTICIPANT_HEALTH_CODE).size(), 2);
+        assertEquals(map.get(OTHER_PARTICIPANT_HEALTH_CODE).get(0).getData().get(0).asText(), "A");
+        assertEquals(map.get(OTHER_PARTICIPANT_HEALTH_CODE).get(1).getData().get(0).asText(), "B");
+        assertEquals(map.get(HEALTH_CODE).size(), 1);
+        assertEquals(map.get(HEALTH_CODE).get(0).getData().get(0).asText(), "C");
+        assertNull(map.get(HEALTH_CODE).get(0).getKey());
+    }
+    
+    @Test
+    public void saveParticipantReportRecordsForWorkerRequiresHealthCode() throws Exception {
+        String json = TestUtils.createJson("[{'date':'2015-02-12','data':['A','B','C']}]");
+        mockRequestBody(mockRequest, json);
+        try {
+            controller.saveParticipantReportRecordsForWorker(REPORT_ID);
+            fail("Should have thrown exception");
+        } catch(BadRequestException e) {
+            assertEquals(e.getMessage(), "A health code is required to save report data.");
+            verifyNoMoreInteractions(mockReportService);
+        }
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class,
+            expectedExceptionsMessageRegExp = "An array of report data is required.")
+    public void saveParticipantReportRecordsForWorkerRequiresArray() throws Exception {
+        String json = TestUtils.createJson("{'healthCode':'"+HEALTH_CODE+"','date':'2015-02-12','data':['A']}");
+        mockRequestBody(mockRequest, json);
+        
+        controller.saveParticipantReportRecordsForWorker(REPORT_ID);
+    }
+    
     @Test
     public void getParticipantReportIndices() throws Exception {
         ReportTypeResourceList<? extends ReportIndex> results = controller.listParticipantReportIndices();
@@ -540,6 +613,17 @@ public class ParticipantReportControllerTest extends Mockito {
         controller.getParticipantReport(TEST_USER_ID, REPORT_ID, null, null);
     }
     
+    @Test(expectedExceptions = EntityNotFoundException.class, 
+            expectedExceptionsMessageRegExp=".*Account not found.*")
+    public void exportParticipantReportAccountNotFound() {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
+        
+        doReturn(session).when(controller).getAdministrativeSession();
+        reset(mockAccountService);
+        controller.exportParticipantReport(TEST_USER_ID, REPORT_ID, "2015-01-01", "2015-12-31", false);
+    }
+    
     @Test(expectedExceptions = EntityNotFoundException.class, 
             expectedExceptionsMessageRegExp=".*Account not found.*")
     public void getParticipantReportForWorkerAccountNotFound() {
@@ -13,7 +13,10 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -24,6 +27,7 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
 
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
@@ -34,6 +38,9 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -104,6 +111,9 @@ public class StudyReportControllerTest extends Mockito {
     @Captor
     ArgumentCaptor<ReportIndex> reportDataIndex;
     
+    @Captor
+    ArgumentCaptor<List<ReportData>> reportDataListCaptor;
+    
     ForwardCursorPagedResourceList<ReportData> page;
     
     @Spy
@@ -239,6 +249,80 @@ public class StudyReportControllerTest extends Mockito {
         assertEquals("Name", reportData.getData().get("field2").asText());
     }
 
+    @Test
+    public void exportStudyReport() throws Exception {
+        List<ReportData> records = ImmutableList.of(createReport(LocalDate.parse("2015-02-10"), "First", "Name"),
+                createReport(LocalDate.parse("2015-02-11"), "Last", "Name"));
+        doReturn(records).when(mockReportService).streamStudyReport(TEST_APP_ID, REPORT_ID,
+                LocalDate.parse("2015-01-01"), LocalDate.parse("2015-12-31"));
+        
+        ResponseEntity<StreamingResponseBody> result = controller.exportStudyReport(REPORT_ID, "2015-01-01",
+                "2015-12-31", false);
+        assertEquals(result.getHeaders().getContentType(), BaseController.NDJSON_MEDIA_TYPE);
+        assertNull(result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+        
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(lines.length, 2);
+        assertEquals(MAPPER.readTree(lines[0]).get("date").textValue(), "2015-02-10");
+        assertEquals(MAPPER.readTree(lines[0]).get("data").get("field1").textValue(), "First");
+        assertEquals(MAPPER.readTree(lines[1]).get("date").textValue(), "2015-02-11");
+        assertTrue(out.toString("UTF-8").endsWith("\n"));
+    }
+    
+    @Test
+    public void exportStudyReportGzipped() throws Exception {
+        List<ReportData> records = ImmutableList.of(createReport(LocalDate.parse("2015-02-10"), "First", "Name"));
+        doReturn(records).when(mockReportService).streamStudyReport(TEST_APP_ID, REPORT_ID,
+                LocalDate.parse("2015-01-01"), LocalDate.parse("2015-12-31"));
+        
+        ResponseEntity<StreamingResponseBody> result = controller.exportStudyReport(REPORT_ID, "2015-01-01",
+                "2015-12-31", true);
+        assertEquals(result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), "gzip");
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+        
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            String content = new String(ByteStreams.toByteArray(in), "UTF-8");
+            assertEquals(MAPPER.readTree(content.trim()).get("date").textValue(), "2015-02-10");
+        }
+    }
+    
+    @Test
+    public void exportStudyReportNoRecords() throws Exception {
+        doReturn(ImmutableList.of()).when(mockReportService).streamStudyReport(TEST_APP_ID, REPORT_ID,
+                LocalDate.parse("2015-01-01"), LocalDate.parse("2015-12-31"));
+        
+        ResponseEntity<StreamingResponseBody> result = controller.exportStudyReport(REPORT_ID, "2015-01-01",
+                "2015-12-31", false);
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+        assertEquals(out.size(), 0);
+    }
+    
+    @Test
+    public void saveStudyReportRecords() throws Exception {
+        String json = TestUtils.createJson("[{'date':'2015-02-12','data':{'field1':'First'}},"
+                + "{'key':'someKey','date':'2015-02-13','data':{'field1':'Last'}}]");
+        mockRequestBody(mockRequest, json);
+        
+        StatusMessage result = controller.saveStudyReportRecords(REPORT_ID);
+        assertEquals(result, StudyReportController.SAVED_MSG);
+        
+        verify(mockReportService).saveStudyReportRecords(eq(TEST_APP_ID), eq(REPORT_ID),
+                reportDataListCaptor.capture());
+        List<ReportData> reportDataList = reportDataListCaptor.getValue();
+        assertEquals(reportDataList.size(), 2);
+        assertEquals(reportDataList.get(0).getDate(), "2015-02-12");
+        assertEquals(reportDataList.get(0).getData().get("field1").asText(), "First");
+        assertEquals(reportDataList.get(1).getDate(), "2015-02-13");
+        assertNull(reportDataList.get(1).getKey());
+    }
+    
     @Test
     public void deleteStudyReportData() throws Exception {
         StatusMessage result = controller.deleteStudyReport(REPORT_ID);
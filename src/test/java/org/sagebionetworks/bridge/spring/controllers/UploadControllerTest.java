@@ -137,6 +137,7 @@ public class UploadControllerTest extends Mockito {
                 .withStatus(UploadStatus.VALIDATION_FAILED).build();
 
         doReturn(status).when(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
+        doReturn(status).when(mockUploadService).getValidationStatusForUpload(upload);
         doReturn(status).when(mockUploadService).pollUploadValidationStatusUntilComplete(UPLOAD_ID);
 
         // mock metrics
@@ -300,7 +301,20 @@ public class UploadControllerTest extends Mockito {
         doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
         String result = controller.getValidationStatus(UPLOAD_ID);
         validateValidationStatus(result);
-        verify(mockUploadService).getUploadValidationStatus(UPLOAD_ID);
+        
+        // The upload loaded to check ownership is used for the status, rather than loading it again.
+        verify(mockUploadService).getUpload(UPLOAD_ID);
+        verify(mockUploadService).getValidationStatusForUpload(upload);
+        verify(mockUploadService, never()).getUploadValidationStatus(any());
+    }
+
+    @Test
+    public void getValidationStatusForResearcher() throws Exception {
+        doReturn(true).when(mockOtherUserSession).isInRole(Roles.RESEARCHER);
+        doReturn(mockOtherUserSession).when(controller).getAuthenticatedAndConsentedSession();
+        String result = controller.getValidationStatus(UPLOAD_ID);
+        validateValidationStatus(result);
+        verify(mockUploadService).getValidationStatusForUpload(upload);
     }
 
     @Test(expectedExceptions = UnauthorizedException.class)
@@ -14,10 +14,14 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.sagebionetworks.bridge.TestUtils.assertCreate;
 import static org.sagebionetworks.bridge.TestUtils.assertCrossOrigin;
 import static org.sagebionetworks.bridge.TestUtils.assertDelete;
+import static org.sagebionetworks.bridge.TestUtils.assertGet;
 import static org.sagebionetworks.bridge.TestUtils.assertPost;
 import static org.sagebionetworks.bridge.TestUtils.mockRequestBody;
 import static org.sagebionetworks.bridge.config.Environment.LOCAL;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionStatus.COMPLETED;
+import static org.sagebionetworks.bridge.models.accounts.UserDeletionStatus.IN_PROGRESS;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.fail;
 
 import javax.servlet.http.Cookie;
@@ -41,12 +45,14 @@ import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.CriteriaContext;
 import org.sagebionetworks.bridge.models.StatusMessage;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
+import org.sagebionetworks.bridge.models.accounts.UserDeletionJob;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.services.AccountService;
@@ -136,6 +142,7 @@ public class UserManagementControllerTest extends Mockito {
         assertCreate(UserManagementController.class, "createUser");
         assertCreate(UserManagementController.class, "createUserWithAppId");
         assertDelete(UserManagementController.class, "deleteUser");
+        assertGet(UserManagementController.class, "getUserDeletionJob", "/v3/users/{userId}/deletion");
     }
 
     @Test
@@ -271,9 +278,36 @@ public class UserManagementControllerTest extends Mockito {
         mockRequestBody(mockRequest, "{}");
         when(mockRequest.getHeader(SESSION_TOKEN_HEADER)).thenReturn("AAA");
 
-        StatusMessage result = controller.deleteUser(TEST_USER_ID);
-        assertEquals(result, UserManagementController.DELETED_MSG);
+        UserDeletionJob job = new UserDeletionJob();
+        job.setUserId(TEST_USER_ID);
+        job.setHealthCode(HEALTH_CODE);
+        job.setStatus(IN_PROGRESS);
+        when(mockUserAdminService.startUserDeletion(mockApp, TEST_USER_ID)).thenReturn(job);
 
-        verify(mockUserAdminService).deleteUser(mockApp, TEST_USER_ID);
+        String result = controller.deleteUser(TEST_USER_ID);
+        
+        JsonNode node = BridgeObjectMapper.get().readTree(result);
+        assertEquals(node.get("userId").textValue(), TEST_USER_ID);
+        assertEquals(node.get("status").textValue(), "in_progress");
+        assertEquals(node.get("type").textValue(), "UserDeletionJob");
+        assertNull(node.get("healthCode"));
+
+        verify(mockUserAdminService, never()).deleteUser(any(), any());
+    }
+    
+    @Test
+    public void getUserDeletionJob() throws Exception {
+        UserDeletionJob job = new UserDeletionJob();
+        job.setUserId(TEST_USER_ID);
+        job.setHealthCode(HEALTH_CODE);
+        job.setStatus(COMPLETED);
+        when(mockUserAdminService.getUserDeletionJob(TEST_APP_ID, TEST_USER_ID)).thenReturn(job);
+        
+        String result = controller.getUserDeletionJob(TEST_USER_ID);
+        
+        JsonNode node = BridgeObjectMapper.get().readTree(result);
+        assertEquals(node.get("userId").textValue(), TEST_USER_ID);
+        assertEquals(node.get("status").textValue(), "completed");
+        assertNull(node.get("healthCode"));
     }
 }
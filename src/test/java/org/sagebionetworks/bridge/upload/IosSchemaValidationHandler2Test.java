@@ -328,7 +328,7 @@ public class IosSchemaValidationHandler2Test {
         // "baz" attachment.
         ArgumentCaptor<JsonNode> blobNodeCaptor = ArgumentCaptor.forClass(JsonNode.class);
         verify(mockUploadFileHelper).uploadJsonNodeAsAttachment(blobNodeCaptor.capture(), eq(TEST_UPLOAD_ID),
-                eq("baz"));
+                eq("baz"), any());
 
         JsonNode blobNode = blobNodeCaptor.getValue();
         assertEquals(blobNode.size(), 2);
@@ -340,7 +340,7 @@ public class IosSchemaValidationHandler2Test {
         // old stuff works the same, and we don't want to propagate the iOS-specific formatting hacks to the new stuff.
         ArgumentCaptor<JsonNode> answersNodeCaptor = ArgumentCaptor.forClass(JsonNode.class);
         verify(mockUploadFileHelper).uploadJsonNodeAsAttachment(answersNodeCaptor.capture(), eq(TEST_UPLOAD_ID),
-                eq(UploadUtil.FIELD_ANSWERS));
+                eq(UploadUtil.FIELD_ANSWERS), any());
 
         JsonNode answersNode = answersNodeCaptor.getValue();
         assertEquals(answersNode.size(), 11);
@@ -367,7 +367,7 @@ public class IosSchemaValidationHandler2Test {
         // filename sanitization.
 
         // Mock Upload File Helper
-        when(mockUploadFileHelper.findValueForField(eq(TEST_UPLOAD_ID), any(), any(), any())).thenReturn(
+        when(mockUploadFileHelper.findValueForField(eq(TEST_UPLOAD_ID), any(), any(), any(), any())).thenReturn(
                 TextNode.valueOf("dummy-attachment-id"));
 
         // fill in context with JSON data
@@ -403,7 +403,7 @@ public class IosSchemaValidationHandler2Test {
         ArgumentCaptor<Map> sanizitedFileMapCaptor = ArgumentCaptor.forClass(Map.class);
         ArgumentCaptor<UploadFieldDefinition> fieldDefCaptor = ArgumentCaptor.forClass(UploadFieldDefinition.class);
         verify(mockUploadFileHelper).findValueForField(eq(TEST_UPLOAD_ID), sanizitedFileMapCaptor.capture(),
-                fieldDefCaptor.capture(), any());
+                fieldDefCaptor.capture(), any(), any());
 
         Map<String, File> sanitizedFileMap = sanizitedFileMapCaptor.getValue();
         assertEquals(sanitizedFileMap.size(), 1);
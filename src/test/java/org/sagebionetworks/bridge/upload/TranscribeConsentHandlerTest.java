@@ -1,8 +1,14 @@
 package org.sagebionetworks.bridge.upload;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.HEALTH_CODE;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.models.accounts.AccountLoadProfile.UPLOAD_METADATA;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
@@ -10,11 +16,14 @@ import static org.testng.Assert.assertSame;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -23,11 +32,14 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 import org.sagebionetworks.bridge.models.accounts.SharingScope;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.studies.Enrollment;
+import org.sagebionetworks.bridge.models.upload.ParticipantUploadMetadata;
 import org.sagebionetworks.bridge.services.AccountService;
 import org.sagebionetworks.bridge.services.ParticipantService;
 
@@ -37,6 +49,7 @@ public class TranscribeConsentHandlerTest {
     private static final Set<String> TEST_USER_GROUPS = ImmutableSet.of("test-group1","test-group2");
 
     private static final AccountId ACCOUNT_ID = AccountId.forHealthCode(TEST_APP_ID, HEALTH_CODE);
+    private static final CacheKey CACHE_KEY = CacheKey.participantUploadMetadata(TEST_APP_ID, HEALTH_CODE);
 
     @Mock
     private AccountService mockAccountService;
@@ -47,6 +60,12 @@ public class TranscribeConsentHandlerTest {
     @Mock
     private ParticipantService participantService;
 
+    @Mock
+    private CacheProvider mockCacheProvider;
+
+    @Captor
+    private ArgumentCaptor<ParticipantUploadMetadata> metadataCaptor;
+
     @InjectMocks
     private TranscribeConsentHandler handler;
 
@@ -68,8 +87,8 @@ public class TranscribeConsentHandlerTest {
         MockitoAnnotations.initMocks(this);
 
         // Set up mocks.
-        when(mockAccountService.getAccount(ACCOUNT_ID)).thenReturn(mockAccount);
-        when(participantService.getStudyStartTime(ACCOUNT_ID)).thenReturn(STUDY_START_TIME);
+        when(mockAccountService.getAccount(ACCOUNT_ID, UPLOAD_METADATA)).thenReturn(mockAccount);
+        when(participantService.getStudyStartTime(mockAccount)).thenReturn(STUDY_START_TIME);
 
         // Set up input record and context. Handler expects Health Code and RecordBuilder.
         inputRecord = HealthDataRecord.create();
@@ -103,12 +122,45 @@ public class TranscribeConsentHandlerTest {
         assertEquals(studyMemberships.get("subB"), "extB");
 
         assertEquals(outputRecord.getDayInStudy().intValue(), 5);
+        
+        verify(mockCacheProvider).setObject(eq(CACHE_KEY), metadataCaptor.capture(),
+                eq(TranscribeConsentHandler.METADATA_EXPIRE_IN_SECONDS));
+        ParticipantUploadMetadata metadata = metadataCaptor.getValue();
+        assertEquals(metadata.getSharingScope(), SharingScope.SPONSORS_AND_PARTNERS);
+        assertEquals(metadata.getExternalId(), "extB");
+        assertEquals(metadata.getDataGroups(), TEST_USER_GROUPS);
+        assertEquals(metadata.getStudyMemberships(), studyMemberships);
+        assertEquals(metadata.getStudyStartTime(), STUDY_START_TIME);
+    }
+
+    @Test
+    public void metadataFromCache() {
+        ParticipantUploadMetadata metadata = new ParticipantUploadMetadata();
+        metadata.setSharingScope(SharingScope.ALL_QUALIFIED_RESEARCHERS);
+        metadata.setExternalId("extA");
+        metadata.setDataGroups(TEST_USER_GROUPS);
+        metadata.setStudyMemberships(ImmutableMap.of("subA", "extA"));
+        metadata.setStudyStartTime(STUDY_START_TIME);
+        when(mockCacheProvider.getObject(CACHE_KEY, ParticipantUploadMetadata.class)).thenReturn(metadata);
+
+        handler.handle(context);
+        HealthDataRecord outputRecord = context.getHealthDataRecord();
+
+        assertEquals(outputRecord.getUserSharingScope(), SharingScope.ALL_QUALIFIED_RESEARCHERS);
+        assertEquals(outputRecord.getUserExternalId(), "extA");
+        assertEquals(outputRecord.getUserDataGroups(), TEST_USER_GROUPS);
+        assertEquals(outputRecord.getUserStudyMemberships(), ImmutableMap.of("subA", "extA"));
+        assertEquals(outputRecord.getDayInStudy().intValue(), 5);
+        
+        verify(mockAccountService, never()).getAccount(any(), any());
+        verify(participantService, never()).getStudyStartTime(any(Account.class));
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
     }
 
     @Test
     public void testNoParticipantOptions() {
         // account is null
-        when(mockAccountService.getAccount(ACCOUNT_ID)).thenReturn(null);
+        when(mockAccountService.getAccount(ACCOUNT_ID, UPLOAD_METADATA)).thenReturn(null);
 
         handler.handle(context);
         HealthDataRecord outputRecord = context.getHealthDataRecord();
@@ -118,6 +170,8 @@ public class TranscribeConsentHandlerTest {
         assertNull(outputRecord.getUserExternalId());
         assertNull(outputRecord.getUserDataGroups());
         assertNull(outputRecord.getUserStudyMemberships());
+        
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
     }
 
     @Test
@@ -1,30 +1,37 @@
 package org.sagebionetworks.bridge.upload;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
-import static org.mockito.Mockito.when;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.file.InMemoryFileHelper;
 import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
 import org.sagebionetworks.bridge.models.upload.UploadFieldType;
@@ -49,10 +56,6 @@ public class UploadFileHelperFindValueTest {
         tmpDir = inMemoryFileHelper.createTempDir();
 
         // Mock dependencies.
-        DigestUtils mockMd5DigestUtils = mock(DigestUtils.class);
-        when(mockMd5DigestUtils.digest(any(File.class))).thenReturn(TestConstants.MOCK_MD5);
-        when(mockMd5DigestUtils.digest(any(byte[].class))).thenReturn(TestConstants.MOCK_MD5);
-
         mockS3Helper = mock(S3Helper.class);
 
         metadataCaptor = ArgumentCaptor.forClass(ObjectMetadata.class);
@@ -60,7 +63,6 @@ public class UploadFileHelperFindValueTest {
         // Create UploadFileHelper.
         uploadFileHelper = new UploadFileHelper();
         uploadFileHelper.setFileHelper(inMemoryFileHelper);
-        uploadFileHelper.setMd5DigestUtils(mockMd5DigestUtils);
         uploadFileHelper.setS3Helper(mockS3Helper);
     }
 
@@ -79,16 +81,62 @@ public class UploadFileHelperFindValueTest {
         JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>());
         assertEquals(result.textValue(), expectedAttachmentFilename);
 
-        // Verify uploaded file
-        verify(mockS3Helper).writeFileToS3(eq(UploadFileHelper.ATTACHMENT_BUCKET), eq(expectedAttachmentFilename),
-                eq(recordJsonFile), metadataCaptor.capture());
+        // Verify uploaded file. It's small, so it's read once and uploaded from memory.
+        verify(mockS3Helper).writeBytesToS3(eq(UploadFileHelper.ATTACHMENT_BUCKET), eq(expectedAttachmentFilename),
+                eq("dummy content".getBytes(Charsets.UTF_8)), metadataCaptor.capture());
+        verify(inMemoryFileHelper, times(1)).getInputStream(recordJsonFile);
 
         ObjectMetadata metadata = metadataCaptor.getValue();
         assertEquals(metadata.getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
-                TestConstants.MOCK_MD5_HEX_ENCODED);
+                DigestUtils.md5Hex("dummy content".getBytes(Charsets.UTF_8)));
         assertEquals(metadata.getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
     }
 
+    @Test
+    public void attachmentFileWithPendingUploads() throws Exception {
+        // Make field def.
+        UploadFieldDefinition fieldDef = new UploadFieldDefinition.Builder().withName(FIELD_NAME_FILE)
+                .withType(UploadFieldType.ATTACHMENT_V2).build();
+
+        // Make file map.
+        File recordJsonFile = makeFileWithContent(FIELD_NAME_FILE, "dummy content");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
+
+        // Execute. The attachment ID is returned right away and the upload is added to the pending list.
+        List<Future<?>> pendingUploads = new ArrayList<>();
+        String expectedAttachmentFilename = UPLOAD_ID + '-' + FIELD_NAME_FILE;
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>(),
+                pendingUploads);
+        assertEquals(result.textValue(), expectedAttachmentFilename);
+        assertEquals(pendingUploads.size(), 1);
+
+        uploadFileHelper.waitForAttachmentUploads(UPLOAD_ID, pendingUploads);
+        assertTrue(pendingUploads.isEmpty());
+
+        verify(mockS3Helper).writeBytesToS3(eq(UploadFileHelper.ATTACHMENT_BUCKET), eq(expectedAttachmentFilename),
+                eq("dummy content".getBytes(Charsets.UTF_8)), any());
+    }
+
+    @Test
+    public void attachmentFileWithPendingUploadsFails() throws Exception {
+        doThrow(IOException.class).when(mockS3Helper).writeBytesToS3(any(), any(), any(byte[].class), any());
+
+        UploadFieldDefinition fieldDef = new UploadFieldDefinition.Builder().withName(FIELD_NAME_FILE)
+                .withType(UploadFieldType.ATTACHMENT_V2).build();
+        File recordJsonFile = makeFileWithContent(FIELD_NAME_FILE, "dummy content");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
+
+        // The failure is reported when waiting for the uploads, not when the upload is started.
+        List<Future<?>> pendingUploads = new ArrayList<>();
+        uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, new HashMap<>(), pendingUploads);
+        try {
+            uploadFileHelper.waitForAttachmentUploads(UPLOAD_ID, pendingUploads);
+            fail("expected exception");
+        } catch (UploadValidationException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
     @Test
     public void attachmentFileEmpty() throws Exception {
         // Make field def.
@@ -189,7 +237,7 @@ public class UploadFileHelperFindValueTest {
                 eq("\"record-value\"".getBytes(Charsets.UTF_8)), metadataCaptor.capture());
 
         ObjectMetadata metadata = metadataCaptor.getValue();
-        assertEquals(TestConstants.MOCK_MD5_HEX_ENCODED, metadata.getUserMetaDataOf(
+        assertEquals(DigestUtils.md5Hex("\"record-value\"".getBytes(Charsets.UTF_8)), metadata.getUserMetaDataOf(
                 UploadFileHelper.KEY_CUSTOM_CONTENT_MD5));
         assertEquals(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION, metadata.getSSEAlgorithm());
     }
@@ -292,6 +340,79 @@ public class UploadFileHelperFindValueTest {
         verify(inMemoryFileHelper, times(1)).getInputStream(recordJsonFile);
     }
 
+    @Test
+    public void parseJsonFilesForFields() throws Exception {
+        // Make field defs. One refers to a whole file, which is not parsed here.
+        UploadFieldDefinition fooFieldDef = new UploadFieldDefinition.Builder().withName("record.json.sanitize____foo")
+                .withType(UploadFieldType.STRING).build();
+        UploadFieldDefinition barFieldDef = new UploadFieldDefinition.Builder().withName("record.json.bar")
+                .withType(UploadFieldType.INT).build();
+        UploadFieldDefinition wholeFileFieldDef = new UploadFieldDefinition.Builder().withName("whole.json")
+                .withType(UploadFieldType.INLINE_JSON_BLOB).build();
+
+        // Make file map. Keys that no field refers to are skipped.
+        String recordJsonText = "{\n" +
+                "   \"sanitize!@#$foo\":\"foo-value\",\n" +
+                "   \"unused\":{\"nested\":[1, 2, {\"bar\":3}]},\n" +
+                "   \"bar\":42\n" +
+                "}";
+        File recordJsonFile = makeFileWithContent(FIELD_NAME_FILE, recordJsonText);
+        File wholeJsonFile = makeFileWithContent("whole.json", "{\"baz\":\"baz-value\"}");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile, "whole.json", wholeJsonFile);
+
+        // Execute
+        Map<String, Map<String, JsonNode>> cache = new HashMap<>();
+        uploadFileHelper.parseJsonFilesForFields(UPLOAD_ID, fileMap, ImmutableList.of(fooFieldDef, barFieldDef,
+                wholeFileFieldDef), cache);
+        assertEquals(cache.size(), 1);
+        Map<String, JsonNode> recordJsonMap = cache.get(FIELD_NAME_FILE);
+        assertEquals(recordJsonMap.size(), 2);
+        assertEquals(recordJsonMap.get("sanitize____foo").textValue(), "foo-value");
+        assertEquals(recordJsonMap.get("bar").intValue(), 42);
+
+        // Finding values uses the parsed file.
+        JsonNode fooResult = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fooFieldDef, cache);
+        assertEquals(fooResult.textValue(), "foo-value");
+        JsonNode barResult = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, barFieldDef, cache);
+        assertEquals(barResult.intValue(), 42);
+
+        // Verify we only read the file once, and never read the whole file.
+        verify(inMemoryFileHelper, times(1)).getInputStream(recordJsonFile);
+        verify(inMemoryFileHelper, never()).getInputStream(wholeJsonFile);
+    }
+
+    @Test
+    public void parseJsonFilesForFieldsSkipsLargeFiles() throws Exception {
+        uploadFileHelper.setParsedJsonFileSizeLimit(10);
+
+        UploadFieldDefinition fieldDef = new UploadFieldDefinition.Builder().withName(FIELD_NAME_JSON_KEY)
+                .withType(UploadFieldType.STRING).build();
+        File recordJsonFile = makeFileWithContent(FIELD_NAME_FILE, "{\"foo\":\"too long to parse\"}");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
+
+        Map<String, Map<String, JsonNode>> cache = new HashMap<>();
+        uploadFileHelper.parseJsonFilesForFields(UPLOAD_ID, fileMap, ImmutableList.of(fieldDef), cache);
+        assertTrue(cache.isEmpty());
+        verify(inMemoryFileHelper, never()).getInputStream(recordJsonFile);
+    }
+
+    @Test
+    public void parseJsonFilesForFieldsInvalidJson() throws Exception {
+        UploadFieldDefinition fieldDef = new UploadFieldDefinition.Builder().withName(FIELD_NAME_JSON_KEY)
+                .withType(UploadFieldType.STRING).build();
+        File recordJsonFile = makeFileWithContent(FIELD_NAME_FILE, "{\"foo\":\"value\", not json");
+        Map<String, File> fileMap = ImmutableMap.of(FIELD_NAME_FILE, recordJsonFile);
+
+        // The file is treated as having no values, and isn't parsed again.
+        Map<String, Map<String, JsonNode>> cache = new HashMap<>();
+        uploadFileHelper.parseJsonFilesForFields(UPLOAD_ID, fileMap, ImmutableList.of(fieldDef), cache);
+        assertTrue(cache.get(FIELD_NAME_FILE).isEmpty());
+
+        JsonNode result = uploadFileHelper.findValueForField(UPLOAD_ID, fileMap, fieldDef, cache);
+        assertNull(result);
+        verify(inMemoryFileHelper, times(1)).getInputStream(recordJsonFile);
+    }
+
     private File makeFileWithContent(String name, String content) {
         File file = inMemoryFileHelper.newFile(tmpDir, name);
         inMemoryFileHelper.writeBytes(file, content.getBytes(Charsets.UTF_8));
@@ -2,15 +2,24 @@ package org.sagebionetworks.bridge.upload;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.Upload;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
@@ -19,28 +28,29 @@ import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
-import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.file.FileHelper;
 import org.sagebionetworks.bridge.s3.S3Helper;
 
 public class UploadFileHelperTest {
     private static final byte[] CONTENT = "Hello world!".getBytes();
+    private static final String CONTENT_MD5_HEX_ENCODED = DigestUtils.md5Hex(CONTENT);
     private static final String FILENAME = "file.txt";
 
     @Mock
-    DigestUtils mockMd5DigestUtils;
+    FileHelper mockFileHelper;
 
     @Mock
     S3Helper mockS3Helper;
 
+    @Mock
+    TransferManager mockTransferManager;
+
     @InjectMocks
     UploadFileHelper helper;
 
     @BeforeMethod
     public void before() throws Exception {
         MockitoAnnotations.initMocks(this);
-
-        when(mockMd5DigestUtils.digest(any(File.class))).thenReturn(TestConstants.MOCK_MD5);
-        when(mockMd5DigestUtils.digest(any(byte[].class))).thenReturn(TestConstants.MOCK_MD5);
     }
 
     @Test
@@ -54,23 +64,71 @@ public class UploadFileHelperTest {
                 metadataCaptor.capture());
         ObjectMetadata metadata = metadataCaptor.getValue();
         assertEquals(metadata.getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
-                TestConstants.MOCK_MD5_HEX_ENCODED);
+                CONTENT_MD5_HEX_ENCODED);
         assertEquals(metadata.getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
     }
 
     @Test
     public void uploadFileAsAttachment() throws Exception {
-        // Execute.
         File mockFile = mock(File.class);
+        when(mockFileHelper.fileSize(mockFile)).thenReturn((long) CONTENT.length);
+        when(mockFileHelper.getInputStream(mockFile)).thenReturn(new ByteArrayInputStream(CONTENT));
+
+        // Execute.
         helper.uploadFileAsAttachment(FILENAME, mockFile);
 
-        // Verify.
+        // Verify. Small files are read once and uploaded from memory.
         ArgumentCaptor<ObjectMetadata> metadataCaptor = ArgumentCaptor.forClass(ObjectMetadata.class);
-        verify(mockS3Helper).writeFileToS3(eq(UploadFileHelper.ATTACHMENT_BUCKET), eq(FILENAME), same(mockFile),
+        verify(mockS3Helper).writeBytesToS3(eq(UploadFileHelper.ATTACHMENT_BUCKET), eq(FILENAME), eq(CONTENT),
                 metadataCaptor.capture());
         ObjectMetadata metadata = metadataCaptor.getValue();
         assertEquals(metadata.getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
-                TestConstants.MOCK_MD5_HEX_ENCODED);
+                CONTENT_MD5_HEX_ENCODED);
         assertEquals(metadata.getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+        verifyZeroInteractions(mockTransferManager);
+    }
+
+    @Test
+    public void uploadLargeFileAsAttachment() throws Exception {
+        helper.setMultipartUploadThreshold(CONTENT.length - 1);
+
+        File mockFile = mock(File.class);
+        when(mockFileHelper.fileSize(mockFile)).thenReturn((long) CONTENT.length);
+        when(mockFileHelper.getInputStream(mockFile)).thenReturn(new ByteArrayInputStream(CONTENT));
+
+        Upload mockUpload = mock(Upload.class);
+        when(mockTransferManager.upload(any(PutObjectRequest.class))).thenReturn(mockUpload);
+
+        // Execute.
+        helper.uploadFileAsAttachment(FILENAME, mockFile);
+
+        // Verify. Large files are uploaded in parts from the file.
+        ArgumentCaptor<PutObjectRequest> requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(mockTransferManager).upload(requestCaptor.capture());
+        verify(mockUpload).waitForCompletion();
+        verify(mockS3Helper, never()).writeBytesToS3(any(), any(), any(byte[].class), any());
+
+        PutObjectRequest request = requestCaptor.getValue();
+        assertEquals(request.getBucketName(), UploadFileHelper.ATTACHMENT_BUCKET);
+        assertEquals(request.getKey(), FILENAME);
+        assertSame(request.getFile(), mockFile);
+        assertEquals(request.getMetadata().getUserMetaDataOf(UploadFileHelper.KEY_CUSTOM_CONTENT_MD5),
+                CONTENT_MD5_HEX_ENCODED);
+        assertEquals(request.getMetadata().getSSEAlgorithm(), ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void uploadLargeFileAsAttachmentFails() throws Exception {
+        helper.setMultipartUploadThreshold(CONTENT.length - 1);
+
+        File mockFile = mock(File.class);
+        when(mockFileHelper.fileSize(mockFile)).thenReturn((long) CONTENT.length);
+        when(mockFileHelper.getInputStream(mockFile)).thenReturn(new ByteArrayInputStream(CONTENT));
+
+        Upload mockUpload = mock(Upload.class);
+        when(mockTransferManager.upload(any(PutObjectRequest.class))).thenReturn(mockUpload);
+        doThrow(new AmazonClientException("test")).when(mockUpload).waitForCompletion();
+
+        helper.uploadFileAsAttachment(FILENAME, mockFile);
     }
 }
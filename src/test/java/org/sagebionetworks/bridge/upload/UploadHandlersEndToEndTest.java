@@ -24,7 +24,6 @@ import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.joda.time.LocalDate;
@@ -35,6 +34,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.UploadDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoApp;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
@@ -199,13 +199,8 @@ public class UploadHandlersEndToEndTest {
         }
 
         // Set up UploadFileHelper
-        DigestUtils mockMd5DigestUtils = mock(DigestUtils.class);
-        when(mockMd5DigestUtils.digest(any(File.class))).thenReturn(TestConstants.MOCK_MD5);
-        when(mockMd5DigestUtils.digest(any(byte[].class))).thenReturn(TestConstants.MOCK_MD5);
-
         UploadFileHelper uploadFileHelper = new UploadFileHelper();
         uploadFileHelper.setFileHelper(inMemoryFileHelper);
-        uploadFileHelper.setMd5DigestUtils(mockMd5DigestUtils);
         uploadFileHelper.setS3Helper(mockS3UploadHelper);
 
         // set up S3DownloadHandler - mock S3 Helper
@@ -294,14 +289,15 @@ public class UploadHandlersEndToEndTest {
         account.setEnrollments(ImmutableSet.of(enrollment));
 
         AccountService mockAccountService = mock(AccountService.class);
-        when(mockAccountService.getAccount(any())).thenReturn(account);
+        when(mockAccountService.getAccount(any(), any())).thenReturn(account);
 
         ParticipantService mockParticipantService = mock(ParticipantService.class);
-        when(mockParticipantService.getStudyStartTime(any())).thenReturn(STUDY_START_TIME);
+        when(mockParticipantService.getStudyStartTime(any(Account.class))).thenReturn(STUDY_START_TIME);
 
         TranscribeConsentHandler transcribeConsentHandler = new TranscribeConsentHandler();
         transcribeConsentHandler.setAccountService(mockAccountService);
         transcribeConsentHandler.setParticipantService(mockParticipantService);
+        transcribeConsentHandler.setCacheProvider(mock(CacheProvider.class));
 
         // Set up UploadRawZipHandler.
         UploadRawZipHandler uploadRawZipHandler = new UploadRawZipHandler();
@@ -819,7 +815,8 @@ public class UploadHandlersEndToEndTest {
     }
 
     private void validateRawDataAttachment(String expectedFilename) {
-        verify(mockS3UploadHelper).writeFileToS3(eq(TestConstants.ATTACHMENT_BUCKET), eq(expectedFilename),
+        // Raw data is small enough to be read once and uploaded from memory.
+        verify(mockS3UploadHelper).writeBytesToS3(eq(TestConstants.ATTACHMENT_BUCKET), eq(expectedFilename),
                 any(), metadataCaptor.capture());
         byte[] rawDataBytes = uploadedFileContentMap.get(expectedFilename);
         assertEquals(rawDataBytes, rawFile);
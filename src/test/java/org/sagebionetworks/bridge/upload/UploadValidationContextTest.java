@@ -79,6 +79,7 @@ public class UploadValidationContextTest {
         assertSame(copy.getInfoJsonNode(), infoJsonNode);
         assertSame(copy.getHealthDataRecord(), record);
         assertEquals(copy.getRecordId(), "test-record");
+        assertSame(copy.getParsedSanitizedJsonFileCache(), original.getParsedSanitizedJsonFileCache());
 
         assertEquals(copy.getMessageList().size(), 1);
         assertEquals(copy.getMessageList().get(0), "common message");